@@ -41,6 +41,7 @@ import java.util.Set;
 import java.util.TimeZone;
 import java.util.Timer;
 import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
 
 import com.mysql.fabric.FabricCommunicationException;
 import com.mysql.fabric.FabricConnection;
@@ -69,6 +70,7 @@ import com.mysql.jdbc.ServerPreparedStatement;
 import com.mysql.jdbc.SingleByteCharsetConverter;
 import com.mysql.jdbc.StatementImpl;
 import com.mysql.jdbc.StatementInterceptorV2;
+import com.mysql.jdbc.TimezoneOffsetTable;
 import com.mysql.jdbc.log.Log;
 import com.mysql.jdbc.log.LogFactory;
 import com.mysql.jdbc.profiler.ProfilerEventHandler;
@@ -2864,6 +2866,14 @@ public class FabricMySQLConnectionProxy extends ConnectionPropertiesImpl impleme
         return null;
     }
 
+    public TimezoneOffsetTable getTimezoneOffsetTable(TimeZone tz) {
+        return getActiveMySQLConnectionPassive().getTimezoneOffsetTable(tz);
+    }
+
+    public Lock getConnectionLock() {
+        return getActiveMySQLConnectionPassive().getConnectionLock();
+    }
+
     public void incrementNumberOfPreparedExecutes() {
     }
 
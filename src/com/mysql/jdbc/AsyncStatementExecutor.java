@@ -0,0 +1,207 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+
+/**
+ * Runs statement executions submitted through {@link Statement#executeQueryAsync(String)} and {@link Statement#executeUpdateAsync(String)}, and driver
+ * tasks that run alongside an execution.
+ * 
+ * Executions share one executor for the whole VM. It creates a virtual thread per execution when the VM supports them, so that many connections waiting
+ * for their results don't tie up as many platform threads, and otherwise falls back to a cached pool of daemon threads.
+ */
+class AsyncStatementExecutor {
+    private static final ExecutorService EXECUTOR = createExecutor();
+
+    /** Bounds the tasks run through submitComputation() to one per processor */
+    private static final Semaphore COMPUTATION_PERMITS = new Semaphore(Runtime.getRuntime().availableProcessors());
+
+    private static ExecutorService createExecutor() {
+        // Use reflection magic to get a virtual thread per task executor on VMs that have one, fallback to platform threads on older VMs.
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Throwable t) {
+            final AtomicInteger threadNumber = new AtomicInteger();
+
+            return new ThreadPoolExecutor(0, Integer.MAX_VALUE, 60L, TimeUnit.SECONDS, new SynchronousQueue<Runnable>(), new ThreadFactory() {
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "MySQL Statement Async Executor " + threadNumber.incrementAndGet());
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+    }
+
+    /**
+     * Submits the given execution of the given statement.
+     * 
+     * @return a Future whose cancel(true) cancels the statement on the server if the execution already started
+     */
+    static <V> Future<V> submit(StatementImpl stmt, Callable<V> execution) {
+        StatementFuture<V> future = new StatementFuture<V>(stmt, execution);
+
+        EXECUTOR.execute(future);
+
+        return future;
+    }
+
+    /**
+     * Runs a task of the driver that must proceed concurrently with the statement being executed, such as encoding the rows of a LocalInfileRowProducer.
+     */
+    static void execute(Runnable task) {
+        EXECUTOR.execute(task);
+    }
+
+    /**
+     * Runs a CPU bound task of the driver, such as decoding a chunk of rows for "useParallelRowDecoding". It runs on a driver thread while fewer such
+     * tasks than there are processors are running, and otherwise on the calling thread, which holds off whatever it would do next until the others catch up.
+     */
+    static <V> Future<V> submitComputation(Callable<V> task) {
+        if (!COMPUTATION_PERMITS.tryAcquire()) {
+            FutureTask<V> future = new FutureTask<V>(task);
+            future.run();
+
+            return future;
+        }
+
+        FutureTask<V> future = new FutureTask<V>(task) {
+            @Override
+            protected void done() {
+                COMPUTATION_PERMITS.release();
+            }
+        };
+
+        try {
+            EXECUTOR.execute(future);
+        } catch (RuntimeException e) {
+            COMPUTATION_PERMITS.release();
+
+            throw e;
+        }
+
+        return future;
+    }
+
+    /**
+     * Interrupting a thread doesn't interrupt a pending socket read, so cancellation goes through Statement.cancel() instead.
+     */
+    private static class StatementFuture<V> extends FutureTask<V> {
+        private final Execution<V> execution;
+
+        StatementFuture(StatementImpl stmt, Callable<V> execution) {
+            this(new Execution<V>(stmt, execution));
+        }
+
+        private StatementFuture(Execution<V> execution) {
+            super(execution);
+            this.execution = execution;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(false);
+
+            if (cancelled && mayInterruptIfRunning) {
+                this.execution.cancel();
+            }
+
+            return cancelled;
+        }
+    }
+
+    /**
+     * Runs the execution holding the connection, and records whether it is running under the statement's cancelTimeoutMutex, the same mutex CancelTask
+     * holds while it kills a timed out query. The record is cleared before the connection is released, so a cancel that finds it set kills this execution,
+     * never the next statement sent on the connection.
+     */
+    private static class Execution<V> implements Callable<V> {
+        private final StatementImpl stmt;
+        private final Callable<V> task;
+        private boolean running = false;
+
+        Execution(StatementImpl stmt, Callable<V> task) {
+            this.stmt = stmt;
+            this.task = task;
+        }
+
+        public V call() throws Exception {
+            MySQLConnection conn = this.stmt.checkClosed();
+            Lock connectionLock = conn.getConnectionLock();
+
+            if (connectionLock == null) {
+                synchronized (conn.getConnectionMutex()) {
+                    return callTracked();
+                }
+            }
+
+            connectionLock.lock();
+
+            try {
+                return callTracked();
+            } finally {
+                connectionLock.unlock();
+            }
+        }
+
+        private V callTracked() throws Exception {
+            synchronized (this.stmt.cancelTimeoutMutex) {
+                this.running = true;
+            }
+
+            try {
+                return this.task.call();
+            } finally {
+                synchronized (this.stmt.cancelTimeoutMutex) {
+                    this.running = false;
+                }
+            }
+        }
+
+        void cancel() {
+            synchronized (this.stmt.cancelTimeoutMutex) {
+                if (this.running) {
+                    try {
+                        this.stmt.cancel();
+                    } catch (SQLException sqlEx) {
+                        // the execution completes with the server's error, or it already completed
+                    }
+                }
+            }
+        }
+    }
+}
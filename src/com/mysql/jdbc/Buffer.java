@@ -27,6 +27,8 @@ import java.io.UnsupportedEncodingException;
 import java.nio.ByteBuffer;
 import java.sql.SQLException;
 
+import com.mysql.jdbc.util.BufferPool;
+
 /**
  * Buffer contains code to read and write packets from/to the MySQL server.
  */
@@ -138,7 +140,7 @@ public class Buffer {
                     newLength = this.byteBuffer.length + additionalData;
                 }
 
-                byte[] newBytes = new byte[newLength];
+                byte[] newBytes = BufferPool.allocate(newLength);
 
                 System.arraycopy(this.byteBuffer, 0, newBytes, 0, this.byteBuffer.length);
                 this.byteBuffer = newBytes;
@@ -211,8 +213,17 @@ public class Buffer {
         return this.byteBuffer.length;
     }
 
+    /**
+     * Returns a java.nio view of this buffer. The view shares the backing array (no copy is made), starts at the current position and is limited to the
+     * buffer length, so it can be handed directly to channel reads and writes.
+     * 
+     * @return a ByteBuffer view of this buffer
+     */
     public ByteBuffer getNioBuffer() {
-        throw new IllegalArgumentException(Messages.getString("ByteArrayBuffer.0"));
+        ByteBuffer view = ByteBuffer.wrap(this.byteBuffer, 0, getBufLength());
+        view.position(Math.min(this.position, getBufLength()));
+
+        return view;
     }
 
     /**
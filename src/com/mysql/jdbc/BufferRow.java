@@ -29,6 +29,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.SQLException;
 import java.sql.Time;
@@ -396,6 +397,36 @@ public class BufferRow extends ResultSetRow {
         return StringUtils.getLong(this.rowFromServer.getByteBuffer(), offset, offset + (int) length);
     }
 
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        findAndSeekToOffset(columnIndex);
+
+        long length = this.rowFromServer.readFieldLength();
+
+        int offset = this.rowFromServer.getPosition();
+
+        if (length == Buffer.NULL_LENGTH) {
+            return 0;
+        }
+
+        return StringUtils.getDouble(this.rowFromServer.getByteBuffer(), offset, offset + (int) length);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        findAndSeekToOffset(columnIndex);
+
+        long length = this.rowFromServer.readFieldLength();
+
+        int offset = this.rowFromServer.getPosition();
+
+        if (length == Buffer.NULL_LENGTH) {
+            return null;
+        }
+
+        return StringUtils.getBigDecimal(this.rowFromServer.getByteBuffer(), offset, offset + (int) length);
+    }
+
     @Override
     public double getNativeDouble(int columnIndex) throws SQLException {
         if (isNull(columnIndex)) {
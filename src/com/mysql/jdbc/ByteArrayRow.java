@@ -28,6 +28,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.SQLException;
 import java.sql.Time;
@@ -118,6 +119,24 @@ public class ByteArrayRow extends ResultSetRow {
         return StringUtils.getLong(this.internalRowData[columnIndex]);
     }
 
+    @Override
+    public double getDouble(int columnIndex) {
+        if (this.internalRowData[columnIndex] == null) {
+            return 0;
+        }
+
+        return StringUtils.getDouble(this.internalRowData[columnIndex]);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) {
+        if (this.internalRowData[columnIndex] == null) {
+            return null;
+        }
+
+        return StringUtils.getBigDecimal(this.internalRowData[columnIndex]);
+    }
+
     @Override
     public Timestamp getTimestampFast(int columnIndex, Calendar targetCalendar, TimeZone tz, boolean rollForward, MySQLConnection conn, ResultSetImpl rs)
             throws SQLException {
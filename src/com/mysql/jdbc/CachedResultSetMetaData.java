@@ -35,6 +35,9 @@ public class CachedResultSetMetaData {
     /** Map of fully-specified column names to column indices */
     Map<String, Integer> fullColumnNameToIndex = null;
 
+    /** Map of original (not aliased) column names to column indices */
+    Map<String, Integer> originalColumnNameToIndex = null;
+
     /** Cached ResultSetMetaData */
     java.sql.ResultSetMetaData metadata;
 
@@ -53,4 +56,29 @@ public class CachedResultSetMetaData {
     public java.sql.ResultSetMetaData getMetadata() {
         return this.metadata;
     }
+
+    /**
+     * Returns a copy of this metadata for another connection. The fields are copied and bound to the given connection, the column index maps, which are
+     * not modified once built, are shared. With a null connection, the copy isn't bound to any connection and has no ResultSetMetaData; it can only be
+     * copied again, which is how the metadata is published to the cache shared by the connections.
+     */
+    CachedResultSetMetaData copyForConnection(MySQLConnection conn) {
+        CachedResultSetMetaData copy = new CachedResultSetMetaData();
+
+        copy.fields = new Field[this.fields.length];
+
+        for (int i = 0; i < this.fields.length; i++) {
+            copy.fields[i] = new Field(this.fields[i], conn);
+        }
+
+        copy.columnNameToIndex = this.columnNameToIndex;
+        copy.fullColumnNameToIndex = this.fullColumnNameToIndex;
+        copy.originalColumnNameToIndex = this.originalColumnNameToIndex;
+
+        if (conn != null) {
+            copy.metadata = new ResultSetMetaData(copy.fields, conn.getUseOldAliasMetadataBehavior(), conn.getYearIsDateType(), conn.getExceptionInterceptor());
+        }
+
+        return copy;
+    }
 }
\ No newline at end of file
@@ -46,6 +46,7 @@ import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Representation of stored procedures for JDBC
@@ -772,72 +773,90 @@ public class CallableStatement extends PreparedStatement implements java.sql.Cal
     }
 
     private void determineParameterTypes() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            java.sql.ResultSet paramTypesRs = null;
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            try {
-                //Bug#57022, we need to check for db.SPname notation first and pass on only SPname
-                String procName = extractProcedureName();
-                String quotedId = "";
-                try {
-                    quotedId = this.connection.supportsQuotedIdentifiers() ? this.connection.getMetaData().getIdentifierQuoteString() : "";
-                } catch (SQLException sqlEx) {
-                    // Forced by API, never thrown from getIdentifierQuoteString() in
-                    // this implementation.
-                    AssertionFailedException.shouldNotHappen(sqlEx);
-                }
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                determineParameterTypesLocked();
+            }
 
-                List<?> parseList = StringUtils.splitDBdotName(procName, "", quotedId, this.connection.isNoBackslashEscapesSet());
-                String tmpCatalog = "";
-                //There *should* be 2 rows, if any.
-                if (parseList.size() == 2) {
-                    tmpCatalog = (String) parseList.get(0);
-                    procName = (String) parseList.get(1);
-                } else {
-                    //keep values as they are
-                }
+            return;
+        }
 
-                java.sql.DatabaseMetaData dbmd = this.connection.getMetaData();
+        connectionLock.lock();
 
-                boolean useCatalog = false;
+        try {
+            determineParameterTypesLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                if (tmpCatalog.length() <= 0) {
-                    useCatalog = true;
-                }
+    private void determineParameterTypesLocked() throws SQLException {
+        java.sql.ResultSet paramTypesRs = null;
 
-                paramTypesRs = dbmd.getProcedureColumns(
-                        this.connection.versionMeetsMinimum(5, 0, 2) && useCatalog ? this.currentCatalog : tmpCatalog/* null */, null, procName, "%");
+        try {
+            //Bug#57022, we need to check for db.SPname notation first and pass on only SPname
+            String procName = extractProcedureName();
+            String quotedId = "";
+            try {
+                quotedId = this.connection.supportsQuotedIdentifiers() ? this.connection.getMetaData().getIdentifierQuoteString() : "";
+            } catch (SQLException sqlEx) {
+                // Forced by API, never thrown from getIdentifierQuoteString() in
+                // this implementation.
+                AssertionFailedException.shouldNotHappen(sqlEx);
+            }
 
-                boolean hasResults = false;
-                try {
-                    if (paramTypesRs.next()) {
-                        paramTypesRs.previous();
-                        hasResults = true;
-                    }
-                } catch (Exception e) {
-                    // paramTypesRs is empty, proceed with fake params. swallow, was expected 
-                }
-                if (hasResults) {
-                    convertGetProcedureColumnsToInternalDescriptors(paramTypesRs);
-                } else {
-                    fakeParameterTypes(true);
-                }
-            } finally {
-                SQLException sqlExRethrow = null;
+            List<?> parseList = StringUtils.splitDBdotName(procName, "", quotedId, this.connection.isNoBackslashEscapesSet());
+            String tmpCatalog = "";
+            //There *should* be 2 rows, if any.
+            if (parseList.size() == 2) {
+                tmpCatalog = (String) parseList.get(0);
+                procName = (String) parseList.get(1);
+            } else {
+                //keep values as they are
+            }
 
-                if (paramTypesRs != null) {
-                    try {
-                        paramTypesRs.close();
-                    } catch (SQLException sqlEx) {
-                        sqlExRethrow = sqlEx;
-                    }
+            java.sql.DatabaseMetaData dbmd = this.connection.getMetaData();
+
+            boolean useCatalog = false;
 
-                    paramTypesRs = null;
+            if (tmpCatalog.length() <= 0) {
+                useCatalog = true;
+            }
+
+            paramTypesRs = dbmd.getProcedureColumns(
+                    this.connection.versionMeetsMinimum(5, 0, 2) && useCatalog ? this.currentCatalog : tmpCatalog/* null */, null, procName, "%");
+
+            boolean hasResults = false;
+            try {
+                if (paramTypesRs.next()) {
+                    paramTypesRs.previous();
+                    hasResults = true;
                 }
+            } catch (Exception e) {
+                // paramTypesRs is empty, proceed with fake params. swallow, was expected 
+            }
+            if (hasResults) {
+                convertGetProcedureColumnsToInternalDescriptors(paramTypesRs);
+            } else {
+                fakeParameterTypes(true);
+            }
+        } finally {
+            SQLException sqlExRethrow = null;
 
-                if (sqlExRethrow != null) {
-                    throw sqlExRethrow;
+            if (paramTypesRs != null) {
+                try {
+                    paramTypesRs.close();
+                } catch (SQLException sqlEx) {
+                    sqlExRethrow = sqlEx;
                 }
+
+                paramTypesRs = null;
+            }
+
+            if (sqlExRethrow != null) {
+                throw sqlExRethrow;
             }
         }
     }
@@ -859,31 +878,47 @@ public class CallableStatement extends PreparedStatement implements java.sql.Cal
      */
     @Override
     public boolean execute() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            boolean returnVal = false;
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            checkStreamability();
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeLocked();
+            }
+        }
 
-            setInOutParamsOnServer();
-            setOutParams();
+        connectionLock.lock();
 
-            returnVal = super.execute();
+        try {
+            return executeLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            if (this.callingStoredFunction) {
-                this.functionReturnValueResults = this.results;
-                this.functionReturnValueResults.next();
-                this.results = null;
-            }
+    private boolean executeLocked() throws SQLException {
+        boolean returnVal = false;
 
-            retrieveOutParams();
+        checkStreamability();
 
-            if (!this.callingStoredFunction) {
-                return returnVal;
-            }
+        setInOutParamsOnServer();
+        setOutParams();
 
-            // Functions can't return results
-            return false;
+        returnVal = super.execute();
+
+        if (this.callingStoredFunction) {
+            this.functionReturnValueResults = this.results;
+            this.functionReturnValueResults.next();
+            this.results = null;
+        }
+
+        retrieveOutParams();
+
+        if (!this.callingStoredFunction) {
+            return returnVal;
         }
+
+        // Functions can't return results
+        return false;
     }
 
     /*
@@ -893,21 +928,36 @@ public class CallableStatement extends PreparedStatement implements java.sql.Cal
      */
     @Override
     public java.sql.ResultSet executeQuery() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            checkStreamability();
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeQueryLocked();
+            }
+        }
 
-            java.sql.ResultSet execResults = null;
+        connectionLock.lock();
 
-            setInOutParamsOnServer();
-            setOutParams();
+        try {
+            return executeQueryLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            execResults = super.executeQuery();
+    private java.sql.ResultSet executeQueryLocked() throws SQLException {
+        checkStreamability();
 
-            retrieveOutParams();
+        java.sql.ResultSet execResults = null;
 
-            return execResults;
-        }
+        setInOutParamsOnServer();
+        setOutParams();
+
+        execResults = super.executeQuery();
+
+        retrieveOutParams();
+
+        return execResults;
     }
 
     /*
@@ -917,26 +967,42 @@ public class CallableStatement extends PreparedStatement implements java.sql.Cal
      */
     @Override
     public int executeUpdate() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            int returnVal = -1;
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            checkStreamability();
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeUpdateLocked();
+            }
+        }
 
-            if (this.callingStoredFunction) {
-                execute();
+        connectionLock.lock();
 
-                return -1;
-            }
+        try {
+            return executeUpdateLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            setInOutParamsOnServer();
-            setOutParams();
+    private int executeUpdateLocked() throws SQLException {
+        int returnVal = -1;
 
-            returnVal = super.executeUpdate();
+        checkStreamability();
 
-            retrieveOutParams();
+        if (this.callingStoredFunction) {
+            execute();
 
-            return returnVal;
+            return -1;
         }
+
+        setInOutParamsOnServer();
+        setOutParams();
+
+        returnVal = super.executeUpdate();
+
+        retrieveOutParams();
+
+        return returnVal;
     }
 
     private String extractProcedureName() throws SQLException {
@@ -1905,76 +1971,94 @@ public class CallableStatement extends PreparedStatement implements java.sql.Cal
      *             if an error occurs.
      */
     private void retrieveOutParams() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            int numParameters = this.paramInfo.numberOfParameters();
-
-            this.parameterIndexToRsIndex = new int[numParameters];
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            for (int i = 0; i < numParameters; i++) {
-                this.parameterIndexToRsIndex[i] = NOT_OUTPUT_PARAMETER_INDICATOR;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                retrieveOutParamsLocked();
             }
 
-            int localParamIndex = 0;
+            return;
+        }
 
-            if (numParameters > 0) {
-                StringBuilder outParameterQuery = new StringBuilder("SELECT ");
+        connectionLock.lock();
 
-                boolean firstParam = true;
-                boolean hadOutputParams = false;
+        try {
+            retrieveOutParamsLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                for (Iterator<CallableStatementParam> paramIter = this.paramInfo.iterator(); paramIter.hasNext();) {
-                    CallableStatementParam retrParamInfo = paramIter.next();
+    private void retrieveOutParamsLocked() throws SQLException {
+        int numParameters = this.paramInfo.numberOfParameters();
 
-                    if (retrParamInfo.isOut) {
-                        hadOutputParams = true;
+        this.parameterIndexToRsIndex = new int[numParameters];
 
-                        this.parameterIndexToRsIndex[retrParamInfo.index] = localParamIndex++;
+        for (int i = 0; i < numParameters; i++) {
+            this.parameterIndexToRsIndex[i] = NOT_OUTPUT_PARAMETER_INDICATOR;
+        }
 
-                        if ((retrParamInfo.paramName == null) && (hasParametersView())) {
-                            retrParamInfo.paramName = "nullnp" + retrParamInfo.index;
-                        }
+        int localParamIndex = 0;
 
-                        String outParameterName = mangleParameterName(retrParamInfo.paramName);
+        if (numParameters > 0) {
+            StringBuilder outParameterQuery = new StringBuilder("SELECT ");
 
-                        if (!firstParam) {
-                            outParameterQuery.append(",");
-                        } else {
-                            firstParam = false;
-                        }
+            boolean firstParam = true;
+            boolean hadOutputParams = false;
 
-                        if (!outParameterName.startsWith("@")) {
-                            outParameterQuery.append('@');
-                        }
+            for (Iterator<CallableStatementParam> paramIter = this.paramInfo.iterator(); paramIter.hasNext();) {
+                CallableStatementParam retrParamInfo = paramIter.next();
+
+                if (retrParamInfo.isOut) {
+                    hadOutputParams = true;
 
-                        outParameterQuery.append(outParameterName);
+                    this.parameterIndexToRsIndex[retrParamInfo.index] = localParamIndex++;
+
+                    if ((retrParamInfo.paramName == null) && (hasParametersView())) {
+                        retrParamInfo.paramName = "nullnp" + retrParamInfo.index;
                     }
+
+                    String outParameterName = mangleParameterName(retrParamInfo.paramName);
+
+                    if (!firstParam) {
+                        outParameterQuery.append(",");
+                    } else {
+                        firstParam = false;
+                    }
+
+                    if (!outParameterName.startsWith("@")) {
+                        outParameterQuery.append('@');
+                    }
+
+                    outParameterQuery.append(outParameterName);
                 }
+            }
 
-                if (hadOutputParams) {
-                    // We can't use 'ourself' to execute this query, or any pending result sets would be overwritten
-                    java.sql.Statement outParameterStmt = null;
-                    java.sql.ResultSet outParamRs = null;
+            if (hadOutputParams) {
+                // We can't use 'ourself' to execute this query, or any pending result sets would be overwritten
+                java.sql.Statement outParameterStmt = null;
+                java.sql.ResultSet outParamRs = null;
 
-                    try {
-                        outParameterStmt = this.connection.createStatement();
-                        outParamRs = outParameterStmt.executeQuery(outParameterQuery.toString());
-                        this.outputParameterResults = ((com.mysql.jdbc.ResultSetInternalMethods) outParamRs).copy();
+                try {
+                    outParameterStmt = this.connection.createStatement();
+                    outParamRs = outParameterStmt.executeQuery(outParameterQuery.toString());
+                    this.outputParameterResults = ((com.mysql.jdbc.ResultSetInternalMethods) outParamRs).copy();
 
-                        if (!this.outputParameterResults.next()) {
-                            this.outputParameterResults.close();
-                            this.outputParameterResults = null;
-                        }
-                    } finally {
-                        if (outParameterStmt != null) {
-                            outParameterStmt.close();
-                        }
+                    if (!this.outputParameterResults.next()) {
+                        this.outputParameterResults.close();
+                        this.outputParameterResults = null;
+                    }
+                } finally {
+                    if (outParameterStmt != null) {
+                        outParameterStmt.close();
                     }
-                } else {
-                    this.outputParameterResults = null;
                 }
             } else {
                 this.outputParameterResults = null;
             }
+        } else {
+            this.outputParameterResults = null;
         }
     }
 
@@ -2056,67 +2140,85 @@ public class CallableStatement extends PreparedStatement implements java.sql.Cal
     }
 
     private void setInOutParamsOnServer() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (this.paramInfo.numParameters > 0) {
-                for (Iterator<CallableStatementParam> paramIter = this.paramInfo.iterator(); paramIter.hasNext();) {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-                    CallableStatementParam inParamInfo = paramIter.next();
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                setInOutParamsOnServerLocked();
+            }
 
-                    //Fix for 5.5+
-                    if (inParamInfo.isOut && inParamInfo.isIn) {
-                        if ((inParamInfo.paramName == null) && (hasParametersView())) {
-                            inParamInfo.paramName = "nullnp" + inParamInfo.index;
-                        }
+            return;
+        }
 
-                        String inOutParameterName = mangleParameterName(inParamInfo.paramName);
-                        StringBuilder queryBuf = new StringBuilder(4 + inOutParameterName.length() + 1 + 1);
-                        queryBuf.append("SET ");
-                        queryBuf.append(inOutParameterName);
-                        queryBuf.append("=?");
+        connectionLock.lock();
 
-                        PreparedStatement setPstmt = null;
+        try {
+            setInOutParamsOnServerLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                        try {
-                            setPstmt = (PreparedStatement) this.connection.clientPrepareStatement(queryBuf.toString());
+    private void setInOutParamsOnServerLocked() throws SQLException {
+        if (this.paramInfo.numParameters > 0) {
+            for (Iterator<CallableStatementParam> paramIter = this.paramInfo.iterator(); paramIter.hasNext();) {
 
-                            if (this.isNull[inParamInfo.index]) {
-                                setPstmt.setBytesNoEscapeNoQuotes(1, "NULL".getBytes());
+                CallableStatementParam inParamInfo = paramIter.next();
 
-                            } else {
-                                byte[] parameterAsBytes = getBytesRepresentation(inParamInfo.index);
-
-                                if (parameterAsBytes != null) {
-                                    if (parameterAsBytes.length > 8 && parameterAsBytes[0] == '_' && parameterAsBytes[1] == 'b' && parameterAsBytes[2] == 'i'
-                                            && parameterAsBytes[3] == 'n' && parameterAsBytes[4] == 'a' && parameterAsBytes[5] == 'r'
-                                            && parameterAsBytes[6] == 'y' && parameterAsBytes[7] == '\'') {
-                                        setPstmt.setBytesNoEscapeNoQuotes(1, parameterAsBytes);
-                                    } else {
-                                        int sqlType = inParamInfo.desiredJdbcType;
-
-                                        switch (sqlType) {
-                                            case Types.BIT:
-                                            case Types.BINARY:
-                                            case Types.BLOB:
-                                            case Types.JAVA_OBJECT:
-                                            case Types.LONGVARBINARY:
-                                            case Types.VARBINARY:
-                                                setPstmt.setBytes(1, parameterAsBytes);
-                                                break;
-                                            default:
-                                                // the inherited PreparedStatement methods have already escaped and quoted these parameters
-                                                setPstmt.setBytesNoEscape(1, parameterAsBytes);
-                                        }
-                                    }
+                //Fix for 5.5+
+                if (inParamInfo.isOut && inParamInfo.isIn) {
+                    if ((inParamInfo.paramName == null) && (hasParametersView())) {
+                        inParamInfo.paramName = "nullnp" + inParamInfo.index;
+                    }
+
+                    String inOutParameterName = mangleParameterName(inParamInfo.paramName);
+                    StringBuilder queryBuf = new StringBuilder(4 + inOutParameterName.length() + 1 + 1);
+                    queryBuf.append("SET ");
+                    queryBuf.append(inOutParameterName);
+                    queryBuf.append("=?");
+
+                    PreparedStatement setPstmt = null;
+
+                    try {
+                        setPstmt = (PreparedStatement) this.connection.clientPrepareStatement(queryBuf.toString());
+
+                        if (this.isNull[inParamInfo.index]) {
+                            setPstmt.setBytesNoEscapeNoQuotes(1, "NULL".getBytes());
+
+                        } else {
+                            byte[] parameterAsBytes = getBytesRepresentation(inParamInfo.index);
+
+                            if (parameterAsBytes != null) {
+                                if (parameterAsBytes.length > 8 && parameterAsBytes[0] == '_' && parameterAsBytes[1] == 'b' && parameterAsBytes[2] == 'i'
+                                        && parameterAsBytes[3] == 'n' && parameterAsBytes[4] == 'a' && parameterAsBytes[5] == 'r'
+                                        && parameterAsBytes[6] == 'y' && parameterAsBytes[7] == '\'') {
+                                    setPstmt.setBytesNoEscapeNoQuotes(1, parameterAsBytes);
                                 } else {
-                                    setPstmt.setNull(1, Types.NULL);
+                                    int sqlType = inParamInfo.desiredJdbcType;
+
+                                    switch (sqlType) {
+                                        case Types.BIT:
+                                        case Types.BINARY:
+                                        case Types.BLOB:
+                                        case Types.JAVA_OBJECT:
+                                        case Types.LONGVARBINARY:
+                                        case Types.VARBINARY:
+                                            setPstmt.setBytes(1, parameterAsBytes);
+                                            break;
+                                        default:
+                                            // the inherited PreparedStatement methods have already escaped and quoted these parameters
+                                            setPstmt.setBytesNoEscape(1, parameterAsBytes);
+                                    }
                                 }
+                            } else {
+                                setPstmt.setNull(1, Types.NULL);
                             }
+                        }
 
-                            setPstmt.executeUpdate();
-                        } finally {
-                            if (setPstmt != null) {
-                                setPstmt.close();
-                            }
+                        setPstmt.executeUpdate();
+                    } finally {
+                        if (setPstmt != null) {
+                            setPstmt.close();
                         }
                     }
                 }
@@ -2173,43 +2275,61 @@ public class CallableStatement extends PreparedStatement implements java.sql.Cal
     }
 
     private void setOutParams() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (this.paramInfo.numParameters > 0) {
-                for (Iterator<CallableStatementParam> paramIter = this.paramInfo.iterator(); paramIter.hasNext();) {
-                    CallableStatementParam outParamInfo = paramIter.next();
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-                    if (!this.callingStoredFunction && outParamInfo.isOut) {
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                setOutParamsLocked();
+            }
 
-                        if ((outParamInfo.paramName == null) && (hasParametersView())) {
-                            outParamInfo.paramName = "nullnp" + outParamInfo.index;
-                        }
+            return;
+        }
 
-                        String outParameterName = mangleParameterName(outParamInfo.paramName);
+        connectionLock.lock();
 
-                        int outParamIndex = 0;
+        try {
+            setOutParamsLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                        if (this.placeholderToParameterIndexMap == null) {
-                            outParamIndex = outParamInfo.index + 1;
-                        } else {
-                            // Find it, todo: remove this linear search
-                            boolean found = false;
-
-                            for (int i = 0; i < this.placeholderToParameterIndexMap.length; i++) {
-                                if (this.placeholderToParameterIndexMap[i] == outParamInfo.index) {
-                                    outParamIndex = i + 1; /* JDBC is 1-based */
-                                    found = true;
-                                    break;
-                                }
-                            }
+    private void setOutParamsLocked() throws SQLException {
+        if (this.paramInfo.numParameters > 0) {
+            for (Iterator<CallableStatementParam> paramIter = this.paramInfo.iterator(); paramIter.hasNext();) {
+                CallableStatementParam outParamInfo = paramIter.next();
 
-                            if (!found) {
-                                throw SQLError.createSQLException("boo!", "S1000", this.connection.getExceptionInterceptor());
+                if (!this.callingStoredFunction && outParamInfo.isOut) {
+
+                    if ((outParamInfo.paramName == null) && (hasParametersView())) {
+                        outParamInfo.paramName = "nullnp" + outParamInfo.index;
+                    }
+
+                    String outParameterName = mangleParameterName(outParamInfo.paramName);
+
+                    int outParamIndex = 0;
+
+                    if (this.placeholderToParameterIndexMap == null) {
+                        outParamIndex = outParamInfo.index + 1;
+                    } else {
+                        // Find it, todo: remove this linear search
+                        boolean found = false;
+
+                        for (int i = 0; i < this.placeholderToParameterIndexMap.length; i++) {
+                            if (this.placeholderToParameterIndexMap[i] == outParamInfo.index) {
+                                outParamIndex = i + 1; /* JDBC is 1-based */
+                                found = true;
+                                break;
                             }
                         }
 
-                        this.setBytesNoEscapeNoQuotes(outParamIndex, StringUtils.getBytes(outParameterName, this.charConverter, this.charEncoding,
-                                this.connection.getServerCharset(), this.connection.parserKnowsUnicode(), getExceptionInterceptor()));
+                        if (!found) {
+                            throw SQLError.createSQLException("boo!", "S1000", this.connection.getExceptionInterceptor());
+                        }
                     }
+
+                    this.setBytesNoEscapeNoQuotes(outParamIndex, StringUtils.getBytes(outParameterName, this.charConverter, this.charEncoding,
+                            this.connection.getServerCharset(), this.connection.parserKnowsUnicode(), getExceptionInterceptor()));
                 }
             }
         }
@@ -2369,66 +2489,82 @@ public class CallableStatement extends PreparedStatement implements java.sql.Cal
      * @throws SQLException
      */
     private boolean checkReadOnlyProcedure() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (this.connection.getNoAccessToProcedureBodies()) {
-                return false;
-            }
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            if (this.paramInfo.isReadOnlySafeChecked) {
-                return this.paramInfo.isReadOnlySafeProcedure;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return checkReadOnlyProcedureLocked();
             }
+        }
 
-            ResultSet rs = null;
-            java.sql.PreparedStatement ps = null;
+        connectionLock.lock();
 
-            try {
-                String procName = extractProcedureName();
+        try {
+            return checkReadOnlyProcedureLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private boolean checkReadOnlyProcedureLocked() throws SQLException {
+        if (this.connection.getNoAccessToProcedureBodies()) {
+            return false;
+        }
 
-                String catalog = this.currentCatalog;
+        if (this.paramInfo.isReadOnlySafeChecked) {
+            return this.paramInfo.isReadOnlySafeProcedure;
+        }
 
-                if (procName.indexOf(".") != -1) {
-                    catalog = procName.substring(0, procName.indexOf("."));
+        ResultSet rs = null;
+        java.sql.PreparedStatement ps = null;
 
-                    if (StringUtils.startsWithIgnoreCaseAndWs(catalog, "`") && catalog.trim().endsWith("`")) {
-                        catalog = catalog.substring(1, catalog.length() - 1);
-                    }
+        try {
+            String procName = extractProcedureName();
 
-                    procName = procName.substring(procName.indexOf(".") + 1);
-                    procName = StringUtils.toString(StringUtils.stripEnclosure(StringUtils.getBytes(procName), "`", "`"));
+            String catalog = this.currentCatalog;
+
+            if (procName.indexOf(".") != -1) {
+                catalog = procName.substring(0, procName.indexOf("."));
+
+                if (StringUtils.startsWithIgnoreCaseAndWs(catalog, "`") && catalog.trim().endsWith("`")) {
+                    catalog = catalog.substring(1, catalog.length() - 1);
                 }
-                ps = this.connection.prepareStatement("SELECT SQL_DATA_ACCESS FROM information_schema.routines WHERE routine_schema = ? AND routine_name = ?");
-                ps.setMaxRows(0);
-                ps.setFetchSize(0);
-
-                ps.setString(1, catalog);
-                ps.setString(2, procName);
-                rs = ps.executeQuery();
-                if (rs.next()) {
-                    String sqlDataAccess = rs.getString(1);
-                    if ("READS SQL DATA".equalsIgnoreCase(sqlDataAccess) || "NO SQL".equalsIgnoreCase(sqlDataAccess)) {
-                        synchronized (this.paramInfo) {
-                            this.paramInfo.isReadOnlySafeChecked = true;
-                            this.paramInfo.isReadOnlySafeProcedure = true;
-                        }
-                        return true;
+
+                procName = procName.substring(procName.indexOf(".") + 1);
+                procName = StringUtils.toString(StringUtils.stripEnclosure(StringUtils.getBytes(procName), "`", "`"));
+            }
+            ps = this.connection.prepareStatement("SELECT SQL_DATA_ACCESS FROM information_schema.routines WHERE routine_schema = ? AND routine_name = ?");
+            ps.setMaxRows(0);
+            ps.setFetchSize(0);
+
+            ps.setString(1, catalog);
+            ps.setString(2, procName);
+            rs = ps.executeQuery();
+            if (rs.next()) {
+                String sqlDataAccess = rs.getString(1);
+                if ("READS SQL DATA".equalsIgnoreCase(sqlDataAccess) || "NO SQL".equalsIgnoreCase(sqlDataAccess)) {
+                    synchronized (this.paramInfo) {
+                        this.paramInfo.isReadOnlySafeChecked = true;
+                        this.paramInfo.isReadOnlySafeProcedure = true;
                     }
+                    return true;
                 }
-            } catch (SQLException e) {
-                // swallow the Exception
-            } finally {
-                if (rs != null) {
-                    rs.close();
-                }
-                if (ps != null) {
-                    ps.close();
-                }
-
             }
-            this.paramInfo.isReadOnlySafeChecked = false;
-            this.paramInfo.isReadOnlySafeProcedure = false;
+        } catch (SQLException e) {
+            // swallow the Exception
+        } finally {
+            if (rs != null) {
+                rs.close();
+            }
+            if (ps != null) {
+                ps.close();
+            }
+
         }
-        return false;
+        this.paramInfo.isReadOnlySafeChecked = false;
+        this.paramInfo.isReadOnlySafeProcedure = false;
 
+        return false;
     }
 
     @Override
@@ -2437,17 +2573,33 @@ public class CallableStatement extends PreparedStatement implements java.sql.Cal
     }
 
     private boolean hasParametersView() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            try {
-                if (this.connection.versionMeetsMinimum(5, 5, 0)) {
-                    java.sql.DatabaseMetaData dbmd1 = new DatabaseMetaDataUsingInfoSchema(this.connection, this.connection.getCatalog());
-                    return ((DatabaseMetaDataUsingInfoSchema) dbmd1).gethasParametersView();
-                }
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-                return false;
-            } catch (SQLException e) {
-                return false;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return hasParametersViewLocked();
             }
         }
+
+        connectionLock.lock();
+
+        try {
+            return hasParametersViewLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private boolean hasParametersViewLocked() throws SQLException {
+        try {
+            if (this.connection.versionMeetsMinimum(5, 5, 0)) {
+                java.sql.DatabaseMetaData dbmd1 = new DatabaseMetaDataUsingInfoSchema(this.connection, this.connection.getCatalog());
+                return ((DatabaseMetaDataUsingInfoSchema) dbmd1).gethasParametersView();
+            }
+
+            return false;
+        } catch (SQLException e) {
+            return false;
+        }
     }
 }
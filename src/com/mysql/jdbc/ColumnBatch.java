@@ -0,0 +1,250 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+/**
+ * A block of rows of a result set laid out column by column in primitive arrays, filled by ResultSetInternalMethods.fetchColumnBatch() for bulk readers
+ * that would otherwise pay for a getter call (and often a boxed value) per cell.
+ * 
+ * Integer columns (TINYINT through BIGINT, and YEAR) are decoded into a long[], FLOAT and DOUBLE columns into a double[], and all others are kept as the
+ * bytes the server sent, one byte[] per column with an int[] of offsets into it: the value of row r spans data[offsets[r]] to data[offsets[r + 1]]. Those
+ * bytes are character data in the column's encoding for the text protocol; for server-side prepared statements temporal columns hold MySQL's binary
+ * date/time encoding. Values of BIGINT UNSIGNED columns above Long.MAX_VALUE are stored as their two's complement bit pattern.
+ * 
+ * Rows are numbered from 0, columns from 1 like in the JDBC API. The arrays are reused by later fetches into the same batch, so they are only valid until
+ * then, and may be longer than getRowCount().
+ */
+public class ColumnBatch {
+    public static final int TYPE_LONG = 1;
+
+    public static final int TYPE_DOUBLE = 2;
+
+    public static final int TYPE_BYTES = 3;
+
+    private int capacity;
+
+    private int rowCount;
+
+    private int[] columnTypes = new int[0];
+
+    private long[][] longs;
+
+    private double[][] doubles;
+
+    private int[][] offsets;
+
+    private byte[][] data;
+
+    private long[][] nulls;
+
+    /**
+     * @param capacity
+     *            the maximum number of rows fetched into this batch at a time
+     */
+    public ColumnBatch(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be > 0");
+        }
+
+        this.capacity = capacity;
+    }
+
+    public int getCapacity() {
+        return this.capacity;
+    }
+
+    /**
+     * @return the number of rows the last fetch read into this batch
+     */
+    public int getRowCount() {
+        return this.rowCount;
+    }
+
+    public int getColumnCount() {
+        return this.columnTypes.length;
+    }
+
+    /**
+     * @return one of TYPE_LONG, TYPE_DOUBLE or TYPE_BYTES
+     */
+    public int getColumnType(int column) {
+        return this.columnTypes[column - 1];
+    }
+
+    /**
+     * @return the values of a TYPE_LONG column, 0 for NULLs
+     */
+    public long[] getLongs(int column) {
+        return this.longs[column - 1];
+    }
+
+    /**
+     * @return the values of a TYPE_DOUBLE column, 0 for NULLs
+     */
+    public double[] getDoubles(int column) {
+        return this.doubles[column - 1];
+    }
+
+    /**
+     * @return the getRowCount() + 1 offsets of the values of a TYPE_BYTES column into getData(column)
+     */
+    public int[] getOffsets(int column) {
+        return this.offsets[column - 1];
+    }
+
+    /**
+     * @return the concatenated values of a TYPE_BYTES column
+     */
+    public byte[] getData(int column) {
+        return this.data[column - 1];
+    }
+
+    /**
+     * @return the NULL bitmap of a column, the bit (row % 64) of word (row / 64) is set for NULL values
+     */
+    public long[] getNulls(int column) {
+        return this.nulls[column - 1];
+    }
+
+    public boolean isNull(int column, int row) {
+        return (this.nulls[column - 1][row >>> 6] & (1L << row)) != 0;
+    }
+
+    /**
+     * Prepares the batch to receive rows with the given metadata, keeping the arrays of the previous fetch when the columns are alike.
+     */
+    void reset(Field[] fields) {
+        int columnCount = fields.length;
+        int[] newTypes = new int[columnCount];
+
+        for (int i = 0; i < columnCount; i++) {
+            newTypes[i] = getColumnType(fields[i]);
+        }
+
+        if (newTypes.length != this.columnTypes.length) {
+            this.longs = new long[columnCount][];
+            this.doubles = new double[columnCount][];
+            this.offsets = new int[columnCount][];
+            this.data = new byte[columnCount][];
+            this.nulls = new long[columnCount][];
+        }
+
+        for (int i = 0; i < columnCount; i++) {
+            if (this.nulls[i] == null) {
+                this.nulls[i] = new long[(this.capacity + 63) >>> 6];
+            } else {
+                for (int j = 0; j < this.nulls[i].length; j++) {
+                    this.nulls[i][j] = 0;
+                }
+            }
+
+            switch (newTypes[i]) {
+                case TYPE_LONG:
+                    if (this.longs[i] == null) {
+                        this.longs[i] = new long[this.capacity];
+                    }
+                    break;
+
+                case TYPE_DOUBLE:
+                    if (this.doubles[i] == null) {
+                        this.doubles[i] = new double[this.capacity];
+                    }
+                    break;
+
+                default:
+                    if (this.offsets[i] == null) {
+                        this.offsets[i] = new int[this.capacity + 1];
+                        this.data[i] = new byte[1024];
+                    }
+                    this.offsets[i][0] = 0;
+            }
+        }
+
+        this.columnTypes = newTypes;
+        this.rowCount = 0;
+    }
+
+    void setRowCount(int rowCount) {
+        this.rowCount = rowCount;
+    }
+
+    void setNull(int columnIndex, int row) {
+        this.nulls[columnIndex][row >>> 6] |= 1L << row;
+
+        switch (this.columnTypes[columnIndex]) {
+            case TYPE_LONG:
+                this.longs[columnIndex][row] = 0;
+                break;
+
+            case TYPE_DOUBLE:
+                this.doubles[columnIndex][row] = 0;
+                break;
+
+            default:
+                this.offsets[columnIndex][row + 1] = this.offsets[columnIndex][row];
+        }
+    }
+
+    void setLong(int columnIndex, int row, long value) {
+        this.longs[columnIndex][row] = value;
+    }
+
+    void setDouble(int columnIndex, int row, double value) {
+        this.doubles[columnIndex][row] = value;
+    }
+
+    void setBytes(int columnIndex, int row, byte[] value) {
+        int start = this.offsets[columnIndex][row];
+        int end = start + value.length;
+        byte[] columnData = this.data[columnIndex];
+
+        if (end > columnData.length) {
+            byte[] newData = new byte[Math.max(end, columnData.length * 2)];
+            System.arraycopy(columnData, 0, newData, 0, start);
+            this.data[columnIndex] = columnData = newData;
+        }
+
+        System.arraycopy(value, 0, columnData, start, value.length);
+        this.offsets[columnIndex][row + 1] = end;
+    }
+
+    private static int getColumnType(Field field) {
+        switch (field.getMysqlType()) {
+            case MysqlDefs.FIELD_TYPE_TINY:
+            case MysqlDefs.FIELD_TYPE_SHORT:
+            case MysqlDefs.FIELD_TYPE_INT24:
+            case MysqlDefs.FIELD_TYPE_LONG:
+            case MysqlDefs.FIELD_TYPE_LONGLONG:
+            case MysqlDefs.FIELD_TYPE_YEAR:
+                return TYPE_LONG;
+
+            case MysqlDefs.FIELD_TYPE_FLOAT:
+            case MysqlDefs.FIELD_TYPE_DOUBLE:
+                return TYPE_DOUBLE;
+
+            default:
+                return TYPE_BYTES;
+        }
+    }
+}
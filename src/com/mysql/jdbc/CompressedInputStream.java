@@ -37,9 +37,20 @@ import com.mysql.jdbc.log.NullLogger;
  * Used to de-compress packets from the MySQL server when protocol-level compression is turned on.
  */
 class CompressedInputStream extends InputStream {
-    /** The packet data after it has been un-compressed */
+    private static final int INITIAL_BUFFER_LENGTH = 16 * 1024;
+
+    /** Buffers larger than this are only kept for as long as they are needed */
+    private static final int MAX_RETAINED_BUFFER_LENGTH = 1024 * 1024;
+
+    /** The packet data after it has been un-compressed, reused from packet to packet */
     private byte[] buffer;
 
+    /** The end of the packet data in buffer */
+    private int limit = 0;
+
+    /** The compressed packet data, reused from packet to packet */
+    private byte[] compressedBuffer;
+
     /** The stream we are reading from the server */
     private InputStream in;
 
@@ -88,7 +99,7 @@ class CompressedInputStream extends InputStream {
             return this.in.available();
         }
 
-        return this.buffer.length - this.pos + this.in.available();
+        return this.limit - this.pos + this.in.available();
     }
 
     /**
@@ -98,6 +109,7 @@ class CompressedInputStream extends InputStream {
     public void close() throws IOException {
         this.in.close();
         this.buffer = null;
+        this.compressedBuffer = null;
         this.inflater.end();
         this.inflater = null;
         this.traceProtocol = null;
@@ -106,14 +118,12 @@ class CompressedInputStream extends InputStream {
 
     /**
      * Retrieves and un-compressed (if necessary) the next packet from the
-     * server.
+     * server, appending it to what is left of the previous one.
      * 
      * @throws IOException
      *             if an I/O error occurs
      */
     private void getNextPacketFromServer() throws IOException {
-        byte[] uncompressedData = null;
-
         int lengthRead = readFully(this.packetHeaderBuffer, 0, 7);
 
         if (lengthRead < 7) {
@@ -132,28 +142,43 @@ class CompressedInputStream extends InputStream {
             this.log.logTrace("Reading compressed packet of length " + compressedPacketLength + " uncompressed to " + uncompressedLength);
         }
 
-        if (uncompressedLength > 0) {
-            uncompressedData = new byte[uncompressedLength];
+        int remaining = (this.buffer == null) ? 0 : this.limit - this.pos;
 
-            byte[] compressedBuffer = new byte[compressedPacketLength];
+        if (doTrace && remaining > 0) {
+            this.log.logTrace("Combining remaining packet with new: ");
+        }
 
-            readFully(compressedBuffer, 0, compressedPacketLength);
+        int packetStart = prepareBuffer(remaining, (uncompressedLength > 0) ? uncompressedLength : compressedPacketLength);
 
-            try {
-                this.inflater.reset();
-            } catch (NullPointerException npe) {
+        if (uncompressedLength > 0) {
+            if (needsNewBuffer(this.compressedBuffer, compressedPacketLength)) {
+                this.compressedBuffer = new byte[newBufferLength(this.compressedBuffer, compressedPacketLength)];
+            }
+
+            readFully(this.compressedBuffer, 0, compressedPacketLength);
+
+            if (this.inflater == null) {
                 this.inflater = new Inflater();
             }
 
-            this.inflater.setInput(compressedBuffer);
+            this.inflater.reset();
+            this.inflater.setInput(this.compressedBuffer, 0, compressedPacketLength);
 
             try {
-                this.inflater.inflate(uncompressedData);
+                int inflated = 0;
+
+                while (inflated < uncompressedLength) {
+                    int count = this.inflater.inflate(this.buffer, packetStart + inflated, uncompressedLength - inflated);
+
+                    if (count == 0 && (this.inflater.finished() || this.inflater.needsInput() || this.inflater.needsDictionary())) {
+                        throw new IOException("Error while uncompressing packet from server.");
+                    }
+
+                    inflated += count;
+                }
             } catch (DataFormatException dfe) {
                 throw new IOException("Error while uncompressing packet from server.");
             }
-
-            this.inflater.end();
         } else {
             if (doTrace) {
                 this.log.logTrace("Packet didn't meet compression threshold, not uncompressing...");
@@ -162,37 +187,57 @@ class CompressedInputStream extends InputStream {
             //	
             // Read data, note this this code is reached when using compressed packets that have not been compressed, as well
             //
-            uncompressedData = new byte[compressedPacketLength];
-            readFully(uncompressedData, 0, compressedPacketLength);
+            readFully(this.buffer, packetStart, compressedPacketLength);
         }
 
         if (doTrace) {
-            this.log.logTrace("Uncompressed packet: \n" + StringUtils.dumpAsHex(uncompressedData, compressedPacketLength));
+            byte[] uncompressedData = new byte[this.limit - packetStart];
+            System.arraycopy(this.buffer, packetStart, uncompressedData, 0, uncompressedData.length);
+
+            this.log.logTrace("Uncompressed packet: \n" + StringUtils.dumpAsHex(uncompressedData, uncompressedData.length));
         }
 
-        if ((this.buffer != null) && (this.pos < this.buffer.length)) {
-            if (doTrace) {
-                this.log.logTrace("Combining remaining packet with new: ");
-            }
+        return;
+    }
 
-            int remaining = this.buffer.length - this.pos;
-            byte[] newBuffer = new byte[remaining + uncompressedData.length];
+    /**
+     * Moves the remaining bytes of the previous packet to the beginning of the buffer, making room for the given number of bytes after them. Grows the
+     * buffer if needed, and gives large buffers up once they are not needed anymore.
+     * 
+     * @return the position the new packet data goes to
+     */
+    private int prepareBuffer(int remaining, int packetLength) {
+        int required = remaining + packetLength;
 
-            int newIndex = 0;
+        if (needsNewBuffer(this.buffer, required)) {
+            byte[] newBuffer = new byte[newBufferLength(this.buffer, required)];
 
-            for (int i = this.pos; i < this.buffer.length; i++) {
-                newBuffer[newIndex++] = this.buffer[i];
+            if (remaining > 0) {
+                System.arraycopy(this.buffer, this.pos, newBuffer, 0, remaining);
             }
 
-            System.arraycopy(uncompressedData, 0, newBuffer, newIndex, uncompressedData.length);
-
-            uncompressedData = newBuffer;
+            this.buffer = newBuffer;
+        } else if (remaining > 0 && this.pos > 0) {
+            System.arraycopy(this.buffer, this.pos, this.buffer, 0, remaining);
         }
 
         this.pos = 0;
-        this.buffer = uncompressedData;
+        this.limit = required;
 
-        return;
+        return remaining;
+    }
+
+    private static boolean needsNewBuffer(byte[] currentBuffer, int required) {
+        return currentBuffer == null || currentBuffer.length < required || currentBuffer.length > Math.max(MAX_RETAINED_BUFFER_LENGTH, required);
+    }
+
+    /**
+     * Grows buffers at least twice as large as they were, so that packets of slowly increasing sizes don't get a new buffer each time.
+     */
+    private static int newBufferLength(byte[] currentBuffer, int required) {
+        int grownLength = (currentBuffer == null) ? INITIAL_BUFFER_LENGTH : Math.min(currentBuffer.length * 2, MAX_RETAINED_BUFFER_LENGTH);
+
+        return Math.max(required, grownLength);
     }
 
     /**
@@ -206,7 +251,7 @@ class CompressedInputStream extends InputStream {
      *             if an I/O error occors.
      */
     private void getNextPacketIfRequired(int numBytes) throws IOException {
-        if ((this.buffer == null) || ((this.pos + numBytes) > this.buffer.length)) {
+        while ((this.buffer == null) || ((this.pos + numBytes) > this.limit)) {
             getNextPacketFromServer();
         }
     }
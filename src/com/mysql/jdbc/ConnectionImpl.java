@@ -56,7 +56,10 @@ import java.util.Stack;
 import java.util.TimeZone;
 import java.util.Timer;
 import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 
 import com.mysql.jdbc.PreparedStatement.ParseInfo;
 import com.mysql.jdbc.log.Log;
@@ -65,7 +68,7 @@ import com.mysql.jdbc.log.LogUtils;
 import com.mysql.jdbc.log.NullLogger;
 import com.mysql.jdbc.profiler.ProfilerEvent;
 import com.mysql.jdbc.profiler.ProfilerEventHandler;
-import com.mysql.jdbc.util.LRUCache;
+import com.mysql.jdbc.util.ConcurrentLRUCache;
 
 /**
  * A Connection represents a session with a specific database. Within the context of a Connection, SQL statements are executed and results are returned.
@@ -123,6 +126,10 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         return (this.realProxy != null) ? this.realProxy : this;
     }
 
+    public Lock getConnectionLock() {
+        return getUseReentrantConnectionLock() ? this.connectionLock : null;
+    }
+
     class ExceptionInterceptorChain implements ExceptionInterceptor {
         List<Extension> interceptors;
 
@@ -567,7 +574,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
     /** A map of currently open statements */
     private Map<Statement, Statement> openStatements;
 
-    private LRUCache parsedCallableStatementCache;
+    private ConcurrentLRUCache<CompoundCacheKey, CallableStatement.CallableStatementParamInfo> parsedCallableStatementCache;
 
     private boolean parserKnowsUnicode = false;
 
@@ -594,7 +601,10 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
     private boolean readOnly = false;
 
     /** Cache of ResultSet metadata */
-    protected LRUCache resultSetMetadataCache;
+    protected ConcurrentLRUCache<String, CachedResultSetMetaData> resultSetMetadataCache;
+
+    /** The cache of result set metadata shared with the connections with the same configuration, if "shareCachedResultSetMetadata" is set */
+    private ConcurrentLRUCache<String, CachedResultSetMetaData> sharedResultSetMetadataCache;
 
     /** The timezone of the server */
     private TimeZone serverTimezoneTZ = null;
@@ -627,12 +637,18 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      */
     private boolean useServerPreparedStmts = false;
 
-    private LRUCache serverSideStatementCheckCache;
-    private LRUCache serverSideStatementCache;
+    private ConcurrentLRUCache<String, Boolean> serverSideStatementCheckCache;
+    private ConcurrentLRUCache<String, ServerPreparedStatement> serverSideStatementCache;
     private Calendar sessionCalendar;
 
     private Calendar utcCalendar;
 
+    /** Tables of UTC offsets per timezone id, for temporal conversions that don't go through a Calendar */
+    private final ConcurrentHashMap<String, TimezoneOffsetTable> timezoneOffsetTables = new ConcurrentHashMap<String, TimezoneOffsetTable>();
+
+    /** Used instead of the connection mutex to serialize execution when useReentrantConnectionLock=true */
+    private final ReentrantLock connectionLock = new ReentrantLock();
+
     private String origHostToConnectTo;
 
     // we don't want to be able to publicly clone this...
@@ -793,6 +809,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
             initializeSafeStatementInterceptors();
             createNewIO(false);
             unSafeStatementInterceptors();
+            prepareMostExecutedStatements();
         } catch (SQLException ex) {
             cleanup(ex);
 
@@ -1057,21 +1074,19 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         }
 
         if (getCachePreparedStatements()) {
-            synchronized (this.serverSideStatementCheckCache) {
-                Boolean flag = (Boolean) this.serverSideStatementCheckCache.get(sql);
-
-                if (flag != null) {
-                    return flag.booleanValue();
-                }
+            Boolean flag = this.serverSideStatementCheckCache.get(sql);
 
-                boolean canHandle = canHandleAsServerPreparedStatementNoCache(sql);
+            if (flag != null) {
+                return flag.booleanValue();
+            }
 
-                if (sql.length() < getPreparedStatementCacheSqlLimit()) {
-                    this.serverSideStatementCheckCache.put(sql, canHandle ? Boolean.TRUE : Boolean.FALSE);
-                }
+            boolean canHandle = canHandleAsServerPreparedStatementNoCache(sql);
 
-                return canHandle;
+            if (sql.length() < getPreparedStatementCacheSqlLimit()) {
+                this.serverSideStatementCheckCache.put(sql, canHandle ? Boolean.TRUE : Boolean.FALSE);
             }
+
+            return canHandle;
         }
 
         return canHandleAsServerPreparedStatementNoCache(sql);
@@ -1165,39 +1180,80 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      *             performing the command.
      */
     public void changeUser(String userName, String newPassword) throws SQLException {
-        synchronized (getConnectionMutex()) {
-            checkClosed();
+        Lock connectionLock = getConnectionLock();
 
-            if ((userName == null) || userName.equals("")) {
-                userName = "";
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                changeUserLocked(userName, newPassword);
             }
 
-            if (newPassword == null) {
-                newPassword = "";
-            }
+            return;
+        }
 
-            // reset maxRows to default value
-            this.sessionMaxRows = -1;
+        connectionLock.lock();
 
-            try {
-                this.io.changeUser(userName, newPassword, this.database);
-            } catch (SQLException ex) {
-                if (versionMeetsMinimum(5, 6, 13) && "28000".equals(ex.getSQLState())) {
-                    cleanup(ex);
-                }
-                throw ex;
+        try {
+            changeUserLocked(userName, newPassword);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void changeUserLocked(String userName, String newPassword) throws SQLException {
+        checkClosed();
+
+        if ((userName == null) || userName.equals("")) {
+            userName = "";
+        }
+
+        if (newPassword == null) {
+            newPassword = "";
+        }
+
+        // reset maxRows to default value
+        this.sessionMaxRows = -1;
+
+        ServerPreparedStatementRegistry registry = ServerPreparedStatementRegistry.getInstance(this);
+
+        try {
+            this.io.changeUser(userName, newPassword, this.database);
+        } catch (SQLException ex) {
+            if (versionMeetsMinimum(5, 6, 13) && "28000".equals(ex.getSQLState())) {
+                cleanup(ex);
             }
-            this.user = userName;
-            this.password = newPassword;
+            throw ex;
+        }
+        this.user = userName;
+        this.password = newPassword;
 
-            if (versionMeetsMinimum(4, 1, 0)) {
-                configureClientCharacterSet(true);
+        // the server deallocated the prepared statements of the session, the cached ones can't be executed any more
+        if (this.serverSideStatementCache != null) {
+            for (String sql : this.serverSideStatementCache.keySet()) {
+                ServerPreparedStatement ps = this.serverSideStatementCache.remove(sql);
+
+                if (ps != null) {
+                    try {
+                        ps.closeDeallocatedByServer();
+                    } catch (SQLException sqlEx) {
+                        // punt
+                    }
+                }
             }
+        }
 
-            setSessionVariables();
+        if (registry != null) {
+            registry.connectionReset(getId());
+        }
 
-            setupServerForTruncationChecks();
+        if (versionMeetsMinimum(4, 1, 0)) {
+            configureClientCharacterSet(true);
         }
+
+        setSessionVariables();
+
+        setupServerForTruncationChecks();
+
+        prepareMostExecutedStatements();
     }
 
     private boolean characterSetNamesMatches(String mysqlEncodingName) {
@@ -1502,18 +1558,36 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      *                if a database access error occurs
      */
     public void close() throws SQLException {
-        synchronized (getConnectionMutex()) {
-            if (this.connectionLifecycleInterceptors != null) {
-                new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
-                    @Override
-                    void forEach(Extension each) throws SQLException {
-                        ((ConnectionLifecycleInterceptor) each).close();
-                    }
-                }.doForAll();
+        Lock connectionLock = getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                closeLocked();
             }
 
-            realClose(true, true, false, null);
+            return;
+        }
+
+        connectionLock.lock();
+
+        try {
+            closeLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void closeLocked() throws SQLException {
+        if (this.connectionLifecycleInterceptors != null) {
+            new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
+                @Override
+                void forEach(Extension each) throws SQLException {
+                    ((ConnectionLifecycleInterceptor) each).close();
+                }
+            }.doForAll();
         }
+
+        realClose(true, true, false, null);
     }
 
     /**
@@ -1577,52 +1651,69 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      * @see setAutoCommit
      */
     public void commit() throws SQLException {
-        synchronized (getConnectionMutex()) {
-            checkClosed();
+        Lock connectionLock = getConnectionLock();
 
-            try {
-                if (this.connectionLifecycleInterceptors != null) {
-                    IterateBlock<Extension> iter = new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                commitLocked();
+            }
 
-                        @Override
-                        void forEach(Extension each) throws SQLException {
-                            if (!((ConnectionLifecycleInterceptor) each).commit()) {
-                                this.stopIterating = true;
-                            }
-                        }
-                    };
+            return;
+        }
 
-                    iter.doForAll();
+        connectionLock.lock();
 
-                    if (!iter.fullIteration()) {
-                        return;
-                    }
-                }
+        try {
+            commitLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void commitLocked() throws SQLException {
+        checkClosed();
+
+        try {
+            if (this.connectionLifecycleInterceptors != null) {
+                IterateBlock<Extension> iter = new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
 
-                // no-op if _relaxAutoCommit == true
-                if (this.autoCommit && !getRelaxAutoCommit()) {
-                    throw SQLError.createSQLException("Can't call commit when autocommit=true", getExceptionInterceptor());
-                } else if (this.transactionsSupported) {
-                    if (getUseLocalTransactionState() && versionMeetsMinimum(5, 0, 0)) {
-                        if (!this.io.inTransactionOnServer()) {
-                            return; // effectively a no-op
+                    @Override
+                    void forEach(Extension each) throws SQLException {
+                        if (!((ConnectionLifecycleInterceptor) each).commit()) {
+                            this.stopIterating = true;
                         }
                     }
+                };
+
+                iter.doForAll();
 
-                    execSQL(null, "commit", -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+                if (!iter.fullIteration()) {
+                    return;
                 }
-            } catch (SQLException sqlException) {
-                if (SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(sqlException.getSQLState())) {
-                    throw SQLError.createSQLException("Communications link failure during commit(). Transaction resolution unknown.",
-                            SQLError.SQL_STATE_TRANSACTION_RESOLUTION_UNKNOWN, getExceptionInterceptor());
+            }
+
+            // no-op if _relaxAutoCommit == true
+            if (this.autoCommit && !getRelaxAutoCommit()) {
+                throw SQLError.createSQLException("Can't call commit when autocommit=true", getExceptionInterceptor());
+            } else if (this.transactionsSupported) {
+                if (getUseLocalTransactionState() && versionMeetsMinimum(5, 0, 0)) {
+                    if (!this.io.inTransactionOnServer()) {
+                        return; // effectively a no-op
+                    }
                 }
 
-                throw sqlException;
-            } finally {
-                this.needsPing = this.getReconnectAtTxEnd();
+                execSQL(null, "commit", -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+            }
+        } catch (SQLException sqlException) {
+            if (SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(sqlException.getSQLState())) {
+                throw SQLError.createSQLException("Communications link failure during commit(). Transaction resolution unknown.",
+                        SQLError.SQL_STATE_TRANSACTION_RESOLUTION_UNKNOWN, getExceptionInterceptor());
             }
+
+            throw sqlException;
+        } finally {
+            this.needsPing = this.getReconnectAtTxEnd();
         }
-        return;
     }
 
     /**
@@ -2068,21 +2159,39 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      * @throws CommunicationsException
      */
     public void createNewIO(boolean isForReconnect) throws SQLException {
-        synchronized (getConnectionMutex()) {
-            // Synchronization Not needed for *new* connections, but defintely for connections going through fail-over, since we might get the new connection up
-            // and running *enough* to start sending cached or still-open server-side prepared statements over to the backend before we get a chance to
-            // re-prepare them...
+        Lock connectionLock = getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                createNewIOLocked(isForReconnect);
+            }
+
+            return;
+        }
 
-            Properties mergedProps = exposeAsProperties(this.props);
+        connectionLock.lock();
 
-            if (!getHighAvailability()) {
-                connectOneTryOnly(isForReconnect, mergedProps);
+        try {
+            createNewIOLocked(isForReconnect);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                return;
-            }
+    private void createNewIOLocked(boolean isForReconnect) throws SQLException {
+        // Synchronization Not needed for *new* connections, but defintely for connections going through fail-over, since we might get the new connection up
+        // and running *enough* to start sending cached or still-open server-side prepared statements over to the backend before we get a chance to
+        // re-prepare them...
 
-            connectWithRetries(isForReconnect, mergedProps);
+        Properties mergedProps = exposeAsProperties(this.props);
+
+        if (!getHighAvailability()) {
+            connectOneTryOnly(isForReconnect, mergedProps);
+
+            return;
         }
+
+        connectWithRetries(isForReconnect, mergedProps);
     }
 
     private void connectWithRetries(boolean isForReconnect, Properties mergedProps) throws SQLException {
@@ -2331,6 +2440,34 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         }
     }
 
+    /**
+     * Prepares the statements most executed by the connections with the same URL and user, as told by their ServerPreparedStatementRegistry, and places
+     * them in the server-side prepared statement cache, so that the first use of these statements on this connection doesn't have to wait for the server
+     * to prepare them.
+     */
+    private void prepareMostExecutedStatements() {
+        int count = getEagerServerPrepStmtCount();
+
+        if (count <= 0 || !getCachePreparedStatements() || !this.useServerPreparedStmts || this.serverSideStatementCache == null) {
+            return;
+        }
+
+        ServerPreparedStatementRegistry registry = ServerPreparedStatementRegistry.getInstance(this);
+
+        if (registry == null) {
+            return;
+        }
+
+        for (String sql : registry.getMostExecutedStatements(count)) {
+            try {
+                // closing puts it in the cache
+                prepareStatement(sql).close();
+            } catch (SQLException sqlEx) {
+                // the statement may not be valid any more, it just won't be prepared ahead of time
+            }
+        }
+    }
+
     private void createPreparedStatementCaches() throws SQLException {
         synchronized (getConnectionMutex()) {
             int cacheSize = getPreparedStatementCacheSize();
@@ -2370,33 +2507,21 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
             }
 
             if (getUseServerPreparedStmts()) {
-                this.serverSideStatementCheckCache = new LRUCache(cacheSize);
+                this.serverSideStatementCheckCache = new ConcurrentLRUCache<String, Boolean>(cacheSize);
 
-                this.serverSideStatementCache = new LRUCache(cacheSize) {
-
-                    private static final long serialVersionUID = 7692318650375988114L;
+                // a cache of one statement (or less) is never evicted from
+                this.serverSideStatementCache = new ConcurrentLRUCache<String, ServerPreparedStatement>(cacheSize <= 1 ? Integer.MAX_VALUE : cacheSize) {
 
                     @Override
-                    protected boolean removeEldestEntry(java.util.Map.Entry<Object, Object> eldest) {
-                        if (this.maxElements <= 1) {
-                            return false;
-                        }
-
-                        boolean removeIt = super.removeEldestEntry(eldest);
-
-                        if (removeIt) {
-                            ServerPreparedStatement ps = (ServerPreparedStatement) eldest.getValue();
-                            ps.isCached = false;
-                            ps.setClosed(false);
+                    protected void entryEvicted(String sql, ServerPreparedStatement ps) {
+                        ps.isCached = false;
+                        ps.setClosed(false);
 
-                            try {
-                                ps.close();
-                            } catch (SQLException sqlEx) {
-                                // punt
-                            }
+                        try {
+                            ps.close();
+                        } catch (SQLException sqlEx) {
+                            // punt
                         }
-
-                        return removeIt;
                     }
                 };
             }
@@ -2501,95 +2626,113 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
 
     public ResultSetInternalMethods execSQL(StatementImpl callingStatement, String sql, int maxRows, Buffer packet, int resultSetType,
             int resultSetConcurrency, boolean streamResults, String catalog, Field[] cachedMetadata, boolean isBatch) throws SQLException {
-        synchronized (getConnectionMutex()) {
-            //
-            // Fall-back if the master is back online if we've issued queriesBeforeRetryMaster queries since we failed over
-            //
+        Lock connectionLock = getConnectionLock();
 
-            long queryStartTime = 0;
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                return execSQLLocked(callingStatement, sql, maxRows, packet, resultSetType, resultSetConcurrency, streamResults, catalog, cachedMetadata,
+                        isBatch);
+            }
+        }
 
-            int endOfQueryPacketPosition = 0;
+        connectionLock.lock();
 
-            if (packet != null) {
-                endOfQueryPacketPosition = packet.getPosition();
-            }
+        try {
+            return execSQLLocked(callingStatement, sql, maxRows, packet, resultSetType, resultSetConcurrency, streamResults, catalog, cachedMetadata, isBatch);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            if (getGatherPerformanceMetrics()) {
-                queryStartTime = System.currentTimeMillis();
-            }
+    private ResultSetInternalMethods execSQLLocked(StatementImpl callingStatement, String sql, int maxRows, Buffer packet, int resultSetType,
+            int resultSetConcurrency, boolean streamResults, String catalog, Field[] cachedMetadata, boolean isBatch) throws SQLException {
+        //
+        // Fall-back if the master is back online if we've issued queriesBeforeRetryMaster queries since we failed over
+        //
 
-            this.lastQueryFinishedTime = 0; // we're busy!
+        long queryStartTime = 0;
 
-            if ((getHighAvailability()) && (this.autoCommit || getAutoReconnectForPools()) && this.needsPing && !isBatch) {
-                try {
-                    pingInternal(false, 0);
+        int endOfQueryPacketPosition = 0;
 
-                    this.needsPing = false;
-                } catch (Exception Ex) {
-                    createNewIO(true);
-                }
-            }
+        if (packet != null) {
+            endOfQueryPacketPosition = packet.getPosition();
+        }
+
+        if (getGatherPerformanceMetrics()) {
+            queryStartTime = System.currentTimeMillis();
+        }
 
+        this.lastQueryFinishedTime = 0; // we're busy!
+
+        if ((getHighAvailability()) && (this.autoCommit || getAutoReconnectForPools()) && this.needsPing && !isBatch) {
             try {
-                if (packet == null) {
-                    String encoding = null;
+                pingInternal(false, 0);
 
-                    if (getUseUnicode()) {
-                        encoding = getEncoding();
-                    }
+                this.needsPing = false;
+            } catch (Exception Ex) {
+                createNewIO(true);
+            }
+        }
+
+        try {
+            if (packet == null) {
+                String encoding = null;
 
-                    return this.io.sqlQueryDirect(callingStatement, sql, encoding, null, maxRows, resultSetType, resultSetConcurrency, streamResults, catalog,
-                            cachedMetadata);
+                if (getUseUnicode()) {
+                    encoding = getEncoding();
                 }
 
-                return this.io.sqlQueryDirect(callingStatement, null, null, packet, maxRows, resultSetType, resultSetConcurrency, streamResults, catalog,
+                return this.io.sqlQueryDirect(callingStatement, sql, encoding, null, maxRows, resultSetType, resultSetConcurrency, streamResults, catalog,
                         cachedMetadata);
-            } catch (java.sql.SQLException sqlE) {
-                // don't clobber SQL exceptions
+            }
 
-                if (getDumpQueriesOnException()) {
-                    String extractedSql = extractSqlFromPacket(sql, packet, endOfQueryPacketPosition);
-                    StringBuilder messageBuf = new StringBuilder(extractedSql.length() + 32);
-                    messageBuf.append("\n\nQuery being executed when exception was thrown:\n");
-                    messageBuf.append(extractedSql);
-                    messageBuf.append("\n\n");
+            return this.io.sqlQueryDirect(callingStatement, null, null, packet, maxRows, resultSetType, resultSetConcurrency, streamResults, catalog,
+                    cachedMetadata);
+        } catch (java.sql.SQLException sqlE) {
+            // don't clobber SQL exceptions
 
-                    sqlE = appendMessageToException(sqlE, messageBuf.toString(), getExceptionInterceptor());
-                }
+            if (getDumpQueriesOnException()) {
+                String extractedSql = extractSqlFromPacket(sql, packet, endOfQueryPacketPosition);
+                StringBuilder messageBuf = new StringBuilder(extractedSql.length() + 32);
+                messageBuf.append("\n\nQuery being executed when exception was thrown:\n");
+                messageBuf.append(extractedSql);
+                messageBuf.append("\n\n");
 
-                if ((getHighAvailability())) {
-                    this.needsPing = true;
-                } else {
-                    String sqlState = sqlE.getSQLState();
+                sqlE = appendMessageToException(sqlE, messageBuf.toString(), getExceptionInterceptor());
+            }
 
-                    if ((sqlState != null) && sqlState.equals(SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE)) {
-                        cleanup(sqlE);
-                    }
-                }
+            if ((getHighAvailability())) {
+                this.needsPing = true;
+            } else {
+                String sqlState = sqlE.getSQLState();
 
-                throw sqlE;
-            } catch (Exception ex) {
-                if (getHighAvailability()) {
-                    this.needsPing = true;
-                } else if (ex instanceof IOException) {
-                    cleanup(ex);
+                if ((sqlState != null) && sqlState.equals(SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE)) {
+                    cleanup(sqlE);
                 }
+            }
 
-                SQLException sqlEx = SQLError.createSQLException(Messages.getString("Connection.UnexpectedException"), SQLError.SQL_STATE_GENERAL_ERROR,
-                        getExceptionInterceptor());
-                sqlEx.initCause(ex);
+            throw sqlE;
+        } catch (Exception ex) {
+            if (getHighAvailability()) {
+                this.needsPing = true;
+            } else if (ex instanceof IOException) {
+                cleanup(ex);
+            }
 
-                throw sqlEx;
-            } finally {
-                if (getMaintainTimeStats()) {
-                    this.lastQueryFinishedTime = System.currentTimeMillis();
-                }
+            SQLException sqlEx = SQLError.createSQLException(Messages.getString("Connection.UnexpectedException"), SQLError.SQL_STATE_GENERAL_ERROR,
+                    getExceptionInterceptor());
+            sqlEx.initCause(ex);
+
+            throw sqlEx;
+        } finally {
+            if (getMaintainTimeStats()) {
+                this.lastQueryFinishedTime = System.currentTimeMillis();
+            }
 
-                if (getGatherPerformanceMetrics()) {
-                    long queryTime = System.currentTimeMillis() - queryStartTime;
+            if (getGatherPerformanceMetrics()) {
+                long queryTime = System.currentTimeMillis() - queryStartTime;
 
-                    registerQueryExecutionTime(queryTime);
-                }
+                registerQueryExecutionTime(queryTime);
             }
         }
     }
@@ -3042,76 +3185,91 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      *                if a database access error occurs
      */
     public int getTransactionIsolation() throws SQLException {
+        Lock connectionLock = getConnectionLock();
 
-        synchronized (getConnectionMutex()) {
-            if (this.hasIsolationLevels && !getUseLocalSessionState()) {
-                java.sql.Statement stmt = null;
-                java.sql.ResultSet rs = null;
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                return getTransactionIsolationLocked();
+            }
+        }
 
-                try {
-                    stmt = getMetadataSafeStatement();
+        connectionLock.lock();
 
-                    String query = null;
+        try {
+            return getTransactionIsolationLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                    int offset = 0;
+    private int getTransactionIsolationLocked() throws SQLException {
+        if (this.hasIsolationLevels && !getUseLocalSessionState()) {
+            java.sql.Statement stmt = null;
+            java.sql.ResultSet rs = null;
 
-                    if (versionMeetsMinimum(4, 0, 3)) {
-                        query = "SELECT @@session.tx_isolation";
-                        offset = 1;
-                    } else {
-                        query = "SHOW VARIABLES LIKE 'transaction_isolation'";
-                        offset = 2;
-                    }
+            try {
+                stmt = getMetadataSafeStatement();
 
-                    rs = stmt.executeQuery(query);
+                String query = null;
 
-                    if (rs.next()) {
-                        String s = rs.getString(offset);
+                int offset = 0;
 
-                        if (s != null) {
-                            Integer intTI = mapTransIsolationNameToValue.get(s);
+                if (versionMeetsMinimum(4, 0, 3)) {
+                    query = "SELECT @@session.tx_isolation";
+                    offset = 1;
+                } else {
+                    query = "SHOW VARIABLES LIKE 'transaction_isolation'";
+                    offset = 2;
+                }
 
-                            if (intTI != null) {
-                                return intTI.intValue();
-                            }
-                        }
+                rs = stmt.executeQuery(query);
 
-                        throw SQLError.createSQLException("Could not map transaction isolation '" + s + " to a valid JDBC level.",
-                                SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
-                    }
+                if (rs.next()) {
+                    String s = rs.getString(offset);
 
-                    throw SQLError.createSQLException("Could not retrieve transaction isolation level from server", SQLError.SQL_STATE_GENERAL_ERROR,
-                            getExceptionInterceptor());
+                    if (s != null) {
+                        Integer intTI = mapTransIsolationNameToValue.get(s);
 
-                } finally {
-                    if (rs != null) {
-                        try {
-                            rs.close();
-                        } catch (Exception ex) {
-                            // ignore
+                        if (intTI != null) {
+                            return intTI.intValue();
                         }
-
-                        rs = null;
                     }
 
-                    if (stmt != null) {
-                        try {
-                            stmt.close();
-                        } catch (Exception ex) {
-                            // ignore
-                        }
-
-                        stmt = null;
-                    }
+                    throw SQLError.createSQLException("Could not map transaction isolation '" + s + " to a valid JDBC level.",
+                            SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
                 }
-            }
 
-            return this.isolationLevel;
-        }
-    }
+                throw SQLError.createSQLException("Could not retrieve transaction isolation level from server", SQLError.SQL_STATE_GENERAL_ERROR,
+                        getExceptionInterceptor());
 
-    /**
-     * JDBC 2.0 Get the type-map object associated with this connection. By
+            } finally {
+                if (rs != null) {
+                    try {
+                        rs.close();
+                    } catch (Exception ex) {
+                        // ignore
+                    }
+
+                    rs = null;
+                }
+
+                if (stmt != null) {
+                    try {
+                        stmt.close();
+                    } catch (Exception ex) {
+                        // ignore
+                    }
+
+                    stmt = null;
+                }
+            }
+        }
+
+        return this.isolationLevel;
+    }
+
+    /**
+     * JDBC 2.0 Get the type-map object associated with this connection. By
      * default, the map returned is empty.
      * 
      * @return the type map
@@ -3140,6 +3298,27 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         return this.utcCalendar;
     }
 
+    public TimezoneOffsetTable getTimezoneOffsetTable(TimeZone tz) {
+        TimezoneOffsetTable table = this.timezoneOffsetTables.get(tz.getID());
+
+        if (table == null) {
+            table = new TimezoneOffsetTable(tz);
+
+            TimezoneOffsetTable existingTable = this.timezoneOffsetTables.putIfAbsent(tz.getID(), table);
+
+            if (existingTable != null) {
+                table = existingTable;
+            }
+        }
+
+        if (!table.getTimeZone().hasSameRules(tz)) {
+            // a custom timezone reusing the id of another one, too rare to be worth caching
+            return new TimezoneOffsetTable(tz);
+        }
+
+        return table;
+    }
+
     /**
      * The first warning reported by calls on this Connection is returned.
      * <B>Note:</B> Sebsequent warnings will be changed to this
@@ -3220,7 +3399,8 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         }
 
         if (getCacheCallableStatements()) {
-            this.parsedCallableStatementCache = new LRUCache(getCallableStatementCacheSize());
+            this.parsedCallableStatementCache = new ConcurrentLRUCache<CompoundCacheKey, CallableStatement.CallableStatementParamInfo>(
+                    getCallableStatementCacheSize());
         }
 
         if (getAllowMultiQueries()) {
@@ -3228,7 +3408,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         }
 
         if (getCacheResultSetMetadata()) {
-            this.resultSetMetadataCache = new LRUCache(getMetadataCacheSize());
+            this.resultSetMetadataCache = new ConcurrentLRUCache<String, CachedResultSetMetaData>(getMetadataCacheSize());
         }
 
         if (getSocksProxyHost() != null) {
@@ -3453,6 +3633,10 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
             setElideSetAutoCommits(false);
         }
 
+        if (this.resultSetMetadataCache != null && getShareCachedResultSetMetadata()) {
+            this.sharedResultSetMetadataCache = PerVmResultSetMetadataCache.getInstance(getSharedResultSetMetadataKey(), getMetadataCacheSize());
+        }
+
         //
         // Server can do this more efficiently for us
         //
@@ -3460,6 +3644,20 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
         setupServerForTruncationChecks();
     }
 
+    /**
+     * Connections share cached result set metadata when they connect to the same server as the same user, with the same connection properties and the same
+     * character set for metadata.
+     */
+    private String getSharedResultSetMetadataKey() throws SQLException {
+        StringBuilder key = new StringBuilder(4096);
+
+        key.append(this.user).append('@').append(this.host).append(':').append(this.port);
+        key.append('/').append(getEncoding()).append('/').append(this.characterSetMetadata);
+        key.append(new TreeMap<Object, Object>(exposeAsProperties(null)));
+
+        return key.toString();
+    }
+
     private boolean isQueryCacheEnabled() {
         return "ON".equalsIgnoreCase(this.serverVariables.get("query_cache_type")) && !"0".equalsIgnoreCase(this.serverVariables.get("query_cache_size"));
     }
@@ -4003,8 +4201,22 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
             throw SQLError.createSQLException(Messages.getString("Connection.exceededConnectionLifetime"), SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE,
                     getExceptionInterceptor());
         }
-        // Need MySQL-3.22.1, but who uses anything older!?
-        this.io.sendCommand(MysqlDefs.PING, null, null, false, null, timeoutMillis);
+        Lock connectionLock = getConnectionLock();
+
+        if (connectionLock == null) {
+            // Need MySQL-3.22.1, but who uses anything older!?
+            this.io.sendCommand(MysqlDefs.PING, null, null, false, null, timeoutMillis);
+
+            return;
+        }
+
+        connectionLock.lock();
+
+        try {
+            this.io.sendCommand(MysqlDefs.PING, null, null, false, null, timeoutMillis);
+        } finally {
+            connectionLock.unlock();
+        }
     }
 
     /**
@@ -4039,23 +4251,20 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
 
                 cStmt = parseCallableStatement(sql);
             } else {
-                synchronized (this.parsedCallableStatementCache) {
-                    CompoundCacheKey key = new CompoundCacheKey(getCatalog(), sql);
-
-                    CallableStatement.CallableStatementParamInfo cachedParamInfo = (CallableStatement.CallableStatementParamInfo) this.parsedCallableStatementCache
-                            .get(key);
+                CompoundCacheKey key = new CompoundCacheKey(getCatalog(), sql);
 
-                    if (cachedParamInfo != null) {
-                        cStmt = CallableStatement.getInstance(getMultiHostSafeProxy(), cachedParamInfo);
-                    } else {
-                        cStmt = parseCallableStatement(sql);
+                CallableStatement.CallableStatementParamInfo cachedParamInfo = this.parsedCallableStatementCache.get(key);
 
-                        synchronized (cStmt) {
-                            cachedParamInfo = cStmt.paramInfo;
-                        }
+                if (cachedParamInfo != null) {
+                    cStmt = CallableStatement.getInstance(getMultiHostSafeProxy(), cachedParamInfo);
+                } else {
+                    cStmt = parseCallableStatement(sql);
 
-                        this.parsedCallableStatementCache.put(key, cachedParamInfo);
+                    synchronized (cStmt) {
+                        cachedParamInfo = cStmt.paramInfo;
                     }
+
+                    this.parsedCallableStatementCache.put(key, cachedParamInfo);
                 }
             }
 
@@ -4136,59 +4345,55 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      *                if a database-access error occurs.
      */
     public java.sql.PreparedStatement prepareStatement(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
-        synchronized (getConnectionMutex()) {
-            checkClosed();
+        Lock connectionLock = getConnectionLock();
 
-            //
-            // FIXME: Create warnings if can't create results of the given type or concurrency
-            //
-            PreparedStatement pStmt = null;
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                return prepareStatementLocked(sql, resultSetType, resultSetConcurrency);
+            }
+        }
 
-            boolean canServerPrepare = true;
+        connectionLock.lock();
 
-            String nativeSql = getProcessEscapeCodesForPrepStmts() ? nativeSQL(sql) : sql;
+        try {
+            return prepareStatementLocked(sql, resultSetType, resultSetConcurrency);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            if (this.useServerPreparedStmts && getEmulateUnsupportedPstmts()) {
-                canServerPrepare = canHandleAsServerPreparedStatement(nativeSql);
-            }
+    private java.sql.PreparedStatement prepareStatementLocked(String sql, int resultSetType, int resultSetConcurrency) throws SQLException {
+        checkClosed();
 
-            if (this.useServerPreparedStmts && canServerPrepare) {
-                if (this.getCachePreparedStatements()) {
-                    synchronized (this.serverSideStatementCache) {
-                        pStmt = (com.mysql.jdbc.ServerPreparedStatement) this.serverSideStatementCache.remove(sql);
+        //
+        // FIXME: Create warnings if can't create results of the given type or concurrency
+        //
+        PreparedStatement pStmt = null;
 
-                        if (pStmt != null) {
-                            ((com.mysql.jdbc.ServerPreparedStatement) pStmt).setClosed(false);
-                            pStmt.clearParameters();
-                        }
+        boolean canServerPrepare = true;
 
-                        if (pStmt == null) {
-                            try {
-                                pStmt = ServerPreparedStatement.getInstance(getMultiHostSafeProxy(), nativeSql, this.database, resultSetType,
-                                        resultSetConcurrency);
-                                if (sql.length() < getPreparedStatementCacheSqlLimit()) {
-                                    ((com.mysql.jdbc.ServerPreparedStatement) pStmt).isCached = true;
-                                }
+        String nativeSql = getProcessEscapeCodesForPrepStmts() ? nativeSQL(sql) : sql;
 
-                                pStmt.setResultSetType(resultSetType);
-                                pStmt.setResultSetConcurrency(resultSetConcurrency);
-                            } catch (SQLException sqlEx) {
-                                // Punt, if necessary
-                                if (getEmulateUnsupportedPstmts()) {
-                                    pStmt = (PreparedStatement) clientPrepareStatement(nativeSql, resultSetType, resultSetConcurrency, false);
-
-                                    if (sql.length() < getPreparedStatementCacheSqlLimit()) {
-                                        this.serverSideStatementCheckCache.put(sql, Boolean.FALSE);
-                                    }
-                                } else {
-                                    throw sqlEx;
-                                }
-                            }
-                        }
-                    }
-                } else {
+        if (this.useServerPreparedStmts && getEmulateUnsupportedPstmts()) {
+            canServerPrepare = canHandleAsServerPreparedStatement(nativeSql);
+        }
+
+        if (this.useServerPreparedStmts && canServerPrepare) {
+            if (this.getCachePreparedStatements()) {
+                pStmt = this.serverSideStatementCache.remove(sql);
+
+                if (pStmt != null) {
+                    ((com.mysql.jdbc.ServerPreparedStatement) pStmt).setClosed(false);
+                    pStmt.clearParameters();
+                }
+
+                if (pStmt == null) {
                     try {
-                        pStmt = ServerPreparedStatement.getInstance(getMultiHostSafeProxy(), nativeSql, this.database, resultSetType, resultSetConcurrency);
+                        pStmt = ServerPreparedStatement.getInstance(getMultiHostSafeProxy(), nativeSql, this.database, resultSetType,
+                                resultSetConcurrency);
+                        if (sql.length() < getPreparedStatementCacheSqlLimit()) {
+                            ((com.mysql.jdbc.ServerPreparedStatement) pStmt).isCached = true;
+                        }
 
                         pStmt.setResultSetType(resultSetType);
                         pStmt.setResultSetConcurrency(resultSetConcurrency);
@@ -4196,17 +4401,35 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                         // Punt, if necessary
                         if (getEmulateUnsupportedPstmts()) {
                             pStmt = (PreparedStatement) clientPrepareStatement(nativeSql, resultSetType, resultSetConcurrency, false);
+
+                            if (sql.length() < getPreparedStatementCacheSqlLimit()) {
+                                this.serverSideStatementCheckCache.put(sql, Boolean.FALSE);
+                            }
                         } else {
                             throw sqlEx;
                         }
                     }
                 }
             } else {
-                pStmt = (PreparedStatement) clientPrepareStatement(nativeSql, resultSetType, resultSetConcurrency, false);
-            }
+                try {
+                    pStmt = ServerPreparedStatement.getInstance(getMultiHostSafeProxy(), nativeSql, this.database, resultSetType, resultSetConcurrency);
 
-            return pStmt;
+                    pStmt.setResultSetType(resultSetType);
+                    pStmt.setResultSetConcurrency(resultSetConcurrency);
+                } catch (SQLException sqlEx) {
+                    // Punt, if necessary
+                    if (getEmulateUnsupportedPstmts()) {
+                        pStmt = (PreparedStatement) clientPrepareStatement(nativeSql, resultSetType, resultSetConcurrency, false);
+                    } else {
+                        throw sqlEx;
+                    }
+                }
+            }
+        } else {
+            pStmt = (PreparedStatement) clientPrepareStatement(nativeSql, resultSetType, resultSetConcurrency, false);
         }
+
+        return pStmt;
     }
 
     /**
@@ -4300,6 +4523,12 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
                     sqlEx = ex;
                 }
 
+                ServerPreparedStatementRegistry registry = ServerPreparedStatementRegistry.getInstance(this);
+
+                if (registry != null) {
+                    registry.connectionReset(getId());
+                }
+
                 if (this.io != null) {
                     try {
                         this.io.quit();
@@ -4348,9 +4577,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
     public void recachePreparedStatement(ServerPreparedStatement pstmt) throws SQLException {
         synchronized (getConnectionMutex()) {
             if (pstmt.isPoolable()) {
-                synchronized (this.serverSideStatementCache) {
-                    this.serverSideStatementCache.put(pstmt.originalSql, pstmt);
-                }
+                this.serverSideStatementCache.put(pstmt.originalSql, pstmt);
             }
         }
     }
@@ -4358,9 +4585,7 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
     public void decachePreparedStatement(ServerPreparedStatement pstmt) throws SQLException {
         synchronized (getConnectionMutex()) {
             if (pstmt.isPoolable()) {
-                synchronized (this.serverSideStatementCache) {
-                    this.serverSideStatementCache.remove(pstmt.originalSql);
-                }
+                this.serverSideStatementCache.remove(pstmt.originalSql);
             }
         }
     }
@@ -4600,53 +4825,71 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      * @see commit
      */
     public void rollback() throws SQLException {
-        synchronized (getConnectionMutex()) {
-            checkClosed();
+        Lock connectionLock = getConnectionLock();
 
-            try {
-                if (this.connectionLifecycleInterceptors != null) {
-                    IterateBlock<Extension> iter = new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                rollbackLocked();
+            }
 
-                        @Override
-                        void forEach(Extension each) throws SQLException {
-                            if (!((ConnectionLifecycleInterceptor) each).rollback()) {
-                                this.stopIterating = true;
-                            }
+            return;
+        }
+
+        connectionLock.lock();
+
+        try {
+            rollbackLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void rollbackLocked() throws SQLException {
+        checkClosed();
+
+        try {
+            if (this.connectionLifecycleInterceptors != null) {
+                IterateBlock<Extension> iter = new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
+
+                    @Override
+                    void forEach(Extension each) throws SQLException {
+                        if (!((ConnectionLifecycleInterceptor) each).rollback()) {
+                            this.stopIterating = true;
                         }
-                    };
+                    }
+                };
 
-                    iter.doForAll();
+                iter.doForAll();
 
-                    if (!iter.fullIteration()) {
+                if (!iter.fullIteration()) {
+                    return;
+                }
+            }
+            // no-op if _relaxAutoCommit == true
+            if (this.autoCommit && !getRelaxAutoCommit()) {
+                throw SQLError.createSQLException("Can't call rollback when autocommit=true", SQLError.SQL_STATE_CONNECTION_NOT_OPEN,
+                        getExceptionInterceptor());
+            } else if (this.transactionsSupported) {
+                try {
+                    rollbackNoChecks();
+                } catch (SQLException sqlEx) {
+                    // We ignore non-transactional tables if told to do so
+                    if (getIgnoreNonTxTables() && (sqlEx.getErrorCode() == SQLError.ER_WARNING_NOT_COMPLETE_ROLLBACK)) {
                         return;
                     }
-                }
-                // no-op if _relaxAutoCommit == true
-                if (this.autoCommit && !getRelaxAutoCommit()) {
-                    throw SQLError.createSQLException("Can't call rollback when autocommit=true", SQLError.SQL_STATE_CONNECTION_NOT_OPEN,
-                            getExceptionInterceptor());
-                } else if (this.transactionsSupported) {
-                    try {
-                        rollbackNoChecks();
-                    } catch (SQLException sqlEx) {
-                        // We ignore non-transactional tables if told to do so
-                        if (getIgnoreNonTxTables() && (sqlEx.getErrorCode() == SQLError.ER_WARNING_NOT_COMPLETE_ROLLBACK)) {
-                            return;
-                        }
-                        throw sqlEx;
+                    throw sqlEx;
 
-                    }
                 }
-            } catch (SQLException sqlException) {
-                if (SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(sqlException.getSQLState())) {
-                    throw SQLError.createSQLException("Communications link failure during rollback(). Transaction resolution unknown.",
-                            SQLError.SQL_STATE_TRANSACTION_RESOLUTION_UNKNOWN, getExceptionInterceptor());
-                }
-
-                throw sqlException;
-            } finally {
-                this.needsPing = this.getReconnectAtTxEnd();
             }
+        } catch (SQLException sqlException) {
+            if (SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(sqlException.getSQLState())) {
+                throw SQLError.createSQLException("Communications link failure during rollback(). Transaction resolution unknown.",
+                        SQLError.SQL_STATE_TRANSACTION_RESOLUTION_UNKNOWN, getExceptionInterceptor());
+            }
+
+            throw sqlException;
+        } finally {
+            this.needsPing = this.getReconnectAtTxEnd();
         }
     }
 
@@ -4654,77 +4897,94 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      * @see Connection#rollback(Savepoint)
      */
     public void rollback(final Savepoint savepoint) throws SQLException {
+        Lock connectionLock = getConnectionLock();
 
-        synchronized (getConnectionMutex()) {
-            if (versionMeetsMinimum(4, 0, 14) || versionMeetsMinimum(4, 1, 1)) {
-                checkClosed();
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                rollbackLocked(savepoint);
+            }
 
-                try {
-                    if (this.connectionLifecycleInterceptors != null) {
-                        IterateBlock<Extension> iter = new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
+            return;
+        }
 
-                            @Override
-                            void forEach(Extension each) throws SQLException {
-                                if (!((ConnectionLifecycleInterceptor) each).rollback(savepoint)) {
-                                    this.stopIterating = true;
-                                }
-                            }
-                        };
+        connectionLock.lock();
 
-                        iter.doForAll();
+        try {
+            rollbackLocked(savepoint);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                        if (!iter.fullIteration()) {
-                            return;
+    private void rollbackLocked(final Savepoint savepoint) throws SQLException {
+        if (versionMeetsMinimum(4, 0, 14) || versionMeetsMinimum(4, 1, 1)) {
+            checkClosed();
+
+            try {
+                if (this.connectionLifecycleInterceptors != null) {
+                    IterateBlock<Extension> iter = new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
+
+                        @Override
+                        void forEach(Extension each) throws SQLException {
+                            if (!((ConnectionLifecycleInterceptor) each).rollback(savepoint)) {
+                                this.stopIterating = true;
+                            }
                         }
-                    }
+                    };
 
-                    StringBuilder rollbackQuery = new StringBuilder("ROLLBACK TO SAVEPOINT ");
-                    rollbackQuery.append('`');
-                    rollbackQuery.append(savepoint.getSavepointName());
-                    rollbackQuery.append('`');
+                    iter.doForAll();
 
-                    java.sql.Statement stmt = null;
+                    if (!iter.fullIteration()) {
+                        return;
+                    }
+                }
 
-                    try {
-                        stmt = getMetadataSafeStatement();
+                StringBuilder rollbackQuery = new StringBuilder("ROLLBACK TO SAVEPOINT ");
+                rollbackQuery.append('`');
+                rollbackQuery.append(savepoint.getSavepointName());
+                rollbackQuery.append('`');
 
-                        stmt.executeUpdate(rollbackQuery.toString());
-                    } catch (SQLException sqlEx) {
-                        int errno = sqlEx.getErrorCode();
+                java.sql.Statement stmt = null;
 
-                        if (errno == 1181) {
-                            String msg = sqlEx.getMessage();
+                try {
+                    stmt = getMetadataSafeStatement();
 
-                            if (msg != null) {
-                                int indexOfError153 = msg.indexOf("153");
+                    stmt.executeUpdate(rollbackQuery.toString());
+                } catch (SQLException sqlEx) {
+                    int errno = sqlEx.getErrorCode();
 
-                                if (indexOfError153 != -1) {
-                                    throw SQLError.createSQLException("Savepoint '" + savepoint.getSavepointName() + "' does not exist",
-                                            SQLError.SQL_STATE_ILLEGAL_ARGUMENT, errno, getExceptionInterceptor());
-                                }
-                            }
-                        }
+                    if (errno == 1181) {
+                        String msg = sqlEx.getMessage();
 
-                        // We ignore non-transactional tables if told to do so
-                        if (getIgnoreNonTxTables() && (sqlEx.getErrorCode() != SQLError.ER_WARNING_NOT_COMPLETE_ROLLBACK)) {
-                            throw sqlEx;
-                        }
+                        if (msg != null) {
+                            int indexOfError153 = msg.indexOf("153");
 
-                        if (SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(sqlEx.getSQLState())) {
-                            throw SQLError.createSQLException("Communications link failure during rollback(). Transaction resolution unknown.",
-                                    SQLError.SQL_STATE_TRANSACTION_RESOLUTION_UNKNOWN, getExceptionInterceptor());
+                            if (indexOfError153 != -1) {
+                                throw SQLError.createSQLException("Savepoint '" + savepoint.getSavepointName() + "' does not exist",
+                                        SQLError.SQL_STATE_ILLEGAL_ARGUMENT, errno, getExceptionInterceptor());
+                            }
                         }
+                    }
 
+                    // We ignore non-transactional tables if told to do so
+                    if (getIgnoreNonTxTables() && (sqlEx.getErrorCode() != SQLError.ER_WARNING_NOT_COMPLETE_ROLLBACK)) {
                         throw sqlEx;
-                    } finally {
-                        closeStatement(stmt);
                     }
+
+                    if (SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(sqlEx.getSQLState())) {
+                        throw SQLError.createSQLException("Communications link failure during rollback(). Transaction resolution unknown.",
+                                SQLError.SQL_STATE_TRANSACTION_RESOLUTION_UNKNOWN, getExceptionInterceptor());
+                    }
+
+                    throw sqlEx;
                 } finally {
-                    this.needsPing = this.getReconnectAtTxEnd();
+                    closeStatement(stmt);
                 }
-            } else {
-                throw SQLError.notImplemented();
+            } finally {
+                this.needsPing = this.getReconnectAtTxEnd();
             }
+        } else {
+            throw SQLError.notImplemented();
         }
     }
 
@@ -4837,68 +5097,86 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      *                if a database access error occurs
      */
     public void setAutoCommit(final boolean autoCommitFlag) throws SQLException {
-        synchronized (getConnectionMutex()) {
-            checkClosed();
+        Lock connectionLock = getConnectionLock();
 
-            if (this.connectionLifecycleInterceptors != null) {
-                IterateBlock<Extension> iter = new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                setAutoCommitLocked(autoCommitFlag);
+            }
 
-                    @Override
-                    void forEach(Extension each) throws SQLException {
-                        if (!((ConnectionLifecycleInterceptor) each).setAutoCommit(autoCommitFlag)) {
-                            this.stopIterating = true;
-                        }
-                    }
-                };
+            return;
+        }
 
-                iter.doForAll();
+        connectionLock.lock();
 
-                if (!iter.fullIteration()) {
-                    return;
+        try {
+            setAutoCommitLocked(autoCommitFlag);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void setAutoCommitLocked(final boolean autoCommitFlag) throws SQLException {
+        checkClosed();
+
+        if (this.connectionLifecycleInterceptors != null) {
+            IterateBlock<Extension> iter = new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
+
+                @Override
+                void forEach(Extension each) throws SQLException {
+                    if (!((ConnectionLifecycleInterceptor) each).setAutoCommit(autoCommitFlag)) {
+                        this.stopIterating = true;
+                    }
                 }
-            }
+            };
 
-            if (getAutoReconnectForPools()) {
-                setHighAvailability(true);
-            }
+            iter.doForAll();
 
-            try {
-                if (this.transactionsSupported) {
+            if (!iter.fullIteration()) {
+                return;
+            }
+        }
 
-                    boolean needsSetOnServer = true;
+        if (getAutoReconnectForPools()) {
+            setHighAvailability(true);
+        }
 
-                    if (this.getUseLocalSessionState() && this.autoCommit == autoCommitFlag) {
-                        needsSetOnServer = false;
-                    } else if (!this.getHighAvailability()) {
-                        needsSetOnServer = this.getIO().isSetNeededForAutoCommitMode(autoCommitFlag);
-                    }
+        try {
+            if (this.transactionsSupported) {
 
-                    // this internal value must be set first as failover depends on it being set to true to fail over (which is done by most app servers and
-                    // connection pools at the end of a transaction), and the driver issues an implicit set based on this value when it (re)-connects to a
-                    // server so the value holds across connections
-                    this.autoCommit = autoCommitFlag;
+                boolean needsSetOnServer = true;
 
-                    if (needsSetOnServer) {
-                        execSQL(null, autoCommitFlag ? "SET autocommit=1" : "SET autocommit=0", -1, null, DEFAULT_RESULT_SET_TYPE,
-                                DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
-                    }
+                if (this.getUseLocalSessionState() && this.autoCommit == autoCommitFlag) {
+                    needsSetOnServer = false;
+                } else if (!this.getHighAvailability()) {
+                    needsSetOnServer = this.getIO().isSetNeededForAutoCommitMode(autoCommitFlag);
+                }
 
-                } else {
-                    if ((autoCommitFlag == false) && !getRelaxAutoCommit()) {
-                        throw SQLError.createSQLException("MySQL Versions Older than 3.23.15 do not support transactions",
-                                SQLError.SQL_STATE_CONNECTION_NOT_OPEN, getExceptionInterceptor());
-                    }
+                // this internal value must be set first as failover depends on it being set to true to fail over (which is done by most app servers and
+                // connection pools at the end of a transaction), and the driver issues an implicit set based on this value when it (re)-connects to a
+                // server so the value holds across connections
+                this.autoCommit = autoCommitFlag;
 
-                    this.autoCommit = autoCommitFlag;
+                if (needsSetOnServer) {
+                    execSQL(null, autoCommitFlag ? "SET autocommit=1" : "SET autocommit=0", -1, null, DEFAULT_RESULT_SET_TYPE,
+                            DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
                 }
-            } finally {
-                if (this.getAutoReconnectForPools()) {
-                    setHighAvailability(false);
+
+            } else {
+                if ((autoCommitFlag == false) && !getRelaxAutoCommit()) {
+                    throw SQLError.createSQLException("MySQL Versions Older than 3.23.15 do not support transactions",
+                            SQLError.SQL_STATE_CONNECTION_NOT_OPEN, getExceptionInterceptor());
                 }
-            }
 
-            return;
+                this.autoCommit = autoCommitFlag;
+            }
+        } finally {
+            if (this.getAutoReconnectForPools()) {
+                setHighAvailability(false);
+            }
         }
+
+        return;
     }
 
     /**
@@ -4915,56 +5193,74 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      *             if a database access error occurs
      */
     public void setCatalog(final String catalog) throws SQLException {
-        synchronized (getConnectionMutex()) {
-            checkClosed();
+        Lock connectionLock = getConnectionLock();
 
-            if (catalog == null) {
-                throw SQLError.createSQLException("Catalog can not be null", SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                setCatalogLocked(catalog);
             }
 
-            if (this.connectionLifecycleInterceptors != null) {
-                IterateBlock<Extension> iter = new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
+            return;
+        }
 
-                    @Override
-                    void forEach(Extension each) throws SQLException {
-                        if (!((ConnectionLifecycleInterceptor) each).setCatalog(catalog)) {
-                            this.stopIterating = true;
-                        }
-                    }
-                };
+        connectionLock.lock();
 
-                iter.doForAll();
+        try {
+            setCatalogLocked(catalog);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                if (!iter.fullIteration()) {
-                    return;
-                }
-            }
+    private void setCatalogLocked(final String catalog) throws SQLException {
+        checkClosed();
 
-            if (getUseLocalSessionState()) {
-                if (this.lowerCaseTableNames) {
-                    if (this.database.equalsIgnoreCase(catalog)) {
-                        return;
-                    }
-                } else {
-                    if (this.database.equals(catalog)) {
-                        return;
+        if (catalog == null) {
+            throw SQLError.createSQLException("Catalog can not be null", SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+        }
+
+        if (this.connectionLifecycleInterceptors != null) {
+            IterateBlock<Extension> iter = new IterateBlock<Extension>(this.connectionLifecycleInterceptors.iterator()) {
+
+                @Override
+                void forEach(Extension each) throws SQLException {
+                    if (!((ConnectionLifecycleInterceptor) each).setCatalog(catalog)) {
+                        this.stopIterating = true;
                     }
                 }
-            }
+            };
 
-            String quotedId = this.dbmd.getIdentifierQuoteString();
+            iter.doForAll();
 
-            if ((quotedId == null) || quotedId.equals(" ")) {
-                quotedId = "";
+            if (!iter.fullIteration()) {
+                return;
             }
+        }
 
-            StringBuilder query = new StringBuilder("USE ");
-            query.append(StringUtils.quoteIdentifier(catalog, quotedId, getPedantic()));
+        if (getUseLocalSessionState()) {
+            if (this.lowerCaseTableNames) {
+                if (this.database.equalsIgnoreCase(catalog)) {
+                    return;
+                }
+            } else {
+                if (this.database.equals(catalog)) {
+                    return;
+                }
+            }
+        }
 
-            execSQL(null, query.toString(), -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+        String quotedId = this.dbmd.getIdentifierQuoteString();
 
-            this.database = catalog;
+        if ((quotedId == null) || quotedId.equals(" ")) {
+            quotedId = "";
         }
+
+        StringBuilder query = new StringBuilder("USE ");
+        query.append(StringUtils.quoteIdentifier(catalog, quotedId, getPedantic()));
+
+        execSQL(null, query.toString(), -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+
+        this.database = catalog;
     }
 
     /**
@@ -5042,28 +5338,45 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
     }
 
     private void setSavepoint(MysqlSavepoint savepoint) throws SQLException {
+        Lock connectionLock = getConnectionLock();
 
-        synchronized (getConnectionMutex()) {
-            if (versionMeetsMinimum(4, 0, 14) || versionMeetsMinimum(4, 1, 1)) {
-                checkClosed();
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                setSavepointLocked(savepoint);
+            }
 
-                StringBuilder savePointQuery = new StringBuilder("SAVEPOINT ");
-                savePointQuery.append('`');
-                savePointQuery.append(savepoint.getSavepointName());
-                savePointQuery.append('`');
+            return;
+        }
 
-                java.sql.Statement stmt = null;
+        connectionLock.lock();
 
-                try {
-                    stmt = getMetadataSafeStatement();
+        try {
+            setSavepointLocked(savepoint);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                    stmt.executeUpdate(savePointQuery.toString());
-                } finally {
-                    closeStatement(stmt);
-                }
-            } else {
-                throw SQLError.notImplemented();
+    private void setSavepointLocked(MysqlSavepoint savepoint) throws SQLException {
+        if (versionMeetsMinimum(4, 0, 14) || versionMeetsMinimum(4, 1, 1)) {
+            checkClosed();
+
+            StringBuilder savePointQuery = new StringBuilder("SAVEPOINT ");
+            savePointQuery.append('`');
+            savePointQuery.append(savepoint.getSavepointName());
+            savePointQuery.append('`');
+
+            java.sql.Statement stmt = null;
+
+            try {
+                stmt = getMetadataSafeStatement();
+
+                stmt.executeUpdate(savePointQuery.toString());
+            } finally {
+                closeStatement(stmt);
             }
+        } else {
+            throw SQLError.notImplemented();
         }
     }
 
@@ -5071,15 +5384,31 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      * @see Connection#setSavepoint(String)
      */
     public java.sql.Savepoint setSavepoint(String name) throws SQLException {
-        synchronized (getConnectionMutex()) {
-            MysqlSavepoint savepoint = new MysqlSavepoint(name, getExceptionInterceptor());
+        Lock connectionLock = getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                return setSavepointLocked(name);
+            }
+        }
 
-            setSavepoint(savepoint);
+        connectionLock.lock();
 
-            return savepoint;
+        try {
+            return setSavepointLocked(name);
+        } finally {
+            connectionLock.unlock();
         }
     }
 
+    private java.sql.Savepoint setSavepointLocked(String name) throws SQLException {
+        MysqlSavepoint savepoint = new MysqlSavepoint(name, getExceptionInterceptor());
+
+        setSavepoint(savepoint);
+
+        return savepoint;
+    }
+
     private void setSessionVariables() throws SQLException {
         if (this.versionMeetsMinimum(4, 0, 0) && getSessionVariables() != null) {
             List<String> variablesToSet = StringUtils.split(getSessionVariables(), ",", "\"'", "\"'", false);
@@ -5114,64 +5443,82 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      * @throws SQLException
      */
     public void setTransactionIsolation(int level) throws SQLException {
-        synchronized (getConnectionMutex()) {
-            checkClosed();
+        Lock connectionLock = getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                setTransactionIsolationLocked(level);
+            }
+
+            return;
+        }
 
-            if (this.hasIsolationLevels) {
-                String sql = null;
+        connectionLock.lock();
 
-                boolean shouldSendSet = false;
+        try {
+            setTransactionIsolationLocked(level);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                if (getAlwaysSendSetIsolation()) {
+    private void setTransactionIsolationLocked(int level) throws SQLException {
+        checkClosed();
+
+        if (this.hasIsolationLevels) {
+            String sql = null;
+
+            boolean shouldSendSet = false;
+
+            if (getAlwaysSendSetIsolation()) {
+                shouldSendSet = true;
+            } else {
+                if (level != this.isolationLevel) {
                     shouldSendSet = true;
-                } else {
-                    if (level != this.isolationLevel) {
-                        shouldSendSet = true;
-                    }
                 }
+            }
 
-                if (getUseLocalSessionState()) {
-                    shouldSendSet = this.isolationLevel != level;
-                }
+            if (getUseLocalSessionState()) {
+                shouldSendSet = this.isolationLevel != level;
+            }
 
-                if (shouldSendSet) {
-                    switch (level) {
-                        case java.sql.Connection.TRANSACTION_NONE:
-                            throw SQLError.createSQLException("Transaction isolation level NONE not supported by MySQL", getExceptionInterceptor());
+            if (shouldSendSet) {
+                switch (level) {
+                    case java.sql.Connection.TRANSACTION_NONE:
+                        throw SQLError.createSQLException("Transaction isolation level NONE not supported by MySQL", getExceptionInterceptor());
 
-                        case java.sql.Connection.TRANSACTION_READ_COMMITTED:
-                            sql = "SET SESSION TRANSACTION ISOLATION LEVEL READ COMMITTED";
+                    case java.sql.Connection.TRANSACTION_READ_COMMITTED:
+                        sql = "SET SESSION TRANSACTION ISOLATION LEVEL READ COMMITTED";
 
-                            break;
+                        break;
 
-                        case java.sql.Connection.TRANSACTION_READ_UNCOMMITTED:
-                            sql = "SET SESSION TRANSACTION ISOLATION LEVEL READ UNCOMMITTED";
+                    case java.sql.Connection.TRANSACTION_READ_UNCOMMITTED:
+                        sql = "SET SESSION TRANSACTION ISOLATION LEVEL READ UNCOMMITTED";
 
-                            break;
+                        break;
 
-                        case java.sql.Connection.TRANSACTION_REPEATABLE_READ:
-                            sql = "SET SESSION TRANSACTION ISOLATION LEVEL REPEATABLE READ";
+                    case java.sql.Connection.TRANSACTION_REPEATABLE_READ:
+                        sql = "SET SESSION TRANSACTION ISOLATION LEVEL REPEATABLE READ";
 
-                            break;
+                        break;
 
-                        case java.sql.Connection.TRANSACTION_SERIALIZABLE:
-                            sql = "SET SESSION TRANSACTION ISOLATION LEVEL SERIALIZABLE";
+                    case java.sql.Connection.TRANSACTION_SERIALIZABLE:
+                        sql = "SET SESSION TRANSACTION ISOLATION LEVEL SERIALIZABLE";
 
-                            break;
+                        break;
 
-                        default:
-                            throw SQLError.createSQLException("Unsupported transaction isolation level '" + level + "'", SQLError.SQL_STATE_DRIVER_NOT_CAPABLE,
-                                    getExceptionInterceptor());
-                    }
+                    default:
+                        throw SQLError.createSQLException("Unsupported transaction isolation level '" + level + "'", SQLError.SQL_STATE_DRIVER_NOT_CAPABLE,
+                                getExceptionInterceptor());
+                }
 
-                    execSQL(null, sql, -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+                execSQL(null, sql, -1, null, DEFAULT_RESULT_SET_TYPE, DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
 
-                    this.isolationLevel = level;
-                }
-            } else {
-                throw SQLError.createSQLException("Transaction Isolation Levels are not supported on MySQL versions older than 3.23.36.",
-                        SQLError.SQL_STATE_DRIVER_NOT_CAPABLE, getExceptionInterceptor());
+                this.isolationLevel = level;
             }
+        } else {
+            throw SQLError.createSQLException("Transaction Isolation Levels are not supported on MySQL versions older than 3.23.36.",
+                    SQLError.SQL_STATE_DRIVER_NOT_CAPABLE, getExceptionInterceptor());
         }
     }
 
@@ -5226,6 +5573,12 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      *             if the command can not be issued.
      */
     public void shutdownServer() throws SQLException {
+        Lock connectionLock = getConnectionLock();
+
+        if (connectionLock != null) {
+            connectionLock.lock();
+        }
+
         try {
             this.io.sendCommand(MysqlDefs.SHUTDOWN, null, null, false, null, 0);
         } catch (Exception ex) {
@@ -5235,6 +5588,10 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
             sqlEx.initCause(ex);
 
             throw sqlEx;
+        } finally {
+            if (connectionLock != null) {
+                connectionLock.unlock();
+            }
         }
     }
 
@@ -5292,9 +5649,20 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      */
     public CachedResultSetMetaData getCachedMetaData(String sql) {
         if (this.resultSetMetadataCache != null) {
-            synchronized (this.resultSetMetadataCache) {
-                return (CachedResultSetMetaData) this.resultSetMetadataCache.get(sql);
+            CachedResultSetMetaData cachedMetaData = this.resultSetMetadataCache.get(sql);
+
+            if (cachedMetaData == null && this.sharedResultSetMetadataCache != null) {
+                CachedResultSetMetaData sharedMetaData = this.sharedResultSetMetadataCache.get(PerVmResultSetMetadataCache.statementKey(this.database, sql));
+
+                if (sharedMetaData != null) {
+                    // the fields of the shared metadata aren't bound to any connection
+                    cachedMetaData = sharedMetaData.copyForConnection(this);
+
+                    this.resultSetMetadataCache.put(sql, cachedMetaData);
+                }
             }
+
+            return cachedMetaData;
         }
 
         return null; // no cache exists
@@ -5335,6 +5703,11 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
             resultSet.populateCachedMetaData(cachedMetaData);
 
             this.resultSetMetadataCache.put(sql, cachedMetaData);
+
+            if (this.sharedResultSetMetadataCache != null) {
+                // publish a copy bound to no connection, so that the shared cache doesn't keep this one reachable
+                this.sharedResultSetMetadataCache.putIfAbsent(PerVmResultSetMetadataCache.statementKey(this.database, sql), cachedMetaData.copyForConnection(null));
+            }
         } else {
             resultSet.initializeFromCachedMetaData(cachedMetaData);
             resultSet.initializeWithMetadata();
@@ -5442,15 +5815,31 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
     }
 
     public boolean isServerLocal() throws SQLException {
-        synchronized (getConnectionMutex()) {
-            SocketFactory factory = getIO().socketFactory;
+        Lock connectionLock = getConnectionLock();
 
-            if (factory instanceof SocketMetadata) {
-                return ((SocketMetadata) factory).isLocallyConnected(this);
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                return isServerLocalLocked();
             }
-            getLog().logWarn(Messages.getString("Connection.NoMetadataOnSocketFactory"));
-            return false;
         }
+
+        connectionLock.lock();
+
+        try {
+            return isServerLocalLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private boolean isServerLocalLocked() throws SQLException {
+        SocketFactory factory = getIO().socketFactory;
+
+        if (factory instanceof SocketMetadata) {
+            return ((SocketMetadata) factory).isLocallyConnected(this);
+        }
+        getLog().logWarn(Messages.getString("Connection.NoMetadataOnSocketFactory"));
+        return false;
     }
 
     /**
@@ -5471,12 +5860,30 @@ public class ConnectionImpl extends ConnectionPropertiesImpl implements MySQLCon
      *             if a database error occurs issuing the statement that sets the limit.
      */
     public void setSessionMaxRows(int max) throws SQLException {
-        synchronized (getConnectionMutex()) {
-            if (this.sessionMaxRows != max) {
-                this.sessionMaxRows = max;
-                execSQL(null, "SET SQL_SELECT_LIMIT=" + (this.sessionMaxRows == -1 ? "DEFAULT" : this.sessionMaxRows), -1, null, DEFAULT_RESULT_SET_TYPE,
-                        DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
+        Lock connectionLock = getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                setSessionMaxRowsLocked(max);
             }
+
+            return;
+        }
+
+        connectionLock.lock();
+
+        try {
+            setSessionMaxRowsLocked(max);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void setSessionMaxRowsLocked(int max) throws SQLException {
+        if (this.sessionMaxRows != max) {
+            this.sessionMaxRows = max;
+            execSQL(null, "SET SQL_SELECT_LIMIT=" + (this.sessionMaxRows == -1 ? "DEFAULT" : this.sessionMaxRows), -1, null, DEFAULT_RESULT_SET_TYPE,
+                    DEFAULT_RESULT_SET_CONCURRENCY, false, this.database, null, false);
         }
     }
 
@@ -1403,4 +1403,68 @@ public interface ConnectionProperties {
     public String getEnabledSSLCipherSuites();
 
     public void setEnabledSSLCipherSuites(String cipherSuites);
+
+    public boolean getUseDirectSocketBuffers();
+
+    public void setUseDirectSocketBuffers(boolean flag);
+
+    public boolean getUseReentrantConnectionLock();
+
+    public void setUseReentrantConnectionLock(boolean flag);
+
+    public int getBatchPipelineDepth();
+
+    public void setBatchPipelineDepth(int value) throws SQLException;
+
+    public int getCompressionThreshold();
+
+    public void setCompressionThreshold(int value) throws SQLException;
+
+    public boolean getStreamLargeParameters();
+
+    public void setStreamLargeParameters(boolean flag);
+
+    public int getColumnStreamingThreshold();
+
+    public void setColumnStreamingThreshold(int value) throws SQLException;
+
+    public boolean getUseParallelRowDecoding();
+
+    public void setUseParallelRowDecoding(boolean flag);
+
+    public int getParallelRowDecodingChunkSize();
+
+    public void setParallelRowDecodingChunkSize(int value) throws SQLException;
+
+    public boolean getPrefetchCursorRows();
+
+    public void setPrefetchCursorRows(boolean flag);
+
+    public int getStreamingReadAheadRows();
+
+    public void setStreamingReadAheadRows(int value) throws SQLException;
+
+    public int getParseInfoCacheMaxBytes();
+
+    public void setParseInfoCacheMaxBytes(int value) throws SQLException;
+
+    public int getServerPrepStmtRegistrySize();
+
+    public void setServerPrepStmtRegistrySize(int value) throws SQLException;
+
+    public int getEagerServerPrepStmtCount();
+
+    public void setEagerServerPrepStmtCount(int value) throws SQLException;
+
+    public boolean getAutoReprepareServerStatements();
+
+    public void setAutoReprepareServerStatements(boolean flag);
+
+    public boolean getShareCachedResultSetMetadata();
+
+    public void setShareCachedResultSetMetadata(boolean flag);
+
+    public boolean getUseOptionalResultsetMetadata();
+
+    public void setUseOptionalResultsetMetadata(boolean flag);
 }
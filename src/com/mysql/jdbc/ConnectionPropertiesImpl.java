@@ -1299,6 +1299,54 @@ public class ConnectionPropertiesImpl implements Serializable, ConnectionPropert
     private StringConnectionProperty enabledSSLCipherSuites = new StringConnectionProperty("enabledSSLCipherSuites", null,
             Messages.getString("ConnectionProperties.enabledSSLCipherSuites"), "5.1.35", SECURITY_CATEGORY, 11);
 
+    private BooleanConnectionProperty useDirectSocketBuffers = new BooleanConnectionProperty("useDirectSocketBuffers", false,
+            Messages.getString("ConnectionProperties.useDirectSocketBuffers"), "5.1.37", NETWORK_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty useReentrantConnectionLock = new BooleanConnectionProperty("useReentrantConnectionLock", false,
+            Messages.getString("ConnectionProperties.useReentrantConnectionLock"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty batchPipelineDepth = new IntegerConnectionProperty("batchPipelineDepth", 0, 0, Integer.MAX_VALUE,
+            Messages.getString("ConnectionProperties.batchPipelineDepth"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty compressionThreshold = new IntegerConnectionProperty("compressionThreshold", 50, 0, Integer.MAX_VALUE,
+            Messages.getString("ConnectionProperties.compressionThreshold"), "5.1.37", CONNECTION_AND_AUTH_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty streamLargeParameters = new BooleanConnectionProperty("streamLargeParameters", false,
+            Messages.getString("ConnectionProperties.streamLargeParameters"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty columnStreamingThreshold = new IntegerConnectionProperty("columnStreamingThreshold", 0, 0, Integer.MAX_VALUE,
+            Messages.getString("ConnectionProperties.columnStreamingThreshold"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty useParallelRowDecoding = new BooleanConnectionProperty("useParallelRowDecoding", false,
+            Messages.getString("ConnectionProperties.useParallelRowDecoding"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty parallelRowDecodingChunkSize = new IntegerConnectionProperty("parallelRowDecodingChunkSize", 1000, 1, Integer.MAX_VALUE,
+            Messages.getString("ConnectionProperties.parallelRowDecodingChunkSize"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty prefetchCursorRows = new BooleanConnectionProperty("prefetchCursorRows", false,
+            Messages.getString("ConnectionProperties.prefetchCursorRows"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty streamingReadAheadRows = new IntegerConnectionProperty("streamingReadAheadRows", 0, 0, 100000,
+            Messages.getString("ConnectionProperties.streamingReadAheadRows"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty parseInfoCacheMaxBytes = new IntegerConnectionProperty("parseInfoCacheMaxBytes", 16777216, 0, Integer.MAX_VALUE,
+            Messages.getString("ConnectionProperties.parseInfoCacheMaxBytes"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty serverPrepStmtRegistrySize = new IntegerConnectionProperty("serverPrepStmtRegistrySize", 0, 0, Integer.MAX_VALUE,
+            Messages.getString("ConnectionProperties.serverPrepStmtRegistrySize"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private IntegerConnectionProperty eagerServerPrepStmtCount = new IntegerConnectionProperty("eagerServerPrepStmtCount", 0, 0, Integer.MAX_VALUE,
+            Messages.getString("ConnectionProperties.eagerServerPrepStmtCount"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty autoReprepareServerStatements = new BooleanConnectionProperty("autoReprepareServerStatements", false,
+            Messages.getString("ConnectionProperties.autoReprepareServerStatements"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty shareCachedResultSetMetadata = new BooleanConnectionProperty("shareCachedResultSetMetadata", false,
+            Messages.getString("ConnectionProperties.shareCachedResultSetMetadata"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
+    private BooleanConnectionProperty useOptionalResultsetMetadata = new BooleanConnectionProperty("useOptionalResultsetMetadata", false,
+            Messages.getString("ConnectionProperties.useOptionalResultsetMetadata"), "5.1.37", PERFORMANCE_CATEGORY, Integer.MIN_VALUE);
+
     protected DriverPropertyInfo[] exposeAsDriverPropertyInfoInternal(Properties info, int slotsToReserve) throws SQLException {
         initializeProperties(info);
 
@@ -4853,4 +4901,132 @@ public class ConnectionPropertiesImpl implements Serializable, ConnectionPropert
     public void setEnabledSSLCipherSuites(String cipherSuites) {
         this.enabledSSLCipherSuites.setValue(cipherSuites);
     }
+
+    public boolean getUseDirectSocketBuffers() {
+        return this.useDirectSocketBuffers.getValueAsBoolean();
+    }
+
+    public void setUseDirectSocketBuffers(boolean flag) {
+        this.useDirectSocketBuffers.setValue(flag);
+    }
+
+    public boolean getUseReentrantConnectionLock() {
+        return this.useReentrantConnectionLock.getValueAsBoolean();
+    }
+
+    public void setUseReentrantConnectionLock(boolean flag) {
+        this.useReentrantConnectionLock.setValue(flag);
+    }
+
+    public int getBatchPipelineDepth() {
+        return this.batchPipelineDepth.getValueAsInt();
+    }
+
+    public void setBatchPipelineDepth(int value) throws SQLException {
+        this.batchPipelineDepth.setValue(value, getExceptionInterceptor());
+    }
+
+    public int getCompressionThreshold() {
+        return this.compressionThreshold.getValueAsInt();
+    }
+
+    public void setCompressionThreshold(int value) throws SQLException {
+        this.compressionThreshold.setValue(value, getExceptionInterceptor());
+    }
+
+    public boolean getStreamLargeParameters() {
+        return this.streamLargeParameters.getValueAsBoolean();
+    }
+
+    public void setStreamLargeParameters(boolean flag) {
+        this.streamLargeParameters.setValue(flag);
+    }
+
+    public int getColumnStreamingThreshold() {
+        return this.columnStreamingThreshold.getValueAsInt();
+    }
+
+    public void setColumnStreamingThreshold(int value) throws SQLException {
+        this.columnStreamingThreshold.setValue(value, getExceptionInterceptor());
+    }
+
+    public boolean getUseParallelRowDecoding() {
+        return this.useParallelRowDecoding.getValueAsBoolean();
+    }
+
+    public void setUseParallelRowDecoding(boolean flag) {
+        this.useParallelRowDecoding.setValue(flag);
+    }
+
+    public int getParallelRowDecodingChunkSize() {
+        return this.parallelRowDecodingChunkSize.getValueAsInt();
+    }
+
+    public void setParallelRowDecodingChunkSize(int value) throws SQLException {
+        this.parallelRowDecodingChunkSize.setValue(value, getExceptionInterceptor());
+    }
+
+    public boolean getPrefetchCursorRows() {
+        return this.prefetchCursorRows.getValueAsBoolean();
+    }
+
+    public void setPrefetchCursorRows(boolean flag) {
+        this.prefetchCursorRows.setValue(flag);
+    }
+
+    public int getStreamingReadAheadRows() {
+        return this.streamingReadAheadRows.getValueAsInt();
+    }
+
+    public void setStreamingReadAheadRows(int value) throws SQLException {
+        this.streamingReadAheadRows.setValue(value, getExceptionInterceptor());
+    }
+
+    public int getParseInfoCacheMaxBytes() {
+        return this.parseInfoCacheMaxBytes.getValueAsInt();
+    }
+
+    public void setParseInfoCacheMaxBytes(int value) throws SQLException {
+        this.parseInfoCacheMaxBytes.setValue(value, getExceptionInterceptor());
+    }
+
+    public int getServerPrepStmtRegistrySize() {
+        return this.serverPrepStmtRegistrySize.getValueAsInt();
+    }
+
+    public void setServerPrepStmtRegistrySize(int value) throws SQLException {
+        this.serverPrepStmtRegistrySize.setValue(value, getExceptionInterceptor());
+    }
+
+    public int getEagerServerPrepStmtCount() {
+        return this.eagerServerPrepStmtCount.getValueAsInt();
+    }
+
+    public void setEagerServerPrepStmtCount(int value) throws SQLException {
+        this.eagerServerPrepStmtCount.setValue(value, getExceptionInterceptor());
+    }
+
+    public boolean getAutoReprepareServerStatements() {
+        return this.autoReprepareServerStatements.getValueAsBoolean();
+    }
+
+    public void setAutoReprepareServerStatements(boolean flag) {
+        this.autoReprepareServerStatements.setValue(flag);
+    }
+
+    public boolean getShareCachedResultSetMetadata() {
+        return this.shareCachedResultSetMetadata.getValueAsBoolean();
+    }
+
+    public void setShareCachedResultSetMetadata(boolean flag) {
+        this.shareCachedResultSetMetadata.setValue(flag);
+    }
+
+    public boolean getUseOptionalResultsetMetadata() {
+        return this.useOptionalResultsetMetadata.getValueAsBoolean();
+    }
+
+    public void setUseOptionalResultsetMetadata(boolean flag) {
+        this.useOptionalResultsetMetadata.setValue(flag);
+    }
 }
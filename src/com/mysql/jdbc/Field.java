@@ -384,6 +384,50 @@ public class Field {
         }
     }
 
+    /**
+     * Copies a field, binding the copy to another connection, or to none if conn is null. Used to share the result set metadata cached by a connection with
+     * the other connections to the same server, without having the copy depend on the original connection staying open.
+     */
+    Field(Field template, MySQLConnection conn) {
+        synchronized (template) {
+            this.connection = conn;
+            this.buffer = template.buffer;
+            this.collationIndex = template.collationIndex;
+            this.encoding = template.encoding;
+            this.colDecimals = template.colDecimals;
+            this.colFlag = template.colFlag;
+            this.collationName = template.collationName;
+            this.databaseName = template.databaseName;
+            this.databaseNameLength = template.databaseNameLength;
+            this.databaseNameStart = template.databaseNameStart;
+            this.defaultValueLength = template.defaultValueLength;
+            this.defaultValueStart = template.defaultValueStart;
+            this.fullName = template.fullName;
+            this.fullOriginalName = template.fullOriginalName;
+            this.isImplicitTempTable = template.isImplicitTempTable;
+            this.length = template.length;
+            this.mysqlType = template.mysqlType;
+            this.name = template.name;
+            this.nameLength = template.nameLength;
+            this.nameStart = template.nameStart;
+            this.originalColumnName = template.originalColumnName;
+            this.originalColumnNameLength = template.originalColumnNameLength;
+            this.originalColumnNameStart = template.originalColumnNameStart;
+            this.originalTableName = template.originalTableName;
+            this.originalTableNameLength = template.originalTableNameLength;
+            this.originalTableNameStart = template.originalTableNameStart;
+            this.precisionAdjustFactor = template.precisionAdjustFactor;
+            this.sqlType = template.sqlType;
+            this.tableName = template.tableName;
+            this.tableNameLength = template.tableNameLength;
+            this.tableNameStart = template.tableNameStart;
+            this.useOldNameMetadata = template.useOldNameMetadata;
+            this.isSingleBit = template.isSingleBit;
+            this.maxBytesPerChar = template.maxBytesPerChar;
+            this.valueNeedsQuoting = template.valueNeedsQuoting;
+        }
+    }
+
     private void checkForImplicitTemporaryTable() {
         this.isImplicitTempTable = this.tableNameLength > 5 && this.buffer[this.tableNameStart] == (byte) '#'
                 && this.buffer[this.tableNameStart + 1] == (byte) 's' && this.buffer[this.tableNameStart + 2] == (byte) 'q'
@@ -32,6 +32,7 @@ import java.sql.NClob;
 import java.sql.Struct;
 import java.util.Properties;
 import java.util.TimerTask;
+import java.util.concurrent.locks.Lock;
 
 import com.mysql.jdbc.ConnectionImpl;
 import com.mysql.jdbc.Messages;
@@ -86,30 +87,46 @@ public class JDBC4Connection extends ConnectionImpl {
      * @since 1.6
      */
     public boolean isValid(int timeout) throws SQLException {
-        synchronized (getConnectionMutex()) {
-            if (isClosed()) {
-                return false;
+        Lock connectionLock = getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                return isValidLocked(timeout);
             }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return isValidLocked(timeout);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private boolean isValidLocked(int timeout) throws SQLException {
+        if (isClosed()) {
+            return false;
+        }
 
+        try {
             try {
+                pingInternal(false, timeout * 1000);
+            } catch (Throwable t) {
                 try {
-                    pingInternal(false, timeout * 1000);
-                } catch (Throwable t) {
-                    try {
-                        abortInternal();
-                    } catch (Throwable ignoreThrown) {
-                        // we're dead now anyway
-                    }
-
-                    return false;
+                    abortInternal();
+                } catch (Throwable ignoreThrown) {
+                    // we're dead now anyway
                 }
 
-            } catch (Throwable t) {
                 return false;
             }
 
-            return true;
+        } catch (Throwable t) {
+            return false;
         }
+
+        return true;
     }
 
     public void setClientInfo(Properties properties) throws SQLClientInfoException {
@@ -209,28 +226,44 @@ public class JDBC4Connection extends ConnectionImpl {
     }
 
     protected JDBC4ClientInfoProvider getClientInfoProviderImpl() throws SQLException {
-        synchronized (getConnectionMutex()) {
-            if (this.infoProvider == null) {
+        Lock connectionLock = getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (getConnectionMutex()) {
+                return getClientInfoProviderImplLocked();
+            }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return getClientInfoProviderImplLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private JDBC4ClientInfoProvider getClientInfoProviderImplLocked() throws SQLException {
+        if (this.infoProvider == null) {
+            try {
                 try {
-                    try {
-                        this.infoProvider = (JDBC4ClientInfoProvider) Util.getInstance(getClientInfoProvider(), new Class[0], new Object[0],
-                                getExceptionInterceptor());
-                    } catch (SQLException sqlEx) {
-                        if (sqlEx.getCause() instanceof ClassCastException) {
-                            // try with package name prepended
-                            this.infoProvider = (JDBC4ClientInfoProvider) Util.getInstance("com.mysql.jdbc." + getClientInfoProvider(), new Class[0],
-                                    new Object[0], getExceptionInterceptor());
-                        }
+                    this.infoProvider = (JDBC4ClientInfoProvider) Util.getInstance(getClientInfoProvider(), new Class[0], new Object[0],
+                            getExceptionInterceptor());
+                } catch (SQLException sqlEx) {
+                    if (sqlEx.getCause() instanceof ClassCastException) {
+                        // try with package name prepended
+                        this.infoProvider = (JDBC4ClientInfoProvider) Util.getInstance("com.mysql.jdbc." + getClientInfoProvider(), new Class[0],
+                                new Object[0], getExceptionInterceptor());
                     }
-                } catch (ClassCastException cce) {
-                    throw SQLError.createSQLException(Messages.getString("JDBC4Connection.ClientInfoNotImplemented", new Object[] { getClientInfoProvider() }),
-                            SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
                 }
-
-                this.infoProvider.initialize(this, this.props);
+            } catch (ClassCastException cce) {
+                throw SQLError.createSQLException(Messages.getString("JDBC4Connection.ClientInfoNotImplemented", new Object[] { getClientInfoProvider() }),
+                        SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
             }
 
-            return this.infoProvider;
+            this.infoProvider.initialize(this, this.props);
         }
+
+        return this.infoProvider;
     }
 }
@@ -0,0 +1,311 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * Encodes the rows of a {@link LocalInfileRowProducer} into "LOAD DATA LOCAL INFILE" packets on a driver thread, while MysqlIO sends the packets filled
+ * before. The packets are handed back and forth between both threads, so there is always one being filled while the other one is being sent.
+ */
+class LocalInfileRowEncoder implements LocalInfileRowSink, Runnable {
+    /** Queued after the last filled packet, and to wake up the encoder when sending failed */
+    private static final Buffer NO_MORE_PACKETS = new Buffer(new byte[0]);
+
+    private final LocalInfileRowProducer producer;
+
+    private final String encoding;
+
+    private final ExceptionInterceptor exceptionInterceptor;
+
+    private final BlockingQueue<Buffer> emptyPackets;
+
+    private final BlockingQueue<Buffer> filledPackets;
+
+    private volatile boolean aborted = false;
+
+    private volatile Throwable failure = null;
+
+    // only used by the encoding thread
+    private Buffer packet = null;
+
+    private byte[] packetBytes = null;
+
+    private int position = 0;
+
+    private int limit = 0;
+
+    LocalInfileRowEncoder(LocalInfileRowProducer producer, Buffer[] packets, String encoding, ExceptionInterceptor exceptionInterceptor) {
+        this.producer = producer;
+        this.encoding = encoding;
+        this.exceptionInterceptor = exceptionInterceptor;
+
+        // room for all packets plus NO_MORE_PACKETS, so adding never blocks
+        this.emptyPackets = new ArrayBlockingQueue<Buffer>(packets.length + 1);
+        this.filledPackets = new ArrayBlockingQueue<Buffer>(packets.length + 1);
+
+        for (int i = 0; i < packets.length; i++) {
+            this.emptyPackets.add(packets[i]);
+        }
+    }
+
+    public void run() {
+        try {
+            this.producer.produceRows(this);
+        } catch (Throwable t) {
+            this.failure = t;
+        }
+
+        try {
+            if (this.packet != null && !this.aborted) {
+                this.packet.setPosition(this.position);
+                this.filledPackets.add(this.packet);
+            }
+        } finally {
+            this.filledPackets.add(NO_MORE_PACKETS);
+        }
+    }
+
+    public void addRow(Object... values) throws SQLException {
+        if (this.aborted) {
+            throw abortedException();
+        }
+
+        for (int i = 0; i < values.length; i++) {
+            if (i > 0) {
+                writeByte('\t');
+            }
+
+            writeValue(values[i]);
+        }
+
+        writeByte('\n');
+    }
+
+    /**
+     * Returns the next packet to send, waiting for it to be filled, or null once all rows were encoded.
+     */
+    Buffer nextFilledPacket() {
+        boolean interrupted = false;
+
+        try {
+            while (true) {
+                try {
+                    Buffer filledPacket = this.filledPackets.take();
+
+                    return filledPacket == NO_MORE_PACKETS ? null : filledPacket;
+                } catch (InterruptedException e) {
+                    // the statement can't be left half way through, keep waiting
+                    interrupted = true;
+                }
+            }
+        } finally {
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Gives a packet returned by nextFilledPacket() back to the encoder once it has been sent.
+     */
+    void releasePacket(Buffer sentPacket) {
+        this.emptyPackets.add(sentPacket);
+    }
+
+    /**
+     * Makes the producer fail on its next row when the packets can't be sent anymore.
+     */
+    void abort() {
+        this.aborted = true;
+        this.emptyPackets.offer(NO_MORE_PACKETS);
+    }
+
+    /**
+     * Returns what the producer threw, if anything, once nextFilledPacket() returned null.
+     */
+    Throwable getFailure() {
+        return this.failure;
+    }
+
+    private SQLException abortedException() {
+        return SQLError.createSQLException(Messages.getString("LocalInfileRowEncoder.Aborted"), SQLError.SQL_STATE_GENERAL_ERROR, this.exceptionInterceptor);
+    }
+
+    private void writeValue(Object value) throws SQLException {
+        if (value == null) {
+            writeByte('\\');
+            writeByte('N');
+        } else if (value instanceof byte[]) {
+            byte[] bytes = (byte[]) value;
+
+            for (int i = 0; i < bytes.length; i++) {
+                writeEscapedByte(bytes[i]);
+            }
+        } else if (value instanceof Boolean) {
+            writeByte(((Boolean) value).booleanValue() ? '1' : '0');
+        } else if (value instanceof BigDecimal) {
+            writeString(((BigDecimal) value).toPlainString());
+        } else {
+            writeString(value.toString());
+        }
+    }
+
+    private void writeString(String value) throws SQLException {
+        int length = value.length();
+
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+
+            if (c >= 0x80) {
+                // escape before encoding, escaping the encoded bytes could split multi-byte characters whose trailing bytes look like a backslash
+                writeBytes(encode(escape(value, i)));
+
+                return;
+            }
+
+            writeEscapedByte((byte) c);
+        }
+    }
+
+    private String escape(String value, int from) {
+        StringBuilder escaped = new StringBuilder(value.length() - from + 16);
+
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+
+            switch (c) {
+                case 0:
+                    escaped.append("\\0");
+                    break;
+                case '\t':
+                    escaped.append("\\t");
+                    break;
+                case '\n':
+                    escaped.append("\\n");
+                    break;
+                case '\r':
+                    escaped.append("\\r");
+                    break;
+                case '\\':
+                    escaped.append("\\\\");
+                    break;
+                default:
+                    escaped.append(c);
+            }
+        }
+
+        return escaped.toString();
+    }
+
+    private byte[] encode(String value) throws SQLException {
+        if (this.encoding == null) {
+            return StringUtils.getBytes(value);
+        }
+
+        try {
+            return StringUtils.getBytes(value, this.encoding);
+        } catch (UnsupportedEncodingException e) {
+            throw SQLError.createSQLException("Unsupported character encoding " + this.encoding, SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    this.exceptionInterceptor);
+        }
+    }
+
+    private void writeEscapedByte(byte b) throws SQLException {
+        switch (b) {
+            case 0:
+                writeByte('\\');
+                writeByte('0');
+                break;
+            case '\t':
+                writeByte('\\');
+                writeByte('t');
+                break;
+            case '\n':
+                writeByte('\\');
+                writeByte('n');
+                break;
+            case '\r':
+                writeByte('\\');
+                writeByte('r');
+                break;
+            case '\\':
+                writeByte('\\');
+                writeByte('\\');
+                break;
+            default:
+                writeByte(b);
+        }
+    }
+
+    private void writeBytes(byte[] bytes) throws SQLException {
+        for (int i = 0; i < bytes.length; i++) {
+            writeByte(bytes[i]);
+        }
+    }
+
+    private void writeByte(int b) throws SQLException {
+        if (this.position == this.limit) {
+            nextPacket();
+        }
+
+        this.packetBytes[this.position++] = (byte) b;
+    }
+
+    /**
+     * Hands the current packet over to be sent and waits for an empty one.
+     */
+    private void nextPacket() throws SQLException {
+        if (this.packet != null) {
+            this.packet.setPosition(this.position);
+            this.filledPackets.add(this.packet);
+            this.packet = null;
+        }
+
+        Buffer emptyPacket;
+
+        try {
+            emptyPacket = this.emptyPackets.take();
+        } catch (InterruptedException e) {
+            this.aborted = true;
+
+            throw abortedException();
+        }
+
+        if (emptyPacket == NO_MORE_PACKETS) {
+            throw abortedException();
+        }
+
+        emptyPacket.clear();
+
+        this.packet = emptyPacket;
+        this.packetBytes = emptyPacket.getByteBuffer();
+        this.position = emptyPacket.getPosition();
+        this.limit = emptyPacket.getBufLength();
+    }
+}
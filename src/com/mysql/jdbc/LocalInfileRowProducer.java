@@ -0,0 +1,40 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+/**
+ * Generates the rows of a "LOAD DATA LOCAL INFILE" statement, see {@link Statement#setLocalInfileRowProducer(LocalInfileRowProducer)}.
+ */
+public interface LocalInfileRowProducer {
+
+    /**
+     * Writes all rows to the given sink. Called on a driver thread while the statement executes, so rows are encoded while the previous ones are being
+     * sent. Returning ends the data; throwing an exception ends it too and fails the statement with that exception as the cause, after the rows written
+     * so far were loaded by the server.
+     * 
+     * @param sink
+     *            where rows are written to
+     */
+    public void produceRows(LocalInfileRowSink sink) throws Exception;
+}
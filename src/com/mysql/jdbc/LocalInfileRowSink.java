@@ -0,0 +1,48 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Receives the rows sent to the server for a "LOAD DATA LOCAL INFILE" statement from a {@link LocalInfileRowProducer}.
+ * 
+ * Rows are written in the default LOAD DATA format: fields terminated by tab, lines terminated by newline, escaped by backslash and not enclosed, so the
+ * statement must not specify FIELDS or LINES options. Strings are encoded with the connection's character encoding, which the statement's CHARACTER SET
+ * clause should match.
+ */
+public interface LocalInfileRowSink {
+
+    /**
+     * Appends a row. Null values are sent as NULL, byte arrays as is, booleans as 1 or 0, BigDecimals in plain notation and anything else as its
+     * toString() value. All values are escaped as needed.
+     * 
+     * @param values
+     *            the column values of the row, in the order of the statement's column list
+     * 
+     * @throws SQLException
+     *             if sending the rows to the server failed, in which case the producer should return
+     */
+    public void addRow(Object... values) throws SQLException;
+}
@@ -37,6 +37,7 @@ import java.util.Properties;
 import java.util.TimeZone;
 import java.util.Timer;
 import java.util.concurrent.Executor;
+import java.util.concurrent.locks.Lock;
 
 import com.mysql.jdbc.log.Log;
 import com.mysql.jdbc.profiler.ProfilerEventHandler;
@@ -1819,6 +1820,14 @@ public class MultiHostMySQLConnection implements MySQLConnection {
         return getActiveMySQLConnection().getUtcCalendar();
     }
 
+    public TimezoneOffsetTable getTimezoneOffsetTable(TimeZone tz) {
+        return getActiveMySQLConnection().getTimezoneOffsetTable(tz);
+    }
+
+    public Lock getConnectionLock() {
+        return getActiveMySQLConnection().getConnectionLock();
+    }
+
     public SQLWarning getWarnings() throws SQLException {
         return getActiveMySQLConnection().getWarnings();
     }
@@ -2411,4 +2420,132 @@ public class MultiHostMySQLConnection implements MySQLConnection {
     public void setEnabledSSLCipherSuites(String cipherSuites) {
         getActiveMySQLConnection().setEnabledSSLCipherSuites(cipherSuites);
     }
+
+    public boolean getUseDirectSocketBuffers() {
+        return getActiveMySQLConnection().getUseDirectSocketBuffers();
+    }
+
+    public void setUseDirectSocketBuffers(boolean flag) {
+        getActiveMySQLConnection().setUseDirectSocketBuffers(flag);
+    }
+
+    public boolean getUseReentrantConnectionLock() {
+        return getActiveMySQLConnection().getUseReentrantConnectionLock();
+    }
+
+    public void setUseReentrantConnectionLock(boolean flag) {
+        getActiveMySQLConnection().setUseReentrantConnectionLock(flag);
+    }
+
+    public int getBatchPipelineDepth() {
+        return getActiveMySQLConnection().getBatchPipelineDepth();
+    }
+
+    public void setBatchPipelineDepth(int value) throws SQLException {
+        getActiveMySQLConnection().setBatchPipelineDepth(value);
+    }
+
+    public int getCompressionThreshold() {
+        return getActiveMySQLConnection().getCompressionThreshold();
+    }
+
+    public void setCompressionThreshold(int value) throws SQLException {
+        getActiveMySQLConnection().setCompressionThreshold(value);
+    }
+
+    public boolean getStreamLargeParameters() {
+        return getActiveMySQLConnection().getStreamLargeParameters();
+    }
+
+    public void setStreamLargeParameters(boolean flag) {
+        getActiveMySQLConnection().setStreamLargeParameters(flag);
+    }
+
+    public int getColumnStreamingThreshold() {
+        return getActiveMySQLConnection().getColumnStreamingThreshold();
+    }
+
+    public void setColumnStreamingThreshold(int value) throws SQLException {
+        getActiveMySQLConnection().setColumnStreamingThreshold(value);
+    }
+
+    public boolean getUseParallelRowDecoding() {
+        return getActiveMySQLConnection().getUseParallelRowDecoding();
+    }
+
+    public void setUseParallelRowDecoding(boolean flag) {
+        getActiveMySQLConnection().setUseParallelRowDecoding(flag);
+    }
+
+    public int getParallelRowDecodingChunkSize() {
+        return getActiveMySQLConnection().getParallelRowDecodingChunkSize();
+    }
+
+    public void setParallelRowDecodingChunkSize(int value) throws SQLException {
+        getActiveMySQLConnection().setParallelRowDecodingChunkSize(value);
+    }
+
+    public boolean getPrefetchCursorRows() {
+        return getActiveMySQLConnection().getPrefetchCursorRows();
+    }
+
+    public void setPrefetchCursorRows(boolean flag) {
+        getActiveMySQLConnection().setPrefetchCursorRows(flag);
+    }
+
+    public int getStreamingReadAheadRows() {
+        return getActiveMySQLConnection().getStreamingReadAheadRows();
+    }
+
+    public void setStreamingReadAheadRows(int value) throws SQLException {
+        getActiveMySQLConnection().setStreamingReadAheadRows(value);
+    }
+
+    public int getParseInfoCacheMaxBytes() {
+        return getActiveMySQLConnection().getParseInfoCacheMaxBytes();
+    }
+
+    public void setParseInfoCacheMaxBytes(int value) throws SQLException {
+        getActiveMySQLConnection().setParseInfoCacheMaxBytes(value);
+    }
+
+    public int getServerPrepStmtRegistrySize() {
+        return getActiveMySQLConnection().getServerPrepStmtRegistrySize();
+    }
+
+    public void setServerPrepStmtRegistrySize(int value) throws SQLException {
+        getActiveMySQLConnection().setServerPrepStmtRegistrySize(value);
+    }
+
+    public int getEagerServerPrepStmtCount() {
+        return getActiveMySQLConnection().getEagerServerPrepStmtCount();
+    }
+
+    public void setEagerServerPrepStmtCount(int value) throws SQLException {
+        getActiveMySQLConnection().setEagerServerPrepStmtCount(value);
+    }
+
+    public boolean getAutoReprepareServerStatements() {
+        return getActiveMySQLConnection().getAutoReprepareServerStatements();
+    }
+
+    public void setAutoReprepareServerStatements(boolean flag) {
+        getActiveMySQLConnection().setAutoReprepareServerStatements(flag);
+    }
+
+    public boolean getShareCachedResultSetMetadata() {
+        return getActiveMySQLConnection().getShareCachedResultSetMetadata();
+    }
+
+    public void setShareCachedResultSetMetadata(boolean flag) {
+        getActiveMySQLConnection().setShareCachedResultSetMetadata(flag);
+    }
+
+    public boolean getUseOptionalResultsetMetadata() {
+        return getActiveMySQLConnection().getUseOptionalResultsetMetadata();
+    }
+
+    public void setUseOptionalResultsetMetadata(boolean flag) {
+        getActiveMySQLConnection().setUseOptionalResultsetMetadata(flag);
+    }
 }
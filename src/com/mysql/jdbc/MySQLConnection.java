@@ -29,6 +29,7 @@ import java.util.List;
 import java.util.Properties;
 import java.util.TimeZone;
 import java.util.Timer;
+import java.util.concurrent.locks.Lock;
 
 import com.mysql.jdbc.log.Log;
 import com.mysql.jdbc.profiler.ProfilerEventHandler;
@@ -129,6 +130,17 @@ public interface MySQLConnection extends Connection, ConnectionProperties {
 
     Calendar getUtcCalendar();
 
+    /**
+     * Returns this connection's table of UTC offsets for the given timezone, used to convert temporal values without going through a Calendar.
+     */
+    TimezoneOffsetTable getTimezoneOffsetTable(TimeZone tz);
+
+    /**
+     * Returns the lock that serializes statement execution and result set traversal in place of the connection mutex when useReentrantConnectionLock is
+     * enabled, or null when callers should synchronize on {@link #getConnectionMutex()}.
+     */
+    Lock getConnectionLock();
+
     void incrementNumberOfPreparedExecutes();
 
     void incrementNumberOfPrepares();
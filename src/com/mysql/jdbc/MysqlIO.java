@@ -41,6 +41,7 @@ import java.net.MalformedURLException;
 import java.net.Socket;
 import java.net.SocketException;
 import java.net.URL;
+import java.nio.channels.SocketChannel;
 import java.security.NoSuchAlgorithmException;
 import java.sql.ResultSet;
 import java.sql.SQLException;
@@ -52,6 +53,9 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
 import java.util.zip.Deflater;
 
 import com.mysql.jdbc.authentication.MysqlClearPasswordPlugin;
@@ -63,8 +67,13 @@ import com.mysql.jdbc.exceptions.MySQLTimeoutException;
 import com.mysql.jdbc.log.LogUtils;
 import com.mysql.jdbc.profiler.ProfilerEvent;
 import com.mysql.jdbc.profiler.ProfilerEventHandler;
+import com.mysql.jdbc.util.BufferPool;
+import com.mysql.jdbc.util.BufferSizeWindow;
 import com.mysql.jdbc.util.ReadAheadInputStream;
 import com.mysql.jdbc.util.ResultSetUtil;
+import com.mysql.jdbc.util.SocketChannelInputStream;
+import com.mysql.jdbc.util.SocketChannelOutputStream;
+import com.mysql.jdbc.util.SocketChannelSelector;
 
 /**
  * This class is used by Connection for communicating with the MySQL server.
@@ -73,7 +82,6 @@ public class MysqlIO {
     private static final String CODE_PAGE_1252 = "Cp1252";
     protected static final int NULL_LENGTH = ~0;
     protected static final int COMP_HEADER_LENGTH = 3;
-    protected static final int MIN_COMPRESS_LEN = 50;
     protected static final int HEADER_LENGTH = 4;
     protected static final int AUTH_411_OVERHEAD = 33;
     public static final int SEED_LENGTH = 20;
@@ -99,6 +107,7 @@ public class MysqlIO {
     private static final int CLIENT_CONNECT_ATTRS = 0x00100000;
     private static final int CLIENT_PLUGIN_AUTH_LENENC_CLIENT_DATA = 0x00200000;
     private static final int CLIENT_CAN_HANDLE_EXPIRED_PASSWORD = 0x00400000;
+    private static final int CLIENT_OPTIONAL_RESULTSET_METADATA = 0x02000000; // Result sets may come without column definitions
 
     private static final int SERVER_STATUS_IN_TRANS = 1;
     private static final int SERVER_STATUS_AUTOCOMMIT = 2; // Server in auto_commit mode
@@ -107,6 +116,8 @@ public class MysqlIO {
     private static final int SERVER_QUERY_NO_INDEX_USED = 32;
     private static final int SERVER_QUERY_WAS_SLOW = 2048;
     private static final int SERVER_STATUS_CURSOR_EXISTS = 64;
+    private static final int SERVER_STATUS_METADATA_CHANGED = 1024; // a reprepared statement now returns a different number of columns
+    private static final int RESULTSET_METADATA_NONE = 0;
     private static final String FALSE_SCRAMBLE = "xxxxxxxx";
     protected static final int MAX_QUERY_SIZE_TO_LOG = 1024; // truncate logging of queries at 1K
     protected static final int MAX_QUERY_SIZE_TO_EXPLAIN = 1024 * 1024; // don't explain queries above 1MB
@@ -155,9 +166,13 @@ public class MysqlIO {
     // Use this when reading in rows to avoid thousands of new() calls, because the byte arrays just get copied out of the packet anyway
     //
     private Buffer reusablePacket = null;
+    private BufferSizeWindow reusablePacketSizes = new BufferSizeWindow(INITIAL_PACKET_SIZE, 1048576);
     private Buffer sendPacket = null;
     private Buffer sharedSendPacket = null;
 
+    /** Whether the shared send packet was sent since it was last handed out, so that nothing is about to send it anymore */
+    private boolean sharedSendPacketSent = false;
+
     /** Data to the server */
     protected BufferedOutputStream mysqlOutput = null;
     protected MySQLConnection connection;
@@ -183,6 +198,10 @@ public class MysqlIO {
     //
     private SoftReference<Buffer> splitBufRef;
     private SoftReference<Buffer> compressBufRef;
+    private Buffer compressedPacket = null;
+
+    /** How many packets sendStreamedParametersPacket() sent so far */
+    private int streamedPacketsSent = 0;
     protected String host = null;
     protected String seed;
     private String serverVersion = null;
@@ -227,6 +246,32 @@ public class MysqlIO {
     private int serverStatus = 0;
     private int serverSubMinorVersion = 0;
     private int warningCount = 0;
+    /** Commands written by sendPipelinedCommand() whose responses haven't been read yet */
+    private int pipelinedCommandsPending = 0;
+
+    /** Was CLIENT_OPTIONAL_RESULTSET_METADATA negotiated, so that result sets carry a flag telling whether column definitions follow? */
+    private boolean optionalResultsetMetadata = false;
+
+    /** Was the server asked to skip column definitions, i.e. set 'resultset_metadata' to NONE for this session? */
+    private boolean resultsetMetadataSkipped = false;
+
+    /** Does the response to a 'resultset_metadata' change written ahead of a command still need to be read? */
+    private boolean resultsetMetadataSwitchPending = false;
+
+    /** The error the 'resultset_metadata' change written ahead of the current command failed with, see readResultsetMetadataSwitchResult() */
+    private SQLException resultsetMetadataSwitchFailure = null;
+
+    /** Did the server refuse to set 'resultset_metadata' to NONE, so that it's not asked again? */
+    private boolean resultsetMetadataSkippingRefused = false;
+
+    /** Should the next command sent with sendCommand() be answered without column definitions, see skipResultsetMetadataOnNextCommand() */
+    private boolean skipResultsetMetadataOnNextCommand = false;
+
+    /** Changes whenever the session may have released the metadata locks of its transaction, see getTransactionMetadataEpoch() */
+    private long transactionMetadataEpoch = 0;
+
+    /** The cursor whose next rows were requested by prefetchRowsViaCursor() and haven't been read yet */
+    private RowDataCursor pendingCursorFetch = null;
     protected long clientParam = 0;
     protected long lastPacketSentTimeMs = 0;
     protected long lastPacketReceivedTimeMs = 0;
@@ -307,16 +352,26 @@ public class MysqlIO {
 
             this.mysqlConnection = this.socketFactory.beforeHandshake();
 
-            if (this.connection.getUseReadAheadInput()) {
-                this.mysqlInput = new ReadAheadInputStream(this.mysqlConnection.getInputStream(), 16384, this.connection.getTraceProtocol(),
-                        this.connection.getLog());
-            } else if (this.connection.useUnbufferedInput()) {
-                this.mysqlInput = this.mysqlConnection.getInputStream();
+            SocketChannel channel = this.mysqlConnection.getChannel();
+
+            if (channel != null) {
+                // the channel stream already buffers and reads ahead, don't wrap it
+                SocketChannelSelector selector = new SocketChannelSelector(channel);
+
+                this.mysqlInput = new SocketChannelInputStream(channel, selector, 16384, this.connection.getUseDirectSocketBuffers());
+                this.mysqlOutput = new BufferedOutputStream(new SocketChannelOutputStream(channel, selector), 16384);
             } else {
-                this.mysqlInput = new BufferedInputStream(this.mysqlConnection.getInputStream(), 16384);
-            }
+                if (this.connection.getUseReadAheadInput()) {
+                    this.mysqlInput = new ReadAheadInputStream(this.mysqlConnection.getInputStream(), 4096, 1048576, this.connection.getTraceProtocol(),
+                            this.connection.getLog());
+                } else if (this.connection.useUnbufferedInput()) {
+                    this.mysqlInput = this.mysqlConnection.getInputStream();
+                } else {
+                    this.mysqlInput = new BufferedInputStream(this.mysqlConnection.getInputStream(), 16384);
+                }
 
-            this.mysqlOutput = new BufferedOutputStream(this.mysqlConnection.getOutputStream(), 16384);
+                this.mysqlOutput = new BufferedOutputStream(this.mysqlConnection.getOutputStream(), 16384);
+            }
 
             this.isInteractiveClient = this.connection.getInteractiveClient();
             this.profileSql = this.connection.getProfileSql();
@@ -393,6 +448,8 @@ public class MysqlIO {
      *            is this result set in native encoding?
      * @param unpackFieldInfo
      *            should we read MYSQL_FIELD info (if available)?
+     * @param metadataFollows
+     *            did the server send the column definitions, or skip them so that metadataFromCache describes the rows?
      * 
      * @return a result set
      * 
@@ -400,13 +457,15 @@ public class MysqlIO {
      *             if a database access error occurs
      */
     protected ResultSetImpl getResultSet(StatementImpl callingStatement, long columnCount, int maxRows, int resultSetType, int resultSetConcurrency,
-            boolean streamResults, String catalog, boolean isBinaryEncoded, Field[] metadataFromCache) throws SQLException {
+            boolean streamResults, String catalog, boolean isBinaryEncoded, Field[] metadataFromCache, boolean metadataFollows) throws SQLException {
         Buffer packet; // The packet from the server
         Field[] fields = null;
 
         // Read in the column information
 
-        if (metadataFromCache == null /* we want the metadata from the server */) {
+        if (!metadataFollows) {
+            // the server skipped the column definitions, see skipResultsetMetadataOnNextCommand()
+        } else if (metadataFromCache == null /* we want the metadata from the server */) {
             fields = new Field[(int) columnCount];
 
             for (int i = 0; i < columnCount; i++) {
@@ -425,6 +484,30 @@ public class MysqlIO {
 
         readServerStatusForResultSets(packet);
 
+        if (!metadataFollows) {
+            if (!this.resultsetMetadataSkipped || metadataFromCache == null || metadataFromCache.length != columnCount
+                    || (this.serverStatus & SERVER_STATUS_METADATA_CHANGED) != 0) {
+                // if 'resultset_metadata' was set to NONE behind our back, have the next command that needs column definitions switch it back
+                this.resultsetMetadataSkipped = true;
+
+                // rows of a result set read through a cursor are only sent when fetched
+                if ((this.serverStatus & SERVER_STATUS_CURSOR_EXISTS) == 0) {
+                    skipRows();
+                }
+
+                ResultSetMetadataChangedException metadataChangedEx = new ResultSetMetadataChangedException();
+
+                if (this.resultsetMetadataSwitchFailure != null) {
+                    // switching the session back to sending column definitions is what failed
+                    metadataChangedEx.initCause(this.resultsetMetadataSwitchFailure);
+                }
+
+                throw metadataChangedEx;
+            }
+
+            fields = metadataFromCache;
+        }
+
         //
         // Handle cursor-based fetch first
         //
@@ -491,6 +574,23 @@ public class MysqlIO {
         }
     }
 
+    /**
+     * Reads and discards the rows of the result set being read, up to and including the packet that ends them.
+     */
+    private void skipRows() throws SQLException {
+        Buffer rowPacket = null;
+
+        do {
+            rowPacket = reuseAndReadPacket(this.reusablePacket);
+
+            checkErrorPacket(rowPacket);
+        } while (!rowPacket.isLastDataPacket());
+
+        rowPacket.setPosition(rowPacket.getPosition() - 1);
+
+        readServerStatusForResultSets(rowPacket);
+    }
+
     /**
      * Reads and discards a single MySQL packet from the input stream.
      * 
@@ -804,9 +904,16 @@ public class MysqlIO {
      * @throws SQLException
      */
     protected void changeUser(String userName, String password, String database) throws SQLException {
+        // the response read next must be the one to COM_CHANGE_USER
+        drainPendingCursorFetch();
+
         this.packetSequence = -1;
         this.compressedPacketSequence = -1;
 
+        // COM_CHANGE_USER resets the session variables, 'resultset_metadata' included, and ends the transaction
+        this.resultsetMetadataSkipped = false;
+        this.transactionMetadataEpoch++;
+
         int passwordLength = 16;
         int userLength = (userName != null) ? userName.length() : 0;
         int databaseLength = (database != null) ? database.length() : 0;
@@ -1622,6 +1729,10 @@ public class MysqlIO {
                     if ((this.serverCapabilities & CLIENT_PLUGIN_AUTH_LENENC_CLIENT_DATA) != 0) {
                         this.clientParam |= CLIENT_PLUGIN_AUTH_LENENC_CLIENT_DATA;
                     }
+                    if (((this.serverCapabilities & CLIENT_OPTIONAL_RESULTSET_METADATA) != 0) && this.connection.getUseOptionalResultsetMetadata()) {
+                        this.clientParam |= CLIENT_OPTIONAL_RESULTSET_METADATA;
+                        this.optionalResultsetMetadata = true;
+                    }
 
                     this.has41NewNewProt = true;
                     this.use41Extensions = true;
@@ -2147,6 +2258,74 @@ public class MysqlIO {
         }
     }
 
+    /**
+     * Reads the next row of a streaming, text-protocol result set. Rows whose first packet is at least columnStreamingThreshold bytes long are not read
+     * into memory up front, the returned StreamedColumnsRow reads its columns off the wire in order as the application asks for them, leaving the values
+     * that are at least the threshold long on the network until they are read through a stream or skipped.
+     * 
+     * @param fields
+     * @param columnCount
+     * @param useBufferRowExplicit
+     * @param threshold
+     *            the columnStreamingThreshold in effect, in bytes
+     * 
+     * @throws SQLException
+     */
+    final ResultSetRow nextRowWithStreamedColumns(Field[] fields, int columnCount, boolean useBufferRowExplicit, int threshold) throws SQLException {
+        try {
+            int lengthRead = readFully(this.mysqlInput, this.packetHeaderBuf, 0, 4);
+
+            if (lengthRead < 4) {
+                forceClose();
+                throw new IOException(Messages.getString("MysqlIO.43"));
+            }
+
+            int packetLength = (this.packetHeaderBuf[0] & 0xff) + ((this.packetHeaderBuf[1] & 0xff) << 8) + ((this.packetHeaderBuf[2] & 0xff) << 16);
+
+            // Small rows (and the EOF packet) are read as usual, as are the rows of servers that don't split large rows into 16M packets
+            if (packetLength < threshold || packetLength < 9 || !this.useNewLargePackets) {
+                reuseAndReadPacket(this.reusablePacket, packetLength);
+
+                return nextRow(fields, columnCount, false, ResultSet.CONCUR_READ_ONLY, true, useBufferRowExplicit, true, this.reusablePacket);
+            }
+
+            byte packetSeq = this.packetHeaderBuf[3];
+
+            if (!this.packetSequenceReset) {
+                if (this.enablePacketDebug && this.checkPacketSequence) {
+                    checkPacketSequencing(packetSeq);
+                }
+            } else {
+                this.packetSequenceReset = false;
+            }
+
+            this.readPacketSequence = packetSeq;
+
+            RowPacketInputStream rowPacket = new RowPacketInputStream(packetLength, packetSeq);
+
+            if (rowPacket.peek() == 0xff) {
+                Buffer errorPacket = new Buffer(packetLength + HEADER_LENGTH);
+                errorPacket.setPosition(0);
+                errorPacket.writeByte(this.packetHeaderBuf[0]);
+                errorPacket.writeByte(this.packetHeaderBuf[1]);
+                errorPacket.writeByte(this.packetHeaderBuf[2]);
+                errorPacket.writeByte(this.packetHeaderBuf[3]);
+                rowPacket.readFully(errorPacket.getByteBuffer(), HEADER_LENGTH, packetLength);
+                errorPacket.setPosition(HEADER_LENGTH);
+                checkErrorPacket(errorPacket);
+            }
+
+            if (this.connection.getMaintainTimeStats()) {
+                this.lastPacketReceivedTimeMs = System.currentTimeMillis();
+            }
+
+            return new StreamedColumnsRow(rowPacket, columnCount, threshold, getExceptionInterceptor());
+        } catch (IOException ioEx) {
+            throw SQLError.createCommunicationsException(this.connection, this.lastPacketSentTimeMs, this.lastPacketReceivedTimeMs, ioEx,
+                    getExceptionInterceptor());
+        }
+    }
+
     /**
      * Log-off of the MySQL server and close the socket.
      * 
@@ -2168,6 +2347,9 @@ public class MysqlIO {
                 this.connection.getLog().logWarn("Caught while disconnecting...", ioEx);
             }
 
+            // nor the rows of a cursor fetch still on their way
+            this.pendingCursorFetch = null;
+
             Buffer packet = new Buffer(6);
             this.packetSequence = -1;
             this.compressedPacketSequence = -1;
@@ -2175,6 +2357,11 @@ public class MysqlIO {
             send(packet, packet.getPosition());
         } finally {
             forceClose();
+
+            if (this.deflater != null) {
+                this.deflater.end();
+                this.deflater = null;
+            }
         }
     }
 
@@ -2189,6 +2376,8 @@ public class MysqlIO {
             this.sharedSendPacket = new Buffer(INITIAL_PACKET_SIZE);
         }
 
+        this.sharedSendPacketSent = false;
+
         return this.sharedSendPacket;
     }
 
@@ -2340,6 +2529,11 @@ public class MysqlIO {
 
     final Buffer sendCommand(int command, String extraData, Buffer queryPacket, boolean skipCheck, String extraDataCharEncoding, int timeoutMillis)
             throws SQLException {
+        drainPendingCursorFetch();
+
+        boolean skipResultsetMetadata = this.skipResultsetMetadataOnNextCommand;
+        this.skipResultsetMetadataOnNextCommand = false;
+
         this.commandCount++;
 
         //
@@ -2365,6 +2559,11 @@ public class MysqlIO {
 
             checkForOutstandingStreamingData();
 
+            if (command != MysqlDefs.COM_EXECUTE && command != MysqlDefs.COM_FETCH && command != MysqlDefs.COM_LONG_DATA && command != MysqlDefs.COM_PREPARE
+                    && command != MysqlDefs.COM_RESET_STMT && command != MysqlDefs.COM_CLOSE_STATEMENT && command != MysqlDefs.PING) {
+                this.transactionMetadataEpoch++;
+            }
+
             // Clear serverStatus...this value is guarded by an external mutex, as you can only ever be processing one command at a time
             this.oldServerStatus = this.serverStatus;
             this.serverStatus = 0;
@@ -2389,6 +2588,8 @@ public class MysqlIO {
             try {
                 clearInputStream();
 
+                switchResultsetMetadataIfNeeded(command, skipResultsetMetadata);
+
                 //
                 // PreparedStatements construct their own packets, for efficiency's sake.
                 //
@@ -2428,6 +2629,10 @@ public class MysqlIO {
                     this.compressedPacketSequence = -1;
                     send(queryPacket, queryPacket.getPosition()); // packet passed by PreparedStatement
                 }
+
+                if (this.resultsetMetadataSwitchPending) {
+                    readResultsetMetadataSwitchResult();
+                }
             } catch (SQLException sqlEx) {
                 // don't wrap SQLExceptions
                 throw sqlEx;
@@ -2463,158 +2668,415 @@ public class MysqlIO {
         }
     }
 
-    private int statementExecutionDepth = 0;
-    private boolean useAutoSlowLog;
+    /**
+     * Tells whether commands can be sent with sendPipelinedCommand(). They can't when statement interceptors, profiling, slow query logging or testcase
+     * script generation need to see each command together with its result.
+     */
+    boolean canPipelineCommands() {
+        return this.statementInterceptors == null && !this.needToGrabQueryFromPacket && !this.enablePacketDebug;
+    }
 
-    protected boolean shouldIntercept() {
-        return this.statementInterceptors != null;
+    /**
+     * Writes a COM_QUERY command for the given query without waiting for the server's response, see sendPipelinedCommand().
+     */
+    final void sendPipelinedQuery(String query, String characterEncoding) throws SQLException {
+        Buffer queryPacket;
+
+        try {
+            queryPacket = fillQueryPacket(query, characterEncoding, getStatementComment());
+        } catch (UnsupportedEncodingException e) {
+            throw SQLError.createSQLException("Unsupported character encoding " + characterEncoding, SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    getExceptionInterceptor());
+        }
+
+        sendPipelinedCommand(queryPacket);
     }
 
     /**
-     * Send a query stored in a packet directly to the server.
-     * 
-     * @param callingStatement
-     * @param resultSetConcurrency
-     * @param characterEncoding
-     * @param queryPacket
-     * @param maxRows
-     * @param conn
-     * @param resultSetType
-     * @param resultSetConcurrency
-     * @param streamResults
-     * @param catalog
-     * @param unpackFieldInfo
-     *            should we read MYSQL_FIELD info (if available)?
+     * Writes the given command packet without waiting for the server's response, which must be read later with readPipelinedResult(). The server processes
+     * commands in the order they were sent, so several commands can be in flight and their responses read afterwards, in the same order, saving a round trip
+     * per command. Only commands answered with a single OK, error or result set packet sequence may be pipelined, and nothing else may be sent on this
+     * connection until every pending response has been read.
      * 
-     * @throws Exception
+     * Packets are buffered and only flushed when the buffer fills or the first response is read.
      */
-    final ResultSetInternalMethods sqlQueryDirect(StatementImpl callingStatement, String query, String characterEncoding, Buffer queryPacket, int maxRows,
-            int resultSetType, int resultSetConcurrency, boolean streamResults, String catalog, Field[] cachedMetadata) throws Exception {
-        this.statementExecutionDepth++;
+    final void sendPipelinedCommand(Buffer commandPacket) throws SQLException {
+        drainPendingCursorFetch();
 
-        try {
-            if (this.statementInterceptors != null) {
-                ResultSetInternalMethods interceptedResults = invokeStatementInterceptorsPre(query, callingStatement, false);
+        if (this.pipelinedCommandsPending == 0) {
+            checkForOutstandingStreamingData();
 
-                if (interceptedResults != null) {
-                    return interceptedResults;
+            if (this.useCompression) {
+                try {
+                    int bytesLeft = this.mysqlInput.available();
+
+                    if (bytesLeft > 0) {
+                        this.mysqlInput.skip(bytesLeft);
+                    }
+                } catch (IOException ioEx) {
+                    throw SQLError.createCommunicationsException(this.connection, this.lastPacketSentTimeMs, this.lastPacketReceivedTimeMs, ioEx,
+                            getExceptionInterceptor());
                 }
             }
 
-            long queryStartTime = 0;
-            long queryEndTime = 0;
+            clearInputStream();
 
-            String statementComment = this.connection.getStatementComment();
+            // responses to pipelined commands are read with their column definitions
+            switchResultsetMetadataIfNeeded(MysqlDefs.QUERY, false);
+        }
 
-            if (this.connection.getIncludeThreadNamesAsStatementComment()) {
-                statementComment = (statementComment != null ? statementComment + ", " : "") + "java thread: " + Thread.currentThread().getName();
-            }
+        this.commandCount++;
+        this.transactionMetadataEpoch++;
+        this.enablePacketDebug = this.connection.getEnablePacketDebug();
+        this.packetSequence = -1;
+        this.compressedPacketSequence = -1;
 
-            if (query != null) {
-                // We don't know exactly how many bytes we're going to get from the query. Since we're dealing with Unicode, the max is 2, so pad it
-                // (2 * query) + space for headers
-                int packLength = HEADER_LENGTH + 1 + (query.length() * 3) + 2;
+        // counted before sending so that send() leaves the packet in the output buffer
+        this.pipelinedCommandsPending++;
 
-                byte[] commentAsBytes = null;
+        try {
+            send(commandPacket, commandPacket.getPosition());
+        } catch (SQLException sqlEx) {
+            this.pipelinedCommandsPending--;
 
-                if (statementComment != null) {
-                    commentAsBytes = StringUtils.getBytes(statementComment, null, characterEncoding, this.connection.getServerCharset(),
-                            this.connection.parserKnowsUnicode(), getExceptionInterceptor());
+            throw sqlEx;
+        }
+    }
 
-                    packLength += commentAsBytes.length;
-                    packLength += 6; // for /*[space] [space]*/
-                }
+    /**
+     * Reads the response to the oldest command sent with sendPipelinedCommand() that hasn't been read yet.
+     * 
+     * @return the update count of the command, or its results
+     * 
+     * @throws SQLException
+     *             the error the server answered the command with, in which case the responses to the following commands can still be read, or a communications
+     *             failure (SQLState SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE), after which they can't
+     */
+    final ResultSetImpl readPipelinedResult(StatementImpl callingStatement) throws SQLException {
+        if (this.pipelinedCommandsPending == 0) {
+            throw SQLError.createSQLException(Messages.getString("MysqlIO.NoPipelinedCommandsPending"), SQLError.SQL_STATE_GENERAL_ERROR,
+                    getExceptionInterceptor());
+        }
 
-                if (this.sendPacket == null) {
-                    this.sendPacket = new Buffer(packLength);
-                } else {
-                    this.sendPacket.clear();
-                }
+        Buffer resultPacket = null;
 
-                this.sendPacket.writeByte((byte) MysqlDefs.QUERY);
+        if (this.resultsetMetadataSwitchPending) {
+            readResultsetMetadataSwitchResult();
+        }
 
-                if (commentAsBytes != null) {
-                    this.sendPacket.writeBytesNoNull(Constants.SLASH_STAR_SPACE_AS_BYTES);
-                    this.sendPacket.writeBytesNoNull(commentAsBytes);
-                    this.sendPacket.writeBytesNoNull(Constants.SPACE_STAR_SLASH_SPACE_AS_BYTES);
-                }
+        try {
+            this.mysqlOutput.flush();
 
-                if (characterEncoding != null) {
-                    if (this.platformDbCharsetMatches) {
-                        this.sendPacket.writeStringNoNull(query, characterEncoding, this.connection.getServerCharset(), this.connection.parserKnowsUnicode(),
-                                this.connection);
-                    } else {
-                        if (StringUtils.startsWithIgnoreCaseAndWs(query, "LOAD DATA")) {
-                            this.sendPacket.writeBytesNoNull(StringUtils.getBytes(query));
-                        } else {
-                            this.sendPacket.writeStringNoNull(query, characterEncoding, this.connection.getServerCharset(),
-                                    this.connection.parserKnowsUnicode(), this.connection);
-                        }
-                    }
-                } else {
-                    this.sendPacket.writeStringNoNull(query);
-                }
+            this.readPacketSequence = 0;
+            this.oldServerStatus = this.serverStatus;
+            this.serverStatus = 0;
+            this.hadWarnings = false;
+            this.warningCount = 0;
 
-                queryPacket = this.sendPacket;
-            }
+            resultPacket = reuseAndReadPacket(this.reusablePacket);
+        } catch (SQLException sqlEx) {
+            // Don't wrap SQL Exceptions
+            throw sqlEx;
+        } catch (Exception fallThru) {
+            throw SQLError.createCommunicationsException(this.connection, this.lastPacketSentTimeMs, this.lastPacketReceivedTimeMs, fallThru,
+                    getExceptionInterceptor());
+        }
 
-            byte[] queryBuf = null;
-            int oldPacketPosition = 0;
+        this.pipelinedCommandsPending--;
 
-            if (this.needToGrabQueryFromPacket) {
-                queryBuf = queryPacket.getByteBuffer();
+        checkErrorPacket(resultPacket);
 
-                // save the packet position
-                oldPacketPosition = queryPacket.getPosition();
+        return readAllResults(callingStatement, -1, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY, false, this.connection.getCatalog(),
+                resultPacket, false, -1L, null);
+    }
 
-                queryStartTime = getCurrentTimeNanosOrMillis();
-            }
+    /**
+     * Tells whether result sets may be sent without column definitions, i.e. whether CLIENT_OPTIONAL_RESULTSET_METADATA was negotiated.
+     */
+    boolean isResultsetMetadataOptional() {
+        return this.optionalResultsetMetadata;
+    }
 
-            if (this.autoGenerateTestcaseScript) {
-                String testcaseQuery = null;
+    /**
+     * Asks the server to send the result sets of the next command sent with sendCommand() without their column definitions, the caller passing the metadata
+     * it validated to readAllResults() instead. The server only reports a change in the number of columns, not in their types, so the caller must know the
+     * metadata to be current, see getTransactionMetadataEpoch(). Should the rows not match it anyway, they are discarded and a
+     * ResultSetMetadataChangedException is thrown, the command having been executed. Has no effect unless isResultsetMetadataOptional().
+     */
+    void skipResultsetMetadataOnNextCommand() {
+        this.skipResultsetMetadataOnNextCommand = this.optionalResultsetMetadata && !this.resultsetMetadataSkippingRefused;
+    }
 
-                if (query != null) {
-                    if (statementComment != null) {
-                        testcaseQuery = "/* " + statementComment + " */ " + query;
-                    } else {
-                        testcaseQuery = query;
-                    }
-                } else {
-                    testcaseQuery = StringUtils.toString(queryBuf, 5, (oldPacketPosition - 5));
-                }
+    /**
+     * Returns a value that stays the same for as long as the session is known to hold on to the metadata locks taken by its transaction, so that no other
+     * session can change the definitions of the tables, views and routines the transaction used. It changes with every command that may end the transaction,
+     * i.e. anything but the execution of prepared statements, with every error, and when endTransactionMetadataEpoch() is called. Column definitions received
+     * while inTransactionOnServer() are therefore still current for as long as the value doesn't change.
+     */
+    long getTransactionMetadataEpoch() {
+        return this.transactionMetadataEpoch;
+    }
 
-                StringBuilder debugBuf = new StringBuilder(testcaseQuery.length() + 32);
-                this.connection.generateConnectionCommentBlock(debugBuf);
-                debugBuf.append(testcaseQuery);
-                debugBuf.append(';');
-                this.connection.dumpTestcaseQuery(debugBuf.toString());
-            }
+    /**
+     * Tells that the next command may end the transaction although getTransactionMetadataEpoch() wouldn't expect it to, e.g. the execution of a prepared
+     * COMMIT or CALL.
+     */
+    void endTransactionMetadataEpoch() {
+        this.transactionMetadataEpoch++;
+    }
 
-            // Send query command and sql query string
-            Buffer resultPacket = sendCommand(MysqlDefs.QUERY, null, queryPacket, false, null, 0);
+    /**
+     * Writes a change of the session variable 'resultset_metadata' ahead of the given command if the session doesn't already send column definitions the way
+     * the command needs. Commands other than COM_QUERY, COM_STMT_PREPARE, COM_STMT_EXECUTE and COM_FIELD_LIST don't return column definitions, so they never
+     * need the session switched back to sending them. The change is left in the output buffer and its response read by readResultsetMetadataSwitchResult()
+     * once the command has been written, so that switching doesn't cost a round trip.
+     */
+    private void switchResultsetMetadataIfNeeded(int command, boolean skipResultsetMetadata) throws SQLException {
+        this.resultsetMetadataSwitchFailure = null;
 
-            long fetchBeginTime = 0;
-            long fetchEndTime = 0;
+        if (!this.optionalResultsetMetadata || skipResultsetMetadata == this.resultsetMetadataSkipped) {
+            return;
+        }
 
-            String profileQueryToLog = null;
+        if (!skipResultsetMetadata && command != MysqlDefs.QUERY && command != MysqlDefs.COM_PREPARE && command != MysqlDefs.COM_EXECUTE
+                && command != MysqlDefs.FIELD_LIST) {
+            return;
+        }
 
-            boolean queryWasSlow = false;
+        Buffer switchPacket = new Buffer(HEADER_LENGTH + 64);
+        switchPacket.writeByte((byte) MysqlDefs.QUERY);
+        switchPacket.writeStringNoNull(skipResultsetMetadata ? "SET resultset_metadata=NONE" : "SET resultset_metadata=FULL");
 
-            if (this.profileSql || this.logSlowQueries) {
-                queryEndTime = getCurrentTimeNanosOrMillis();
+        this.packetSequence = -1;
+        this.compressedPacketSequence = -1;
 
-                boolean shouldExtractQuery = false;
+        // counted as a pipelined command so that send() leaves the packet in the output buffer
+        this.pipelinedCommandsPending++;
 
-                if (this.profileSql) {
-                    shouldExtractQuery = true;
-                } else if (this.logSlowQueries) {
-                    long queryTime = queryEndTime - queryStartTime;
+        try {
+            send(switchPacket, switchPacket.getPosition());
+        } catch (SQLException sqlEx) {
+            this.pipelinedCommandsPending--;
 
-                    boolean logSlow = false;
+            throw sqlEx;
+        }
 
-                    if (!this.useAutoSlowLog) {
-                        logSlow = queryTime > this.connection.getSlowQueryThresholdMillis();
-                    } else {
+        this.resultsetMetadataSkipped = skipResultsetMetadata;
+        this.resultsetMetadataSwitchPending = true;
+    }
+
+    /**
+     * Flushes the output buffer and reads the response to the change written by switchResultsetMetadataIfNeeded(), which comes before the responses to the
+     * commands written after it. Should the change fail, the command after it has been executed all the same, so rather than failing the command its
+     * response is read as usual: result sets tell whether they come with column definitions, and one without any to describe its rows is answered with a
+     * ResultSetMetadataChangedException caused by the failed change.
+     */
+    private void readResultsetMetadataSwitchResult() throws SQLException {
+        this.resultsetMetadataSwitchPending = false;
+        this.pipelinedCommandsPending--;
+
+        Buffer resultPacket = null;
+
+        try {
+            this.mysqlOutput.flush();
+
+            this.readPacketSequence = 0;
+
+            resultPacket = reuseAndReadPacket(this.reusablePacket);
+        } catch (SQLException sqlEx) {
+            // Don't wrap SQL Exceptions
+            throw sqlEx;
+        } catch (Exception fallThru) {
+            throw SQLError.createCommunicationsException(this.connection, this.lastPacketSentTimeMs, this.lastPacketReceivedTimeMs, fallThru,
+                    getExceptionInterceptor());
+        }
+
+        this.readPacketSequence = 0;
+
+        try {
+            checkErrorPacket(resultPacket);
+        } catch (SQLException sqlEx) {
+            if (sqlEx.getSQLState() != null && sqlEx.getSQLState().startsWith("08")) {
+                // no response can be read after a communications failure
+                throw sqlEx;
+            }
+
+            this.resultsetMetadataSkipped = !this.resultsetMetadataSkipped;
+            this.resultsetMetadataSwitchFailure = sqlEx;
+
+            if (!this.resultsetMetadataSkipped) {
+                this.resultsetMetadataSkippingRefused = true;
+            }
+
+            this.connection.getLog().logWarn(Messages.getString("MysqlIO.ResultsetMetadataSwitchFailed"), sqlEx);
+        }
+    }
+
+    private int statementExecutionDepth = 0;
+    private boolean useAutoSlowLog;
+
+    private String getStatementComment() {
+        String statementComment = this.connection.getStatementComment();
+
+        if (this.connection.getIncludeThreadNamesAsStatementComment()) {
+            statementComment = (statementComment != null ? statementComment + ", " : "") + "java thread: " + Thread.currentThread().getName();
+        }
+
+        return statementComment;
+    }
+
+    /**
+     * Writes a COM_QUERY command for the given query, prefixed with the given statement comment if any, to the shared send packet.
+     */
+    private Buffer fillQueryPacket(String query, String characterEncoding, String statementComment) throws SQLException, UnsupportedEncodingException {
+        // We don't know exactly how many bytes we're going to get from the query. Since we're dealing with Unicode, the max is 2, so pad it
+        // (2 * query) + space for headers
+        int packLength = HEADER_LENGTH + 1 + (query.length() * 3) + 2;
+
+        byte[] commentAsBytes = null;
+
+        if (statementComment != null) {
+            commentAsBytes = StringUtils.getBytes(statementComment, null, characterEncoding, this.connection.getServerCharset(),
+                    this.connection.parserKnowsUnicode(), getExceptionInterceptor());
+
+            packLength += commentAsBytes.length;
+            packLength += 6; // for /*[space] [space]*/
+        }
+
+        if (this.sendPacket == null) {
+            this.sendPacket = new Buffer(packLength);
+        } else {
+            this.sendPacket.clear();
+        }
+
+        this.sendPacket.writeByte((byte) MysqlDefs.QUERY);
+
+        if (commentAsBytes != null) {
+            this.sendPacket.writeBytesNoNull(Constants.SLASH_STAR_SPACE_AS_BYTES);
+            this.sendPacket.writeBytesNoNull(commentAsBytes);
+            this.sendPacket.writeBytesNoNull(Constants.SPACE_STAR_SLASH_SPACE_AS_BYTES);
+        }
+
+        if (characterEncoding != null) {
+            if (this.platformDbCharsetMatches) {
+                this.sendPacket.writeStringNoNull(query, characterEncoding, this.connection.getServerCharset(), this.connection.parserKnowsUnicode(),
+                        this.connection);
+            } else {
+                if (StringUtils.startsWithIgnoreCaseAndWs(query, "LOAD DATA")) {
+                    this.sendPacket.writeBytesNoNull(StringUtils.getBytes(query));
+                } else {
+                    this.sendPacket.writeStringNoNull(query, characterEncoding, this.connection.getServerCharset(),
+                            this.connection.parserKnowsUnicode(), this.connection);
+                }
+            }
+        } else {
+            this.sendPacket.writeStringNoNull(query);
+        }
+
+        return this.sendPacket;
+    }
+
+    protected boolean shouldIntercept() {
+        return this.statementInterceptors != null;
+    }
+
+    /**
+     * Send a query stored in a packet directly to the server.
+     * 
+     * @param callingStatement
+     * @param resultSetConcurrency
+     * @param characterEncoding
+     * @param queryPacket
+     * @param maxRows
+     * @param conn
+     * @param resultSetType
+     * @param resultSetConcurrency
+     * @param streamResults
+     * @param catalog
+     * @param unpackFieldInfo
+     *            should we read MYSQL_FIELD info (if available)?
+     * 
+     * @throws Exception
+     */
+    final ResultSetInternalMethods sqlQueryDirect(StatementImpl callingStatement, String query, String characterEncoding, Buffer queryPacket, int maxRows,
+            int resultSetType, int resultSetConcurrency, boolean streamResults, String catalog, Field[] cachedMetadata) throws Exception {
+        this.statementExecutionDepth++;
+
+        try {
+            if (this.statementInterceptors != null) {
+                ResultSetInternalMethods interceptedResults = invokeStatementInterceptorsPre(query, callingStatement, false);
+
+                if (interceptedResults != null) {
+                    return interceptedResults;
+                }
+            }
+
+            long queryStartTime = 0;
+            long queryEndTime = 0;
+
+            String statementComment = getStatementComment();
+
+            if (query != null) {
+                queryPacket = fillQueryPacket(query, characterEncoding, statementComment);
+            }
+
+            byte[] queryBuf = null;
+            int oldPacketPosition = 0;
+
+            if (this.needToGrabQueryFromPacket) {
+                queryBuf = queryPacket.getByteBuffer();
+
+                // save the packet position
+                oldPacketPosition = queryPacket.getPosition();
+
+                queryStartTime = getCurrentTimeNanosOrMillis();
+            }
+
+            if (this.autoGenerateTestcaseScript) {
+                String testcaseQuery = null;
+
+                if (query != null) {
+                    if (statementComment != null) {
+                        testcaseQuery = "/* " + statementComment + " */ " + query;
+                    } else {
+                        testcaseQuery = query;
+                    }
+                } else {
+                    testcaseQuery = StringUtils.toString(queryBuf, 5, (oldPacketPosition - 5));
+                }
+
+                StringBuilder debugBuf = new StringBuilder(testcaseQuery.length() + 32);
+                this.connection.generateConnectionCommentBlock(debugBuf);
+                debugBuf.append(testcaseQuery);
+                debugBuf.append(';');
+                this.connection.dumpTestcaseQuery(debugBuf.toString());
+            }
+
+            // Send query command and sql query string
+            Buffer resultPacket = sendCommand(MysqlDefs.QUERY, null, queryPacket, false, null, 0);
+
+            long fetchBeginTime = 0;
+            long fetchEndTime = 0;
+
+            String profileQueryToLog = null;
+
+            boolean queryWasSlow = false;
+
+            if (this.profileSql || this.logSlowQueries) {
+                queryEndTime = getCurrentTimeNanosOrMillis();
+
+                boolean shouldExtractQuery = false;
+
+                if (this.profileSql) {
+                    shouldExtractQuery = true;
+                } else if (this.logSlowQueries) {
+                    long queryTime = queryEndTime - queryStartTime;
+
+                    boolean logSlow = false;
+
+                    if (!this.useAutoSlowLog) {
+                        logSlow = queryTime > this.connection.getSlowQueryThresholdMillis();
+                    } else {
                         logSlow = this.connection.isAbonormallyLongQuery(queryTime);
 
                         this.connection.reportQueryTime(queryTime);
@@ -2666,7 +3128,8 @@ public class MysqlIO {
                         (int) (queryEndTime - queryStartTime), this.queryTimingUnits, null, LogUtils.findCallingClassAndMethod(new Throwable()), mesgBuf
                                 .toString()));
 
-                if (this.connection.getExplainSlowQueries()) {
+                // the stream parameters of a StreamedParametersPacket aren't part of the packet
+                if (this.connection.getExplainSlowQueries() && !(queryPacket instanceof StreamedParametersPacket)) {
                     if (oldPacketPosition < MAX_QUERY_SIZE_TO_EXPLAIN) {
                         explainSlowQuery(queryPacket.getBytes(5, (oldPacketPosition - 5)), profileQueryToLog);
                     } else {
@@ -2754,6 +3217,10 @@ public class MysqlIO {
             throw sqlEx;
         } finally {
             this.statementExecutionDepth--;
+
+            if (this.statementExecutionDepth == 0) {
+                releaseLargeSendPackets();
+            }
         }
     }
 
@@ -3006,8 +3473,14 @@ public class MysqlIO {
 
             return sendFileToServer(callingStatement, fileName);
         } else {
+            boolean metadataFollows = true;
+
+            if (this.optionalResultsetMetadata) {
+                metadataFollows = resultPacket.readByte() != RESULTSET_METADATA_NONE;
+            }
+
             com.mysql.jdbc.ResultSetImpl results = getResultSet(callingStatement, columnCount, maxRows, resultSetType, resultSetConcurrency, streamResults,
-                    catalog, isBinaryEncoded, metadataFromCache);
+                    catalog, isBinaryEncoded, metadataFromCache, metadataFollows);
 
             return results;
         }
@@ -3136,42 +3609,49 @@ public class MysqlIO {
         // uncompressed payload by default
         int compressedLength = packetLen;
         int uncompressedLength = 0;
-        byte[] compressedBytes = null;
-        int offsetWrite = offset;
 
-        if (packetLen < MIN_COMPRESS_LEN) {
-            compressedBytes = packet.getByteBuffer();
+        int compressedPacketLength = HEADER_LENGTH + COMP_HEADER_LENGTH + packetLen;
+        Buffer compressedPacket = this.compressedPacket;
 
-        } else {
-            byte[] bytesToCompress = packet.getByteBuffer();
-            compressedBytes = new byte[bytesToCompress.length * 2];
+        if (compressedPacket == null || compressedPacket.getBufLength() < compressedPacketLength) {
+            compressedPacket = new Buffer(compressedPacketLength);
 
+            // don't hold on to large packets
+            this.compressedPacket = (compressedPacketLength <= 1048576) ? compressedPacket : null;
+        }
+
+        if (packetLen >= this.connection.getCompressionThreshold()) {
             if (this.deflater == null) {
                 this.deflater = new Deflater();
             }
             this.deflater.reset();
-            this.deflater.setInput(bytesToCompress, offset, packetLen);
+            this.deflater.setInput(packet.getByteBuffer(), offset, packetLen);
             this.deflater.finish();
 
-            compressedLength = this.deflater.deflate(compressedBytes);
+            // deflate right behind the header, giving up as soon as the compressed data isn't smaller than the uncompressed data
+            byte[] compressedBytes = compressedPacket.getByteBuffer();
+            int deflated = 0;
 
-            if (compressedLength > packetLen) {
-                // if compressed data is greater then uncompressed then send uncompressed
-                compressedBytes = packet.getByteBuffer();
-                compressedLength = packetLen;
-            } else {
+            while (!this.deflater.finished() && deflated < packetLen) {
+                deflated += this.deflater.deflate(compressedBytes, HEADER_LENGTH + COMP_HEADER_LENGTH + deflated, packetLen - deflated);
+            }
+
+            if (this.deflater.finished() && deflated < packetLen) {
+                compressedLength = deflated;
                 uncompressedLength = packetLen;
-                offsetWrite = 0;
             }
         }
 
-        Buffer compressedPacket = new Buffer(HEADER_LENGTH + COMP_HEADER_LENGTH + compressedLength);
-
         compressedPacket.setPosition(0);
         compressedPacket.writeLongInt(compressedLength);
         compressedPacket.writeByte(this.compressedPacketSequence);
         compressedPacket.writeLongInt(uncompressedLength);
-        compressedPacket.writeBytesNoNull(compressedBytes, offsetWrite, compressedLength);
+
+        if (uncompressedLength == 0) {
+            compressedPacket.writeBytesNoNull(packet.getByteBuffer(), offset, compressedLength);
+        } else {
+            compressedPacket.setPosition(HEADER_LENGTH + COMP_HEADER_LENGTH + compressedLength);
+        }
 
         return compressedPacket;
     }
@@ -3271,6 +3751,11 @@ public class MysqlIO {
 
         boolean useBufferRowExplicit = useBufferRowExplicit(fields);
 
+        // BufferRows keep their packets, there's nothing to decode up front
+        if (this.connection.getUseParallelRowDecoding() && (resultSetConcurrency == ResultSet.CONCUR_UPDATABLE || !useBufferRowExplicit)) {
+            return readSingleRowSetInParallel((int) columnCount, maxRows, resultSetConcurrency, isBinaryEncoded, fields);
+        }
+
         // Now read the data
         ResultSetRow row = nextRow(fields, (int) columnCount, isBinaryEncoded, resultSetConcurrency, false, useBufferRowExplicit, false, null);
 
@@ -3297,6 +3782,139 @@ public class MysqlIO {
         return rowData;
     }
 
+    /**
+     * Reads a result set into memory like readSingleRowSet() does, but only checks the row packets for errors and the end of the rows on this thread,
+     * handing them in chunks to the shared row decoding threads to be unpacked into ByteArrayRows while it goes on reading from the network.
+     */
+    private RowData readSingleRowSetInParallel(final int columnCount, int maxRows, final int resultSetConcurrency, final boolean isBinaryEncoded,
+            final Field[] fields) throws SQLException {
+        int chunkSize = this.connection.getParallelRowDecodingChunkSize();
+        List<Future<ResultSetRow[]>> decodedChunks = new ArrayList<Future<ResultSetRow[]>>();
+        ResultSetRow[] lastChunk = null;
+
+        Buffer[] rowPackets = new Buffer[chunkSize];
+        int rowPacketCount = 0;
+        int rowCount = 0;
+
+        while (true) {
+            Buffer rowPacket = reuseAndReadPacket(new Buffer(0));
+
+            checkErrorPacket(rowPacket);
+
+            if (rowPacket.isLastDataPacket()) {
+                rowPacket.setPosition(rowPacket.getPosition() - 1);
+                readServerStatusForResultSets(rowPacket);
+                BufferPool.release(rowPacket.getByteBuffer());
+
+                break;
+            }
+
+            if ((maxRows != -1) && (rowCount >= maxRows)) {
+                BufferPool.release(rowPacket.getByteBuffer());
+
+                continue;
+            }
+
+            if (!isBinaryEncoded) {
+                // re-position to the beginning of the packet to read the row data
+                rowPacket.setPosition(rowPacket.getPosition() - 1);
+            }
+
+            rowPackets[rowPacketCount++] = rowPacket;
+            rowCount++;
+
+            if (rowPacketCount == chunkSize) {
+                final Buffer[] chunk = rowPackets;
+
+                decodedChunks.add(AsyncStatementExecutor.submitComputation(new Callable<ResultSetRow[]>() {
+                    public ResultSetRow[] call() throws Exception {
+                        return decodeRows(chunk, chunk.length, fields, columnCount, isBinaryEncoded, resultSetConcurrency);
+                    }
+                }));
+
+                rowPackets = new Buffer[chunkSize];
+                rowPacketCount = 0;
+            }
+        }
+
+        if (rowPacketCount > 0) {
+            lastChunk = decodeRows(rowPackets, rowPacketCount, fields, columnCount, isBinaryEncoded, resultSetConcurrency);
+        }
+
+        ArrayList<ResultSetRow> rows = new ArrayList<ResultSetRow>(rowCount);
+
+        for (Future<ResultSetRow[]> decodedChunk : decodedChunks) {
+            ResultSetRow[] chunkRows;
+
+            try {
+                chunkRows = decodedChunk.get();
+            } catch (InterruptedException e) {
+                SQLException sqlEx = SQLError.createSQLException(Messages.getString("MysqlIO.RowDecodingInterrupted"), SQLError.SQL_STATE_GENERAL_ERROR,
+                        getExceptionInterceptor());
+                sqlEx.initCause(e);
+
+                throw sqlEx;
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+
+                if (cause instanceof SQLException) {
+                    throw (SQLException) cause;
+                } else if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                } else if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+
+                SQLException sqlEx = SQLError.createSQLException(cause.toString(), SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
+                sqlEx.initCause(cause);
+
+                throw sqlEx;
+            }
+
+            for (int i = 0; i < chunkRows.length; i++) {
+                rows.add(chunkRows[i]);
+            }
+        }
+
+        if (lastChunk != null) {
+            for (int i = 0; i < lastChunk.length; i++) {
+                rows.add(lastChunk[i]);
+            }
+        }
+
+        return new RowDataStatic(rows);
+    }
+
+    /**
+     * Unpacks row packets positioned on their row data into ByteArrayRows, giving the packets' buffers back to the buffer pool. May be called from
+     * other threads, so it must not touch any of this MysqlIO's I/O state.
+     */
+    private ResultSetRow[] decodeRows(Buffer[] rowPackets, int count, Field[] fields, int columnCount, boolean isBinaryEncoded, int resultSetConcurrency)
+            throws SQLException {
+        ResultSetRow[] rows = new ResultSetRow[count];
+
+        for (int i = 0; i < count; i++) {
+            Buffer rowPacket = rowPackets[i];
+
+            if (isBinaryEncoded) {
+                rows[i] = unpackBinaryResultSetRow(fields, rowPacket, resultSetConcurrency);
+            } else {
+                byte[][] rowData = new byte[columnCount][];
+
+                for (int j = 0; j < columnCount; j++) {
+                    rowData[j] = rowPacket.readLenByteArray(0);
+                }
+
+                rows[i] = new ByteArrayRow(rowData, getExceptionInterceptor());
+            }
+
+            rowPackets[i] = null;
+            BufferPool.release(rowPacket.getByteBuffer());
+        }
+
+        return rows;
+    }
+
     public static boolean useBufferRowExplicit(Field[] fields) {
         if (fields == null) {
             return false;
@@ -3316,12 +3934,42 @@ public class MysqlIO {
     }
 
     /**
-     * Don't hold on to overly-large packets
+     * Don't hold on to overly-large packets. Called once a response was read, when the connection may go idle: a packet of the size the recent packets
+     * needed is given back to the buffer pool for the next connection (or command) needing one, a larger one is dropped.
      */
     private void reclaimLargeReusablePacket() {
-        if ((this.reusablePacket != null) && (this.reusablePacket.getCapacity() > 1048576)) {
+        if ((this.reusablePacket != null) && (this.reusablePacket.getCapacity() > INITIAL_PACKET_SIZE)) {
+            if (this.reusablePacket.getCapacity() <= this.reusablePacketSizes.getRecommendedSize()) {
+                BufferPool.release(this.reusablePacket.getByteBuffer());
+            }
+
             this.reusablePacket = new Buffer(INITIAL_PACKET_SIZE);
         }
+
+        // sqlQueryDirect() still needs the query packet once the results are read, and gives the send packets back itself
+        if (this.statementExecutionDepth == 0) {
+            releaseLargeSendPackets();
+        }
+
+        if (this.mysqlInput instanceof ReadAheadInputStream) {
+            ((ReadAheadInputStream) this.mysqlInput).releaseBuffer();
+        }
+    }
+
+    /**
+     * Gives the send packets grown by the last command back to the buffer pool, once its response was read. The shared send packet is only given back when
+     * it was sent since it was last handed out, as statements fill it before running other commands (e.g. setting the select limit) and sending it.
+     */
+    private void releaseLargeSendPackets() {
+        if ((this.sendPacket != null) && (this.sendPacket.getCapacity() > INITIAL_PACKET_SIZE)) {
+            BufferPool.release(this.sendPacket.getByteBuffer());
+            this.sendPacket = new Buffer(INITIAL_PACKET_SIZE);
+        }
+
+        if (this.sharedSendPacketSent && (this.sharedSendPacket != null) && (this.sharedSendPacket.getCapacity() > INITIAL_PACKET_SIZE)) {
+            BufferPool.release(this.sharedSendPacket.getByteBuffer());
+            this.sharedSendPacket = new Buffer(INITIAL_PACKET_SIZE);
+        }
     }
 
     /**
@@ -3384,7 +4032,7 @@ public class MysqlIO {
             // Note: We actually check the length of the buffer, rather than getBufLength(), because getBufLength() is not necesarily the actual length of the
             // byte array used as the buffer
             if (reuse.getByteBuffer().length <= packetLength) {
-                reuse.setByteBuffer(new byte[packetLength + 1]);
+                reuse.setByteBuffer(BufferPool.allocate(packetLength + 1));
             }
 
             // Set the new length
@@ -3418,6 +4066,7 @@ public class MysqlIO {
                 // it's multi-packet
                 isMultiPacket = true;
 
+                // the length of the whole reassembled payload, not just of its last fragment
                 packetLength = readRemainingMultiPackets(reuse, multiPacketSeq);
             }
 
@@ -3425,6 +4074,10 @@ public class MysqlIO {
                 reuse.getByteBuffer()[packetLength] = 0; // Null-termination
             }
 
+            if (reuse == this.reusablePacket) {
+                this.reusablePacketSizes.addSize(packetLength + 1);
+            }
+
             if (this.connection.getMaintainTimeStats()) {
                 this.lastPacketReceivedTimeMs = System.currentTimeMillis();
             }
@@ -3450,7 +4103,6 @@ public class MysqlIO {
 
     private int readRemainingMultiPackets(Buffer reuse, byte multiPacketSeq) throws IOException, SQLException {
         int packetLength = -1;
-        Buffer multiPacket = null;
 
         do {
             final int lengthRead = readFully(this.mysqlInput, this.packetHeaderBuf, 0, 4);
@@ -3460,9 +4112,6 @@ public class MysqlIO {
             }
 
             packetLength = (this.packetHeaderBuf[0] & 0xff) + ((this.packetHeaderBuf[1] & 0xff) << 8) + ((this.packetHeaderBuf[2] & 0xff) << 16);
-            if (multiPacket == null) {
-                multiPacket = new Buffer(packetLength);
-            }
 
             if (!this.useNewLargePackets && (packetLength == 1)) {
                 clearInputStream();
@@ -3474,30 +4123,25 @@ public class MysqlIO {
                 throw new IOException(Messages.getString("MysqlIO.49"));
             }
 
-            // Set the Buffer to it's original state
-            multiPacket.setPosition(0);
-
-            // Set the new length
-            multiPacket.setBufLength(packetLength);
-
-            // Read the data from the server
-            byte[] byteBuf = multiPacket.getByteBuffer();
-            int lengthToWrite = packetLength;
+            // Read the data from the server straight into the tail of the packet being assembled, there's no need to stage it in a separate packet
+            reuse.ensureCapacity(packetLength);
 
-            int bytesRead = readFully(this.mysqlInput, byteBuf, 0, packetLength);
+            int bytesRead = readFully(this.mysqlInput, reuse.getByteBuffer(), reuse.getPosition(), packetLength);
 
-            if (bytesRead != lengthToWrite) {
+            if (bytesRead != packetLength) {
                 throw SQLError.createCommunicationsException(this.connection, this.lastPacketSentTimeMs, this.lastPacketReceivedTimeMs, SQLError
-                        .createSQLException(Messages.getString("MysqlIO.50") + lengthToWrite + Messages.getString("MysqlIO.51") + bytesRead + ".",
+                        .createSQLException(Messages.getString("MysqlIO.50") + packetLength + Messages.getString("MysqlIO.51") + bytesRead + ".",
                                 getExceptionInterceptor()), getExceptionInterceptor());
             }
 
-            reuse.writeBytesNoNull(byteBuf, 0, lengthToWrite);
+            reuse.setPosition(reuse.getPosition() + packetLength);
         } while (packetLength == this.maxThreeBytes);
 
+        int payloadLength = reuse.getPosition();
+
         reuse.setPosition(0);
         reuse.setWasMultiPacket(true);
-        return packetLength;
+        return payloadLength;
     }
 
     /**
@@ -3552,7 +4196,16 @@ public class MysqlIO {
                 throw new PacketTooBigException(packetLen, this.maxAllowedPacket);
             }
 
-            if ((this.serverMajorVersion >= 4)
+            if (packet instanceof StreamedParametersPacket) {
+                long streamedPacketLen = packetLen + ((StreamedParametersPacket) packet).getKnownParameterStreamLength();
+
+                if (this.maxAllowedPacket > 0 && streamedPacketLen > this.maxAllowedPacket) {
+                    throw new PacketTooBigException(streamedPacketLen, this.maxAllowedPacket);
+                }
+
+                sendStreamedParametersPacket((StreamedParametersPacket) packet);
+
+            } else if ((this.serverMajorVersion >= 4)
                     && (packetLen - HEADER_LENGTH >= this.maxThreeBytes || (this.useCompression && packetLen - HEADER_LENGTH >= this.maxThreeBytes
                             - COMP_HEADER_LENGTH))) {
                 sendSplitPackets(packet, packetLen);
@@ -3600,18 +4253,18 @@ public class MysqlIO {
                 }
 
                 this.mysqlOutput.write(packetToSend.getByteBuffer(), 0, packetLen);
-                this.mysqlOutput.flush();
+
+                if (this.pipelinedCommandsPending == 0) {
+                    this.mysqlOutput.flush();
+                }
             }
 
             if (this.enablePacketDebug) {
                 enqueuePacketForDebugging(true, false, packetLen + 5, this.packetHeaderBuf, packet);
             }
 
-            //
-            // Don't hold on to large packets
-            //
             if (packet == this.sharedSendPacket) {
-                reclaimLargeSharedSendPacket();
+                this.sharedSendPacketSent = true;
             }
 
             if (this.connection.getMaintainTimeStats()) {
@@ -3664,6 +4317,12 @@ public class MysqlIO {
         filePacket.clear();
         send(filePacket, 0);
 
+        LocalInfileRowProducer rowProducer = (callingStatement != null) ? callingStatement.getLocalInfileRowProducer() : null;
+
+        if (rowProducer != null && this.connection.getAllowLoadLocalInfile()) {
+            return sendLocalInfileRows(callingStatement, rowProducer, filePacket, packetLength);
+        }
+
         byte[] fileBuf = new byte[packetLength];
 
         BufferedInputStream fileIn = null;
@@ -3752,6 +4411,64 @@ public class MysqlIO {
         return buildResultSetWithUpdates(callingStatement, resultPacket);
     }
 
+    /**
+     * Sends the rows of the given producer as the contents of a "LOAD DATA LOCAL INFILE" file. The rows are encoded by a LocalInfileRowEncoder on a driver
+     * thread into two packets in turn, while this thread sends the packet filled before.
+     */
+    private ResultSetImpl sendLocalInfileRows(StatementImpl callingStatement, LocalInfileRowProducer rowProducer, Buffer filePacket, int packetLength)
+            throws SQLException {
+        Buffer[] packets = new Buffer[] { filePacket, new Buffer(packetLength + HEADER_LENGTH) };
+
+        LocalInfileRowEncoder encoder = new LocalInfileRowEncoder(rowProducer, packets, this.connection.getUseUnicode() ? this.connection.getEncoding() : null,
+                getExceptionInterceptor());
+
+        AsyncStatementExecutor.execute(encoder);
+
+        try {
+            Buffer packet;
+
+            while ((packet = encoder.nextFilledPacket()) != null) {
+                send(packet, packet.getPosition());
+
+                encoder.releasePacket(packet);
+            }
+        } catch (SQLException sqlEx) {
+            encoder.abort();
+
+            throw sqlEx;
+        }
+
+        // send empty packet to mark EOF
+        filePacket.clear();
+        send(filePacket, filePacket.getPosition());
+
+        Buffer resultPacket = null;
+        SQLException serverEx = null;
+
+        try {
+            resultPacket = checkErrorPacket();
+        } catch (SQLException sqlEx) {
+            serverEx = sqlEx;
+        }
+
+        Throwable producerFailure = encoder.getFailure();
+
+        if (producerFailure != null) {
+            if (producerFailure instanceof SQLException) {
+                throw (SQLException) producerFailure;
+            }
+
+            throw SQLError.createSQLException(Messages.getString("MysqlIO.LocalInfileRowProducerFailed"), SQLError.SQL_STATE_GENERAL_ERROR,
+                    producerFailure, getExceptionInterceptor());
+        }
+
+        if (serverEx != null) {
+            throw serverEx;
+        }
+
+        return buildResultSetWithUpdates(callingStatement, resultPacket);
+    }
+
     /**
      * Checks for errors in the reply packet, and if none, returns the reply
      * packet, ready for reading
@@ -3791,6 +4508,9 @@ public class MysqlIO {
 
         // Error handling
         if (statusCode == (byte) 0xff) {
+            // the error may have rolled the transaction back
+            this.transactionMetadataEpoch++;
+
             String serverErrorMessage;
             int errno = 2000;
 
@@ -3818,7 +4538,9 @@ public class MysqlIO {
                     xOpen = SQLError.mysqlToSqlState(errno, this.connection.getUseSqlStateCodes());
                 }
 
-                clearInputStream();
+                if (this.pipelinedCommandsPending == 0) {
+                    clearInputStream();
+                }
 
                 StringBuilder errorBuf = new StringBuilder();
 
@@ -3849,7 +4571,10 @@ public class MysqlIO {
             }
 
             serverErrorMessage = resultPacket.readString(this.connection.getErrorMessageEncoding(), getExceptionInterceptor());
-            clearInputStream();
+
+            if (this.pipelinedCommandsPending == 0) {
+                clearInputStream();
+            }
 
             if (serverErrorMessage.indexOf(Messages.getString("MysqlIO.70")) != -1) {
                 throw SQLError.createSQLException(SQLError.get(SQLError.SQL_STATE_COLUMN_NOT_FOUND) + ", " + serverErrorMessage,
@@ -3867,7 +4592,7 @@ public class MysqlIO {
 
     private void appendDeadlockStatusInformation(String xOpen, StringBuilder errorBuf) throws SQLException {
         if (this.connection.getIncludeInnodbStatusInDeadlockExceptions() && xOpen != null && (xOpen.startsWith("40") || xOpen.startsWith("41"))
-                && this.streamingData == null) {
+                && this.streamingData == null && this.pipelinedCommandsPending == 0) {
             ResultSet rs = null;
 
             try {
@@ -3954,6 +4679,145 @@ public class MysqlIO {
         }
     }
 
+    /**
+     * Sends the query of a client-side prepared statement along with the stream parameters left out of its packet, reading and escaping them as the packet
+     * is sent: the query is written into the split buffer, which is sent on every time it holds a full packet, so that memory use doesn't depend on the
+     * size of the parameters.
+     * 
+     * @param packet
+     * 
+     * @throws SQLException
+     * @throws IOException
+     */
+    private final void sendStreamedParametersPacket(StreamedParametersPacket packet) throws SQLException, IOException {
+        Buffer packetToSend = (this.splitBufRef == null) ? null : this.splitBufRef.get();
+
+        if (packetToSend == null) {
+            packetToSend = new Buffer(INITIAL_PACKET_SIZE);
+        }
+
+        packetToSend.setPosition(HEADER_LENGTH);
+
+        this.streamedPacketsSent = 0;
+
+        byte[] queryBytes = packet.getByteBuffer();
+        int queryPosition = HEADER_LENGTH;
+
+        try {
+            for (int i = 0; i < packet.getParameterStreamCount(); i++) {
+                int streamPosition = packet.getParameterStreamPosition(i);
+
+                writeStreamedPacketBytes(packetToSend, queryBytes, queryPosition, streamPosition - queryPosition);
+                packet.writeParameterStream(i, packetToSend, this);
+
+                queryPosition = streamPosition;
+            }
+
+            writeStreamedPacketBytes(packetToSend, queryBytes, queryPosition, packet.getPosition() - queryPosition);
+        } catch (SQLException sqlEx) {
+            if (this.streamedPacketsSent == 0) {
+                // nothing was sent yet, the connection can still be used
+                throw sqlEx;
+            }
+
+            if (sqlEx instanceof PacketTooBigException) {
+                // the server is waiting for the rest of a query it would refuse anyway, and the connection can't be used anymore
+                try {
+                    this.connection.realClose(false, false, true, sqlEx);
+                } catch (Exception ex) {
+                }
+
+                throw sqlEx;
+            }
+
+            // the server is waiting for the rest of the query, which can't be sent anymore
+            throw SQLError.createCommunicationsException(this.connection, this.lastPacketSentTimeMs, this.lastPacketReceivedTimeMs, sqlEx,
+                    getExceptionInterceptor());
+        }
+
+        // the last packet is shorter than a full one, possibly empty
+        sendStreamedPacket(packetToSend, packetToSend.getPosition() - HEADER_LENGTH);
+
+        if (this.pipelinedCommandsPending == 0) {
+            this.mysqlOutput.flush();
+        }
+
+        if (packetToSend.getCapacity() >= this.maxThreeBytes + HEADER_LENGTH) {
+            this.splitBufRef = new SoftReference<Buffer>(packetToSend);
+        }
+    }
+
+    private void writeStreamedPacketBytes(Buffer packetToSend, byte[] bytes, int offset, int length) throws SQLException, IOException {
+        while (length > 0) {
+            // no more than what fills the next packet, so that the buffer doesn't grow past a full packet
+            int bytesToWrite = Math.min(length, HEADER_LENGTH + this.maxThreeBytes - packetToSend.getPosition());
+
+            packetToSend.writeBytesNoNull(bytes, offset, bytesToWrite);
+            sendFullStreamedPackets(packetToSend);
+
+            offset += bytesToWrite;
+            length -= bytesToWrite;
+        }
+    }
+
+    /**
+     * Sends the full packets written into the packet being sent by sendStreamedParametersPacket(), and moves what's left over to the start of it. Fails with
+     * a PacketTooBigException as soon as the query written so far, stream parameters included, is larger than max_allowed_packet.
+     */
+    final void sendFullStreamedPackets(Buffer packetToSend) throws SQLException {
+        long streamedPacketLen = (long) this.streamedPacketsSent * this.maxThreeBytes + packetToSend.getPosition();
+
+        if (this.maxAllowedPacket > 0 && streamedPacketLen > this.maxAllowedPacket) {
+            throw new PacketTooBigException(streamedPacketLen, this.maxAllowedPacket);
+        }
+
+        try {
+            while (packetToSend.getPosition() - HEADER_LENGTH >= this.maxThreeBytes) {
+                sendStreamedPacket(packetToSend, this.maxThreeBytes);
+
+                int leftOver = packetToSend.getPosition() - HEADER_LENGTH - this.maxThreeBytes;
+
+                System.arraycopy(packetToSend.getByteBuffer(), HEADER_LENGTH + this.maxThreeBytes, packetToSend.getByteBuffer(), HEADER_LENGTH, leftOver);
+                packetToSend.setPosition(HEADER_LENGTH + leftOver);
+            }
+        } catch (IOException ioEx) {
+            throw SQLError.createCommunicationsException(this.connection, this.lastPacketSentTimeMs, this.lastPacketReceivedTimeMs, ioEx,
+                    getExceptionInterceptor());
+        }
+    }
+
+    private void sendStreamedPacket(Buffer packetToSend, int payloadLength) throws SQLException, IOException {
+        this.packetSequence++;
+
+        byte[] packetBytes = packetToSend.getByteBuffer();
+        packetBytes[0] = (byte) (payloadLength & 0xff);
+        packetBytes[1] = (byte) (payloadLength >>> 8);
+        packetBytes[2] = (byte) (payloadLength >>> 16);
+        packetBytes[3] = this.packetSequence;
+
+        int packetLen = HEADER_LENGTH + payloadLength;
+
+        if (this.useCompression) {
+            int splitSize = this.maxThreeBytes - COMP_HEADER_LENGTH;
+            int offset = 0;
+
+            while (offset < packetLen) {
+                int compressLength = Math.min(splitSize, packetLen - offset);
+
+                this.compressedPacketSequence++;
+
+                Buffer compressedPacketToSend = compressPacket(packetToSend, offset, compressLength);
+                this.mysqlOutput.write(compressedPacketToSend.getByteBuffer(), 0, compressedPacketToSend.getPosition());
+
+                offset += compressLength;
+            }
+        } else {
+            this.mysqlOutput.write(packetBytes, 0, packetLen);
+        }
+
+        this.streamedPacketsSent++;
+    }
+
     /**
      * Sends a large packet to the server as a series of smaller packets
      * 
@@ -3979,6 +4843,7 @@ public class MysqlIO {
                 int cbuflen = packetLen + ((packetLen / this.maxThreeBytes) + 1) * HEADER_LENGTH;
                 if (toCompress == null) {
                     toCompress = new Buffer(cbuflen);
+                    this.compressBufRef = new SoftReference<Buffer>(toCompress);
                 } else if (toCompress.getBufLength() < cbuflen) {
                     toCompress.setPosition(toCompress.getBufLength());
                     toCompress.ensureCapacity(cbuflen - toCompress.getBufLength());
@@ -4047,12 +4912,6 @@ public class MysqlIO {
         }
     }
 
-    private void reclaimLargeSharedSendPacket() {
-        if ((this.sharedSendPacket != null) && (this.sharedSendPacket.getCapacity() > 1048576)) {
-            this.sharedSendPacket = new Buffer(INITIAL_PACKET_SIZE);
-        }
-    }
-
     boolean hadWarnings() {
         return this.hadWarnings;
     }
@@ -4769,6 +5628,17 @@ public class MysqlIO {
 
         send(packet, packet.getPosition());
 
+        if (this.mysqlConnection.getChannel() != null) {
+            // SSL layers on the socket's own blocking streams, release the channel streams first (output first, so the channel can leave non-blocking mode)
+            try {
+                this.mysqlOutput.close();
+                this.mysqlInput.close();
+            } catch (IOException ioEx) {
+                throw SQLError.createCommunicationsException(this.connection, this.lastPacketSentTimeMs, this.lastPacketReceivedTimeMs, ioEx,
+                        getExceptionInterceptor());
+            }
+        }
+
         ExportControlled.transformSocketToSSLSocket(this);
     }
 
@@ -4789,14 +5659,41 @@ public class MysqlIO {
             fetchedRows.clear();
         }
 
-        this.sharedSendPacket.clear();
+        sendCursorFetch(statementId, fetchSize);
+
+        ResultSetRow row = null;
+
+        while ((row = nextRow(columnTypes, columnTypes.length, true, ResultSet.CONCUR_READ_ONLY, false, useBufferRowExplicit, false, null)) != null) {
+            fetchedRows.add(row);
+        }
+
+        return fetchedRows;
+    }
+
+    /**
+     * Asks the server for the next rows of a cursor without waiting for them, so it can produce them while the application processes the current ones. They
+     * have to be read with readPrefetchedCursorRows() before anything else is read from this connection; when another command is sent first, the cursor is
+     * told to read them then, see RowDataCursor.readPrefetchedRows().
+     */
+    void prefetchRowsViaCursor(RowDataCursor cursor, long statementId, int fetchSize) throws SQLException {
+        // the status of the connection hasn't changed as far as the application is concerned until the rows are read
+        int currentServerStatus = this.serverStatus;
+        int previousServerStatus = this.oldServerStatus;
+
+        sendCursorFetch(statementId, fetchSize);
 
-        this.sharedSendPacket.writeByte((byte) MysqlDefs.COM_FETCH);
-        this.sharedSendPacket.writeLong(statementId);
-        this.sharedSendPacket.writeLong(fetchSize);
+        this.serverStatus = currentServerStatus;
+        this.oldServerStatus = previousServerStatus;
+        this.pendingCursorFetch = cursor;
+    }
 
-        sendCommand(MysqlDefs.COM_FETCH, null, this.sharedSendPacket, true, null, 0);
+    /**
+     * Reads the rows requested by prefetchRowsViaCursor().
+     */
+    List<ResultSetRow> readPrefetchedCursorRows(Field[] columnTypes, int fetchSize, boolean useBufferRowExplicit) throws SQLException {
+        this.pendingCursorFetch = null;
 
+        List<ResultSetRow> fetchedRows = new ArrayList<ResultSetRow>(fetchSize);
         ResultSetRow row = null;
 
         while ((row = nextRow(columnTypes, columnTypes.length, true, ResultSet.CONCUR_READ_ONLY, false, useBufferRowExplicit, false, null)) != null) {
@@ -4806,6 +5703,30 @@ public class MysqlIO {
         return fetchedRows;
     }
 
+    private void sendCursorFetch(long statementId, int fetchSize) throws SQLException {
+        Buffer packet = getSharedSendPacket();
+
+        packet.clear();
+        packet.writeByte((byte) MysqlDefs.COM_FETCH);
+        packet.writeLong(statementId);
+        packet.writeLong(fetchSize);
+
+        sendCommand(MysqlDefs.COM_FETCH, null, packet, true, null, 0);
+    }
+
+    /**
+     * Has the cursor whose prefetched rows are still on the wire read them, so another command can be sent.
+     */
+    private void drainPendingCursorFetch() {
+        if (this.pendingCursorFetch != null) {
+            RowDataCursor cursor = this.pendingCursorFetch;
+
+            this.pendingCursorFetch = null;
+
+            cursor.readPrefetchedRows();
+        }
+    }
+
     protected long getThreadId() {
         return this.threadId;
     }
@@ -4906,4 +5827,178 @@ public class MysqlIO {
         }
         packet.writeByte((byte) charsetIndex);
     }
+
+    /**
+     * The payload of a (possibly multi-packet) row, read straight off the connection's input stream without assembling it in a Buffer first. Only valid
+     * until the next packet is read from the connection, it is up to the StreamedColumnsRow it is handed to to read, or skip, all of it before then.
+     */
+    class RowPacketInputStream extends InputStream {
+        private int bytesLeftInPacket;
+
+        private boolean isLastPacket;
+
+        private byte packetSeq;
+
+        private int peekedByte = -1;
+
+        RowPacketInputStream(int packetLength, byte packetSeq) {
+            this.bytesLeftInPacket = packetLength;
+            this.isLastPacket = packetLength != MysqlIO.this.maxThreeBytes;
+            this.packetSeq = packetSeq;
+        }
+
+        @Override
+        public int read() throws IOException {
+            if (this.peekedByte != -1) {
+                int b = this.peekedByte;
+                this.peekedByte = -1;
+
+                return b;
+            }
+
+            if (!nextPacketIfRequired()) {
+                return -1;
+            }
+
+            int b = MysqlIO.this.mysqlInput.read();
+
+            if (b == -1) {
+                throw new EOFException(Messages.getString("MysqlIO.43"));
+            }
+
+            this.bytesLeftInPacket--;
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+
+            if (this.peekedByte != -1) {
+                b[off] = (byte) read();
+
+                return 1;
+            }
+
+            if (!nextPacketIfRequired()) {
+                return -1;
+            }
+
+            int count = MysqlIO.this.mysqlInput.read(b, off, Math.min(len, this.bytesLeftInPacket));
+
+            if (count < 0) {
+                throw new EOFException(Messages.getString("MysqlIO.43"));
+            }
+
+            this.bytesLeftInPacket -= count;
+
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            if (n <= 0) {
+                return 0;
+            }
+
+            if (this.peekedByte != -1) {
+                read();
+
+                return 1;
+            }
+
+            if (!nextPacketIfRequired()) {
+                return 0;
+            }
+
+            long skipped = MysqlIO.this.skipFully(MysqlIO.this.mysqlInput, Math.min(n, this.bytesLeftInPacket));
+
+            this.bytesLeftInPacket -= skipped;
+
+            return skipped;
+        }
+
+        /**
+         * Returns the next byte of the row without consuming it, or -1 at its end.
+         */
+        int peek() throws IOException {
+            if (this.peekedByte == -1) {
+                this.peekedByte = read();
+            }
+
+            return this.peekedByte;
+        }
+
+        void readFully(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                int count = read(b, off, len);
+
+                if (count < 0) {
+                    throw new EOFException(Messages.getString("MysqlIO.43"));
+                }
+
+                off += count;
+                len -= count;
+            }
+        }
+
+        void skipFully(long len) throws IOException {
+            while (len > 0) {
+                long count = skip(len);
+
+                if (count <= 0) {
+                    throw new EOFException(Messages.getString("MysqlIO.43"));
+                }
+
+                len -= count;
+            }
+        }
+
+        /**
+         * Consumes what is left of the row, leaving the connection positioned on the next packet.
+         */
+        void skipRest() throws IOException {
+            this.peekedByte = -1;
+
+            while (nextPacketIfRequired()) {
+                this.bytesLeftInPacket -= MysqlIO.this.skipFully(MysqlIO.this.mysqlInput, this.bytesLeftInPacket);
+            }
+        }
+
+        SQLException createCommunicationsException(IOException ioEx) {
+            return SQLError.createCommunicationsException(MysqlIO.this.connection, MysqlIO.this.lastPacketSentTimeMs, MysqlIO.this.lastPacketReceivedTimeMs,
+                    ioEx, getExceptionInterceptor());
+        }
+
+        private boolean nextPacketIfRequired() throws IOException {
+            while (this.bytesLeftInPacket == 0) {
+                if (this.isLastPacket) {
+                    return false;
+                }
+
+                if (MysqlIO.this.readFully(MysqlIO.this.mysqlInput, MysqlIO.this.packetHeaderBuf, 0, 4) < 4) {
+                    forceClose();
+                    throw new IOException(Messages.getString("MysqlIO.47"));
+                }
+
+                byte[] header = MysqlIO.this.packetHeaderBuf;
+
+                this.bytesLeftInPacket = (header[0] & 0xff) + ((header[1] & 0xff) << 8) + ((header[2] & 0xff) << 16);
+                this.isLastPacket = this.bytesLeftInPacket != MysqlIO.this.maxThreeBytes;
+
+                this.packetSeq++;
+
+                if (this.packetSeq != header[3]) {
+                    throw new IOException(Messages.getString("MysqlIO.49"));
+                }
+
+                MysqlIO.this.readPacketSequence = this.packetSeq;
+            }
+
+            return true;
+        }
+    }
 }
@@ -0,0 +1,240 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.sql.SQLException;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mysql.jdbc.PreparedStatement.ParseInfo;
+import com.mysql.jdbc.util.ConcurrentLRUCache;
+
+/**
+ * A {@link CacheAdapterFactory} for "parseInfoCacheFactory" that shares the parsed representation of client-side prepared statements between all the
+ * connections of the JVM, instead of every connection parsing and holding its own copy.
+ * 
+ * ParseInfo instances are not modified once built, so they can be handed to any connection whose settings would have produced the same ParseInfo; the cache
+ * key is made of the SQL and of those settings. The cache is bounded by the estimated size of its entries ("parseInfoCacheMaxBytes") rather than by
+ * their number; entries are evicted with the CLOCK approximation of LRU of {@link ConcurrentLRUCache} when it grows past this bound.
+ */
+public class PerVmParseInfoCacheFactory implements CacheAdapterFactory<String, ParseInfo> {
+    private static final AtomicLong maxWeight = new AtomicLong();
+
+    private static final AtomicLong hits = new AtomicLong();
+
+    private static final AtomicLong misses = new AtomicLong();
+
+    private static final AtomicLong evictions = new AtomicLong();
+
+    static final ConcurrentLRUCache<String, ParseInfo> parseInfoBySqlAndSettings = new ConcurrentLRUCache<String, ParseInfo>(Integer.MAX_VALUE) {
+        @Override
+        protected long weigh(String cacheKey, ParseInfo parseInfo) {
+            return estimateSize(cacheKey, parseInfo);
+        }
+
+        @Override
+        protected long getMaxWeight() {
+            return maxWeight.get();
+        }
+
+        @Override
+        protected void entryEvicted(String cacheKey, ParseInfo parseInfo) {
+            evictions.incrementAndGet();
+        }
+    };
+
+    public CacheAdapter<String, ParseInfo> getInstance(Connection forConn, String url, int cacheMaxSize, int maxKeySize, Properties connectionProperties)
+            throws SQLException {
+        long maxBytes = forConn.getParseInfoCacheMaxBytes();
+        long currentMax;
+
+        while ((currentMax = maxWeight.get()) < maxBytes) {
+            if (maxWeight.compareAndSet(currentMax, maxBytes)) {
+                break;
+            }
+        }
+
+        return new PerVmParseInfoCache((MySQLConnection) forConn, maxKeySize);
+    }
+
+    /**
+     * Returns the number of lookups that found a cached ParseInfo since the class was loaded or the statistics were last reset.
+     */
+    public static long getHits() {
+        return hits.get();
+    }
+
+    /**
+     * Returns the number of lookups that didn't find a cached ParseInfo since the class was loaded or the statistics were last reset.
+     */
+    public static long getMisses() {
+        return misses.get();
+    }
+
+    /**
+     * Returns the number of entries evicted to keep the cache under its bound since the class was loaded or the statistics were last reset.
+     */
+    public static long getEvictions() {
+        return evictions.get();
+    }
+
+    /**
+     * Returns the estimated size, in bytes, of the entries currently cached.
+     */
+    public static long getWeight() {
+        return parseInfoBySqlAndSettings.weight();
+    }
+
+    /**
+     * Returns the number of entries currently cached.
+     */
+    public static int getSize() {
+        return parseInfoBySqlAndSettings.size();
+    }
+
+    public static void resetStatistics() {
+        hits.set(0);
+        misses.set(0);
+        evictions.set(0);
+    }
+
+    static class PerVmParseInfoCache implements CacheAdapter<String, ParseInfo> {
+        private final MySQLConnection conn;
+        private final int cacheSqlLimit;
+
+        PerVmParseInfoCache(MySQLConnection conn, int maxKeySize) {
+            this.conn = conn;
+            this.cacheSqlLimit = maxKeySize;
+        }
+
+        public ParseInfo get(String key) {
+            if (key == null || key.length() > this.cacheSqlLimit) {
+                return null;
+            }
+
+            ParseInfo parseInfo = parseInfoBySqlAndSettings.get(cacheKey(key));
+
+            if (parseInfo == null) {
+                misses.incrementAndGet();
+            } else {
+                hits.incrementAndGet();
+            }
+
+            return parseInfo;
+        }
+
+        public void put(String key, ParseInfo value) {
+            if (key == null || key.length() > this.cacheSqlLimit || value == null) {
+                return;
+            }
+
+            String cacheKey = cacheKey(key);
+
+            // it would only push every other entry out
+            if (estimateSize(cacheKey, value) > maxWeight.get()) {
+                return;
+            }
+
+            parseInfoBySqlAndSettings.putIfAbsent(cacheKey, value);
+        }
+
+        public void invalidate(String key) {
+            if (key != null) {
+                parseInfoBySqlAndSettings.remove(cacheKey(key));
+            }
+        }
+
+        public void invalidateAll(Set<String> keys) {
+            for (String key : keys) {
+                invalidate(key);
+            }
+        }
+
+        /**
+         * Invalidates the entries cached for this connection's settings, the only ones it could have read, leaving those of the connections with other
+         * settings alone.
+         */
+        public void invalidateAll() {
+            String settingsPrefix = cacheKey("");
+
+            for (String cacheKey : parseInfoBySqlAndSettings.keySet()) {
+                if (cacheKey.startsWith(settingsPrefix)) {
+                    parseInfoBySqlAndSettings.remove(cacheKey);
+                }
+            }
+        }
+
+        /**
+         * Prefixes the SQL with the connection settings the ParseInfo depends on: the character encoding the static parts are converted with, how quotes,
+         * identifiers and escapes are recognized and whether the batch rewriting information is built.
+         */
+        private String cacheKey(String sql) {
+            StringBuilder key = new StringBuilder(sql.length() + 64);
+
+            key.append(this.conn.getUseUnicode() ? this.conn.getEncoding() : null).append('/');
+            key.append(this.conn.getServerCharset()).append('/');
+            key.append(this.conn.parserKnowsUnicode() ? 'U' : '-');
+            key.append(this.conn.isNoBackslashEscapesSet() ? 'B' : '-');
+            key.append(!this.conn.supportsQuotedIdentifiers() ? ' ' : this.conn.useAnsiQuotedIdentifiers() ? '"' : '`');
+            key.append(this.conn.getDontCheckOnDuplicateKeyUpdateInSQL() ? 'D' : '-');
+            key.append(this.conn.getRewriteBatchedStatements() ? 'R' : '-');
+            key.append('/').append(sql);
+
+            return key.toString();
+        }
+    }
+
+    /**
+     * Estimates the heap footprint of a cache entry.
+     */
+    static long estimateSize(String cacheKey, ParseInfo parseInfo) {
+        return cacheKey.length() * 2L + estimateSize(parseInfo);
+    }
+
+    /**
+     * Estimates the heap footprint of a ParseInfo, including the ParseInfos used to rewrite batched INSERTs.
+     */
+    static long estimateSize(ParseInfo parseInfo) {
+        if (parseInfo == null) {
+            return 0;
+        }
+
+        long size = 96; // object header and scalar fields
+
+        if (parseInfo.staticSql != null) {
+            size += 16 + 8 * parseInfo.staticSql.length;
+
+            for (int i = 0; i < parseInfo.staticSql.length; i++) {
+                size += 16 + parseInfo.staticSql[i].length;
+            }
+        }
+
+        if (parseInfo.valuesClause != null) {
+            size += 40 + parseInfo.valuesClause.length() * 2L;
+        }
+
+        return size + estimateSize(parseInfo.batchHead) + estimateSize(parseInfo.batchValues) + estimateSize(parseInfo.batchODKUClause);
+    }
+}
@@ -0,0 +1,71 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.util.concurrent.ConcurrentHashMap;
+
+import com.mysql.jdbc.util.ConcurrentLRUCache;
+
+/**
+ * The result set metadata caches shared by the connections of the JVM when "shareCachedResultSetMetadata" is set. Connections to the same server, as the
+ * same user and with the same configuration get the same result sets for the same statements, so they share a cache.
+ */
+class PerVmResultSetMetadataCache {
+    private static final ConcurrentHashMap<String, ConcurrentLRUCache<String, CachedResultSetMetaData>> cachesByConfiguration =
+            new ConcurrentHashMap<String, ConcurrentLRUCache<String, CachedResultSetMetaData>>();
+
+    private PerVmResultSetMetadataCache() {
+    }
+
+    /**
+     * Returns the cache shared by the connections with the given configuration, creating it if needed.
+     * 
+     * @param configurationKey
+     *            identifies the server, user and connection properties of the connections sharing the cache
+     * @param maxEntries
+     *            the size of the cache, if it has to be created
+     */
+    static ConcurrentLRUCache<String, CachedResultSetMetaData> getInstance(String configurationKey, int maxEntries) {
+        ConcurrentLRUCache<String, CachedResultSetMetaData> cache = cachesByConfiguration.get(configurationKey);
+
+        if (cache == null) {
+            cache = new ConcurrentLRUCache<String, CachedResultSetMetaData>(maxEntries);
+
+            ConcurrentLRUCache<String, CachedResultSetMetaData> existing = cachesByConfiguration.putIfAbsent(configurationKey, cache);
+
+            if (existing != null) {
+                cache = existing;
+            }
+        }
+
+        return cache;
+    }
+
+    /**
+     * Returns the key of the cached metadata of a statement, which also depends on the default database the statement is executed against.
+     */
+    static String statementKey(String catalog, String sql) {
+        return catalog + "/" + sql;
+    }
+}
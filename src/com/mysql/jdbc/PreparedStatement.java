@@ -58,6 +58,7 @@ import java.util.LinkedList;
 import java.util.List;
 import java.util.Locale;
 import java.util.TimeZone;
+import java.util.concurrent.locks.Lock;
 
 import com.mysql.jdbc.exceptions.MySQLStatementCancelledException;
 import com.mysql.jdbc.exceptions.MySQLTimeoutException;
@@ -360,11 +361,11 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
             }
         }
 
-        private ParseInfo batchHead;
+        ParseInfo batchHead;
 
-        private ParseInfo batchValues;
+        ParseInfo batchValues;
 
-        private ParseInfo batchODKUClause;
+        ParseInfo batchODKUClause;
 
         private void buildRewriteBatchedParams(String sql, MySQLConnection conn, DatabaseMetaData metadata, String encoding,
                 SingleByteCharsetConverter converter) throws SQLException {
@@ -1023,15 +1024,14 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database access error occurs
      */
     public void clearParameters() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        checkClosed();
 
-            for (int i = 0; i < this.parameterValues.length; i++) {
-                this.parameterValues[i] = null;
-                this.parameterStreams[i] = null;
-                this.isStream[i] = false;
-                this.isNull[i] = false;
-                this.parameterTypes[i] = Types.NULL;
-            }
+        for (int i = 0; i < this.parameterValues.length; i++) {
+            this.parameterValues[i] = null;
+            this.parameterStreams[i] = null;
+            this.isStream[i] = false;
+            this.isNull[i] = false;
+            this.parameterTypes[i] = Types.NULL;
         }
     }
 
@@ -1114,9 +1114,25 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      * @throws SQLException
      */
     protected boolean checkReadOnlySafeStatement() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            return this.firstCharOfStmt == 'S' || !this.connection.isReadOnly();
+        Lock connectionLock = checkClosed().getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return checkReadOnlySafeStatementLocked();
+            }
         }
+
+        connectionLock.lock();
+
+        try {
+            return checkReadOnlySafeStatementLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private boolean checkReadOnlySafeStatementLocked() throws SQLException {
+        return this.firstCharOfStmt == 'S' || !this.connection.isReadOnly();
     }
 
     /**
@@ -1131,92 +1147,107 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database access error occurs
      */
     public boolean execute() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-
-            MySQLConnection locallyScopedConn = this.connection;
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            if (!checkReadOnlySafeStatement()) {
-                throw SQLError.createSQLException(Messages.getString("PreparedStatement.20") + Messages.getString("PreparedStatement.21"),
-                        SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeLocked();
             }
+        }
 
-            ResultSetInternalMethods rs = null;
+        connectionLock.lock();
 
-            CachedResultSetMetaData cachedMetadata = null;
+        try {
+            return executeLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            this.lastQueryIsOnDupKeyUpdate = false;
+    private boolean executeLocked() throws SQLException {
+        MySQLConnection locallyScopedConn = this.connection;
 
-            if (this.retrieveGeneratedKeys) {
-                this.lastQueryIsOnDupKeyUpdate = containsOnDuplicateKeyUpdateInSQL();
-            }
+        if (!checkReadOnlySafeStatement()) {
+            throw SQLError.createSQLException(Messages.getString("PreparedStatement.20") + Messages.getString("PreparedStatement.21"),
+                    SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+        }
 
-            clearWarnings();
+        ResultSetInternalMethods rs = null;
 
-            setupStreamingTimeout(locallyScopedConn);
+        CachedResultSetMetaData cachedMetadata = null;
 
-            this.batchedGeneratedKeys = null;
+        this.lastQueryIsOnDupKeyUpdate = false;
 
-            Buffer sendPacket = fillSendPacket();
+        if (this.retrieveGeneratedKeys) {
+            this.lastQueryIsOnDupKeyUpdate = containsOnDuplicateKeyUpdateInSQL();
+        }
 
-            String oldCatalog = null;
+        clearWarnings();
 
-            if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
-                oldCatalog = locallyScopedConn.getCatalog();
-                locallyScopedConn.setCatalog(this.currentCatalog);
-            }
+        setupStreamingTimeout(locallyScopedConn);
 
-            //
-            // Check if we have cached metadata for this query...
-            //
-            if (locallyScopedConn.getCacheResultSetMetadata()) {
-                cachedMetadata = locallyScopedConn.getCachedMetaData(this.originalSql);
-            }
+        this.batchedGeneratedKeys = null;
 
-            Field[] metadataFromCache = null;
+        Buffer sendPacket = fillSendPacket();
 
-            if (cachedMetadata != null) {
-                metadataFromCache = cachedMetadata.fields;
-            }
+        String oldCatalog = null;
 
-            boolean oldInfoMsgState = false;
+        if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
+            oldCatalog = locallyScopedConn.getCatalog();
+            locallyScopedConn.setCatalog(this.currentCatalog);
+        }
 
-            if (this.retrieveGeneratedKeys) {
-                oldInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
-                locallyScopedConn.setReadInfoMsgEnabled(true);
-            }
+        //
+        // Check if we have cached metadata for this query...
+        //
+        if (locallyScopedConn.getCacheResultSetMetadata()) {
+            cachedMetadata = locallyScopedConn.getCachedMetaData(this.originalSql);
+        }
 
-            //
-            // Only apply max_rows to selects
-            //
-            locallyScopedConn.setSessionMaxRows(this.firstCharOfStmt == 'S' ? this.maxRows : -1);
+        Field[] metadataFromCache = null;
 
-            rs = executeInternal(this.maxRows, sendPacket, createStreamingResultSet(), (this.firstCharOfStmt == 'S'), metadataFromCache, false);
+        if (cachedMetadata != null) {
+            metadataFromCache = cachedMetadata.fields;
+        }
 
-            if (cachedMetadata != null) {
-                locallyScopedConn.initializeResultsMetadataFromCache(this.originalSql, cachedMetadata, rs);
-            } else {
-                if (rs.reallyResult() && locallyScopedConn.getCacheResultSetMetadata()) {
-                    locallyScopedConn.initializeResultsMetadataFromCache(this.originalSql, null /* will be created */, rs);
-                }
-            }
+        boolean oldInfoMsgState = false;
 
-            if (this.retrieveGeneratedKeys) {
-                locallyScopedConn.setReadInfoMsgEnabled(oldInfoMsgState);
-                rs.setFirstCharOfQuery(this.firstCharOfStmt);
-            }
+        if (this.retrieveGeneratedKeys) {
+            oldInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
+            locallyScopedConn.setReadInfoMsgEnabled(true);
+        }
 
-            if (oldCatalog != null) {
-                locallyScopedConn.setCatalog(oldCatalog);
-            }
+        //
+        // Only apply max_rows to selects
+        //
+        locallyScopedConn.setSessionMaxRows(this.firstCharOfStmt == 'S' ? this.maxRows : -1);
 
-            if (rs != null) {
-                this.lastInsertId = rs.getUpdateID();
+        rs = executeInternal(this.maxRows, sendPacket, createStreamingResultSet(), (this.firstCharOfStmt == 'S'), metadataFromCache, false);
 
-                this.results = rs;
+        if (cachedMetadata != null) {
+            locallyScopedConn.initializeResultsMetadataFromCache(this.originalSql, cachedMetadata, rs);
+        } else {
+            if (rs.reallyResult() && locallyScopedConn.getCacheResultSetMetadata()) {
+                locallyScopedConn.initializeResultsMetadataFromCache(this.originalSql, null /* will be created */, rs);
             }
+        }
+
+        if (this.retrieveGeneratedKeys) {
+            locallyScopedConn.setReadInfoMsgEnabled(oldInfoMsgState);
+            rs.setFirstCharOfQuery(this.firstCharOfStmt);
+        }
 
-            return ((rs != null) && rs.reallyResult());
+        if (oldCatalog != null) {
+            locallyScopedConn.setCatalog(oldCatalog);
         }
+
+        if (rs != null) {
+            this.lastInsertId = rs.getUpdateID();
+
+            this.results = rs;
+        }
+
+        return ((rs != null) && rs.reallyResult());
     }
 
     /**
@@ -1234,46 +1265,61 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      */
     @Override
     public int[] executeBatch() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            if (this.connection.isReadOnly()) {
-                throw new SQLException(Messages.getString("PreparedStatement.25") + Messages.getString("PreparedStatement.26"),
-                        SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeBatchLocked();
             }
+        }
 
-            if (this.batchedArgs == null || this.batchedArgs.size() == 0) {
-                return new int[0];
-            }
+        connectionLock.lock();
 
-            // we timeout the entire batch, not individual statements
-            int batchTimeout = this.timeoutInMillis;
-            this.timeoutInMillis = 0;
+        try {
+            return executeBatchLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            resetCancelledState();
+    private int[] executeBatchLocked() throws SQLException {
+        if (this.connection.isReadOnly()) {
+            throw new SQLException(Messages.getString("PreparedStatement.25") + Messages.getString("PreparedStatement.26"),
+                    SQLError.SQL_STATE_ILLEGAL_ARGUMENT);
+        }
 
-            try {
-                statementBegins();
+        if (this.batchedArgs == null || this.batchedArgs.size() == 0) {
+            return new int[0];
+        }
 
-                clearWarnings();
+        // we timeout the entire batch, not individual statements
+        int batchTimeout = this.timeoutInMillis;
+        this.timeoutInMillis = 0;
 
-                if (!this.batchHasPlainStatements && this.connection.getRewriteBatchedStatements()) {
+        resetCancelledState();
 
-                    if (canRewriteAsMultiValueInsertAtSqlLevel()) {
-                        return executeBatchedInserts(batchTimeout);
-                    }
+        try {
+            statementBegins();
 
-                    if (this.connection.versionMeetsMinimum(4, 1, 0) && !this.batchHasPlainStatements && this.batchedArgs != null
-                            && this.batchedArgs.size() > 3 /* cost of option setting rt-wise */) {
-                        return executePreparedBatchAsMultiStatement(batchTimeout);
-                    }
-                }
+            clearWarnings();
 
-                return executeBatchSerially(batchTimeout);
-            } finally {
-                this.statementExecuting.set(false);
+            if (!this.batchHasPlainStatements && this.connection.getRewriteBatchedStatements()) {
 
-                clearBatch();
+                if (canRewriteAsMultiValueInsertAtSqlLevel()) {
+                    return executeBatchedInserts(batchTimeout);
+                }
+
+                if (this.connection.versionMeetsMinimum(4, 1, 0) && !this.batchHasPlainStatements && this.batchedArgs != null
+                        && this.batchedArgs.size() > 3 /* cost of option setting rt-wise */) {
+                    return executePreparedBatchAsMultiStatement(batchTimeout);
+                }
             }
+
+            return executeBatchSerially(batchTimeout);
+        } finally {
+            this.statementExecuting.set(false);
+
+            clearBatch();
         }
     }
 
@@ -1296,79 +1342,133 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      */
 
     protected int[] executePreparedBatchAsMultiStatement(int batchTimeout) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            // This is kind of an abuse, but it gets the job done
-            if (this.batchedValuesClause == null) {
-                this.batchedValuesClause = this.originalSql + ";";
+        Lock connectionLock = checkClosed().getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executePreparedBatchAsMultiStatementLocked(batchTimeout);
             }
+        }
 
-            MySQLConnection locallyScopedConn = this.connection;
+        connectionLock.lock();
 
-            boolean multiQueriesEnabled = locallyScopedConn.getAllowMultiQueries();
-            CancelTask timeoutTask = null;
+        try {
+            return executePreparedBatchAsMultiStatementLocked(batchTimeout);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            try {
-                clearWarnings();
+    private int[] executePreparedBatchAsMultiStatementLocked(int batchTimeout) throws SQLException {
+        // This is kind of an abuse, but it gets the job done
+        if (this.batchedValuesClause == null) {
+            this.batchedValuesClause = this.originalSql + ";";
+        }
+
+        MySQLConnection locallyScopedConn = this.connection;
+
+        boolean multiQueriesEnabled = locallyScopedConn.getAllowMultiQueries();
+        CancelTask timeoutTask = null;
+
+        try {
+            clearWarnings();
+
+            int numBatchedArgs = this.batchedArgs.size();
+
+            if (this.retrieveGeneratedKeys) {
+                this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(numBatchedArgs);
+            }
+
+            int numValuesPerBatch = computeBatchSize(numBatchedArgs);
+
+            if (numBatchedArgs < numValuesPerBatch) {
+                numValuesPerBatch = numBatchedArgs;
+            }
+
+            java.sql.PreparedStatement batchedStatement = null;
 
-                int numBatchedArgs = this.batchedArgs.size();
+            int batchedParamIndex = 1;
+            int numberToExecuteAsMultiValue = 0;
+            int batchCounter = 0;
+            int updateCountCounter = 0;
+            int[] updateCounts = new int[numBatchedArgs];
+            SQLException sqlEx = null;
+
+            try {
+                if (!multiQueriesEnabled) {
+                    locallyScopedConn.getIO().enableMultiQueries();
+                }
 
                 if (this.retrieveGeneratedKeys) {
-                    this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(numBatchedArgs);
+                    batchedStatement = locallyScopedConn.prepareStatement(generateMultiStatementForBatch(numValuesPerBatch), RETURN_GENERATED_KEYS);
+                } else {
+                    batchedStatement = locallyScopedConn.prepareStatement(generateMultiStatementForBatch(numValuesPerBatch));
                 }
 
-                int numValuesPerBatch = computeBatchSize(numBatchedArgs);
+                if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
+                    timeoutTask = new CancelTask((StatementImpl) batchedStatement);
+                    locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
+                }
 
                 if (numBatchedArgs < numValuesPerBatch) {
-                    numValuesPerBatch = numBatchedArgs;
+                    numberToExecuteAsMultiValue = numBatchedArgs;
+                } else {
+                    numberToExecuteAsMultiValue = numBatchedArgs / numValuesPerBatch;
                 }
 
-                java.sql.PreparedStatement batchedStatement = null;
+                int numberArgsToExecute = numberToExecuteAsMultiValue * numValuesPerBatch;
 
-                int batchedParamIndex = 1;
-                int numberToExecuteAsMultiValue = 0;
-                int batchCounter = 0;
-                int updateCountCounter = 0;
-                int[] updateCounts = new int[numBatchedArgs];
-                SQLException sqlEx = null;
+                for (int i = 0; i < numberArgsToExecute; i++) {
+                    if (i != 0 && i % numValuesPerBatch == 0) {
+                        try {
+                            batchedStatement.execute();
+                        } catch (SQLException ex) {
+                            sqlEx = handleExceptionForBatch(batchCounter, numValuesPerBatch, updateCounts, ex);
+                        }
 
-                try {
-                    if (!multiQueriesEnabled) {
-                        locallyScopedConn.getIO().enableMultiQueries();
+                        updateCountCounter = processMultiCountsAndKeys((StatementImpl) batchedStatement, updateCountCounter, updateCounts);
+
+                        batchedStatement.clearParameters();
+                        batchedParamIndex = 1;
                     }
 
+                    batchedParamIndex = setOneBatchedParameterSet(batchedStatement, batchedParamIndex, this.batchedArgs.get(batchCounter++));
+                }
+
+                try {
+                    batchedStatement.execute();
+                } catch (SQLException ex) {
+                    sqlEx = handleExceptionForBatch(batchCounter - 1, numValuesPerBatch, updateCounts, ex);
+                }
+
+                updateCountCounter = processMultiCountsAndKeys((StatementImpl) batchedStatement, updateCountCounter, updateCounts);
+
+                batchedStatement.clearParameters();
+
+                numValuesPerBatch = numBatchedArgs - batchCounter;
+            } finally {
+                if (batchedStatement != null) {
+                    batchedStatement.close();
+                    batchedStatement = null;
+                }
+            }
+
+            try {
+                if (numValuesPerBatch > 0) {
+
                     if (this.retrieveGeneratedKeys) {
                         batchedStatement = locallyScopedConn.prepareStatement(generateMultiStatementForBatch(numValuesPerBatch), RETURN_GENERATED_KEYS);
                     } else {
                         batchedStatement = locallyScopedConn.prepareStatement(generateMultiStatementForBatch(numValuesPerBatch));
                     }
 
-                    if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                        timeoutTask = new CancelTask((StatementImpl) batchedStatement);
-                        locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
-                    }
-
-                    if (numBatchedArgs < numValuesPerBatch) {
-                        numberToExecuteAsMultiValue = numBatchedArgs;
-                    } else {
-                        numberToExecuteAsMultiValue = numBatchedArgs / numValuesPerBatch;
+                    if (timeoutTask != null) {
+                        timeoutTask.toCancel = (StatementImpl) batchedStatement;
                     }
 
-                    int numberArgsToExecute = numberToExecuteAsMultiValue * numValuesPerBatch;
-
-                    for (int i = 0; i < numberArgsToExecute; i++) {
-                        if (i != 0 && i % numValuesPerBatch == 0) {
-                            try {
-                                batchedStatement.execute();
-                            } catch (SQLException ex) {
-                                sqlEx = handleExceptionForBatch(batchCounter, numValuesPerBatch, updateCounts, ex);
-                            }
-
-                            updateCountCounter = processMultiCountsAndKeys((StatementImpl) batchedStatement, updateCountCounter, updateCounts);
-
-                            batchedStatement.clearParameters();
-                            batchedParamIndex = 1;
-                        }
+                    batchedParamIndex = 1;
 
+                    while (batchCounter < numBatchedArgs) {
                         batchedParamIndex = setOneBatchedParameterSet(batchedStatement, batchedParamIndex, this.batchedArgs.get(batchCounter++));
                     }
 
@@ -1381,84 +1481,46 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
                     updateCountCounter = processMultiCountsAndKeys((StatementImpl) batchedStatement, updateCountCounter, updateCounts);
 
                     batchedStatement.clearParameters();
-
-                    numValuesPerBatch = numBatchedArgs - batchCounter;
-                } finally {
-                    if (batchedStatement != null) {
-                        batchedStatement.close();
-                        batchedStatement = null;
-                    }
                 }
 
-                try {
-                    if (numValuesPerBatch > 0) {
-
-                        if (this.retrieveGeneratedKeys) {
-                            batchedStatement = locallyScopedConn.prepareStatement(generateMultiStatementForBatch(numValuesPerBatch), RETURN_GENERATED_KEYS);
-                        } else {
-                            batchedStatement = locallyScopedConn.prepareStatement(generateMultiStatementForBatch(numValuesPerBatch));
-                        }
-
-                        if (timeoutTask != null) {
-                            timeoutTask.toCancel = (StatementImpl) batchedStatement;
-                        }
-
-                        batchedParamIndex = 1;
-
-                        while (batchCounter < numBatchedArgs) {
-                            batchedParamIndex = setOneBatchedParameterSet(batchedStatement, batchedParamIndex, this.batchedArgs.get(batchCounter++));
-                        }
-
-                        try {
-                            batchedStatement.execute();
-                        } catch (SQLException ex) {
-                            sqlEx = handleExceptionForBatch(batchCounter - 1, numValuesPerBatch, updateCounts, ex);
-                        }
-
-                        updateCountCounter = processMultiCountsAndKeys((StatementImpl) batchedStatement, updateCountCounter, updateCounts);
-
-                        batchedStatement.clearParameters();
+                if (timeoutTask != null) {
+                    if (timeoutTask.caughtWhileCancelling != null) {
+                        throw timeoutTask.caughtWhileCancelling;
                     }
 
-                    if (timeoutTask != null) {
-                        if (timeoutTask.caughtWhileCancelling != null) {
-                            throw timeoutTask.caughtWhileCancelling;
-                        }
-
-                        timeoutTask.cancel();
-
-                        locallyScopedConn.getCancelTimer().purge();
+                    timeoutTask.cancel();
 
-                        timeoutTask = null;
-                    }
+                    locallyScopedConn.getCancelTimer().purge();
 
-                    if (sqlEx != null) {
-                        SQLException batchUpdateException = new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(),
-                                updateCounts);
-                        batchUpdateException.initCause(sqlEx);
-                        throw batchUpdateException;
-                    }
+                    timeoutTask = null;
+                }
 
-                    return updateCounts;
-                } finally {
-                    if (batchedStatement != null) {
-                        batchedStatement.close();
-                    }
+                if (sqlEx != null) {
+                    SQLException batchUpdateException = new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(),
+                            updateCounts);
+                    batchUpdateException.initCause(sqlEx);
+                    throw batchUpdateException;
                 }
+
+                return updateCounts;
             } finally {
-                if (timeoutTask != null) {
-                    timeoutTask.cancel();
-                    locallyScopedConn.getCancelTimer().purge();
+                if (batchedStatement != null) {
+                    batchedStatement.close();
                 }
+            }
+        } finally {
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+                locallyScopedConn.getCancelTimer().purge();
+            }
 
-                resetCancelledState();
-
-                if (!multiQueriesEnabled) {
-                    locallyScopedConn.getIO().disableMultiQueries();
-                }
+            resetCancelledState();
 
-                clearBatch();
+            if (!multiQueriesEnabled) {
+                locallyScopedConn.getIO().disableMultiQueries();
             }
+
+            clearBatch();
         }
     }
 
@@ -1487,141 +1549,157 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      * @throws SQLException
      */
     protected int[] executeBatchedInserts(int batchTimeout) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            String valuesClause = getValuesClause();
-
-            MySQLConnection locallyScopedConn = this.connection;
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            if (valuesClause == null) {
-                return executeBatchSerially(batchTimeout);
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeBatchedInsertsLocked(batchTimeout);
             }
+        }
 
-            int numBatchedArgs = this.batchedArgs.size();
+        connectionLock.lock();
 
-            if (this.retrieveGeneratedKeys) {
-                this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(numBatchedArgs);
-            }
+        try {
+            return executeBatchedInsertsLocked(batchTimeout);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            int numValuesPerBatch = computeBatchSize(numBatchedArgs);
+    private int[] executeBatchedInsertsLocked(int batchTimeout) throws SQLException {
+        String valuesClause = getValuesClause();
 
-            if (numBatchedArgs < numValuesPerBatch) {
-                numValuesPerBatch = numBatchedArgs;
-            }
+        MySQLConnection locallyScopedConn = this.connection;
 
-            java.sql.PreparedStatement batchedStatement = null;
+        if (valuesClause == null) {
+            return executeBatchSerially(batchTimeout);
+        }
 
-            int batchedParamIndex = 1;
-            int updateCountRunningTotal = 0;
-            int numberToExecuteAsMultiValue = 0;
-            int batchCounter = 0;
-            CancelTask timeoutTask = null;
-            SQLException sqlEx = null;
+        int numBatchedArgs = this.batchedArgs.size();
 
-            int[] updateCounts = new int[numBatchedArgs];
+        if (this.retrieveGeneratedKeys) {
+            this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(numBatchedArgs);
+        }
 
-            try {
-                try {
-                    batchedStatement = /* FIXME -if we ever care about folks proxying our MySQLConnection */
-                    prepareBatchedInsertSQL(locallyScopedConn, numValuesPerBatch);
+        int numValuesPerBatch = computeBatchSize(numBatchedArgs);
 
-                    if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                        timeoutTask = new CancelTask((StatementImpl) batchedStatement);
-                        locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
-                    }
+        if (numBatchedArgs < numValuesPerBatch) {
+            numValuesPerBatch = numBatchedArgs;
+        }
 
-                    if (numBatchedArgs < numValuesPerBatch) {
-                        numberToExecuteAsMultiValue = numBatchedArgs;
-                    } else {
-                        numberToExecuteAsMultiValue = numBatchedArgs / numValuesPerBatch;
-                    }
+        java.sql.PreparedStatement batchedStatement = null;
 
-                    int numberArgsToExecute = numberToExecuteAsMultiValue * numValuesPerBatch;
+        int batchedParamIndex = 1;
+        int updateCountRunningTotal = 0;
+        int numberToExecuteAsMultiValue = 0;
+        int batchCounter = 0;
+        CancelTask timeoutTask = null;
+        SQLException sqlEx = null;
 
-                    for (int i = 0; i < numberArgsToExecute; i++) {
-                        if (i != 0 && i % numValuesPerBatch == 0) {
-                            try {
-                                updateCountRunningTotal += batchedStatement.executeUpdate();
-                            } catch (SQLException ex) {
-                                sqlEx = handleExceptionForBatch(batchCounter - 1, numValuesPerBatch, updateCounts, ex);
-                            }
+        int[] updateCounts = new int[numBatchedArgs];
 
-                            getBatchedGeneratedKeys(batchedStatement);
-                            batchedStatement.clearParameters();
-                            batchedParamIndex = 1;
+        try {
+            try {
+                batchedStatement = /* FIXME -if we ever care about folks proxying our MySQLConnection */
+                prepareBatchedInsertSQL(locallyScopedConn, numValuesPerBatch);
 
-                        }
+                if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
+                    timeoutTask = new CancelTask((StatementImpl) batchedStatement);
+                    locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
+                }
 
-                        batchedParamIndex = setOneBatchedParameterSet(batchedStatement, batchedParamIndex, this.batchedArgs.get(batchCounter++));
-                    }
+                if (numBatchedArgs < numValuesPerBatch) {
+                    numberToExecuteAsMultiValue = numBatchedArgs;
+                } else {
+                    numberToExecuteAsMultiValue = numBatchedArgs / numValuesPerBatch;
+                }
 
-                    try {
-                        updateCountRunningTotal += batchedStatement.executeUpdate();
-                    } catch (SQLException ex) {
-                        sqlEx = handleExceptionForBatch(batchCounter - 1, numValuesPerBatch, updateCounts, ex);
-                    }
+                int numberArgsToExecute = numberToExecuteAsMultiValue * numValuesPerBatch;
 
-                    getBatchedGeneratedKeys(batchedStatement);
+                for (int i = 0; i < numberArgsToExecute; i++) {
+                    if (i != 0 && i % numValuesPerBatch == 0) {
+                        try {
+                            updateCountRunningTotal += batchedStatement.executeUpdate();
+                        } catch (SQLException ex) {
+                            sqlEx = handleExceptionForBatch(batchCounter - 1, numValuesPerBatch, updateCounts, ex);
+                        }
+
+                        getBatchedGeneratedKeys(batchedStatement);
+                        batchedStatement.clearParameters();
+                        batchedParamIndex = 1;
 
-                    numValuesPerBatch = numBatchedArgs - batchCounter;
-                } finally {
-                    if (batchedStatement != null) {
-                        batchedStatement.close();
-                        batchedStatement = null;
                     }
+
+                    batchedParamIndex = setOneBatchedParameterSet(batchedStatement, batchedParamIndex, this.batchedArgs.get(batchCounter++));
                 }
 
                 try {
-                    if (numValuesPerBatch > 0) {
-                        batchedStatement = prepareBatchedInsertSQL(locallyScopedConn, numValuesPerBatch);
-
-                        if (timeoutTask != null) {
-                            timeoutTask.toCancel = (StatementImpl) batchedStatement;
-                        }
+                    updateCountRunningTotal += batchedStatement.executeUpdate();
+                } catch (SQLException ex) {
+                    sqlEx = handleExceptionForBatch(batchCounter - 1, numValuesPerBatch, updateCounts, ex);
+                }
 
-                        batchedParamIndex = 1;
+                getBatchedGeneratedKeys(batchedStatement);
 
-                        while (batchCounter < numBatchedArgs) {
-                            batchedParamIndex = setOneBatchedParameterSet(batchedStatement, batchedParamIndex, this.batchedArgs.get(batchCounter++));
-                        }
+                numValuesPerBatch = numBatchedArgs - batchCounter;
+            } finally {
+                if (batchedStatement != null) {
+                    batchedStatement.close();
+                    batchedStatement = null;
+                }
+            }
 
-                        try {
-                            updateCountRunningTotal += batchedStatement.executeUpdate();
-                        } catch (SQLException ex) {
-                            sqlEx = handleExceptionForBatch(batchCounter - 1, numValuesPerBatch, updateCounts, ex);
-                        }
+            try {
+                if (numValuesPerBatch > 0) {
+                    batchedStatement = prepareBatchedInsertSQL(locallyScopedConn, numValuesPerBatch);
 
-                        getBatchedGeneratedKeys(batchedStatement);
+                    if (timeoutTask != null) {
+                        timeoutTask.toCancel = (StatementImpl) batchedStatement;
                     }
 
-                    if (sqlEx != null) {
-                        SQLException batchUpdateException = new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(),
-                                updateCounts);
-                        batchUpdateException.initCause(sqlEx);
-                        throw batchUpdateException;
+                    batchedParamIndex = 1;
+
+                    while (batchCounter < numBatchedArgs) {
+                        batchedParamIndex = setOneBatchedParameterSet(batchedStatement, batchedParamIndex, this.batchedArgs.get(batchCounter++));
                     }
 
-                    if (numBatchedArgs > 1) {
-                        int updCount = updateCountRunningTotal > 0 ? java.sql.Statement.SUCCESS_NO_INFO : 0;
-                        for (int j = 0; j < numBatchedArgs; j++) {
-                            updateCounts[j] = updCount;
-                        }
-                    } else {
-                        updateCounts[0] = updateCountRunningTotal;
+                    try {
+                        updateCountRunningTotal += batchedStatement.executeUpdate();
+                    } catch (SQLException ex) {
+                        sqlEx = handleExceptionForBatch(batchCounter - 1, numValuesPerBatch, updateCounts, ex);
                     }
-                    return updateCounts;
-                } finally {
-                    if (batchedStatement != null) {
-                        batchedStatement.close();
+
+                    getBatchedGeneratedKeys(batchedStatement);
+                }
+
+                if (sqlEx != null) {
+                    SQLException batchUpdateException = new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(),
+                            updateCounts);
+                    batchUpdateException.initCause(sqlEx);
+                    throw batchUpdateException;
+                }
+
+                if (numBatchedArgs > 1) {
+                    int updCount = updateCountRunningTotal > 0 ? java.sql.Statement.SUCCESS_NO_INFO : 0;
+                    for (int j = 0; j < numBatchedArgs; j++) {
+                        updateCounts[j] = updCount;
                     }
+                } else {
+                    updateCounts[0] = updateCountRunningTotal;
                 }
+                return updateCounts;
             } finally {
-                if (timeoutTask != null) {
-                    timeoutTask.cancel();
-                    locallyScopedConn.getCancelTimer().purge();
+                if (batchedStatement != null) {
+                    batchedStatement.close();
                 }
-
-                resetCancelledState();
             }
+        } finally {
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+                locallyScopedConn.getCancelTimer().purge();
+            }
+
+            resetCancelledState();
         }
     }
 
@@ -1723,124 +1801,180 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *             if an error occurs
      */
     protected int[] executeBatchSerially(int batchTimeout) throws SQLException {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-        synchronized (checkClosed().getConnectionMutex()) {
-            MySQLConnection locallyScopedConn = this.connection;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeBatchSeriallyLocked(batchTimeout);
+            }
+        }
 
-            if (locallyScopedConn == null) {
-                checkClosed();
+        connectionLock.lock();
+
+        try {
+            return executeBatchSeriallyLocked(batchTimeout);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private int[] executeBatchSeriallyLocked(int batchTimeout) throws SQLException {
+        MySQLConnection locallyScopedConn = this.connection;
+
+        if (locallyScopedConn == null) {
+            checkClosed();
+        }
+
+        if (this.batchedArgs != null && canPipelineBatch(this.batchedArgs.size(), batchTimeout)) {
+            if (this.retrieveGeneratedKeys) {
+                this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(this.batchedArgs.size());
             }
 
-            int[] updateCounts = null;
+            return executeBatchPipelined(this.batchedArgs.size());
+        }
 
-            if (this.batchedArgs != null) {
-                int nbrCommands = this.batchedArgs.size();
-                updateCounts = new int[nbrCommands];
+        int[] updateCounts = null;
 
-                for (int i = 0; i < nbrCommands; i++) {
-                    updateCounts[i] = -3;
-                }
+        if (this.batchedArgs != null) {
+            int nbrCommands = this.batchedArgs.size();
+            updateCounts = new int[nbrCommands];
 
-                SQLException sqlEx = null;
+            for (int i = 0; i < nbrCommands; i++) {
+                updateCounts[i] = -3;
+            }
 
-                CancelTask timeoutTask = null;
+            SQLException sqlEx = null;
 
-                try {
-                    if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                        timeoutTask = new CancelTask(this);
-                        locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
-                    }
+            CancelTask timeoutTask = null;
 
-                    if (this.retrieveGeneratedKeys) {
-                        this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(nbrCommands);
-                    }
+            try {
+                if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
+                    timeoutTask = new CancelTask(this);
+                    locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
+                }
 
-                    for (this.batchCommandIndex = 0; this.batchCommandIndex < nbrCommands; this.batchCommandIndex++) {
-                        Object arg = this.batchedArgs.get(this.batchCommandIndex);
+                if (this.retrieveGeneratedKeys) {
+                    this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(nbrCommands);
+                }
 
-                        if (arg instanceof String) {
-                            updateCounts[this.batchCommandIndex] = executeUpdate((String) arg);
-                        } else {
-                            BatchParams paramArg = (BatchParams) arg;
+                for (this.batchCommandIndex = 0; this.batchCommandIndex < nbrCommands; this.batchCommandIndex++) {
+                    Object arg = this.batchedArgs.get(this.batchCommandIndex);
+
+                    if (arg instanceof String) {
+                        updateCounts[this.batchCommandIndex] = executeUpdate((String) arg);
+                    } else {
+                        BatchParams paramArg = (BatchParams) arg;
 
-                            try {
-                                updateCounts[this.batchCommandIndex] = executeUpdate(paramArg.parameterStrings, paramArg.parameterStreams, paramArg.isStream,
-                                        paramArg.streamLengths, paramArg.isNull, true);
+                        try {
+                            updateCounts[this.batchCommandIndex] = executeUpdate(paramArg.parameterStrings, paramArg.parameterStreams, paramArg.isStream,
+                                    paramArg.streamLengths, paramArg.isNull, true);
 
-                                if (this.retrieveGeneratedKeys) {
-                                    java.sql.ResultSet rs = null;
+                            if (this.retrieveGeneratedKeys) {
+                                java.sql.ResultSet rs = null;
 
-                                    try {
-                                        if (containsOnDuplicateKeyUpdateInSQL()) {
-                                            rs = getGeneratedKeysInternal(1);
-                                        } else {
-                                            rs = getGeneratedKeysInternal();
-                                        }
+                                try {
+                                    if (containsOnDuplicateKeyUpdateInSQL()) {
+                                        rs = getGeneratedKeysInternal(1);
+                                    } else {
+                                        rs = getGeneratedKeysInternal();
+                                    }
 
-                                        while (rs.next()) {
-                                            this.batchedGeneratedKeys.add(new ByteArrayRow(new byte[][] { rs.getBytes(1) }, getExceptionInterceptor()));
-                                        }
-                                    } finally {
-                                        if (rs != null) {
-                                            rs.close();
-                                        }
+                                    while (rs.next()) {
+                                        this.batchedGeneratedKeys.add(new ByteArrayRow(new byte[][] { rs.getBytes(1) }, getExceptionInterceptor()));
+                                    }
+                                } finally {
+                                    if (rs != null) {
+                                        rs.close();
                                     }
                                 }
-                            } catch (SQLException ex) {
-                                updateCounts[this.batchCommandIndex] = EXECUTE_FAILED;
+                            }
+                        } catch (SQLException ex) {
+                            updateCounts[this.batchCommandIndex] = EXECUTE_FAILED;
 
-                                if (this.continueBatchOnError && !(ex instanceof MySQLTimeoutException) && !(ex instanceof MySQLStatementCancelledException)
-                                        && !hasDeadlockOrTimeoutRolledBackTx(ex)) {
-                                    sqlEx = ex;
-                                } else {
-                                    int[] newUpdateCounts = new int[this.batchCommandIndex];
-                                    System.arraycopy(updateCounts, 0, newUpdateCounts, 0, this.batchCommandIndex);
+                            if (this.continueBatchOnError && !(ex instanceof MySQLTimeoutException) && !(ex instanceof MySQLStatementCancelledException)
+                                    && !hasDeadlockOrTimeoutRolledBackTx(ex)) {
+                                sqlEx = ex;
+                            } else {
+                                int[] newUpdateCounts = new int[this.batchCommandIndex];
+                                System.arraycopy(updateCounts, 0, newUpdateCounts, 0, this.batchCommandIndex);
 
-                                    SQLException batchUpdateException = new java.sql.BatchUpdateException(ex.getMessage(), ex.getSQLState(), ex.getErrorCode(),
-                                            newUpdateCounts);
-                                    batchUpdateException.initCause(ex);
-                                    throw batchUpdateException;
-                                }
+                                SQLException batchUpdateException = new java.sql.BatchUpdateException(ex.getMessage(), ex.getSQLState(), ex.getErrorCode(),
+                                        newUpdateCounts);
+                                batchUpdateException.initCause(ex);
+                                throw batchUpdateException;
                             }
                         }
                     }
+                }
 
-                    if (sqlEx != null) {
-                        SQLException batchUpdateException = new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(),
-                                updateCounts);
-                        batchUpdateException.initCause(sqlEx);
-                        throw batchUpdateException;
-                    }
-                } catch (NullPointerException npe) {
-                    try {
-                        checkClosed();
-                    } catch (SQLException connectionClosedEx) {
-                        updateCounts[this.batchCommandIndex] = EXECUTE_FAILED;
-
-                        int[] newUpdateCounts = new int[this.batchCommandIndex];
+                if (sqlEx != null) {
+                    SQLException batchUpdateException = new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(),
+                            updateCounts);
+                    batchUpdateException.initCause(sqlEx);
+                    throw batchUpdateException;
+                }
+            } catch (NullPointerException npe) {
+                try {
+                    checkClosed();
+                } catch (SQLException connectionClosedEx) {
+                    updateCounts[this.batchCommandIndex] = EXECUTE_FAILED;
 
-                        System.arraycopy(updateCounts, 0, newUpdateCounts, 0, this.batchCommandIndex);
+                    int[] newUpdateCounts = new int[this.batchCommandIndex];
 
-                        throw new java.sql.BatchUpdateException(connectionClosedEx.getMessage(), connectionClosedEx.getSQLState(),
-                                connectionClosedEx.getErrorCode(), newUpdateCounts);
-                    }
+                    System.arraycopy(updateCounts, 0, newUpdateCounts, 0, this.batchCommandIndex);
 
-                    throw npe; // we don't know why this happened, punt
-                } finally {
-                    this.batchCommandIndex = -1;
+                    throw new java.sql.BatchUpdateException(connectionClosedEx.getMessage(), connectionClosedEx.getSQLState(),
+                            connectionClosedEx.getErrorCode(), newUpdateCounts);
+                }
 
-                    if (timeoutTask != null) {
-                        timeoutTask.cancel();
-                        locallyScopedConn.getCancelTimer().purge();
-                    }
+                throw npe; // we don't know why this happened, punt
+            } finally {
+                this.batchCommandIndex = -1;
 
-                    resetCancelledState();
+                if (timeoutTask != null) {
+                    timeoutTask.cancel();
+                    locallyScopedConn.getCancelTimer().purge();
                 }
+
+                resetCancelledState();
             }
+        }
+
+        return (updateCounts != null) ? updateCounts : new int[0];
+    }
+
+    @Override
+    protected boolean canPipelineBatchCommands() throws SQLException {
+        return !this.batchHasPlainStatements && isPipelinableStatement(this.originalSql);
+    }
+
+    @Override
+    protected void sendPipelinedBatchCommand(MysqlIO io, int commandIndex) throws SQLException {
+        BatchParams paramArg = (BatchParams) this.batchedArgs.get(commandIndex);
+
+        this.numberOfExecutions++;
 
-            return (updateCounts != null) ? updateCounts : new int[0];
+        io.sendPipelinedCommand(fillSendPacket(paramArg.parameterStrings, paramArg.parameterStreams, paramArg.isStream, paramArg.streamLengths));
+    }
+
+    @Override
+    protected int processPipelinedBatchResult(int commandIndex, ResultSetInternalMethods rs) throws SQLException {
+        rs.setFirstCharOfQuery(this.firstCharOfStmt);
+
+        this.results = rs;
+        this.updateCount = rs.getUpdateCount();
+
+        if (containsOnDuplicateKeyUpdateInSQL() && this.compensateForOnDuplicateKeyUpdate) {
+            if (this.updateCount == 2 || this.updateCount == 0) {
+                this.updateCount = 1;
+            }
         }
 
+        this.lastInsertId = rs.getUpdateID();
+
+        getBatchedGeneratedKeys(containsOnDuplicateKeyUpdateInSQL() ? 1 : 0);
+
+        return this.updateCount > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) this.updateCount;
     }
 
     public String getDateTime(String pattern) {
@@ -1869,83 +2003,100 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      */
     protected ResultSetInternalMethods executeInternal(int maxRowsToRetrieve, Buffer sendPacket, boolean createStreamingResultSet, boolean queryIsSelectOnly,
             Field[] metadataFromCache, boolean isBatch) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            try {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-                resetCancelledState();
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeInternalLocked(maxRowsToRetrieve, sendPacket, createStreamingResultSet, queryIsSelectOnly, metadataFromCache, isBatch);
+            }
+        }
+
+        connectionLock.lock();
 
-                MySQLConnection locallyScopedConnection = this.connection;
+        try {
+            return executeInternalLocked(maxRowsToRetrieve, sendPacket, createStreamingResultSet, queryIsSelectOnly, metadataFromCache, isBatch);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                this.numberOfExecutions++;
+    private ResultSetInternalMethods executeInternalLocked(int maxRowsToRetrieve, Buffer sendPacket, boolean createStreamingResultSet,
+            boolean queryIsSelectOnly, Field[] metadataFromCache, boolean isBatch) throws SQLException {
+        try {
 
-                if (this.doPingInstead) {
-                    doPingInstead();
+            resetCancelledState();
 
-                    return this.results;
-                }
+            MySQLConnection locallyScopedConnection = this.connection;
 
-                ResultSetInternalMethods rs;
+            this.numberOfExecutions++;
 
-                CancelTask timeoutTask = null;
+            if (this.doPingInstead) {
+                doPingInstead();
 
-                try {
-                    if (locallyScopedConnection.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConnection.versionMeetsMinimum(5, 0, 0)) {
-                        timeoutTask = new CancelTask(this);
-                        locallyScopedConnection.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
-                    }
+                return this.results;
+            }
 
-                    if (!isBatch) {
-                        statementBegins();
-                    }
+            ResultSetInternalMethods rs;
 
-                    rs = locallyScopedConnection.execSQL(this, null, maxRowsToRetrieve, sendPacket, this.resultSetType, this.resultSetConcurrency,
-                            createStreamingResultSet, this.currentCatalog, metadataFromCache, isBatch);
+            CancelTask timeoutTask = null;
 
-                    if (timeoutTask != null) {
-                        timeoutTask.cancel();
+            try {
+                if (locallyScopedConnection.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConnection.versionMeetsMinimum(5, 0, 0)) {
+                    timeoutTask = new CancelTask(this);
+                    locallyScopedConnection.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
+                }
 
-                        locallyScopedConnection.getCancelTimer().purge();
+                if (!isBatch) {
+                    statementBegins();
+                }
 
-                        if (timeoutTask.caughtWhileCancelling != null) {
-                            throw timeoutTask.caughtWhileCancelling;
-                        }
+                rs = locallyScopedConnection.execSQL(this, null, maxRowsToRetrieve, sendPacket, this.resultSetType, this.resultSetConcurrency,
+                        createStreamingResultSet, this.currentCatalog, metadataFromCache, isBatch);
 
-                        timeoutTask = null;
-                    }
+                if (timeoutTask != null) {
+                    timeoutTask.cancel();
 
-                    synchronized (this.cancelTimeoutMutex) {
-                        if (this.wasCancelled) {
-                            SQLException cause = null;
+                    locallyScopedConnection.getCancelTimer().purge();
 
-                            if (this.wasCancelledByTimeout) {
-                                cause = new MySQLTimeoutException();
-                            } else {
-                                cause = new MySQLStatementCancelledException();
-                            }
+                    if (timeoutTask.caughtWhileCancelling != null) {
+                        throw timeoutTask.caughtWhileCancelling;
+                    }
+
+                    timeoutTask = null;
+                }
 
-                            resetCancelledState();
+                synchronized (this.cancelTimeoutMutex) {
+                    if (this.wasCancelled) {
+                        SQLException cause = null;
 
-                            throw cause;
+                        if (this.wasCancelledByTimeout) {
+                            cause = new MySQLTimeoutException();
+                        } else {
+                            cause = new MySQLStatementCancelledException();
                         }
-                    }
-                } finally {
-                    if (!isBatch) {
-                        this.statementExecuting.set(false);
-                    }
 
-                    if (timeoutTask != null) {
-                        timeoutTask.cancel();
-                        locallyScopedConnection.getCancelTimer().purge();
+                        resetCancelledState();
+
+                        throw cause;
                     }
                 }
+            } finally {
+                if (!isBatch) {
+                    this.statementExecuting.set(false);
+                }
 
-                return rs;
-            } catch (NullPointerException npe) {
-                checkClosed(); // we can't synchronize ourselves against async connection-close due to deadlock issues, so this is the next best thing for
-                               // this particular corner case.
-
-                throw npe;
+                if (timeoutTask != null) {
+                    timeoutTask.cancel();
+                    locallyScopedConnection.getCancelTimer().purge();
+                }
             }
+
+            return rs;
+        } catch (NullPointerException npe) {
+            checkClosed(); // we can't synchronize ourselves against async connection-close due to deadlock issues, so this is the next best thing for
+                           // this particular corner case.
+
+            throw npe;
         }
     }
 
@@ -1959,64 +2110,79 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database access error occurs
      */
     public java.sql.ResultSet executeQuery() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            MySQLConnection locallyScopedConn = this.connection;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeQueryLocked();
+            }
+        }
 
-            checkForDml(this.originalSql, this.firstCharOfStmt);
+        connectionLock.lock();
 
-            CachedResultSetMetaData cachedMetadata = null;
+        try {
+            return executeQueryLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            clearWarnings();
+    private java.sql.ResultSet executeQueryLocked() throws SQLException {
+        MySQLConnection locallyScopedConn = this.connection;
 
-            this.batchedGeneratedKeys = null;
+        checkForDml(this.originalSql, this.firstCharOfStmt);
 
-            setupStreamingTimeout(locallyScopedConn);
+        CachedResultSetMetaData cachedMetadata = null;
 
-            Buffer sendPacket = fillSendPacket();
+        clearWarnings();
 
-            implicitlyCloseAllOpenResults();
+        this.batchedGeneratedKeys = null;
 
-            String oldCatalog = null;
+        setupStreamingTimeout(locallyScopedConn);
 
-            if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
-                oldCatalog = locallyScopedConn.getCatalog();
-                locallyScopedConn.setCatalog(this.currentCatalog);
-            }
+        Buffer sendPacket = fillSendPacket();
 
-            //
-            // Check if we have cached metadata for this query...
-            //
-            if (locallyScopedConn.getCacheResultSetMetadata()) {
-                cachedMetadata = locallyScopedConn.getCachedMetaData(this.originalSql);
-            }
+        implicitlyCloseAllOpenResults();
 
-            Field[] metadataFromCache = null;
+        String oldCatalog = null;
 
-            if (cachedMetadata != null) {
-                metadataFromCache = cachedMetadata.fields;
-            }
+        if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
+            oldCatalog = locallyScopedConn.getCatalog();
+            locallyScopedConn.setCatalog(this.currentCatalog);
+        }
 
-            locallyScopedConn.setSessionMaxRows(this.maxRows);
+        //
+        // Check if we have cached metadata for this query...
+        //
+        if (locallyScopedConn.getCacheResultSetMetadata()) {
+            cachedMetadata = locallyScopedConn.getCachedMetaData(this.originalSql);
+        }
 
-            this.results = executeInternal(this.maxRows, sendPacket, createStreamingResultSet(), true, metadataFromCache, false);
+        Field[] metadataFromCache = null;
 
-            if (oldCatalog != null) {
-                locallyScopedConn.setCatalog(oldCatalog);
-            }
+        if (cachedMetadata != null) {
+            metadataFromCache = cachedMetadata.fields;
+        }
 
-            if (cachedMetadata != null) {
-                locallyScopedConn.initializeResultsMetadataFromCache(this.originalSql, cachedMetadata, this.results);
-            } else {
-                if (locallyScopedConn.getCacheResultSetMetadata()) {
-                    locallyScopedConn.initializeResultsMetadataFromCache(this.originalSql, null /* will be created */, this.results);
-                }
-            }
+        locallyScopedConn.setSessionMaxRows(this.maxRows);
 
-            this.lastInsertId = this.results.getUpdateID();
+        this.results = executeInternal(this.maxRows, sendPacket, createStreamingResultSet(), true, metadataFromCache, false);
 
-            return this.results;
+        if (oldCatalog != null) {
+            locallyScopedConn.setCatalog(oldCatalog);
         }
+
+        if (cachedMetadata != null) {
+            locallyScopedConn.initializeResultsMetadataFromCache(this.originalSql, cachedMetadata, this.results);
+        } else {
+            if (locallyScopedConn.getCacheResultSetMetadata()) {
+                locallyScopedConn.initializeResultsMetadataFromCache(this.originalSql, null /* will be created */, this.results);
+            }
+        }
+
+        this.lastInsertId = this.results.getUpdateID();
+
+        return this.results;
     }
 
     /**
@@ -2040,14 +2206,30 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      * keys we need to gather for the batch.
      */
     protected int executeUpdate(boolean clearBatchedGeneratedKeysAndWarnings, boolean isBatch) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (clearBatchedGeneratedKeysAndWarnings) {
-                clearWarnings();
-                this.batchedGeneratedKeys = null;
+        Lock connectionLock = checkClosed().getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeUpdateLocked(clearBatchedGeneratedKeysAndWarnings, isBatch);
             }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return executeUpdateLocked(clearBatchedGeneratedKeysAndWarnings, isBatch);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            return executeUpdate(this.parameterValues, this.parameterStreams, this.isStream, this.streamLengths, this.isNull, isBatch);
+    private int executeUpdateLocked(boolean clearBatchedGeneratedKeysAndWarnings, boolean isBatch) throws SQLException {
+        if (clearBatchedGeneratedKeysAndWarnings) {
+            clearWarnings();
+            this.batchedGeneratedKeys = null;
         }
+
+        return executeUpdate(this.parameterValues, this.parameterStreams, this.isStream, this.streamLengths, this.isNull, isBatch);
     }
 
     /**
@@ -2071,78 +2253,94 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      */
     protected int executeUpdate(byte[][] batchedParameterStrings, InputStream[] batchedParameterStreams, boolean[] batchedIsStream, int[] batchedStreamLengths,
             boolean[] batchedIsNull, boolean isReallyBatch) throws SQLException {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-        synchronized (checkClosed().getConnectionMutex()) {
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeUpdateLocked(batchedParameterStrings, batchedParameterStreams, batchedIsStream, batchedStreamLengths, batchedIsNull,
+                        isReallyBatch);
+            }
+        }
 
-            MySQLConnection locallyScopedConn = this.connection;
+        connectionLock.lock();
 
-            if (locallyScopedConn.isReadOnly()) {
-                throw SQLError.createSQLException(Messages.getString("PreparedStatement.34") + Messages.getString("PreparedStatement.35"),
-                        SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
-            }
+        try {
+            return executeUpdateLocked(batchedParameterStrings, batchedParameterStreams, batchedIsStream, batchedStreamLengths, batchedIsNull, isReallyBatch);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            if ((this.firstCharOfStmt == 'S') && isSelectQuery()) {
-                throw SQLError.createSQLException(Messages.getString("PreparedStatement.37"), "01S03", getExceptionInterceptor());
-            }
+    private int executeUpdateLocked(byte[][] batchedParameterStrings, InputStream[] batchedParameterStreams, boolean[] batchedIsStream,
+            int[] batchedStreamLengths, boolean[] batchedIsNull, boolean isReallyBatch) throws SQLException {
+        MySQLConnection locallyScopedConn = this.connection;
 
-            implicitlyCloseAllOpenResults();
+        if (locallyScopedConn.isReadOnly()) {
+            throw SQLError.createSQLException(Messages.getString("PreparedStatement.34") + Messages.getString("PreparedStatement.35"),
+                    SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+        }
 
-            ResultSetInternalMethods rs = null;
+        if ((this.firstCharOfStmt == 'S') && isSelectQuery()) {
+            throw SQLError.createSQLException(Messages.getString("PreparedStatement.37"), "01S03", getExceptionInterceptor());
+        }
 
-            Buffer sendPacket = fillSendPacket(batchedParameterStrings, batchedParameterStreams, batchedIsStream, batchedStreamLengths);
+        implicitlyCloseAllOpenResults();
 
-            String oldCatalog = null;
+        ResultSetInternalMethods rs = null;
 
-            if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
-                oldCatalog = locallyScopedConn.getCatalog();
-                locallyScopedConn.setCatalog(this.currentCatalog);
-            }
+        Buffer sendPacket = fillSendPacket(batchedParameterStrings, batchedParameterStreams, batchedIsStream, batchedStreamLengths);
 
-            //
-            // Only apply max_rows to selects
-            //
-            locallyScopedConn.setSessionMaxRows(-1);
+        String oldCatalog = null;
 
-            boolean oldInfoMsgState = false;
+        if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
+            oldCatalog = locallyScopedConn.getCatalog();
+            locallyScopedConn.setCatalog(this.currentCatalog);
+        }
 
-            if (this.retrieveGeneratedKeys) {
-                oldInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
-                locallyScopedConn.setReadInfoMsgEnabled(true);
-            }
+        //
+        // Only apply max_rows to selects
+        //
+        locallyScopedConn.setSessionMaxRows(-1);
 
-            rs = executeInternal(-1, sendPacket, false, false, null, isReallyBatch);
+        boolean oldInfoMsgState = false;
 
-            if (this.retrieveGeneratedKeys) {
-                locallyScopedConn.setReadInfoMsgEnabled(oldInfoMsgState);
-                rs.setFirstCharOfQuery(this.firstCharOfStmt);
-            }
+        if (this.retrieveGeneratedKeys) {
+            oldInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
+            locallyScopedConn.setReadInfoMsgEnabled(true);
+        }
 
-            if (oldCatalog != null) {
-                locallyScopedConn.setCatalog(oldCatalog);
-            }
+        rs = executeInternal(-1, sendPacket, false, false, null, isReallyBatch);
 
-            this.results = rs;
+        if (this.retrieveGeneratedKeys) {
+            locallyScopedConn.setReadInfoMsgEnabled(oldInfoMsgState);
+            rs.setFirstCharOfQuery(this.firstCharOfStmt);
+        }
 
-            this.updateCount = rs.getUpdateCount();
+        if (oldCatalog != null) {
+            locallyScopedConn.setCatalog(oldCatalog);
+        }
 
-            if (containsOnDuplicateKeyUpdateInSQL() && this.compensateForOnDuplicateKeyUpdate) {
-                if (this.updateCount == 2 || this.updateCount == 0) {
-                    this.updateCount = 1;
-                }
-            }
+        this.results = rs;
 
-            int truncatedUpdateCount = 0;
+        this.updateCount = rs.getUpdateCount();
 
-            if (this.updateCount > Integer.MAX_VALUE) {
-                truncatedUpdateCount = Integer.MAX_VALUE;
-            } else {
-                truncatedUpdateCount = (int) this.updateCount;
+        if (containsOnDuplicateKeyUpdateInSQL() && this.compensateForOnDuplicateKeyUpdate) {
+            if (this.updateCount == 2 || this.updateCount == 0) {
+                this.updateCount = 1;
             }
+        }
 
-            this.lastInsertId = rs.getUpdateID();
+        int truncatedUpdateCount = 0;
 
-            return truncatedUpdateCount;
+        if (this.updateCount > Integer.MAX_VALUE) {
+            truncatedUpdateCount = Integer.MAX_VALUE;
+        } else {
+            truncatedUpdateCount = (int) this.updateCount;
         }
+
+        this.lastInsertId = rs.getUpdateID();
+
+        return truncatedUpdateCount;
     }
 
     protected boolean containsOnDuplicateKeyUpdateInSQL() {
@@ -2184,14 +2382,25 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
     protected Buffer fillSendPacket(byte[][] batchedParameterStrings, InputStream[] batchedParameterStreams, boolean[] batchedIsStream,
             int[] batchedStreamLengths) throws SQLException {
         synchronized (checkClosed().getConnectionMutex()) {
-            Buffer sendPacket = this.connection.getIO().getSharedSendPacket();
+            boolean useStreamLengths = this.connection.getUseStreamLengthsInPrepStmts();
+
+            StreamedParametersPacket streamedPacket = null;
+
+            if (this.connection.getStreamLargeParameters()) {
+                for (int i = 0; i < batchedParameterStrings.length; i++) {
+                    if (batchedIsStream[i] && isStreamedWhileSending(batchedStreamLengths[i], useStreamLengths)) {
+                        streamedPacket = new StreamedParametersPacket(this, useStreamLengths);
+                        break;
+                    }
+                }
+            }
+
+            Buffer sendPacket = (streamedPacket != null) ? streamedPacket : this.connection.getIO().getSharedSendPacket();
 
             sendPacket.clear();
 
             sendPacket.writeByte((byte) MysqlDefs.QUERY);
 
-            boolean useStreamLengths = this.connection.getUseStreamLengthsInPrepStmts();
-
             //
             // Try and get this allocation as close as possible for BLOBs
             //
@@ -2214,7 +2423,7 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
             }
 
             for (int i = 0; i < batchedParameterStrings.length; i++) {
-                if (batchedIsStream[i] && useStreamLengths) {
+                if (batchedIsStream[i] && useStreamLengths && (streamedPacket == null || !isStreamedWhileSending(batchedStreamLengths[i], useStreamLengths))) {
                     ensurePacketSize += batchedStreamLengths[i];
                 }
             }
@@ -2235,7 +2444,11 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
                 sendPacket.writeBytesNoNull(this.staticSqlStrings[i]);
 
                 if (batchedIsStream[i]) {
-                    streamToBytes(sendPacket, batchedParameterStreams[i], true, batchedStreamLengths[i], useStreamLengths);
+                    if (streamedPacket != null && isStreamedWhileSending(batchedStreamLengths[i], useStreamLengths)) {
+                        streamedPacket.addParameterStream(batchedParameterStreams[i], batchedStreamLengths[i]);
+                    } else {
+                        streamToBytes(sendPacket, batchedParameterStreams[i], true, batchedStreamLengths[i], useStreamLengths);
+                    }
                 } else {
                     sendPacket.writeBytesNoNull(batchedParameterStrings[i]);
                 }
@@ -2247,6 +2460,13 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
         }
     }
 
+    /**
+     * Should a stream parameter be left out of the query packet, to be read while the packet is sent (see 'streamLargeParameters')?
+     */
+    private boolean isStreamedWhileSending(int streamLength, boolean useStreamLengths) throws SQLException {
+        return !useStreamLengths || streamLength == -1 || streamLength > this.connection.getBlobSendChunkSize();
+    }
+
     private void checkAllParametersSet(byte[] parameterString, InputStream parameterStream, int columnIndex) throws SQLException {
         if ((parameterString == null) && parameterStream == null) {
 
@@ -2259,16 +2479,32 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      * Returns a prepared statement for the number of batched parameters, used when re-writing batch INSERTs.
      */
     protected PreparedStatement prepareBatchedInsertSQL(MySQLConnection localConn, int numBatches) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            PreparedStatement pstmt = new PreparedStatement(localConn, "Rewritten batch of: " + this.originalSql, this.currentCatalog,
-                    this.parseInfo.getParseInfoForBatch(numBatches));
-            pstmt.setRetrieveGeneratedKeys(this.retrieveGeneratedKeys);
-            pstmt.rewrittenBatchSize = numBatches;
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            return pstmt;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return prepareBatchedInsertSQLLocked(localConn, numBatches);
+            }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return prepareBatchedInsertSQLLocked(localConn, numBatches);
+        } finally {
+            connectionLock.unlock();
         }
     }
 
+    private PreparedStatement prepareBatchedInsertSQLLocked(MySQLConnection localConn, int numBatches) throws SQLException {
+        PreparedStatement pstmt = new PreparedStatement(localConn, "Rewritten batch of: " + this.originalSql, this.currentCatalog,
+                this.parseInfo.getParseInfoForBatch(numBatches));
+        pstmt.setRetrieveGeneratedKeys(this.retrieveGeneratedKeys);
+        pstmt.rewrittenBatchSize = numBatches;
+
+        return pstmt;
+    }
+
     protected void setRetrieveGeneratedKeys(boolean flag) throws SQLException {
         synchronized (checkClosed().getConnectionMutex()) {
             this.retrieveGeneratedKeys = flag;
@@ -2535,75 +2771,90 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database-access error occurs.
      */
     public java.sql.ResultSetMetaData getMetaData() throws SQLException {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-        synchronized (checkClosed().getConnectionMutex()) {
-            //
-            // We could just tack on a LIMIT 0 here no matter what the  statement, and check if a result set was returned or not, but I'm not comfortable with
-            // that, myself, so we take the "safer" road, and only allow metadata for _actual_ SELECTS (but not SHOWs).
-            // 
-            // CALL's are trapped further up and you end up with a  CallableStatement anyway.
-            //
-
-            if (!isSelectQuery()) {
-                return null;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return getMetaDataLocked();
             }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return getMetaDataLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private java.sql.ResultSetMetaData getMetaDataLocked() throws SQLException {
+        //
+        // We could just tack on a LIMIT 0 here no matter what the  statement, and check if a result set was returned or not, but I'm not comfortable with
+        // that, myself, so we take the "safer" road, and only allow metadata for _actual_ SELECTS (but not SHOWs).
+        // 
+        // CALL's are trapped further up and you end up with a  CallableStatement anyway.
+        //
 
-            PreparedStatement mdStmt = null;
-            java.sql.ResultSet mdRs = null;
+        if (!isSelectQuery()) {
+            return null;
+        }
 
-            if (this.pstmtResultMetaData == null) {
-                try {
-                    mdStmt = new PreparedStatement(this.connection, this.originalSql, this.currentCatalog, this.parseInfo);
+        PreparedStatement mdStmt = null;
+        java.sql.ResultSet mdRs = null;
 
-                    mdStmt.setMaxRows(1);
+        if (this.pstmtResultMetaData == null) {
+            try {
+                mdStmt = new PreparedStatement(this.connection, this.originalSql, this.currentCatalog, this.parseInfo);
 
-                    int paramCount = this.parameterValues.length;
+                mdStmt.setMaxRows(1);
 
-                    for (int i = 1; i <= paramCount; i++) {
-                        mdStmt.setString(i, "");
-                    }
+                int paramCount = this.parameterValues.length;
 
-                    boolean hadResults = mdStmt.execute();
+                for (int i = 1; i <= paramCount; i++) {
+                    mdStmt.setString(i, "");
+                }
 
-                    if (hadResults) {
-                        mdRs = mdStmt.getResultSet();
+                boolean hadResults = mdStmt.execute();
 
-                        this.pstmtResultMetaData = mdRs.getMetaData();
-                    } else {
-                        this.pstmtResultMetaData = new ResultSetMetaData(new Field[0], this.connection.getUseOldAliasMetadataBehavior(),
-                                this.connection.getYearIsDateType(), getExceptionInterceptor());
-                    }
-                } finally {
-                    SQLException sqlExRethrow = null;
+                if (hadResults) {
+                    mdRs = mdStmt.getResultSet();
 
-                    if (mdRs != null) {
-                        try {
-                            mdRs.close();
-                        } catch (SQLException sqlEx) {
-                            sqlExRethrow = sqlEx;
-                        }
+                    this.pstmtResultMetaData = mdRs.getMetaData();
+                } else {
+                    this.pstmtResultMetaData = new ResultSetMetaData(new Field[0], this.connection.getUseOldAliasMetadataBehavior(),
+                            this.connection.getYearIsDateType(), getExceptionInterceptor());
+                }
+            } finally {
+                SQLException sqlExRethrow = null;
 
-                        mdRs = null;
+                if (mdRs != null) {
+                    try {
+                        mdRs.close();
+                    } catch (SQLException sqlEx) {
+                        sqlExRethrow = sqlEx;
                     }
 
-                    if (mdStmt != null) {
-                        try {
-                            mdStmt.close();
-                        } catch (SQLException sqlEx) {
-                            sqlExRethrow = sqlEx;
-                        }
+                    mdRs = null;
+                }
 
-                        mdStmt = null;
+                if (mdStmt != null) {
+                    try {
+                        mdStmt.close();
+                    } catch (SQLException sqlEx) {
+                        sqlExRethrow = sqlEx;
                     }
 
-                    if (sqlExRethrow != null) {
-                        throw sqlExRethrow;
-                    }
+                    mdStmt = null;
                 }
-            }
 
-            return this.pstmtResultMetaData;
+                if (sqlExRethrow != null) {
+                    throw sqlExRethrow;
+                }
+            }
         }
+
+        return this.pstmtResultMetaData;
     }
 
     protected boolean isSelectQuery() throws SQLException {
@@ -2616,17 +2867,33 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      * @see PreparedStatement#getParameterMetaData()
      */
     public ParameterMetaData getParameterMetaData() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (this.parameterMetaData == null) {
-                if (this.connection.getGenerateSimpleParameterMetadata()) {
-                    this.parameterMetaData = new MysqlParameterMetadata(this.parameterCount);
-                } else {
-                    this.parameterMetaData = new MysqlParameterMetadata(null, this.parameterCount, getExceptionInterceptor());
-                }
+        Lock connectionLock = checkClosed().getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return getParameterMetaDataLocked();
             }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return getParameterMetaDataLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            return this.parameterMetaData;
+    private ParameterMetaData getParameterMetaDataLocked() throws SQLException {
+        if (this.parameterMetaData == null) {
+            if (this.connection.getGenerateSimpleParameterMetadata()) {
+                this.parameterMetaData = new MysqlParameterMetadata(this.parameterCount);
+            } else {
+                this.parameterMetaData = new MysqlParameterMetadata(null, this.parameterCount, getExceptionInterceptor());
+            }
         }
+
+        return this.parameterMetaData;
     }
 
     ParseInfo getParseInfo() {
@@ -2734,36 +3001,53 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
             return; // already closed
         }
 
-        synchronized (locallyScopedConn.getConnectionMutex()) {
+        Lock connectionLock = locallyScopedConn.getConnectionLock();
 
-            // additional check in case Statement was closed
-            // while current thread was waiting for lock
-            if (this.isClosed) {
-                return;
+        if (connectionLock == null) {
+            synchronized (locallyScopedConn.getConnectionMutex()) {
+                realCloseLocked(calledExplicitly, closeOpenResults);
             }
 
-            if (this.useUsageAdvisor) {
-                if (this.numberOfExecutions <= 1) {
-                    String message = Messages.getString("PreparedStatement.43");
+            return;
+        }
 
-                    this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", this.currentCatalog, this.connectionId, this.getId(), -1, System
-                            .currentTimeMillis(), 0, Constants.MILLIS_I18N, null, this.pointOfOrigin, message));
-                }
-            }
+        connectionLock.lock();
+
+        try {
+            realCloseLocked(calledExplicitly, closeOpenResults);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void realCloseLocked(boolean calledExplicitly, boolean closeOpenResults) throws SQLException {
+        // additional check in case Statement was closed
+        // while current thread was waiting for lock
+        if (this.isClosed) {
+            return;
+        }
 
-            super.realClose(calledExplicitly, closeOpenResults);
+        if (this.useUsageAdvisor) {
+            if (this.numberOfExecutions <= 1) {
+                String message = Messages.getString("PreparedStatement.43");
 
-            this.dbmd = null;
-            this.originalSql = null;
-            this.staticSqlStrings = null;
-            this.parameterValues = null;
-            this.parameterStreams = null;
-            this.isStream = null;
-            this.streamLengths = null;
-            this.isNull = null;
-            this.streamConvertBuf = null;
-            this.parameterTypes = null;
+                this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", this.currentCatalog, this.connectionId, this.getId(), -1, System
+                        .currentTimeMillis(), 0, Constants.MILLIS_I18N, null, this.pointOfOrigin, message));
+            }
         }
+
+        super.realClose(calledExplicitly, closeOpenResults);
+
+        this.dbmd = null;
+        this.originalSql = null;
+        this.staticSqlStrings = null;
+        this.parameterValues = null;
+        this.parameterStreams = null;
+        this.isStream = null;
+        this.streamLengths = null;
+        this.isNull = null;
+        this.streamConvertBuf = null;
+        this.parameterTypes = null;
     }
 
     /**
@@ -2853,27 +3137,27 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *             if a database access error occurs
      */
     public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (x == null) {
-                setNull(parameterIndex, java.sql.Types.BINARY);
-            } else {
-                int parameterIndexOffset = getParameterIndexOffset();
+        checkClosed();
 
-                if ((parameterIndex < 1) || (parameterIndex > this.staticSqlStrings.length)) {
-                    throw SQLError.createSQLException(Messages.getString("PreparedStatement.2") + parameterIndex + Messages.getString("PreparedStatement.3")
-                            + this.staticSqlStrings.length + Messages.getString("PreparedStatement.4"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                            getExceptionInterceptor());
-                } else if (parameterIndexOffset == -1 && parameterIndex == 1) {
-                    throw SQLError.createSQLException("Can't set IN parameter for return value of stored function call.", SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                            getExceptionInterceptor());
-                }
+        if (x == null) {
+            setNull(parameterIndex, java.sql.Types.BINARY);
+        } else {
+            int parameterIndexOffset = getParameterIndexOffset();
 
-                this.parameterStreams[parameterIndex - 1 + parameterIndexOffset] = x;
-                this.isStream[parameterIndex - 1 + parameterIndexOffset] = true;
-                this.streamLengths[parameterIndex - 1 + parameterIndexOffset] = length;
-                this.isNull[parameterIndex - 1 + parameterIndexOffset] = false;
-                this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.BLOB;
+            if ((parameterIndex < 1) || (parameterIndex > this.staticSqlStrings.length)) {
+                throw SQLError.createSQLException(Messages.getString("PreparedStatement.2") + parameterIndex + Messages.getString("PreparedStatement.3")
+                        + this.staticSqlStrings.length + Messages.getString("PreparedStatement.4"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                        getExceptionInterceptor());
+            } else if (parameterIndexOffset == -1 && parameterIndex == 1) {
+                throw SQLError.createSQLException("Can't set IN parameter for return value of stored function call.", SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                        getExceptionInterceptor());
             }
+
+            this.parameterStreams[parameterIndex - 1 + parameterIndexOffset] = x;
+            this.isStream[parameterIndex - 1 + parameterIndexOffset] = true;
+            this.streamLengths[parameterIndex - 1 + parameterIndexOffset] = length;
+            this.isNull[parameterIndex - 1 + parameterIndexOffset] = false;
+            this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.BLOB;
         }
     }
 
@@ -2970,124 +3254,124 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
     }
 
     protected void setBytes(int parameterIndex, byte[] x, boolean checkForIntroducer, boolean escapeForMBChars) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (x == null) {
-                setNull(parameterIndex, java.sql.Types.BINARY);
-            } else {
-                String connectionEncoding = this.connection.getEncoding();
+        checkClosed();
 
-                try {
-                    if (this.connection.isNoBackslashEscapesSet()
-                            || (escapeForMBChars && this.connection.getUseUnicode() && connectionEncoding != null && CharsetMapping
-                                    .isMultibyteCharset(connectionEncoding))) {
+        if (x == null) {
+            setNull(parameterIndex, java.sql.Types.BINARY);
+        } else {
+            String connectionEncoding = this.connection.getEncoding();
 
-                        // Send as hex
+            try {
+                if (this.connection.isNoBackslashEscapesSet()
+                        || (escapeForMBChars && this.connection.getUseUnicode() && connectionEncoding != null && CharsetMapping
+                                .isMultibyteCharset(connectionEncoding))) {
 
-                        ByteArrayOutputStream bOut = new ByteArrayOutputStream((x.length * 2) + 3);
-                        bOut.write('x');
-                        bOut.write('\'');
+                    // Send as hex
 
-                        for (int i = 0; i < x.length; i++) {
-                            int lowBits = (x[i] & 0xff) / 16;
-                            int highBits = (x[i] & 0xff) % 16;
+                    ByteArrayOutputStream bOut = new ByteArrayOutputStream((x.length * 2) + 3);
+                    bOut.write('x');
+                    bOut.write('\'');
 
-                            bOut.write(HEX_DIGITS[lowBits]);
-                            bOut.write(HEX_DIGITS[highBits]);
-                        }
+                    for (int i = 0; i < x.length; i++) {
+                        int lowBits = (x[i] & 0xff) / 16;
+                        int highBits = (x[i] & 0xff) % 16;
 
-                        bOut.write('\'');
+                        bOut.write(HEX_DIGITS[lowBits]);
+                        bOut.write(HEX_DIGITS[highBits]);
+                    }
 
-                        setInternal(parameterIndex, bOut.toByteArray());
+                    bOut.write('\'');
 
-                        return;
-                    }
-                } catch (SQLException ex) {
-                    throw ex;
-                } catch (RuntimeException ex) {
-                    SQLException sqlEx = SQLError.createSQLException(ex.toString(), SQLError.SQL_STATE_ILLEGAL_ARGUMENT, null);
-                    sqlEx.initCause(ex);
-                    throw sqlEx;
+                    setInternal(parameterIndex, bOut.toByteArray());
+
+                    return;
                 }
+            } catch (SQLException ex) {
+                throw ex;
+            } catch (RuntimeException ex) {
+                SQLException sqlEx = SQLError.createSQLException(ex.toString(), SQLError.SQL_STATE_ILLEGAL_ARGUMENT, null);
+                sqlEx.initCause(ex);
+                throw sqlEx;
+            }
 
-                // escape them
-                int numBytes = x.length;
+            // escape them
+            int numBytes = x.length;
 
-                int pad = 2;
+            int pad = 2;
 
-                boolean needsIntroducer = checkForIntroducer && this.connection.versionMeetsMinimum(4, 1, 0);
+            boolean needsIntroducer = checkForIntroducer && this.connection.versionMeetsMinimum(4, 1, 0);
 
-                if (needsIntroducer) {
-                    pad += 7;
-                }
+            if (needsIntroducer) {
+                pad += 7;
+            }
 
-                ByteArrayOutputStream bOut = new ByteArrayOutputStream(numBytes + pad);
+            ByteArrayOutputStream bOut = new ByteArrayOutputStream(numBytes + pad);
 
-                if (needsIntroducer) {
-                    bOut.write('_');
-                    bOut.write('b');
-                    bOut.write('i');
-                    bOut.write('n');
-                    bOut.write('a');
-                    bOut.write('r');
-                    bOut.write('y');
-                }
-                bOut.write('\'');
+            if (needsIntroducer) {
+                bOut.write('_');
+                bOut.write('b');
+                bOut.write('i');
+                bOut.write('n');
+                bOut.write('a');
+                bOut.write('r');
+                bOut.write('y');
+            }
+            bOut.write('\'');
 
-                for (int i = 0; i < numBytes; ++i) {
-                    byte b = x[i];
+            for (int i = 0; i < numBytes; ++i) {
+                byte b = x[i];
 
-                    switch (b) {
-                        case 0: /* Must be escaped for 'mysql' */
-                            bOut.write('\\');
-                            bOut.write('0');
+                switch (b) {
+                    case 0: /* Must be escaped for 'mysql' */
+                        bOut.write('\\');
+                        bOut.write('0');
 
-                            break;
+                        break;
 
-                        case '\n': /* Must be escaped for logs */
-                            bOut.write('\\');
-                            bOut.write('n');
+                    case '\n': /* Must be escaped for logs */
+                        bOut.write('\\');
+                        bOut.write('n');
 
-                            break;
+                        break;
 
-                        case '\r':
-                            bOut.write('\\');
-                            bOut.write('r');
+                    case '\r':
+                        bOut.write('\\');
+                        bOut.write('r');
 
-                            break;
+                        break;
 
-                        case '\\':
-                            bOut.write('\\');
-                            bOut.write('\\');
+                    case '\\':
+                        bOut.write('\\');
+                        bOut.write('\\');
 
-                            break;
+                        break;
 
-                        case '\'':
-                            bOut.write('\\');
-                            bOut.write('\'');
+                    case '\'':
+                        bOut.write('\\');
+                        bOut.write('\'');
 
-                            break;
+                        break;
 
-                        case '"': /* Better safe than sorry */
-                            bOut.write('\\');
-                            bOut.write('"');
+                    case '"': /* Better safe than sorry */
+                        bOut.write('\\');
+                        bOut.write('"');
 
-                            break;
+                        break;
 
-                        case '\032': /* This gives problems on Win32 */
-                            bOut.write('\\');
-                            bOut.write('Z');
+                    case '\032': /* This gives problems on Win32 */
+                        bOut.write('\\');
+                        bOut.write('Z');
 
-                            break;
+                        break;
 
-                        default:
-                            bOut.write(b);
-                    }
+                    default:
+                        bOut.write(b);
                 }
+            }
 
-                bOut.write('\'');
+            bOut.write('\'');
 
-                setInternal(parameterIndex, bOut.toByteArray());
-            }
+            setInternal(parameterIndex, bOut.toByteArray());
         }
     }
 
@@ -3138,59 +3422,59 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database-access error occurs.
      */
     public void setCharacterStream(int parameterIndex, java.io.Reader reader, int length) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            try {
-                if (reader == null) {
-                    setNull(parameterIndex, Types.LONGVARCHAR);
-                } else {
-                    char[] c = null;
-                    int len = 0;
+        checkClosed();
 
-                    boolean useLength = this.connection.getUseStreamLengthsInPrepStmts();
+        try {
+            if (reader == null) {
+                setNull(parameterIndex, Types.LONGVARCHAR);
+            } else {
+                char[] c = null;
+                int len = 0;
 
-                    String forcedEncoding = this.connection.getClobCharacterEncoding();
+                boolean useLength = this.connection.getUseStreamLengthsInPrepStmts();
 
-                    if (useLength && (length != -1)) {
-                        c = new char[length];
+                String forcedEncoding = this.connection.getClobCharacterEncoding();
 
-                        int numCharsRead = readFully(reader, c, length); // blocks until all read
+                if (useLength && (length != -1)) {
+                    c = new char[length];
 
-                        if (forcedEncoding == null) {
-                            setString(parameterIndex, new String(c, 0, numCharsRead));
-                        } else {
-                            try {
-                                setBytes(parameterIndex, StringUtils.getBytes(new String(c, 0, numCharsRead), forcedEncoding));
-                            } catch (UnsupportedEncodingException uee) {
-                                throw SQLError.createSQLException("Unsupported character encoding " + forcedEncoding, SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                                        getExceptionInterceptor());
-                            }
-                        }
+                    int numCharsRead = readFully(reader, c, length); // blocks until all read
+
+                    if (forcedEncoding == null) {
+                        setString(parameterIndex, new String(c, 0, numCharsRead));
                     } else {
-                        c = new char[4096];
+                        try {
+                            setBytes(parameterIndex, StringUtils.getBytes(new String(c, 0, numCharsRead), forcedEncoding));
+                        } catch (UnsupportedEncodingException uee) {
+                            throw SQLError.createSQLException("Unsupported character encoding " + forcedEncoding, SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                                    getExceptionInterceptor());
+                        }
+                    }
+                } else {
+                    c = new char[4096];
 
-                        StringBuilder buf = new StringBuilder();
+                    StringBuilder buf = new StringBuilder();
 
-                        while ((len = reader.read(c)) != -1) {
-                            buf.append(c, 0, len);
-                        }
+                    while ((len = reader.read(c)) != -1) {
+                        buf.append(c, 0, len);
+                    }
 
-                        if (forcedEncoding == null) {
-                            setString(parameterIndex, buf.toString());
-                        } else {
-                            try {
-                                setBytes(parameterIndex, StringUtils.getBytes(buf.toString(), forcedEncoding));
-                            } catch (UnsupportedEncodingException uee) {
-                                throw SQLError.createSQLException("Unsupported character encoding " + forcedEncoding, SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                                        getExceptionInterceptor());
-                            }
+                    if (forcedEncoding == null) {
+                        setString(parameterIndex, buf.toString());
+                    } else {
+                        try {
+                            setBytes(parameterIndex, StringUtils.getBytes(buf.toString(), forcedEncoding));
+                        } catch (UnsupportedEncodingException uee) {
+                            throw SQLError.createSQLException("Unsupported character encoding " + forcedEncoding, SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                                    getExceptionInterceptor());
                         }
                     }
-
-                    this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.CLOB;
                 }
-            } catch (java.io.IOException ioEx) {
-                throw SQLError.createSQLException(ioEx.toString(), SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
+
+                this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.CLOB;
             }
+        } catch (java.io.IOException ioEx) {
+            throw SQLError.createSQLException(ioEx.toString(), SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
         }
     }
 
@@ -3206,26 +3490,26 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *             if a database error occurs
      */
     public void setClob(int i, Clob x) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (x == null) {
-                setNull(i, Types.CLOB);
-            } else {
+        checkClosed();
 
-                String forcedEncoding = this.connection.getClobCharacterEncoding();
+        if (x == null) {
+            setNull(i, Types.CLOB);
+        } else {
 
-                if (forcedEncoding == null) {
-                    setString(i, x.getSubString(1L, (int) x.length()));
-                } else {
-                    try {
-                        setBytes(i, StringUtils.getBytes(x.getSubString(1L, (int) x.length()), forcedEncoding));
-                    } catch (UnsupportedEncodingException uee) {
-                        throw SQLError.createSQLException("Unsupported character encoding " + forcedEncoding, SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                                getExceptionInterceptor());
-                    }
-                }
+            String forcedEncoding = this.connection.getClobCharacterEncoding();
 
-                this.parameterTypes[i - 1 + getParameterIndexOffset()] = Types.CLOB;
+            if (forcedEncoding == null) {
+                setString(i, x.getSubString(1L, (int) x.length()));
+            } else {
+                try {
+                    setBytes(i, StringUtils.getBytes(x.getSubString(1L, (int) x.length()), forcedEncoding));
+                } catch (UnsupportedEncodingException uee) {
+                    throw SQLError.createSQLException("Unsupported character encoding " + forcedEncoding, SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                            getExceptionInterceptor());
+                }
             }
+
+            this.parameterTypes[i - 1 + getParameterIndexOffset()] = Types.CLOB;
         }
     }
 
@@ -3266,18 +3550,18 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
             if (!this.useLegacyDatetimeCode) {
                 newSetDateInternal(parameterIndex, x, cal);
             } else {
-                synchronized (checkClosed().getConnectionMutex()) {
-                    if (this.ddf == null) {
-                        this.ddf = new SimpleDateFormat("''yyyy-MM-dd''", Locale.US);
-                    }
-                    if (cal != null) {
-                        this.ddf.setTimeZone(cal.getTimeZone());
-                    }
-
-                    setInternal(parameterIndex, this.ddf.format(x));
+                checkClosed();
 
-                    this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.DATE;
+                if (this.ddf == null) {
+                    this.ddf = new SimpleDateFormat("''yyyy-MM-dd''", Locale.US);
                 }
+                if (cal != null) {
+                    this.ddf.setTimeZone(cal.getTimeZone());
+                }
+
+                setInternal(parameterIndex, this.ddf.format(x));
+
+                this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.DATE;
             }
         }
     }
@@ -3295,17 +3579,17 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database access error occurs
      */
     public void setDouble(int parameterIndex, double x) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (!this.connection.getAllowNanAndInf() && (x == Double.POSITIVE_INFINITY || x == Double.NEGATIVE_INFINITY || Double.isNaN(x))) {
-                throw SQLError.createSQLException("'" + x + "' is not a valid numeric or approximate numeric value", SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                        getExceptionInterceptor());
-
-            }
+        checkClosed();
 
-            setInternal(parameterIndex, StringUtils.fixDecimalExponent(String.valueOf(x)));
+        if (!this.connection.getAllowNanAndInf() && (x == Double.POSITIVE_INFINITY || x == Double.NEGATIVE_INFINITY || Double.isNaN(x))) {
+            throw SQLError.createSQLException("'" + x + "' is not a valid numeric or approximate numeric value", SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    getExceptionInterceptor());
 
-            this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.DOUBLE;
         }
+
+        setInternal(parameterIndex, StringUtils.fixDecimalExponent(String.valueOf(x)));
+
+        this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.DOUBLE;
     }
 
     /**
@@ -3345,49 +3629,47 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
     }
 
     protected final void setInternal(int paramIndex, byte[] val) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        checkClosed();
 
-            int parameterIndexOffset = getParameterIndexOffset();
+        int parameterIndexOffset = getParameterIndexOffset();
 
-            checkBounds(paramIndex, parameterIndexOffset);
+        checkBounds(paramIndex, parameterIndexOffset);
 
-            this.isStream[paramIndex - 1 + parameterIndexOffset] = false;
-            this.isNull[paramIndex - 1 + parameterIndexOffset] = false;
-            this.parameterStreams[paramIndex - 1 + parameterIndexOffset] = null;
-            this.parameterValues[paramIndex - 1 + parameterIndexOffset] = val;
-        }
+        this.isStream[paramIndex - 1 + parameterIndexOffset] = false;
+        this.isNull[paramIndex - 1 + parameterIndexOffset] = false;
+        this.parameterStreams[paramIndex - 1 + parameterIndexOffset] = null;
+        this.parameterValues[paramIndex - 1 + parameterIndexOffset] = val;
     }
 
     protected void checkBounds(int paramIndex, int parameterIndexOffset) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if ((paramIndex < 1)) {
-                throw SQLError.createSQLException(Messages.getString("PreparedStatement.49") + paramIndex + Messages.getString("PreparedStatement.50"),
-                        SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
-            } else if (paramIndex > this.parameterCount) {
-                throw SQLError.createSQLException(Messages.getString("PreparedStatement.51") + paramIndex + Messages.getString("PreparedStatement.52")
-                        + (this.parameterValues.length) + Messages.getString("PreparedStatement.53"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                        getExceptionInterceptor());
-            } else if (parameterIndexOffset == -1 && paramIndex == 1) {
-                throw SQLError.createSQLException("Can't set IN parameter for return value of stored function call.", SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                        getExceptionInterceptor());
-            }
+        checkClosed();
+
+        if ((paramIndex < 1)) {
+            throw SQLError.createSQLException(Messages.getString("PreparedStatement.49") + paramIndex + Messages.getString("PreparedStatement.50"),
+                    SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+        } else if (paramIndex > this.parameterCount) {
+            throw SQLError.createSQLException(Messages.getString("PreparedStatement.51") + paramIndex + Messages.getString("PreparedStatement.52")
+                    + (this.parameterValues.length) + Messages.getString("PreparedStatement.53"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    getExceptionInterceptor());
+        } else if (parameterIndexOffset == -1 && paramIndex == 1) {
+            throw SQLError.createSQLException("Can't set IN parameter for return value of stored function call.", SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    getExceptionInterceptor());
         }
     }
 
     protected final void setInternal(int paramIndex, String val) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        checkClosed();
 
-            byte[] parameterAsBytes = null;
-
-            if (this.charConverter != null) {
-                parameterAsBytes = this.charConverter.toBytes(val);
-            } else {
-                parameterAsBytes = StringUtils.getBytes(val, this.charConverter, this.charEncoding, this.connection.getServerCharset(),
-                        this.connection.parserKnowsUnicode(), getExceptionInterceptor());
-            }
+        byte[] parameterAsBytes = null;
 
-            setInternal(paramIndex, parameterAsBytes);
+        if (this.charConverter != null) {
+            parameterAsBytes = this.charConverter.toBytes(val);
+        } else {
+            parameterAsBytes = StringUtils.getBytes(val, this.charConverter, this.charEncoding, this.connection.getServerCharset(),
+                    this.connection.parserKnowsUnicode(), getExceptionInterceptor());
         }
+
+        setInternal(paramIndex, parameterAsBytes);
     }
 
     /**
@@ -3424,12 +3706,12 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database access error occurs
      */
     public void setNull(int parameterIndex, int sqlType) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            setInternal(parameterIndex, "null");
-            this.isNull[parameterIndex - 1 + getParameterIndexOffset()] = true;
+        checkClosed();
 
-            this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.NULL;
-        }
+        setInternal(parameterIndex, "null");
+        this.isNull[parameterIndex - 1 + getParameterIndexOffset()] = true;
+
+        this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.NULL;
     }
 
     /**
@@ -3559,49 +3841,49 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
     }
 
     public void setObject(int parameterIndex, Object parameterObj) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (parameterObj == null) {
-                setNull(parameterIndex, java.sql.Types.OTHER);
+        checkClosed();
+
+        if (parameterObj == null) {
+            setNull(parameterIndex, java.sql.Types.OTHER);
+        } else {
+            if (parameterObj instanceof Byte) {
+                setInt(parameterIndex, ((Byte) parameterObj).intValue());
+            } else if (parameterObj instanceof String) {
+                setString(parameterIndex, (String) parameterObj);
+            } else if (parameterObj instanceof BigDecimal) {
+                setBigDecimal(parameterIndex, (BigDecimal) parameterObj);
+            } else if (parameterObj instanceof Short) {
+                setShort(parameterIndex, ((Short) parameterObj).shortValue());
+            } else if (parameterObj instanceof Integer) {
+                setInt(parameterIndex, ((Integer) parameterObj).intValue());
+            } else if (parameterObj instanceof Long) {
+                setLong(parameterIndex, ((Long) parameterObj).longValue());
+            } else if (parameterObj instanceof Float) {
+                setFloat(parameterIndex, ((Float) parameterObj).floatValue());
+            } else if (parameterObj instanceof Double) {
+                setDouble(parameterIndex, ((Double) parameterObj).doubleValue());
+            } else if (parameterObj instanceof byte[]) {
+                setBytes(parameterIndex, (byte[]) parameterObj);
+            } else if (parameterObj instanceof java.sql.Date) {
+                setDate(parameterIndex, (java.sql.Date) parameterObj);
+            } else if (parameterObj instanceof Time) {
+                setTime(parameterIndex, (Time) parameterObj);
+            } else if (parameterObj instanceof Timestamp) {
+                setTimestamp(parameterIndex, (Timestamp) parameterObj);
+            } else if (parameterObj instanceof Boolean) {
+                setBoolean(parameterIndex, ((Boolean) parameterObj).booleanValue());
+            } else if (parameterObj instanceof InputStream) {
+                setBinaryStream(parameterIndex, (InputStream) parameterObj, -1);
+            } else if (parameterObj instanceof java.sql.Blob) {
+                setBlob(parameterIndex, (java.sql.Blob) parameterObj);
+            } else if (parameterObj instanceof java.sql.Clob) {
+                setClob(parameterIndex, (java.sql.Clob) parameterObj);
+            } else if (this.connection.getTreatUtilDateAsTimestamp() && parameterObj instanceof java.util.Date) {
+                setTimestamp(parameterIndex, new Timestamp(((java.util.Date) parameterObj).getTime()));
+            } else if (parameterObj instanceof BigInteger) {
+                setString(parameterIndex, parameterObj.toString());
             } else {
-                if (parameterObj instanceof Byte) {
-                    setInt(parameterIndex, ((Byte) parameterObj).intValue());
-                } else if (parameterObj instanceof String) {
-                    setString(parameterIndex, (String) parameterObj);
-                } else if (parameterObj instanceof BigDecimal) {
-                    setBigDecimal(parameterIndex, (BigDecimal) parameterObj);
-                } else if (parameterObj instanceof Short) {
-                    setShort(parameterIndex, ((Short) parameterObj).shortValue());
-                } else if (parameterObj instanceof Integer) {
-                    setInt(parameterIndex, ((Integer) parameterObj).intValue());
-                } else if (parameterObj instanceof Long) {
-                    setLong(parameterIndex, ((Long) parameterObj).longValue());
-                } else if (parameterObj instanceof Float) {
-                    setFloat(parameterIndex, ((Float) parameterObj).floatValue());
-                } else if (parameterObj instanceof Double) {
-                    setDouble(parameterIndex, ((Double) parameterObj).doubleValue());
-                } else if (parameterObj instanceof byte[]) {
-                    setBytes(parameterIndex, (byte[]) parameterObj);
-                } else if (parameterObj instanceof java.sql.Date) {
-                    setDate(parameterIndex, (java.sql.Date) parameterObj);
-                } else if (parameterObj instanceof Time) {
-                    setTime(parameterIndex, (Time) parameterObj);
-                } else if (parameterObj instanceof Timestamp) {
-                    setTimestamp(parameterIndex, (Timestamp) parameterObj);
-                } else if (parameterObj instanceof Boolean) {
-                    setBoolean(parameterIndex, ((Boolean) parameterObj).booleanValue());
-                } else if (parameterObj instanceof InputStream) {
-                    setBinaryStream(parameterIndex, (InputStream) parameterObj, -1);
-                } else if (parameterObj instanceof java.sql.Blob) {
-                    setBlob(parameterIndex, (java.sql.Blob) parameterObj);
-                } else if (parameterObj instanceof java.sql.Clob) {
-                    setClob(parameterIndex, (java.sql.Clob) parameterObj);
-                } else if (this.connection.getTreatUtilDateAsTimestamp() && parameterObj instanceof java.util.Date) {
-                    setTimestamp(parameterIndex, new Timestamp(((java.util.Date) parameterObj).getTime()));
-                } else if (parameterObj instanceof BigInteger) {
-                    setString(parameterIndex, parameterObj.toString());
-                } else {
-                    setSerializableObject(parameterIndex, parameterObj);
-                }
+                setSerializableObject(parameterIndex, parameterObj);
             }
         }
     }
@@ -3649,176 +3931,176 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *             if a database access error occurs
      */
     public void setObject(int parameterIndex, Object parameterObj, int targetSqlType, int scale) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (parameterObj == null) {
-                setNull(parameterIndex, java.sql.Types.OTHER);
-            } else {
-                try {
-                    switch (targetSqlType) {
-                        case Types.BOOLEAN:
-                            /*
-                             * From Table-B5 in the JDBC-3.0 Spec
-                             * 
-                             * T S I B R F D D N B B C V L
-                             * I M N I E L O E U I O H A O
-                             * N A T G A O U C M T O A R N
-                             * Y L E I L A B I E L R C G
-                             * I L G N T L M R E H V
-                             * N I E T E A I A A A
-                             * T N R L C N R R
-                             * T C
-                             * H
-                             * A
-                             * R
-                             * -----------------------------------
-                             * Boolean x x x x x x x x x x x x x x
-                             */
-
-                            if (parameterObj instanceof Boolean) {
-                                setBoolean(parameterIndex, ((Boolean) parameterObj).booleanValue());
-
-                                break;
-                            } else if (parameterObj instanceof String) {
-                                setBoolean(parameterIndex, "true".equalsIgnoreCase((String) parameterObj) || !"0".equalsIgnoreCase((String) parameterObj));
+        checkClosed();
 
-                                break;
-                            } else if (parameterObj instanceof Number) {
-                                int intValue = ((Number) parameterObj).intValue();
-
-                                setBoolean(parameterIndex, intValue != 0);
+        if (parameterObj == null) {
+            setNull(parameterIndex, java.sql.Types.OTHER);
+        } else {
+            try {
+                switch (targetSqlType) {
+                    case Types.BOOLEAN:
+                        /*
+                         * From Table-B5 in the JDBC-3.0 Spec
+                         * 
+                         * T S I B R F D D N B B C V L
+                         * I M N I E L O E U I O H A O
+                         * N A T G A O U C M T O A R N
+                         * Y L E I L A B I E L R C G
+                         * I L G N T L M R E H V
+                         * N I E T E A I A A A
+                         * T N R L C N R R
+                         * T C
+                         * H
+                         * A
+                         * R
+                         * -----------------------------------
+                         * Boolean x x x x x x x x x x x x x x
+                         */
+
+                        if (parameterObj instanceof Boolean) {
+                            setBoolean(parameterIndex, ((Boolean) parameterObj).booleanValue());
 
-                                break;
-                            } else {
-                                throw SQLError.createSQLException("No conversion from " + parameterObj.getClass().getName() + " to Types.BOOLEAN possible.",
-                                        SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
-                            }
+                            break;
+                        } else if (parameterObj instanceof String) {
+                            setBoolean(parameterIndex, "true".equalsIgnoreCase((String) parameterObj) || !"0".equalsIgnoreCase((String) parameterObj));
 
-                        case Types.BIT:
-                        case Types.TINYINT:
-                        case Types.SMALLINT:
-                        case Types.INTEGER:
-                        case Types.BIGINT:
-                        case Types.REAL:
-                        case Types.FLOAT:
-                        case Types.DOUBLE:
-                        case Types.DECIMAL:
-                        case Types.NUMERIC:
+                            break;
+                        } else if (parameterObj instanceof Number) {
+                            int intValue = ((Number) parameterObj).intValue();
 
-                            setNumericObject(parameterIndex, parameterObj, targetSqlType, scale);
+                            setBoolean(parameterIndex, intValue != 0);
 
                             break;
+                        } else {
+                            throw SQLError.createSQLException("No conversion from " + parameterObj.getClass().getName() + " to Types.BOOLEAN possible.",
+                                    SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+                        }
 
-                        case Types.CHAR:
-                        case Types.VARCHAR:
-                        case Types.LONGVARCHAR:
-                            if (parameterObj instanceof BigDecimal) {
-                                setString(parameterIndex, (StringUtils.fixDecimalExponent(StringUtils.consistentToString((BigDecimal) parameterObj))));
-                            } else {
-                                setString(parameterIndex, parameterObj.toString());
-                            }
+                    case Types.BIT:
+                    case Types.TINYINT:
+                    case Types.SMALLINT:
+                    case Types.INTEGER:
+                    case Types.BIGINT:
+                    case Types.REAL:
+                    case Types.FLOAT:
+                    case Types.DOUBLE:
+                    case Types.DECIMAL:
+                    case Types.NUMERIC:
+
+                        setNumericObject(parameterIndex, parameterObj, targetSqlType, scale);
+
+                        break;
+
+                    case Types.CHAR:
+                    case Types.VARCHAR:
+                    case Types.LONGVARCHAR:
+                        if (parameterObj instanceof BigDecimal) {
+                            setString(parameterIndex, (StringUtils.fixDecimalExponent(StringUtils.consistentToString((BigDecimal) parameterObj))));
+                        } else {
+                            setString(parameterIndex, parameterObj.toString());
+                        }
 
-                            break;
+                        break;
 
-                        case Types.CLOB:
+                    case Types.CLOB:
 
-                            if (parameterObj instanceof java.sql.Clob) {
-                                setClob(parameterIndex, (java.sql.Clob) parameterObj);
-                            } else {
-                                setString(parameterIndex, parameterObj.toString());
-                            }
+                        if (parameterObj instanceof java.sql.Clob) {
+                            setClob(parameterIndex, (java.sql.Clob) parameterObj);
+                        } else {
+                            setString(parameterIndex, parameterObj.toString());
+                        }
 
-                            break;
+                        break;
 
-                        case Types.BINARY:
-                        case Types.VARBINARY:
-                        case Types.LONGVARBINARY:
-                        case Types.BLOB:
+                    case Types.BINARY:
+                    case Types.VARBINARY:
+                    case Types.LONGVARBINARY:
+                    case Types.BLOB:
 
-                            if (parameterObj instanceof byte[]) {
-                                setBytes(parameterIndex, (byte[]) parameterObj);
-                            } else if (parameterObj instanceof java.sql.Blob) {
-                                setBlob(parameterIndex, (java.sql.Blob) parameterObj);
-                            } else {
-                                setBytes(parameterIndex, StringUtils.getBytes(parameterObj.toString(), this.charConverter, this.charEncoding,
-                                        this.connection.getServerCharset(), this.connection.parserKnowsUnicode(), getExceptionInterceptor()));
-                            }
+                        if (parameterObj instanceof byte[]) {
+                            setBytes(parameterIndex, (byte[]) parameterObj);
+                        } else if (parameterObj instanceof java.sql.Blob) {
+                            setBlob(parameterIndex, (java.sql.Blob) parameterObj);
+                        } else {
+                            setBytes(parameterIndex, StringUtils.getBytes(parameterObj.toString(), this.charConverter, this.charEncoding,
+                                    this.connection.getServerCharset(), this.connection.parserKnowsUnicode(), getExceptionInterceptor()));
+                        }
 
-                            break;
+                        break;
 
-                        case Types.DATE:
-                        case Types.TIMESTAMP:
+                    case Types.DATE:
+                    case Types.TIMESTAMP:
 
-                            java.util.Date parameterAsDate;
+                        java.util.Date parameterAsDate;
 
-                            if (parameterObj instanceof String) {
-                                ParsePosition pp = new ParsePosition(0);
-                                java.text.DateFormat sdf = new java.text.SimpleDateFormat(getDateTimePattern((String) parameterObj, false), Locale.US);
-                                parameterAsDate = sdf.parse((String) parameterObj, pp);
-                            } else {
-                                parameterAsDate = (java.util.Date) parameterObj;
-                            }
+                        if (parameterObj instanceof String) {
+                            ParsePosition pp = new ParsePosition(0);
+                            java.text.DateFormat sdf = new java.text.SimpleDateFormat(getDateTimePattern((String) parameterObj, false), Locale.US);
+                            parameterAsDate = sdf.parse((String) parameterObj, pp);
+                        } else {
+                            parameterAsDate = (java.util.Date) parameterObj;
+                        }
 
-                            switch (targetSqlType) {
-                                case Types.DATE:
+                        switch (targetSqlType) {
+                            case Types.DATE:
 
-                                    if (parameterAsDate instanceof java.sql.Date) {
-                                        setDate(parameterIndex, (java.sql.Date) parameterAsDate);
-                                    } else {
-                                        setDate(parameterIndex, new java.sql.Date(parameterAsDate.getTime()));
-                                    }
+                                if (parameterAsDate instanceof java.sql.Date) {
+                                    setDate(parameterIndex, (java.sql.Date) parameterAsDate);
+                                } else {
+                                    setDate(parameterIndex, new java.sql.Date(parameterAsDate.getTime()));
+                                }
 
-                                    break;
+                                break;
 
-                                case Types.TIMESTAMP:
+                            case Types.TIMESTAMP:
 
-                                    if (parameterAsDate instanceof java.sql.Timestamp) {
-                                        setTimestamp(parameterIndex, (java.sql.Timestamp) parameterAsDate);
-                                    } else {
-                                        setTimestamp(parameterIndex, new java.sql.Timestamp(parameterAsDate.getTime()));
-                                    }
+                                if (parameterAsDate instanceof java.sql.Timestamp) {
+                                    setTimestamp(parameterIndex, (java.sql.Timestamp) parameterAsDate);
+                                } else {
+                                    setTimestamp(parameterIndex, new java.sql.Timestamp(parameterAsDate.getTime()));
+                                }
 
-                                    break;
-                            }
+                                break;
+                        }
 
-                            break;
+                        break;
 
-                        case Types.TIME:
+                    case Types.TIME:
 
-                            if (parameterObj instanceof String) {
-                                java.text.DateFormat sdf = new java.text.SimpleDateFormat(getDateTimePattern((String) parameterObj, true), Locale.US);
-                                setTime(parameterIndex, new java.sql.Time(sdf.parse((String) parameterObj).getTime()));
-                            } else if (parameterObj instanceof Timestamp) {
-                                Timestamp xT = (Timestamp) parameterObj;
-                                setTime(parameterIndex, new java.sql.Time(xT.getTime()));
-                            } else {
-                                setTime(parameterIndex, (java.sql.Time) parameterObj);
-                            }
+                        if (parameterObj instanceof String) {
+                            java.text.DateFormat sdf = new java.text.SimpleDateFormat(getDateTimePattern((String) parameterObj, true), Locale.US);
+                            setTime(parameterIndex, new java.sql.Time(sdf.parse((String) parameterObj).getTime()));
+                        } else if (parameterObj instanceof Timestamp) {
+                            Timestamp xT = (Timestamp) parameterObj;
+                            setTime(parameterIndex, new java.sql.Time(xT.getTime()));
+                        } else {
+                            setTime(parameterIndex, (java.sql.Time) parameterObj);
+                        }
 
-                            break;
+                        break;
 
-                        case Types.OTHER:
-                            setSerializableObject(parameterIndex, parameterObj);
+                    case Types.OTHER:
+                        setSerializableObject(parameterIndex, parameterObj);
 
-                            break;
+                        break;
 
-                        default:
-                            throw SQLError.createSQLException(Messages.getString("PreparedStatement.16"), SQLError.SQL_STATE_GENERAL_ERROR,
-                                    getExceptionInterceptor());
-                    }
-                } catch (Exception ex) {
-                    if (ex instanceof SQLException) {
-                        throw (SQLException) ex;
-                    }
+                    default:
+                        throw SQLError.createSQLException(Messages.getString("PreparedStatement.16"), SQLError.SQL_STATE_GENERAL_ERROR,
+                                getExceptionInterceptor());
+                }
+            } catch (Exception ex) {
+                if (ex instanceof SQLException) {
+                    throw (SQLException) ex;
+                }
 
-                    SQLException sqlEx = SQLError.createSQLException(
-                            Messages.getString("PreparedStatement.17") + parameterObj.getClass().toString() + Messages.getString("PreparedStatement.18")
-                                    + ex.getClass().getName() + Messages.getString("PreparedStatement.19") + ex.getMessage(), SQLError.SQL_STATE_GENERAL_ERROR,
-                            getExceptionInterceptor());
+                SQLException sqlEx = SQLError.createSQLException(
+                        Messages.getString("PreparedStatement.17") + parameterObj.getClass().toString() + Messages.getString("PreparedStatement.18")
+                                + ex.getClass().getName() + Messages.getString("PreparedStatement.19") + ex.getMessage(), SQLError.SQL_STATE_GENERAL_ERROR,
+                        getExceptionInterceptor());
 
-                    sqlEx.initCause(ex);
+                sqlEx.initCause(ex);
 
-                    throw sqlEx;
-                }
+                throw sqlEx;
             }
         }
     }
@@ -3924,161 +4206,161 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database access error occurs
      */
     public void setString(int parameterIndex, String x) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            // if the passed string is null, then set this column to null
-            if (x == null) {
-                setNull(parameterIndex, Types.CHAR);
-            } else {
-                checkClosed();
+        checkClosed();
 
-                int stringLength = x.length();
+        // if the passed string is null, then set this column to null
+        if (x == null) {
+            setNull(parameterIndex, Types.CHAR);
+        } else {
+            checkClosed();
 
-                if (this.connection.isNoBackslashEscapesSet()) {
-                    // Scan for any nasty chars
+            int stringLength = x.length();
 
-                    boolean needsHexEscape = isEscapeNeededForString(x, stringLength);
+            if (this.connection.isNoBackslashEscapesSet()) {
+                // Scan for any nasty chars
 
-                    if (!needsHexEscape) {
-                        byte[] parameterAsBytes = null;
+                boolean needsHexEscape = isEscapeNeededForString(x, stringLength);
 
-                        StringBuilder quotedString = new StringBuilder(x.length() + 2);
-                        quotedString.append('\'');
-                        quotedString.append(x);
-                        quotedString.append('\'');
+                if (!needsHexEscape) {
+                    byte[] parameterAsBytes = null;
 
-                        if (!this.isLoadDataQuery) {
-                            parameterAsBytes = StringUtils.getBytes(quotedString.toString(), this.charConverter, this.charEncoding,
-                                    this.connection.getServerCharset(), this.connection.parserKnowsUnicode(), getExceptionInterceptor());
-                        } else {
-                            // Send with platform character encoding
-                            parameterAsBytes = StringUtils.getBytes(quotedString.toString());
-                        }
+                    StringBuilder quotedString = new StringBuilder(x.length() + 2);
+                    quotedString.append('\'');
+                    quotedString.append(x);
+                    quotedString.append('\'');
 
-                        setInternal(parameterIndex, parameterAsBytes);
+                    if (!this.isLoadDataQuery) {
+                        parameterAsBytes = StringUtils.getBytes(quotedString.toString(), this.charConverter, this.charEncoding,
+                                this.connection.getServerCharset(), this.connection.parserKnowsUnicode(), getExceptionInterceptor());
                     } else {
-                        byte[] parameterAsBytes = null;
+                        // Send with platform character encoding
+                        parameterAsBytes = StringUtils.getBytes(quotedString.toString());
+                    }
 
-                        if (!this.isLoadDataQuery) {
-                            parameterAsBytes = StringUtils.getBytes(x, this.charConverter, this.charEncoding, this.connection.getServerCharset(),
-                                    this.connection.parserKnowsUnicode(), getExceptionInterceptor());
-                        } else {
-                            // Send with platform character encoding
-                            parameterAsBytes = StringUtils.getBytes(x);
-                        }
+                    setInternal(parameterIndex, parameterAsBytes);
+                } else {
+                    byte[] parameterAsBytes = null;
 
-                        setBytes(parameterIndex, parameterAsBytes);
+                    if (!this.isLoadDataQuery) {
+                        parameterAsBytes = StringUtils.getBytes(x, this.charConverter, this.charEncoding, this.connection.getServerCharset(),
+                                this.connection.parserKnowsUnicode(), getExceptionInterceptor());
+                    } else {
+                        // Send with platform character encoding
+                        parameterAsBytes = StringUtils.getBytes(x);
                     }
 
-                    return;
+                    setBytes(parameterIndex, parameterAsBytes);
                 }
 
-                String parameterAsString = x;
-                boolean needsQuoted = true;
+                return;
+            }
 
-                if (this.isLoadDataQuery || isEscapeNeededForString(x, stringLength)) {
-                    needsQuoted = false; // saves an allocation later
+            String parameterAsString = x;
+            boolean needsQuoted = true;
 
-                    StringBuilder buf = new StringBuilder((int) (x.length() * 1.1));
+            if (this.isLoadDataQuery || isEscapeNeededForString(x, stringLength)) {
+                needsQuoted = false; // saves an allocation later
 
-                    buf.append('\'');
+                StringBuilder buf = new StringBuilder((int) (x.length() * 1.1));
 
-                    //
-                    // Note: buf.append(char) is _faster_ than appending in blocks, because the block append requires a System.arraycopy().... go figure...
-                    //
+                buf.append('\'');
 
-                    for (int i = 0; i < stringLength; ++i) {
-                        char c = x.charAt(i);
+                //
+                // Note: buf.append(char) is _faster_ than appending in blocks, because the block append requires a System.arraycopy().... go figure...
+                //
 
-                        switch (c) {
-                            case 0: /* Must be escaped for 'mysql' */
-                                buf.append('\\');
-                                buf.append('0');
+                for (int i = 0; i < stringLength; ++i) {
+                    char c = x.charAt(i);
 
-                                break;
+                    switch (c) {
+                        case 0: /* Must be escaped for 'mysql' */
+                            buf.append('\\');
+                            buf.append('0');
 
-                            case '\n': /* Must be escaped for logs */
-                                buf.append('\\');
-                                buf.append('n');
+                            break;
 
-                                break;
+                        case '\n': /* Must be escaped for logs */
+                            buf.append('\\');
+                            buf.append('n');
 
-                            case '\r':
-                                buf.append('\\');
-                                buf.append('r');
+                            break;
 
-                                break;
+                        case '\r':
+                            buf.append('\\');
+                            buf.append('r');
 
-                            case '\\':
-                                buf.append('\\');
-                                buf.append('\\');
+                            break;
 
-                                break;
+                        case '\\':
+                            buf.append('\\');
+                            buf.append('\\');
 
-                            case '\'':
-                                buf.append('\\');
-                                buf.append('\'');
+                            break;
 
-                                break;
+                        case '\'':
+                            buf.append('\\');
+                            buf.append('\'');
 
-                            case '"': /* Better safe than sorry */
-                                if (this.usingAnsiMode) {
-                                    buf.append('\\');
-                                }
+                            break;
 
-                                buf.append('"');
+                        case '"': /* Better safe than sorry */
+                            if (this.usingAnsiMode) {
+                                buf.append('\\');
+                            }
 
-                                break;
+                            buf.append('"');
 
-                            case '\032': /* This gives problems on Win32 */
-                                buf.append('\\');
-                                buf.append('Z');
+                            break;
 
-                                break;
+                        case '\032': /* This gives problems on Win32 */
+                            buf.append('\\');
+                            buf.append('Z');
 
-                            case '\u00a5':
-                            case '\u20a9':
-                                // escape characters interpreted as backslash by mysql
-                                if (this.charsetEncoder != null) {
-                                    CharBuffer cbuf = CharBuffer.allocate(1);
-                                    ByteBuffer bbuf = ByteBuffer.allocate(1);
-                                    cbuf.put(c);
-                                    cbuf.position(0);
-                                    this.charsetEncoder.encode(cbuf, bbuf, true);
-                                    if (bbuf.get(0) == '\\') {
-                                        buf.append('\\');
-                                    }
+                            break;
+
+                        case '\u00a5':
+                        case '\u20a9':
+                            // escape characters interpreted as backslash by mysql
+                            if (this.charsetEncoder != null) {
+                                CharBuffer cbuf = CharBuffer.allocate(1);
+                                ByteBuffer bbuf = ByteBuffer.allocate(1);
+                                cbuf.put(c);
+                                cbuf.position(0);
+                                this.charsetEncoder.encode(cbuf, bbuf, true);
+                                if (bbuf.get(0) == '\\') {
+                                    buf.append('\\');
                                 }
-                                // fall through
+                            }
+                            // fall through
 
-                            default:
-                                buf.append(c);
-                        }
+                        default:
+                            buf.append(c);
                     }
+                }
 
-                    buf.append('\'');
+                buf.append('\'');
 
-                    parameterAsString = buf.toString();
-                }
+                parameterAsString = buf.toString();
+            }
 
-                byte[] parameterAsBytes = null;
+            byte[] parameterAsBytes = null;
 
-                if (!this.isLoadDataQuery) {
-                    if (needsQuoted) {
-                        parameterAsBytes = StringUtils.getBytesWrapped(parameterAsString, '\'', '\'', this.charConverter, this.charEncoding,
-                                this.connection.getServerCharset(), this.connection.parserKnowsUnicode(), getExceptionInterceptor());
-                    } else {
-                        parameterAsBytes = StringUtils.getBytes(parameterAsString, this.charConverter, this.charEncoding, this.connection.getServerCharset(),
-                                this.connection.parserKnowsUnicode(), getExceptionInterceptor());
-                    }
+            if (!this.isLoadDataQuery) {
+                if (needsQuoted) {
+                    parameterAsBytes = StringUtils.getBytesWrapped(parameterAsString, '\'', '\'', this.charConverter, this.charEncoding,
+                            this.connection.getServerCharset(), this.connection.parserKnowsUnicode(), getExceptionInterceptor());
                 } else {
-                    // Send with platform character encoding
-                    parameterAsBytes = StringUtils.getBytes(parameterAsString);
+                    parameterAsBytes = StringUtils.getBytes(parameterAsString, this.charConverter, this.charEncoding, this.connection.getServerCharset(),
+                            this.connection.parserKnowsUnicode(), getExceptionInterceptor());
                 }
+            } else {
+                // Send with platform character encoding
+                parameterAsBytes = StringUtils.getBytes(parameterAsString);
+            }
 
-                setInternal(parameterIndex, parameterAsBytes);
+            setInternal(parameterIndex, parameterAsBytes);
 
-                this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.VARCHAR;
-            }
+            this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = Types.VARCHAR;
         }
     }
 
@@ -4145,9 +4427,9 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *             if a database-access error occurs.
      */
     public void setTime(int parameterIndex, java.sql.Time x, Calendar cal) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            setTimeInternal(parameterIndex, x, cal, cal.getTimeZone(), true);
-        }
+        checkClosed();
+
+        setTimeInternal(parameterIndex, x, cal, cal.getTimeZone(), true);
     }
 
     /**
@@ -4163,9 +4445,9 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *             if a database access error occurs
      */
     public void setTime(int parameterIndex, Time x) throws java.sql.SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            setTimeInternal(parameterIndex, x, null, this.connection.getDefaultTimeZone(), false);
-        }
+        checkClosed();
+
+        setTimeInternal(parameterIndex, x, null, this.connection.getDefaultTimeZone(), false);
     }
 
     /**
@@ -4218,9 +4500,9 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *             if a database-access error occurs.
      */
     public void setTimestamp(int parameterIndex, java.sql.Timestamp x, Calendar cal) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            setTimestampInternal(parameterIndex, x, cal, cal.getTimeZone(), true);
-        }
+        checkClosed();
+
+        setTimestampInternal(parameterIndex, x, cal, cal.getTimeZone(), true);
     }
 
     /**
@@ -4236,9 +4518,9 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *             if a database access error occurs
      */
     public void setTimestamp(int parameterIndex, Timestamp x) throws java.sql.SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            setTimestampInternal(parameterIndex, x, null, this.connection.getDefaultTimeZone(), false);
-        }
+        checkClosed();
+
+        setTimestampInternal(parameterIndex, x, null, this.connection.getDefaultTimeZone(), false);
     }
 
     /**
@@ -4302,59 +4584,59 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
     }
 
     private void newSetTimestampInternal(int parameterIndex, Timestamp x, Calendar targetCalendar) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (this.tsdf == null) {
-                this.tsdf = new SimpleDateFormat("''yyyy-MM-dd HH:mm:ss", Locale.US);
-            }
+        checkClosed();
 
-            if (targetCalendar != null) {
-                this.tsdf.setTimeZone(targetCalendar.getTimeZone());
-            } else {
-                this.tsdf.setTimeZone(this.connection.getServerTimezoneTZ());
-            }
-
-            StringBuffer buf = new StringBuffer();
-            buf.append(this.tsdf.format(x));
-            buf.append('.');
-            buf.append(TimeUtil.formatNanos(x.getNanos(), this.serverSupportsFracSecs, true));
-            buf.append('\'');
+        if (this.tsdf == null) {
+            this.tsdf = new SimpleDateFormat("''yyyy-MM-dd HH:mm:ss", Locale.US);
+        }
 
-            setInternal(parameterIndex, buf.toString());
+        if (targetCalendar != null) {
+            this.tsdf.setTimeZone(targetCalendar.getTimeZone());
+        } else {
+            this.tsdf.setTimeZone(this.connection.getServerTimezoneTZ());
         }
+
+        StringBuffer buf = new StringBuffer();
+        buf.append(this.tsdf.format(x));
+        buf.append('.');
+        buf.append(TimeUtil.formatNanos(x.getNanos(), this.serverSupportsFracSecs, true));
+        buf.append('\'');
+
+        setInternal(parameterIndex, buf.toString());
     }
 
     private void newSetTimeInternal(int parameterIndex, Time x, Calendar targetCalendar) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (this.tdf == null) {
-                this.tdf = new SimpleDateFormat("''HH:mm:ss''", Locale.US);
-            }
+        checkClosed();
 
-            if (targetCalendar != null) {
-                this.tdf.setTimeZone(targetCalendar.getTimeZone());
-            } else {
-                this.tdf.setTimeZone(this.connection.getServerTimezoneTZ());
-            }
+        if (this.tdf == null) {
+            this.tdf = new SimpleDateFormat("''HH:mm:ss''", Locale.US);
+        }
 
-            setInternal(parameterIndex, this.tdf.format(x));
+        if (targetCalendar != null) {
+            this.tdf.setTimeZone(targetCalendar.getTimeZone());
+        } else {
+            this.tdf.setTimeZone(this.connection.getServerTimezoneTZ());
         }
+
+        setInternal(parameterIndex, this.tdf.format(x));
     }
 
     private void newSetDateInternal(int parameterIndex, Date x, Calendar targetCalendar) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (this.ddf == null) {
-                this.ddf = new SimpleDateFormat("''yyyy-MM-dd''", Locale.US);
-            }
+        checkClosed();
 
-            if (targetCalendar != null) {
-                this.ddf.setTimeZone(targetCalendar.getTimeZone());
-            } else if (this.connection.getNoTimezoneConversionForDateType()) {
-                this.ddf.setTimeZone(this.connection.getDefaultTimeZone());
-            } else {
-                this.ddf.setTimeZone(this.connection.getServerTimezoneTZ());
-            }
+        if (this.ddf == null) {
+            this.ddf = new SimpleDateFormat("''yyyy-MM-dd''", Locale.US);
+        }
 
-            setInternal(parameterIndex, this.ddf.format(x));
+        if (targetCalendar != null) {
+            this.ddf.setTimeZone(targetCalendar.getTimeZone());
+        } else if (this.connection.getNoTimezoneConversionForDateType()) {
+            this.ddf.setTimeZone(this.connection.getDefaultTimeZone());
+        } else {
+            this.ddf.setTimeZone(this.connection.getServerTimezoneTZ());
         }
+
+        setInternal(parameterIndex, this.ddf.format(x));
     }
 
     private void doSSPSCompatibleTimezoneShift(int parameterIndex, Timestamp x, Calendar sessionCalendar) throws SQLException {
@@ -4483,83 +4765,95 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
 
     private final void streamToBytes(Buffer packet, InputStream in, boolean escape, int streamLength, boolean useLength) throws SQLException {
         synchronized (checkClosed().getConnectionMutex()) {
-            try {
-                if (this.streamConvertBuf == null) {
-                    this.streamConvertBuf = new byte[4096];
-                }
+            streamToBytes(packet, in, escape, streamLength, useLength, null);
+        }
+    }
 
-                String connectionEncoding = this.connection.getEncoding();
+    /**
+     * Writes the stream into the packet, when sendingIO is given the packet is the one it is sending a StreamedParametersPacket with, and it sends on
+     * every full packet as the stream is written.
+     */
+    final void streamToBytes(Buffer packet, InputStream in, boolean escape, int streamLength, boolean useLength, MysqlIO sendingIO) throws SQLException {
+        try {
+            if (this.streamConvertBuf == null) {
+                this.streamConvertBuf = new byte[4096];
+            }
 
-                boolean hexEscape = false;
+            String connectionEncoding = this.connection.getEncoding();
 
-                try {
-                    if (this.connection.isNoBackslashEscapesSet()
-                            || (this.connection.getUseUnicode() && connectionEncoding != null && CharsetMapping.isMultibyteCharset(connectionEncoding) && !this.connection
-                                    .parserKnowsUnicode())) {
-                        hexEscape = true;
-                    }
-                } catch (RuntimeException ex) {
-                    SQLException sqlEx = SQLError.createSQLException(ex.toString(), SQLError.SQL_STATE_ILLEGAL_ARGUMENT, null);
-                    sqlEx.initCause(ex);
-                    throw sqlEx;
-                }
+            boolean hexEscape = false;
 
-                if (streamLength == -1) {
-                    useLength = false;
+            try {
+                if (this.connection.isNoBackslashEscapesSet()
+                        || (this.connection.getUseUnicode() && connectionEncoding != null && CharsetMapping.isMultibyteCharset(connectionEncoding) && !this.connection
+                                .parserKnowsUnicode())) {
+                    hexEscape = true;
                 }
+            } catch (RuntimeException ex) {
+                SQLException sqlEx = SQLError.createSQLException(ex.toString(), SQLError.SQL_STATE_ILLEGAL_ARGUMENT, null);
+                sqlEx.initCause(ex);
+                throw sqlEx;
+            }
 
-                int bc = -1;
+            if (streamLength == -1) {
+                useLength = false;
+            }
 
-                if (useLength) {
-                    bc = readblock(in, this.streamConvertBuf, streamLength);
-                } else {
-                    bc = readblock(in, this.streamConvertBuf);
-                }
+            int bc = -1;
 
-                int lengthLeftToRead = streamLength - bc;
+            if (useLength) {
+                bc = readblock(in, this.streamConvertBuf, streamLength);
+            } else {
+                bc = readblock(in, this.streamConvertBuf);
+            }
+
+            int lengthLeftToRead = streamLength - bc;
+
+            if (hexEscape) {
+                packet.writeStringNoNull("x");
+            } else if (this.connection.getIO().versionMeetsMinimum(4, 1, 0)) {
+                packet.writeStringNoNull("_binary");
+            }
+
+            if (escape) {
+                packet.writeByte((byte) '\'');
+            }
 
+            while (bc > 0) {
                 if (hexEscape) {
-                    packet.writeStringNoNull("x");
-                } else if (this.connection.getIO().versionMeetsMinimum(4, 1, 0)) {
-                    packet.writeStringNoNull("_binary");
+                    hexEscapeBlock(this.streamConvertBuf, packet, bc);
+                } else if (escape) {
+                    escapeblockFast(this.streamConvertBuf, packet, bc);
+                } else {
+                    packet.writeBytesNoNull(this.streamConvertBuf, 0, bc);
                 }
 
-                if (escape) {
-                    packet.writeByte((byte) '\'');
+                if (sendingIO != null) {
+                    sendingIO.sendFullStreamedPackets(packet);
                 }
 
-                while (bc > 0) {
-                    if (hexEscape) {
-                        hexEscapeBlock(this.streamConvertBuf, packet, bc);
-                    } else if (escape) {
-                        escapeblockFast(this.streamConvertBuf, packet, bc);
-                    } else {
-                        packet.writeBytesNoNull(this.streamConvertBuf, 0, bc);
-                    }
-
-                    if (useLength) {
-                        bc = readblock(in, this.streamConvertBuf, lengthLeftToRead);
+                if (useLength) {
+                    bc = readblock(in, this.streamConvertBuf, lengthLeftToRead);
 
-                        if (bc > 0) {
-                            lengthLeftToRead -= bc;
-                        }
-                    } else {
-                        bc = readblock(in, this.streamConvertBuf);
+                    if (bc > 0) {
+                        lengthLeftToRead -= bc;
                     }
+                } else {
+                    bc = readblock(in, this.streamConvertBuf);
                 }
+            }
 
-                if (escape) {
-                    packet.writeByte((byte) '\'');
+            if (escape) {
+                packet.writeByte((byte) '\'');
+            }
+        } finally {
+            if (this.connection.getAutoClosePStmtStreams()) {
+                try {
+                    in.close();
+                } catch (IOException ioEx) {
                 }
-            } finally {
-                if (this.connection.getAutoClosePStmtStreams()) {
-                    try {
-                        in.close();
-                    } catch (IOException ioEx) {
-                    }
 
-                    in = null;
-                }
+                in = null;
             }
         }
     }
@@ -4724,100 +5018,100 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database access error occurs
      */
     public void setNString(int parameterIndex, String x) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (this.charEncoding.equalsIgnoreCase("UTF-8") || this.charEncoding.equalsIgnoreCase("utf8")) {
-                setString(parameterIndex, x);
-                return;
-            }
+        checkClosed();
 
-            // if the passed string is null, then set this column to null
-            if (x == null) {
-                setNull(parameterIndex, java.sql.Types.CHAR);
-            } else {
-                int stringLength = x.length();
-                // Ignore sql_mode=NO_BACKSLASH_ESCAPES in current implementation.
+        if (this.charEncoding.equalsIgnoreCase("UTF-8") || this.charEncoding.equalsIgnoreCase("utf8")) {
+            setString(parameterIndex, x);
+            return;
+        }
 
-                // Add introducer _utf8 for NATIONAL CHARACTER
-                StringBuilder buf = new StringBuilder((int) (x.length() * 1.1 + 4));
-                buf.append("_utf8");
-                buf.append('\'');
+        // if the passed string is null, then set this column to null
+        if (x == null) {
+            setNull(parameterIndex, java.sql.Types.CHAR);
+        } else {
+            int stringLength = x.length();
+            // Ignore sql_mode=NO_BACKSLASH_ESCAPES in current implementation.
 
-                //
-                // Note: buf.append(char) is _faster_ than appending in blocks, because the block append requires a System.arraycopy().... go figure...
-                //
+            // Add introducer _utf8 for NATIONAL CHARACTER
+            StringBuilder buf = new StringBuilder((int) (x.length() * 1.1 + 4));
+            buf.append("_utf8");
+            buf.append('\'');
 
-                for (int i = 0; i < stringLength; ++i) {
-                    char c = x.charAt(i);
+            //
+            // Note: buf.append(char) is _faster_ than appending in blocks, because the block append requires a System.arraycopy().... go figure...
+            //
 
-                    switch (c) {
-                        case 0: /* Must be escaped for 'mysql' */
-                            buf.append('\\');
-                            buf.append('0');
+            for (int i = 0; i < stringLength; ++i) {
+                char c = x.charAt(i);
 
-                            break;
+                switch (c) {
+                    case 0: /* Must be escaped for 'mysql' */
+                        buf.append('\\');
+                        buf.append('0');
 
-                        case '\n': /* Must be escaped for logs */
-                            buf.append('\\');
-                            buf.append('n');
+                        break;
 
-                            break;
+                    case '\n': /* Must be escaped for logs */
+                        buf.append('\\');
+                        buf.append('n');
 
-                        case '\r':
-                            buf.append('\\');
-                            buf.append('r');
+                        break;
 
-                            break;
+                    case '\r':
+                        buf.append('\\');
+                        buf.append('r');
 
-                        case '\\':
-                            buf.append('\\');
-                            buf.append('\\');
+                        break;
 
-                            break;
+                    case '\\':
+                        buf.append('\\');
+                        buf.append('\\');
 
-                        case '\'':
-                            buf.append('\\');
-                            buf.append('\'');
+                        break;
 
-                            break;
+                    case '\'':
+                        buf.append('\\');
+                        buf.append('\'');
 
-                        case '"': /* Better safe than sorry */
-                            if (this.usingAnsiMode) {
-                                buf.append('\\');
-                            }
+                        break;
 
-                            buf.append('"');
+                    case '"': /* Better safe than sorry */
+                        if (this.usingAnsiMode) {
+                            buf.append('\\');
+                        }
 
-                            break;
+                        buf.append('"');
 
-                        case '\032': /* This gives problems on Win32 */
-                            buf.append('\\');
-                            buf.append('Z');
+                        break;
 
-                            break;
+                    case '\032': /* This gives problems on Win32 */
+                        buf.append('\\');
+                        buf.append('Z');
 
-                        default:
-                            buf.append(c);
-                    }
+                        break;
+
+                    default:
+                        buf.append(c);
                 }
+            }
 
-                buf.append('\'');
+            buf.append('\'');
 
-                String parameterAsString = buf.toString();
+            String parameterAsString = buf.toString();
 
-                byte[] parameterAsBytes = null;
+            byte[] parameterAsBytes = null;
 
-                if (!this.isLoadDataQuery) {
-                    parameterAsBytes = StringUtils.getBytes(parameterAsString, this.connection.getCharsetConverter("UTF-8"), "UTF-8",
-                            this.connection.getServerCharset(), this.connection.parserKnowsUnicode(), getExceptionInterceptor());
-                } else {
-                    // Send with platform character encoding
-                    parameterAsBytes = StringUtils.getBytes(parameterAsString);
-                }
+            if (!this.isLoadDataQuery) {
+                parameterAsBytes = StringUtils.getBytes(parameterAsString, this.connection.getCharsetConverter("UTF-8"), "UTF-8",
+                        this.connection.getServerCharset(), this.connection.parserKnowsUnicode(), getExceptionInterceptor());
+            } else {
+                // Send with platform character encoding
+                parameterAsBytes = StringUtils.getBytes(parameterAsString);
+            }
 
-                setInternal(parameterIndex, parameterAsBytes);
+            setInternal(parameterIndex, parameterAsBytes);
 
-                this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = -9; /* Types.NVARCHAR */
-            }
+            this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = -9; /* Types.NVARCHAR */
         }
     }
 
@@ -4843,42 +5137,42 @@ public class PreparedStatement extends com.mysql.jdbc.StatementImpl implements j
      *                if a database-access error occurs.
      */
     public void setNCharacterStream(int parameterIndex, Reader reader, long length) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            try {
-                if (reader == null) {
-                    setNull(parameterIndex, java.sql.Types.LONGVARCHAR);
+        checkClosed();
 
-                } else {
-                    char[] c = null;
-                    int len = 0;
+        try {
+            if (reader == null) {
+                setNull(parameterIndex, java.sql.Types.LONGVARCHAR);
 
-                    boolean useLength = this.connection.getUseStreamLengthsInPrepStmts();
+            } else {
+                char[] c = null;
+                int len = 0;
 
-                    // Ignore "clobCharacterEncoding" because utf8 should be used this time.
+                boolean useLength = this.connection.getUseStreamLengthsInPrepStmts();
 
-                    if (useLength && (length != -1)) {
-                        c = new char[(int) length];  // can't take more than Integer.MAX_VALUE
+                // Ignore "clobCharacterEncoding" because utf8 should be used this time.
 
-                        int numCharsRead = readFully(reader, c, (int) length); // blocks until all read
-                        setNString(parameterIndex, new String(c, 0, numCharsRead));
+                if (useLength && (length != -1)) {
+                    c = new char[(int) length];  // can't take more than Integer.MAX_VALUE
 
-                    } else {
-                        c = new char[4096];
+                    int numCharsRead = readFully(reader, c, (int) length); // blocks until all read
+                    setNString(parameterIndex, new String(c, 0, numCharsRead));
 
-                        StringBuilder buf = new StringBuilder();
+                } else {
+                    c = new char[4096];
 
-                        while ((len = reader.read(c)) != -1) {
-                            buf.append(c, 0, len);
-                        }
+                    StringBuilder buf = new StringBuilder();
 
-                        setNString(parameterIndex, buf.toString());
+                    while ((len = reader.read(c)) != -1) {
+                        buf.append(c, 0, len);
                     }
 
-                    this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = 2011; /* Types.NCLOB */
+                    setNString(parameterIndex, buf.toString());
                 }
-            } catch (java.io.IOException ioEx) {
-                throw SQLError.createSQLException(ioEx.toString(), SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
+
+                this.parameterTypes[parameterIndex - 1 + getParameterIndexOffset()] = 2011; /* Types.NCLOB */
             }
+        } catch (java.io.IOException ioEx) {
+            throw SQLError.createSQLException(ioEx.toString(), SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
         }
     }
 
@@ -3013,4 +3013,132 @@ public class ReplicationConnection implements Connection, PingTarget {
     public void setEnabledSSLCipherSuites(String cipherSuites) {
         getCurrentConnection().setEnabledSSLCipherSuites(cipherSuites);
     }
+
+    public boolean getUseDirectSocketBuffers() {
+        return getCurrentConnection().getUseDirectSocketBuffers();
+    }
+
+    public void setUseDirectSocketBuffers(boolean flag) {
+        getCurrentConnection().setUseDirectSocketBuffers(flag);
+    }
+
+    public boolean getUseReentrantConnectionLock() {
+        return getCurrentConnection().getUseReentrantConnectionLock();
+    }
+
+    public void setUseReentrantConnectionLock(boolean flag) {
+        getCurrentConnection().setUseReentrantConnectionLock(flag);
+    }
+
+    public int getBatchPipelineDepth() {
+        return getCurrentConnection().getBatchPipelineDepth();
+    }
+
+    public void setBatchPipelineDepth(int value) throws SQLException {
+        getCurrentConnection().setBatchPipelineDepth(value);
+    }
+
+    public int getCompressionThreshold() {
+        return getCurrentConnection().getCompressionThreshold();
+    }
+
+    public void setCompressionThreshold(int value) throws SQLException {
+        getCurrentConnection().setCompressionThreshold(value);
+    }
+
+    public boolean getStreamLargeParameters() {
+        return getCurrentConnection().getStreamLargeParameters();
+    }
+
+    public void setStreamLargeParameters(boolean flag) {
+        getCurrentConnection().setStreamLargeParameters(flag);
+    }
+
+    public int getColumnStreamingThreshold() {
+        return getCurrentConnection().getColumnStreamingThreshold();
+    }
+
+    public void setColumnStreamingThreshold(int value) throws SQLException {
+        getCurrentConnection().setColumnStreamingThreshold(value);
+    }
+
+    public boolean getUseParallelRowDecoding() {
+        return getCurrentConnection().getUseParallelRowDecoding();
+    }
+
+    public void setUseParallelRowDecoding(boolean flag) {
+        getCurrentConnection().setUseParallelRowDecoding(flag);
+    }
+
+    public int getParallelRowDecodingChunkSize() {
+        return getCurrentConnection().getParallelRowDecodingChunkSize();
+    }
+
+    public void setParallelRowDecodingChunkSize(int value) throws SQLException {
+        getCurrentConnection().setParallelRowDecodingChunkSize(value);
+    }
+
+    public boolean getPrefetchCursorRows() {
+        return getCurrentConnection().getPrefetchCursorRows();
+    }
+
+    public void setPrefetchCursorRows(boolean flag) {
+        getCurrentConnection().setPrefetchCursorRows(flag);
+    }
+
+    public int getStreamingReadAheadRows() {
+        return getCurrentConnection().getStreamingReadAheadRows();
+    }
+
+    public void setStreamingReadAheadRows(int value) throws SQLException {
+        getCurrentConnection().setStreamingReadAheadRows(value);
+    }
+
+    public int getParseInfoCacheMaxBytes() {
+        return getCurrentConnection().getParseInfoCacheMaxBytes();
+    }
+
+    public void setParseInfoCacheMaxBytes(int value) throws SQLException {
+        getCurrentConnection().setParseInfoCacheMaxBytes(value);
+    }
+
+    public int getServerPrepStmtRegistrySize() {
+        return getCurrentConnection().getServerPrepStmtRegistrySize();
+    }
+
+    public void setServerPrepStmtRegistrySize(int value) throws SQLException {
+        getCurrentConnection().setServerPrepStmtRegistrySize(value);
+    }
+
+    public int getEagerServerPrepStmtCount() {
+        return getCurrentConnection().getEagerServerPrepStmtCount();
+    }
+
+    public void setEagerServerPrepStmtCount(int value) throws SQLException {
+        getCurrentConnection().setEagerServerPrepStmtCount(value);
+    }
+
+    public boolean getAutoReprepareServerStatements() {
+        return getCurrentConnection().getAutoReprepareServerStatements();
+    }
+
+    public void setAutoReprepareServerStatements(boolean flag) {
+        getCurrentConnection().setAutoReprepareServerStatements(flag);
+    }
+
+    public boolean getShareCachedResultSetMetadata() {
+        return getCurrentConnection().getShareCachedResultSetMetadata();
+    }
+
+    public void setShareCachedResultSetMetadata(boolean flag) {
+        getCurrentConnection().setShareCachedResultSetMetadata(flag);
+    }
+
+    public boolean getUseOptionalResultsetMetadata() {
+        return getCurrentConnection().getUseOptionalResultsetMetadata();
+    }
+
+    public void setUseOptionalResultsetMetadata(boolean flag) {
+        getCurrentConnection().setUseOptionalResultsetMetadata(flag);
+    }
 }
@@ -52,6 +52,7 @@ import java.util.Set;
 import java.util.StringTokenizer;
 import java.util.TimeZone;
 import java.util.TreeMap;
+import java.util.concurrent.locks.Lock;
 
 import com.mysql.jdbc.log.LogUtils;
 import com.mysql.jdbc.profiler.ProfilerEvent;
@@ -754,22 +755,22 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      *             if the index is out of bounds
      */
     protected final void checkColumnBounds(int columnIndex) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if ((columnIndex < 1)) {
-                throw SQLError.createSQLException(
-                        Messages.getString("ResultSet.Column_Index_out_of_range_low",
-                                new Object[] { Integer.valueOf(columnIndex), Integer.valueOf(this.fields.length) }), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                        getExceptionInterceptor());
-            } else if ((columnIndex > this.fields.length)) {
-                throw SQLError.createSQLException(
-                        Messages.getString("ResultSet.Column_Index_out_of_range_high",
-                                new Object[] { Integer.valueOf(columnIndex), Integer.valueOf(this.fields.length) }), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                        getExceptionInterceptor());
-            }
+        checkClosed();
 
-            if (this.profileSql || this.useUsageAdvisor) {
-                this.columnUsed[columnIndex - 1] = true;
-            }
+        if ((columnIndex < 1)) {
+            throw SQLError.createSQLException(
+                    Messages.getString("ResultSet.Column_Index_out_of_range_low",
+                            new Object[] { Integer.valueOf(columnIndex), Integer.valueOf(this.fields.length) }), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    getExceptionInterceptor());
+        } else if ((columnIndex > this.fields.length)) {
+            throw SQLError.createSQLException(
+                    Messages.getString("ResultSet.Column_Index_out_of_range_high",
+                            new Object[] { Integer.valueOf(columnIndex), Integer.valueOf(this.fields.length) }), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    getExceptionInterceptor());
+        }
+
+        if (this.profileSql || this.useUsageAdvisor) {
+            this.columnUsed[columnIndex - 1] = true;
         }
     }
 
@@ -891,6 +892,7 @@ public class ResultSetImpl implements ResultSetInternalMethods {
         cachedMetaData.fields = this.fields;
         cachedMetaData.columnNameToIndex = this.columnLabelToIndex;
         cachedMetaData.fullColumnNameToIndex = this.fullColumnNameToIndex;
+        cachedMetaData.originalColumnNameToIndex = this.columnNameToIndex;
         cachedMetaData.metadata = getMetaData();
     }
 
@@ -898,6 +900,7 @@ public class ResultSetImpl implements ResultSetInternalMethods {
         this.fields = cachedMetaData.fields;
         this.columnLabelToIndex = cachedMetaData.columnNameToIndex;
         this.fullColumnNameToIndex = cachedMetaData.fullColumnNameToIndex;
+        this.columnNameToIndex = cachedMetaData.originalColumnNameToIndex;
         this.hasBuiltIndexMapping = true;
     }
 
@@ -938,8 +941,31 @@ public class ResultSetImpl implements ResultSetInternalMethods {
         return this.thisRow.getString(columnIndex - 1, encoding, this.connection);
     }
 
+    /**
+     * Returns the connection's offset table for the timezone of the given calendar, or null if there is no calendar or it isn't a plain
+     * GregorianCalendar, the fields of which the offset table interprets the same way.
+     */
+    private TimezoneOffsetTable getTimezoneOffsetTable(MySQLConnection conn, Calendar cal) {
+        if (cal == null || cal.getClass() != GregorianCalendar.class) {
+            return null;
+        }
+
+        return conn.getTimezoneOffsetTable(cal.getTimeZone());
+    }
+
     protected Date fastDateCreate(Calendar cal, int year, int month, int day) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        MySQLConnection locallyScopedConn = checkClosed();
+        TimezoneOffsetTable offsets = getTimezoneOffsetTable(locallyScopedConn, cal);
+
+        if (offsets != null) {
+            long dateAsMillis = offsets.toEpochMillis(year, month, day, 0, 0, 0, false);
+
+            if (dateAsMillis != TimezoneOffsetTable.NO_FAST_CONVERSION) {
+                return new Date(dateAsMillis);
+            }
+        }
+
+        synchronized (locallyScopedConn.getConnectionMutex()) {
             Calendar targetCalendar = cal;
 
             if (cal == null) {
@@ -961,7 +987,18 @@ public class ResultSetImpl implements ResultSetInternalMethods {
     }
 
     protected Time fastTimeCreate(Calendar cal, int hour, int minute, int second) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        MySQLConnection locallyScopedConn = checkClosed();
+        TimezoneOffsetTable offsets = getTimezoneOffsetTable(locallyScopedConn, cal);
+
+        if (offsets != null) {
+            long timeAsMillis = offsets.toEpochMillis(1970, 1, 1, hour, minute, second, false);
+
+            if (timeAsMillis != TimezoneOffsetTable.NO_FAST_CONVERSION) {
+                return new Time(timeAsMillis);
+            }
+        }
+
+        synchronized (locallyScopedConn.getConnectionMutex()) {
             if (!this.useLegacyDatetimeCode) {
                 return TimeUtil.fastTimeCreate(hour, minute, second, cal, getExceptionInterceptor());
             }
@@ -975,7 +1012,22 @@ public class ResultSetImpl implements ResultSetInternalMethods {
     }
 
     protected Timestamp fastTimestampCreate(Calendar cal, int year, int month, int day, int hour, int minute, int seconds, int secondsPart) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        MySQLConnection locallyScopedConn = checkClosed();
+        TimezoneOffsetTable offsets = getTimezoneOffsetTable(locallyScopedConn, cal);
+
+        if (offsets != null) {
+            boolean useGmtMillis = this.useLegacyDatetimeCode && locallyScopedConn.getUseGmtMillisForDatetimes();
+            long tsAsMillis = offsets.toEpochMillis(year, month, day, hour, minute, seconds, useGmtMillis);
+
+            if (tsAsMillis != TimezoneOffsetTable.NO_FAST_CONVERSION) {
+                Timestamp ts = new Timestamp(tsAsMillis);
+                ts.setNanos(secondsPart);
+
+                return ts;
+            }
+        }
+
+        synchronized (locallyScopedConn.getConnectionMutex()) {
             if (!this.useLegacyDatetimeCode) {
                 return TimeUtil.fastTimestampCreate(cal.getTimeZone(), year, month, day, hour, minute, seconds, secondsPart);
             }
@@ -1031,48 +1083,48 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      * @return the column index of the given column name
      */
     public int findColumn(String columnName) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            Integer index;
+        checkClosed();
 
-            if (!this.hasBuiltIndexMapping) {
-                buildIndexMapping();
-            }
+        Integer index;
 
-            index = this.columnToIndexCache.get(columnName);
+        if (!this.hasBuiltIndexMapping) {
+            buildIndexMapping();
+        }
 
-            if (index != null) {
-                return index.intValue() + 1;
-            }
+        index = this.columnToIndexCache.get(columnName);
 
-            index = this.columnLabelToIndex.get(columnName);
+        if (index != null) {
+            return index.intValue() + 1;
+        }
 
-            if (index == null && this.useColumnNamesInFindColumn) {
-                index = this.columnNameToIndex.get(columnName);
-            }
+        index = this.columnLabelToIndex.get(columnName);
 
-            if (index == null) {
-                index = this.fullColumnNameToIndex.get(columnName);
-            }
+        if (index == null && this.useColumnNamesInFindColumn) {
+            index = this.columnNameToIndex.get(columnName);
+        }
 
-            if (index != null) {
-                this.columnToIndexCache.put(columnName, index);
+        if (index == null) {
+            index = this.fullColumnNameToIndex.get(columnName);
+        }
 
-                return index.intValue() + 1;
-            }
+        if (index != null) {
+            this.columnToIndexCache.put(columnName, index);
 
-            // Try this inefficient way, now
+            return index.intValue() + 1;
+        }
 
-            for (int i = 0; i < this.fields.length; i++) {
-                if (this.fields[i].getName().equalsIgnoreCase(columnName)) {
-                    return i + 1;
-                } else if (this.fields[i].getFullName().equalsIgnoreCase(columnName)) {
-                    return i + 1;
-                }
-            }
+        // Try this inefficient way, now
 
-            throw SQLError.createSQLException(Messages.getString("ResultSet.Column____112") + columnName + Messages.getString("ResultSet.___not_found._113"),
-                    SQLError.SQL_STATE_COLUMN_NOT_FOUND, getExceptionInterceptor());
+        for (int i = 0; i < this.fields.length; i++) {
+            if (this.fields[i].getName().equalsIgnoreCase(columnName)) {
+                return i + 1;
+            } else if (this.fields[i].getFullName().equalsIgnoreCase(columnName)) {
+                return i + 1;
+            }
         }
+
+        throw SQLError.createSQLException(Messages.getString("ResultSet.Column____112") + columnName + Messages.getString("ResultSet.___not_found._113"),
+                SQLError.SQL_STATE_COLUMN_NOT_FOUND, getExceptionInterceptor());
     }
 
     /**
@@ -1206,6 +1258,20 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      */
     public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
         if (!this.isBinaryEncoded) {
+            if (isNumberParsableInPlace(columnIndex)) {
+                if (this.wasNullFlag) {
+                    return null;
+                }
+
+                if (this.thisRow.length(columnIndex - 1) != 0) {
+                    try {
+                        return this.thisRow.getBigDecimal(columnIndex - 1);
+                    } catch (NumberFormatException nfe) {
+                        // fall through, the String based conversion reports the bad value
+                    }
+                }
+            }
+
             String stringVal = getString(columnIndex);
             BigDecimal val;
 
@@ -1253,6 +1319,21 @@ public class ResultSetImpl implements ResultSetInternalMethods {
     @Deprecated
     public BigDecimal getBigDecimal(int columnIndex, int scale) throws SQLException {
         if (!this.isBinaryEncoded) {
+            if (isNumberParsableInPlace(columnIndex)) {
+                if (this.wasNullFlag) {
+                    return null;
+                }
+
+                if (this.thisRow.length(columnIndex - 1) != 0) {
+                    try {
+                        // same result as setScale(scale) with the ROUND_HALF_UP fallback below, without the exception
+                        return this.thisRow.getBigDecimal(columnIndex - 1).setScale(scale, BigDecimal.ROUND_HALF_UP);
+                    } catch (NumberFormatException nfe) {
+                        // fall through, the String based conversion handles BIT values and reports bad ones
+                    }
+                }
+            }
+
             String stringVal = getString(columnIndex);
             BigDecimal val;
 
@@ -1472,6 +1553,10 @@ public class ResultSetImpl implements ResultSetInternalMethods {
             }
 
             if (!this.connection.getEmulateLocators()) {
+                if (this.thisRow instanceof StreamedColumnsRow && ((StreamedColumnsRow) this.thisRow).isStreamedColumn(columnIndexMinusOne)) {
+                    return new StreamedColumnBlob((StreamedColumnsRow) this.thisRow, columnIndexMinusOne, getExceptionInterceptor());
+                }
+
                 return new Blob(this.thisRow.getColumnValue(columnIndexMinusOne), getExceptionInterceptor());
             }
 
@@ -1799,19 +1884,107 @@ public class ResultSetImpl implements ResultSetInternalMethods {
         return -1;
     }
 
+    public int fetchColumnBatch(ColumnBatch batch) throws SQLException {
+        Lock connectionLock = checkClosed().getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return fetchColumnBatchLocked(batch);
+            }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return fetchColumnBatchLocked(batch);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private int fetchColumnBatchLocked(ColumnBatch batch) throws SQLException {
+        batch.reset(this.fields);
+
+        int rowCount = 0;
+
+        while (rowCount < batch.getCapacity() && next()) {
+            for (int i = 0; i < this.fields.length; i++) {
+                if (this.thisRow.isNull(i)) {
+                    batch.setNull(i, rowCount);
+
+                    continue;
+                }
+
+                switch (batch.getColumnType(i + 1)) {
+                    case ColumnBatch.TYPE_LONG:
+                        batch.setLong(i, rowCount, getLongForColumnBatch(i));
+                        break;
+
+                    case ColumnBatch.TYPE_DOUBLE:
+                        if (!this.isBinaryEncoded) {
+                            batch.setDouble(i, rowCount, this.thisRow.getDouble(i));
+                        } else if (this.fields[i].getMysqlType() == MysqlDefs.FIELD_TYPE_FLOAT) {
+                            batch.setDouble(i, rowCount, this.thisRow.getNativeFloat(i));
+                        } else {
+                            batch.setDouble(i, rowCount, this.thisRow.getNativeDouble(i));
+                        }
+                        break;
+
+                    default:
+                        batch.setBytes(i, rowCount, this.thisRow.getColumnValue(i));
+                }
+            }
+
+            rowCount++;
+        }
+
+        batch.setRowCount(rowCount);
+
+        return rowCount;
+    }
+
+    private long getLongForColumnBatch(int columnIndexMinusOne) throws SQLException {
+        Field f = this.fields[columnIndexMinusOne];
+
+        if (!this.isBinaryEncoded) {
+            if (f.getMysqlType() == MysqlDefs.FIELD_TYPE_LONGLONG && f.isUnsigned()) {
+                // may not fit in a long, keep the low 64 bits
+                return this.thisRow.getBigDecimal(columnIndexMinusOne).longValue();
+            }
+
+            return this.thisRow.getLong(columnIndexMinusOne);
+        }
+
+        switch (f.getMysqlType()) {
+            case MysqlDefs.FIELD_TYPE_TINY:
+                byte b = this.thisRow.getColumnValue(columnIndexMinusOne)[0];
+
+                return f.isUnsigned() ? (b & 0xff) : b;
+
+            case MysqlDefs.FIELD_TYPE_SHORT:
+            case MysqlDefs.FIELD_TYPE_YEAR:
+                short s = this.thisRow.getNativeShort(columnIndexMinusOne);
+
+                return f.isUnsigned() ? (s & 0xffff) : s;
+
+            case MysqlDefs.FIELD_TYPE_INT24:
+            case MysqlDefs.FIELD_TYPE_LONG:
+                int i = this.thisRow.getNativeInt(columnIndexMinusOne);
+
+                return f.isUnsigned() ? (i & 0xffffffffL) : i;
+
+            default:
+                return this.thisRow.getNativeLong(columnIndexMinusOne);
+        }
+    }
+
     /**
      * Optimization to only use one calendar per-session, or calculate it for
      * each call, depending on user configuration
      */
     protected Calendar getCalendarInstanceForSessionOrNew() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (this.connection != null) {
-                return this.connection.getCalendarInstanceForSessionOrNew();
-            }
-
-            // punt, no connection around
-            return new GregorianCalendar();
-        }
+        // no need to hold the connection mutex, this is called on every temporal value
+        return checkClosed().getCalendarInstanceForSessionOrNew();
     }
 
     /**
@@ -1889,6 +2062,25 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      */
     public java.sql.Clob getClob(int i) throws SQLException {
         if (!this.isBinaryEncoded) {
+            if (this.thisRow instanceof StreamedColumnsRow) {
+                checkRowPos();
+                checkColumnBounds(i);
+
+                StreamedColumnsRow streamedRow = (StreamedColumnsRow) this.thisRow;
+
+                if (!streamedRow.isNull(i - 1) && streamedRow.isStreamedColumn(i - 1)) {
+                    this.wasNullFlag = false;
+
+                    String encoding = this.connection.getClobCharacterEncoding();
+
+                    if (encoding == null) {
+                        encoding = this.fields[i - 1].getEncoding();
+                    }
+
+                    return new StreamedColumnClob(streamedRow, i - 1, encoding, getExceptionInterceptor());
+                }
+            }
+
             String asString = getStringForClob(i);
 
             if (asString == null) {
@@ -2262,9 +2454,64 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      *             if an error occurs
      */
     protected double getDoubleInternal(int colIndex) throws SQLException {
+        if (isNumberParsableInPlace(colIndex)) {
+            if (this.wasNullFlag) {
+                return 0;
+            }
+
+            if (this.thisRow.length(colIndex - 1) == 0) {
+                return convertToZeroWithEmptyCheck();
+            }
+
+            try {
+                return adjustForStrictFloatingPoint(this.thisRow.getDouble(colIndex - 1));
+            } catch (NumberFormatException nfe) {
+                // fall through, the String based conversion handles BIT values and reports bad ones
+            }
+        }
+
         return getDoubleInternal(getString(colIndex), colIndex);
     }
 
+    /**
+     * Checks whether the value of the given column can be converted to a number straight from the row data, without creating a String first. This is
+     * the case for the numeric column types of text protocol results, whose value is plain ASCII.
+     * 
+     * Sets wasNullFlag when it returns true.
+     * 
+     * @param columnIndex
+     *            the 1-based index of the column
+     * @return true if the column value can be parsed in place
+     * @throws SQLException
+     *             if the result set is not positioned on a row or the index is out of range
+     */
+    private boolean isNumberParsableInPlace(int columnIndex) throws SQLException {
+        if (!this.useFastIntParsing) {
+            return false;
+        }
+
+        checkRowPos();
+        checkColumnBounds(columnIndex);
+
+        switch (this.fields[columnIndex - 1].getMysqlType()) {
+            case MysqlDefs.FIELD_TYPE_TINY:
+            case MysqlDefs.FIELD_TYPE_SHORT:
+            case MysqlDefs.FIELD_TYPE_LONG:
+            case MysqlDefs.FIELD_TYPE_INT24:
+            case MysqlDefs.FIELD_TYPE_LONGLONG:
+            case MysqlDefs.FIELD_TYPE_FLOAT:
+            case MysqlDefs.FIELD_TYPE_DOUBLE:
+            case MysqlDefs.FIELD_TYPE_DECIMAL:
+            case MysqlDefs.FIELD_TYPE_NEW_DECIMAL:
+                this.wasNullFlag = this.thisRow.isNull(columnIndex - 1);
+
+                return true;
+
+            default:
+                return false;
+        }
+    }
+
     /**
      * Converts a string representation of a number to a double. Need a faster
      * way to do this.
@@ -2289,32 +2536,7 @@ public class ResultSetImpl implements ResultSetInternalMethods {
                 return convertToZeroWithEmptyCheck();
             }
 
-            double d = Double.parseDouble(stringVal);
-
-            if (this.useStrictFloatingPoint) {
-                // Fix endpoint rounding precision loss in MySQL server
-                if (d == 2.147483648E9) {
-                    // Fix Odd end-point rounding on MySQL
-                    d = 2.147483647E9;
-                } else if (d == 1.0000000036275E-15) {
-                    // Fix odd end-point rounding on MySQL
-                    d = 1.0E-15;
-                } else if (d == 9.999999869911E14) {
-                    d = 9.99999999999999E14;
-                } else if (d == 1.4012984643248E-45) {
-                    d = 1.4E-45;
-                } else if (d == 1.4013E-45) {
-                    d = 1.4E-45;
-                } else if (d == 3.4028234663853E37) {
-                    d = 3.4028235E37;
-                } else if (d == -2.14748E9) {
-                    d = -2.147483648E9;
-                } else if (d == 3.40282E37) {
-                    d = 3.4028235E37;
-                }
-            }
-
-            return d;
+            return adjustForStrictFloatingPoint(Double.parseDouble(stringVal));
         } catch (NumberFormatException e) {
             if (this.fields[colIndex - 1].getMysqlType() == MysqlDefs.FIELD_TYPE_BIT) {
                 long valueAsLong = getNumericRepresentationOfSQLBitType(colIndex);
@@ -2327,6 +2549,33 @@ public class ResultSetImpl implements ResultSetInternalMethods {
         }
     }
 
+    private double adjustForStrictFloatingPoint(double d) {
+        if (this.useStrictFloatingPoint) {
+            // Fix endpoint rounding precision loss in MySQL server
+            if (d == 2.147483648E9) {
+                // Fix Odd end-point rounding on MySQL
+                d = 2.147483647E9;
+            } else if (d == 1.0000000036275E-15) {
+                // Fix odd end-point rounding on MySQL
+                d = 1.0E-15;
+            } else if (d == 9.999999869911E14) {
+                d = 9.99999999999999E14;
+            } else if (d == 1.4012984643248E-45) {
+                d = 1.4E-45;
+            } else if (d == 1.4013E-45) {
+                d = 1.4E-45;
+            } else if (d == 3.4028234663853E37) {
+                d = 3.4028235E37;
+            } else if (d == -2.14748E9) {
+                d = -2.147483648E9;
+            } else if (d == 3.40282E37) {
+                d = 3.4028235E37;
+            }
+        }
+
+        return d;
+    }
+
     /**
      * JDBC 2.0 Returns the fetch direction for this result set.
      * 
@@ -2486,33 +2735,33 @@ public class ResultSetImpl implements ResultSetInternalMethods {
 
                 boolean needsFullParse = this.thisRow.isFloatingPointNumber(columnIndexMinusOne);
 
-                if (!needsFullParse) {
-                    try {
-                        return getIntWithOverflowCheck(columnIndexMinusOne);
-                    } catch (NumberFormatException nfe) {
-                        try {
-
-                            return parseIntAsDouble(columnIndex,
-                                    this.thisRow.getString(columnIndexMinusOne, this.fields[columnIndexMinusOne].getEncoding(), this.connection));
-                        } catch (NumberFormatException newNfe) {
-                            // ignore, it's not a number
-                        }
+                try {
+                    if (needsFullParse) {
+                        return getIntAsDouble(columnIndex);
+                    }
 
-                        if (this.fields[columnIndexMinusOne].getMysqlType() == MysqlDefs.FIELD_TYPE_BIT) {
-                            long valueAsLong = getNumericRepresentationOfSQLBitType(columnIndex);
+                    return getIntWithOverflowCheck(columnIndexMinusOne);
+                } catch (NumberFormatException nfe) {
+                    try {
+                        return getIntAsDouble(columnIndex);
+                    } catch (NumberFormatException newNfe) {
+                        // ignore, it's not a number
+                    }
 
-                            if (this.connection.getJdbcCompliantTruncationForReads() && (valueAsLong < Integer.MIN_VALUE || valueAsLong > Integer.MAX_VALUE)) {
-                                throwRangeException(String.valueOf(valueAsLong), columnIndex, Types.INTEGER);
-                            }
+                    if (this.fields[columnIndexMinusOne].getMysqlType() == MysqlDefs.FIELD_TYPE_BIT) {
+                        long valueAsLong = getNumericRepresentationOfSQLBitType(columnIndex);
 
-                            return (int) valueAsLong;
+                        if (this.connection.getJdbcCompliantTruncationForReads() && (valueAsLong < Integer.MIN_VALUE || valueAsLong > Integer.MAX_VALUE)) {
+                            throwRangeException(String.valueOf(valueAsLong), columnIndex, Types.INTEGER);
                         }
 
-                        throw SQLError.createSQLException(
-                                Messages.getString("ResultSet.Invalid_value_for_getInt()_-____74")
-                                        + this.thisRow.getString(columnIndexMinusOne, this.fields[columnIndexMinusOne].getEncoding(), this.connection) + "'",
-                                SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+                        return (int) valueAsLong;
                     }
+
+                    throw SQLError.createSQLException(
+                            Messages.getString("ResultSet.Invalid_value_for_getInt()_-____74")
+                                    + this.thisRow.getString(columnIndexMinusOne, this.fields[columnIndexMinusOne].getEncoding(), this.connection) + "'",
+                            SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
                 }
             }
 
@@ -2687,27 +2936,28 @@ public class ResultSetImpl implements ResultSetInternalMethods {
 
                 boolean needsFullParse = this.thisRow.isFloatingPointNumber(columnIndexMinusOne);
 
-                if (!needsFullParse) {
-                    try {
-                        return getLongWithOverflowCheck(columnIndexMinusOne, overflowCheck);
-                    } catch (NumberFormatException nfe) {
-                        try {
-                            // To do: Warn of over/underflow???
-                            return parseLongAsDouble(columnIndexMinusOne,
-                                    this.thisRow.getString(columnIndexMinusOne, this.fields[columnIndexMinusOne].getEncoding(), this.connection));
-                        } catch (NumberFormatException newNfe) {
-                            // ; // ignore, it's not a number
-                        }
+                try {
+                    if (needsFullParse) {
+                        return getLongAsDouble(columnIndexMinusOne);
+                    }
 
-                        if (this.fields[columnIndexMinusOne].getMysqlType() == MysqlDefs.FIELD_TYPE_BIT) {
-                            return getNumericRepresentationOfSQLBitType(columnIndex);
-                        }
+                    return getLongWithOverflowCheck(columnIndexMinusOne, overflowCheck);
+                } catch (NumberFormatException nfe) {
+                    try {
+                        // To do: Warn of over/underflow???
+                        return getLongAsDouble(columnIndexMinusOne);
+                    } catch (NumberFormatException newNfe) {
+                        // ; // ignore, it's not a number
+                    }
 
-                        throw SQLError.createSQLException(
-                                Messages.getString("ResultSet.Invalid_value_for_getLong()_-____79")
-                                        + this.thisRow.getString(columnIndexMinusOne, this.fields[columnIndexMinusOne].getEncoding(), this.connection) + "'",
-                                SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+                    if (this.fields[columnIndexMinusOne].getMysqlType() == MysqlDefs.FIELD_TYPE_BIT) {
+                        return getNumericRepresentationOfSQLBitType(columnIndex);
                     }
+
+                    throw SQLError.createSQLException(
+                            Messages.getString("ResultSet.Invalid_value_for_getLong()_-____79")
+                                    + this.thisRow.getString(columnIndexMinusOne, this.fields[columnIndexMinusOne].getEncoding(), this.connection) + "'",
+                            SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
                 }
             }
 
@@ -3288,290 +3538,289 @@ public class ResultSetImpl implements ResultSetInternalMethods {
     }
 
     private String getNativeConvertToString(int columnIndex, Field field) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-
-            int sqlType = field.getSQLType();
-            int mysqlType = field.getMysqlType();
-
-            switch (sqlType) {
-                case Types.BIT:
-                    return String.valueOf(getNumericRepresentationOfSQLBitType(columnIndex));
-                case Types.BOOLEAN:
-                    boolean booleanVal = getBoolean(columnIndex);
+        checkClosed();
 
-                    if (this.wasNullFlag) {
-                        return null;
-                    }
+        int sqlType = field.getSQLType();
+        int mysqlType = field.getMysqlType();
 
-                    return String.valueOf(booleanVal);
+        switch (sqlType) {
+            case Types.BIT:
+                return String.valueOf(getNumericRepresentationOfSQLBitType(columnIndex));
+            case Types.BOOLEAN:
+                boolean booleanVal = getBoolean(columnIndex);
 
-                case Types.TINYINT:
-                    byte tinyintVal = getNativeByte(columnIndex, false);
+                if (this.wasNullFlag) {
+                    return null;
+                }
 
-                    if (this.wasNullFlag) {
-                        return null;
-                    }
+                return String.valueOf(booleanVal);
 
-                    if (!field.isUnsigned() || tinyintVal >= 0) {
-                        return String.valueOf(tinyintVal);
-                    }
+            case Types.TINYINT:
+                byte tinyintVal = getNativeByte(columnIndex, false);
 
-                    short unsignedTinyVal = (short) (tinyintVal & 0xff);
+                if (this.wasNullFlag) {
+                    return null;
+                }
 
-                    return String.valueOf(unsignedTinyVal);
+                if (!field.isUnsigned() || tinyintVal >= 0) {
+                    return String.valueOf(tinyintVal);
+                }
 
-                case Types.SMALLINT:
+                short unsignedTinyVal = (short) (tinyintVal & 0xff);
 
-                    int intVal = getNativeInt(columnIndex, false);
+                return String.valueOf(unsignedTinyVal);
 
-                    if (this.wasNullFlag) {
-                        return null;
-                    }
+            case Types.SMALLINT:
 
-                    if (!field.isUnsigned() || intVal >= 0) {
-                        return String.valueOf(intVal);
-                    }
+                int intVal = getNativeInt(columnIndex, false);
 
-                    intVal = intVal & 0xffff;
+                if (this.wasNullFlag) {
+                    return null;
+                }
 
+                if (!field.isUnsigned() || intVal >= 0) {
                     return String.valueOf(intVal);
+                }
 
-                case Types.INTEGER:
-                    intVal = getNativeInt(columnIndex, false);
+                intVal = intVal & 0xffff;
 
-                    if (this.wasNullFlag) {
-                        return null;
-                    }
+                return String.valueOf(intVal);
 
-                    if (!field.isUnsigned() || intVal >= 0 || field.getMysqlType() == MysqlDefs.FIELD_TYPE_INT24) {
-
-                        return String.valueOf(intVal);
-                    }
+            case Types.INTEGER:
+                intVal = getNativeInt(columnIndex, false);
 
-                    long longVal = intVal & 0xffffffffL;
+                if (this.wasNullFlag) {
+                    return null;
+                }
 
-                    return String.valueOf(longVal);
+                if (!field.isUnsigned() || intVal >= 0 || field.getMysqlType() == MysqlDefs.FIELD_TYPE_INT24) {
 
-                case Types.BIGINT:
+                    return String.valueOf(intVal);
+                }
 
-                    if (!field.isUnsigned()) {
-                        longVal = getNativeLong(columnIndex, false, true);
+                long longVal = intVal & 0xffffffffL;
 
-                        if (this.wasNullFlag) {
-                            return null;
-                        }
+                return String.valueOf(longVal);
 
-                        return String.valueOf(longVal);
-                    }
+            case Types.BIGINT:
 
-                    longVal = getNativeLong(columnIndex, false, false);
+                if (!field.isUnsigned()) {
+                    longVal = getNativeLong(columnIndex, false, true);
 
                     if (this.wasNullFlag) {
                         return null;
                     }
 
-                    return String.valueOf(convertLongToUlong(longVal));
-                case Types.REAL:
-                    float floatVal = getNativeFloat(columnIndex);
+                    return String.valueOf(longVal);
+                }
 
-                    if (this.wasNullFlag) {
-                        return null;
-                    }
+                longVal = getNativeLong(columnIndex, false, false);
+
+                if (this.wasNullFlag) {
+                    return null;
+                }
 
-                    return String.valueOf(floatVal);
+                return String.valueOf(convertLongToUlong(longVal));
+            case Types.REAL:
+                float floatVal = getNativeFloat(columnIndex);
 
-                case Types.FLOAT:
-                case Types.DOUBLE:
-                    double doubleVal = getNativeDouble(columnIndex);
+                if (this.wasNullFlag) {
+                    return null;
+                }
 
-                    if (this.wasNullFlag) {
-                        return null;
-                    }
+                return String.valueOf(floatVal);
 
-                    return String.valueOf(doubleVal);
+            case Types.FLOAT:
+            case Types.DOUBLE:
+                double doubleVal = getNativeDouble(columnIndex);
 
-                case Types.DECIMAL:
-                case Types.NUMERIC:
-                    String stringVal = StringUtils.toAsciiString(this.thisRow.getColumnValue(columnIndex - 1));
+                if (this.wasNullFlag) {
+                    return null;
+                }
 
-                    BigDecimal val;
+                return String.valueOf(doubleVal);
 
-                    if (stringVal != null) {
-                        this.wasNullFlag = false;
+            case Types.DECIMAL:
+            case Types.NUMERIC:
+                String stringVal = StringUtils.toAsciiString(this.thisRow.getColumnValue(columnIndex - 1));
 
-                        if (stringVal.length() == 0) {
-                            val = new BigDecimal(0);
+                BigDecimal val;
 
-                            return val.toString();
-                        }
+                if (stringVal != null) {
+                    this.wasNullFlag = false;
 
-                        try {
-                            val = new BigDecimal(stringVal);
-                        } catch (NumberFormatException ex) {
-                            throw SQLError.createSQLException(
-                                    Messages.getString("ResultSet.Bad_format_for_BigDecimal", new Object[] { stringVal, Integer.valueOf(columnIndex) }),
-                                    SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
-                        }
+                    if (stringVal.length() == 0) {
+                        val = new BigDecimal(0);
 
                         return val.toString();
                     }
 
-                    this.wasNullFlag = true;
+                    try {
+                        val = new BigDecimal(stringVal);
+                    } catch (NumberFormatException ex) {
+                        throw SQLError.createSQLException(
+                                Messages.getString("ResultSet.Bad_format_for_BigDecimal", new Object[] { stringVal, Integer.valueOf(columnIndex) }),
+                                SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+                    }
 
-                    return null;
+                    return val.toString();
+                }
 
-                case Types.CHAR:
-                case Types.VARCHAR:
-                case Types.LONGVARCHAR:
+                this.wasNullFlag = true;
 
-                    return extractStringFromNativeColumn(columnIndex, mysqlType);
-                case Types.BINARY:
-                case Types.VARBINARY:
-                case Types.LONGVARBINARY:
-
-                    if (!field.isBlob()) {
-                        return extractStringFromNativeColumn(columnIndex, mysqlType);
-                    } else if (!field.isBinary()) {
-                        return extractStringFromNativeColumn(columnIndex, mysqlType);
-                    } else {
-                        byte[] data = getBytes(columnIndex);
-                        Object obj = data;
+                return null;
 
-                        if ((data != null) && (data.length >= 2)) {
-                            if ((data[0] == -84) && (data[1] == -19)) {
-                                // Serialized object?
-                                try {
-                                    ByteArrayInputStream bytesIn = new ByteArrayInputStream(data);
-                                    ObjectInputStream objIn = new ObjectInputStream(bytesIn);
-                                    obj = objIn.readObject();
-                                    objIn.close();
-                                    bytesIn.close();
-                                } catch (ClassNotFoundException cnfe) {
-                                    throw SQLError.createSQLException(
-                                            Messages.getString("ResultSet.Class_not_found___91") + cnfe.toString()
-                                                    + Messages.getString("ResultSet._while_reading_serialized_object_92"), getExceptionInterceptor());
-                                } catch (IOException ex) {
-                                    obj = data; // not serialized?
-                                }
-                            }
+            case Types.CHAR:
+            case Types.VARCHAR:
+            case Types.LONGVARCHAR:
+
+                return extractStringFromNativeColumn(columnIndex, mysqlType);
+            case Types.BINARY:
+            case Types.VARBINARY:
+            case Types.LONGVARBINARY:
 
-                            return obj.toString();
+                if (!field.isBlob()) {
+                    return extractStringFromNativeColumn(columnIndex, mysqlType);
+                } else if (!field.isBinary()) {
+                    return extractStringFromNativeColumn(columnIndex, mysqlType);
+                } else {
+                    byte[] data = getBytes(columnIndex);
+                    Object obj = data;
+
+                    if ((data != null) && (data.length >= 2)) {
+                        if ((data[0] == -84) && (data[1] == -19)) {
+                            // Serialized object?
+                            try {
+                                ByteArrayInputStream bytesIn = new ByteArrayInputStream(data);
+                                ObjectInputStream objIn = new ObjectInputStream(bytesIn);
+                                obj = objIn.readObject();
+                                objIn.close();
+                                bytesIn.close();
+                            } catch (ClassNotFoundException cnfe) {
+                                throw SQLError.createSQLException(
+                                        Messages.getString("ResultSet.Class_not_found___91") + cnfe.toString()
+                                                + Messages.getString("ResultSet._while_reading_serialized_object_92"), getExceptionInterceptor());
+                            } catch (IOException ex) {
+                                obj = data; // not serialized?
+                            }
                         }
 
-                        return extractStringFromNativeColumn(columnIndex, mysqlType);
+                        return obj.toString();
                     }
 
-                case Types.DATE:
+                    return extractStringFromNativeColumn(columnIndex, mysqlType);
+                }
 
-                    // The YEAR datatype needs to be handled differently here.
-                    if (mysqlType == MysqlDefs.FIELD_TYPE_YEAR) {
-                        short shortVal = getNativeShort(columnIndex);
+            case Types.DATE:
 
-                        if (!this.connection.getYearIsDateType()) {
+                // The YEAR datatype needs to be handled differently here.
+                if (mysqlType == MysqlDefs.FIELD_TYPE_YEAR) {
+                    short shortVal = getNativeShort(columnIndex);
 
-                            if (this.wasNullFlag) {
-                                return null;
-                            }
+                    if (!this.connection.getYearIsDateType()) {
 
-                            return String.valueOf(shortVal);
+                        if (this.wasNullFlag) {
+                            return null;
                         }
 
-                        if (field.getLength() == 2) {
+                        return String.valueOf(shortVal);
+                    }
 
-                            if (shortVal <= 69) {
-                                shortVal = (short) (shortVal + 100);
-                            }
+                    if (field.getLength() == 2) {
 
-                            shortVal += 1900;
+                        if (shortVal <= 69) {
+                            shortVal = (short) (shortVal + 100);
                         }
 
-                        return fastDateCreate(null, shortVal, 1, 1).toString();
-
+                        shortVal += 1900;
                     }
 
-                    if (this.connection.getNoDatetimeStringSync()) {
-                        byte[] asBytes = getNativeBytes(columnIndex, true);
+                    return fastDateCreate(null, shortVal, 1, 1).toString();
 
-                        if (asBytes == null) {
-                            return null;
-                        }
+                }
 
-                        if (asBytes.length == 0 /*
-                                                 * newer versions of the server
-                                                 * seem to do this when they see all-zero datetime data
-                                                 */) {
-                            return "0000-00-00";
-                        }
+                if (this.connection.getNoDatetimeStringSync()) {
+                    byte[] asBytes = getNativeBytes(columnIndex, true);
 
-                        int year = (asBytes[0] & 0xff) | ((asBytes[1] & 0xff) << 8);
-                        int month = asBytes[2];
-                        int day = asBytes[3];
+                    if (asBytes == null) {
+                        return null;
+                    }
 
-                        if (year == 0 && month == 0 && day == 0) {
-                            return "0000-00-00";
-                        }
+                    if (asBytes.length == 0 /*
+                                             * newer versions of the server
+                                             * seem to do this when they see all-zero datetime data
+                                             */) {
+                        return "0000-00-00";
                     }
 
-                    Date dt = getNativeDate(columnIndex);
+                    int year = (asBytes[0] & 0xff) | ((asBytes[1] & 0xff) << 8);
+                    int month = asBytes[2];
+                    int day = asBytes[3];
 
-                    if (dt == null) {
-                        return null;
+                    if (year == 0 && month == 0 && day == 0) {
+                        return "0000-00-00";
                     }
+                }
 
-                    return String.valueOf(dt);
+                Date dt = getNativeDate(columnIndex);
 
-                case Types.TIME:
-                    Time tm = getNativeTime(columnIndex, null, this.connection.getDefaultTimeZone(), false);
+                if (dt == null) {
+                    return null;
+                }
 
-                    if (tm == null) {
-                        return null;
-                    }
+                return String.valueOf(dt);
 
-                    return String.valueOf(tm);
+            case Types.TIME:
+                Time tm = getNativeTime(columnIndex, null, this.connection.getDefaultTimeZone(), false);
 
-                case Types.TIMESTAMP:
-                    if (this.connection.getNoDatetimeStringSync()) {
-                        byte[] asBytes = getNativeBytes(columnIndex, true);
+                if (tm == null) {
+                    return null;
+                }
 
-                        if (asBytes == null) {
-                            return null;
-                        }
+                return String.valueOf(tm);
 
-                        if (asBytes.length == 0 /*
-                                                 * newer versions of the server
-                                                 * seem to do this when they see all-zero datetime data
-                                                 */) {
-                            return "0000-00-00 00:00:00";
-                        }
+            case Types.TIMESTAMP:
+                if (this.connection.getNoDatetimeStringSync()) {
+                    byte[] asBytes = getNativeBytes(columnIndex, true);
 
-                        int year = (asBytes[0] & 0xff) | ((asBytes[1] & 0xff) << 8);
-                        int month = asBytes[2];
-                        int day = asBytes[3];
+                    if (asBytes == null) {
+                        return null;
+                    }
 
-                        if (year == 0 && month == 0 && day == 0) {
-                            return "0000-00-00 00:00:00";
-                        }
+                    if (asBytes.length == 0 /*
+                                             * newer versions of the server
+                                             * seem to do this when they see all-zero datetime data
+                                             */) {
+                        return "0000-00-00 00:00:00";
                     }
 
-                    Timestamp tstamp = getNativeTimestamp(columnIndex, null, this.connection.getDefaultTimeZone(), false);
+                    int year = (asBytes[0] & 0xff) | ((asBytes[1] & 0xff) << 8);
+                    int month = asBytes[2];
+                    int day = asBytes[3];
 
-                    if (tstamp == null) {
-                        return null;
+                    if (year == 0 && month == 0 && day == 0) {
+                        return "0000-00-00 00:00:00";
                     }
+                }
 
-                    String result = String.valueOf(tstamp);
+                Timestamp tstamp = getNativeTimestamp(columnIndex, null, this.connection.getDefaultTimeZone(), false);
 
-                    if (!this.connection.getNoDatetimeStringSync()) {
-                        return result;
-                    }
+                if (tstamp == null) {
+                    return null;
+                }
 
-                    if (result.endsWith(".0")) {
-                        return result.substring(0, result.length() - 2);
-                    }
+                String result = String.valueOf(tstamp);
 
-                default:
-                    return extractStringFromNativeColumn(columnIndex, mysqlType);
-            }
+                if (!this.connection.getNoDatetimeStringSync()) {
+                    return result;
+                }
+
+                if (result.endsWith(".0")) {
+                    return result.substring(0, result.length() - 2);
+                }
+
+            default:
+                return extractStringFromNativeColumn(columnIndex, mysqlType);
         }
     }
 
@@ -5906,7 +6155,7 @@ public class ResultSetImpl implements ResultSetInternalMethods {
                 }
 
                 if (!this.useLegacyDatetimeCode) {
-                    return TimeUtil.fastTimestampCreate(tz, year, month, day, hour, minutes, seconds, nanos);
+                    return TimeUtil.fastTimestampCreate(this.connection, tz, year, month, day, hour, minutes, seconds, nanos);
                 }
 
                 return TimeUtil.changeTimezone(this.connection, sessionCalendar, targetCalendar,
@@ -6323,46 +6572,61 @@ public class ResultSetImpl implements ResultSetInternalMethods {
      *                if a database access error occurs
      */
     public boolean next() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            if (this.onInsertRow) {
-                this.onInsertRow = false;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return nextLocked();
             }
+        }
 
-            if (this.doingUpdates) {
-                this.doingUpdates = false;
-            }
+        connectionLock.lock();
 
-            boolean b;
+        try {
+            return nextLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            if (!reallyResult()) {
-                throw SQLError.createSQLException(Messages.getString("ResultSet.ResultSet_is_from_UPDATE._No_Data_115"), SQLError.SQL_STATE_GENERAL_ERROR,
-                        getExceptionInterceptor());
-            }
+    private boolean nextLocked() throws SQLException {
+        if (this.onInsertRow) {
+            this.onInsertRow = false;
+        }
 
-            if (this.thisRow != null) {
-                this.thisRow.closeOpenStreams();
-            }
+        if (this.doingUpdates) {
+            this.doingUpdates = false;
+        }
 
-            if (this.rowData.size() == 0) {
+        boolean b;
+
+        if (!reallyResult()) {
+            throw SQLError.createSQLException(Messages.getString("ResultSet.ResultSet_is_from_UPDATE._No_Data_115"), SQLError.SQL_STATE_GENERAL_ERROR,
+                    getExceptionInterceptor());
+        }
+
+        if (this.thisRow != null) {
+            this.thisRow.closeOpenStreams();
+        }
+
+        if (this.rowData.size() == 0) {
+            b = false;
+        } else {
+            this.thisRow = this.rowData.next();
+
+            if (this.thisRow == null) {
                 b = false;
             } else {
-                this.thisRow = this.rowData.next();
-
-                if (this.thisRow == null) {
-                    b = false;
-                } else {
-                    clearWarnings();
+                clearWarnings();
 
-                    b = true;
+                b = true;
 
-                }
             }
+        }
 
-            setRowPositionValidity();
+        setRowPositionValidity();
 
-            return b;
-        }
+        return b;
     }
 
     private int parseIntAsDouble(int columnIndex, String val) throws NumberFormatException, SQLException {
@@ -6381,6 +6645,21 @@ public class ResultSetImpl implements ResultSetInternalMethods {
         return (int) valueAsDouble;
     }
 
+    /**
+     * Same as parseIntAsDouble(), for the value of the given column parsed in place from the row data.
+     */
+    private int getIntAsDouble(int columnIndex) throws NumberFormatException, SQLException {
+        double valueAsDouble = this.thisRow.getDouble(columnIndex - 1);
+
+        if (this.jdbcCompliantTruncationForReads) {
+            if (valueAsDouble < Integer.MIN_VALUE || valueAsDouble > Integer.MAX_VALUE) {
+                throwRangeException(String.valueOf(valueAsDouble), columnIndex, Types.INTEGER);
+            }
+        }
+
+        return (int) valueAsDouble;
+    }
+
     private int getIntWithOverflowCheck(int columnIndex) throws SQLException {
         int intValue = this.thisRow.getInt(columnIndex);
 
@@ -6392,16 +6671,11 @@ public class ResultSetImpl implements ResultSetInternalMethods {
     private void checkForIntegerTruncation(int columnIndex, byte[] valueAsBytes, int intValue) throws SQLException {
         if (this.jdbcCompliantTruncationForReads) {
             if (intValue == Integer.MIN_VALUE || intValue == Integer.MAX_VALUE) {
-                String valueAsString = null;
-
-                if (valueAsBytes == null) {
-                    valueAsString = this.thisRow.getString(columnIndex, this.fields[columnIndex].getEncoding(), this.connection);
-                }
-
-                long valueAsLong = Long.parseLong(valueAsString == null ? StringUtils.toString(valueAsBytes) : valueAsString);
+                long valueAsLong = valueAsBytes == null ? this.thisRow.getLong(columnIndex) : StringUtils.getLong(valueAsBytes);
 
                 if (valueAsLong < Integer.MIN_VALUE || valueAsLong > Integer.MAX_VALUE) {
-                    throwRangeException(valueAsString == null ? StringUtils.toString(valueAsBytes) : valueAsString, columnIndex + 1, Types.INTEGER);
+                    throwRangeException(valueAsBytes == null ? this.thisRow.getString(columnIndex, this.fields[columnIndex].getEncoding(), this.connection)
+                            : StringUtils.toString(valueAsBytes), columnIndex + 1, Types.INTEGER);
                 }
             }
         }
@@ -6423,6 +6697,22 @@ public class ResultSetImpl implements ResultSetInternalMethods {
         return (long) valueAsDouble;
     }
 
+    /**
+     * Same as parseLongAsDouble(), for the value of the given column parsed in place from the row data.
+     */
+    private long getLongAsDouble(int columnIndexZeroBased) throws NumberFormatException, SQLException {
+        double valueAsDouble = this.thisRow.getDouble(columnIndexZeroBased);
+
+        if (this.jdbcCompliantTruncationForReads) {
+            if (valueAsDouble < Long.MIN_VALUE || valueAsDouble > Long.MAX_VALUE) {
+                throwRangeException(this.thisRow.getString(columnIndexZeroBased, this.fields[columnIndexZeroBased].getEncoding(), this.connection),
+                        columnIndexZeroBased + 1, Types.BIGINT);
+            }
+        }
+
+        return (long) valueAsDouble;
+    }
+
     private long getLongWithOverflowCheck(int columnIndexZeroBased, boolean doOverflowCheck) throws SQLException {
         long longValue = this.thisRow.getLong(columnIndexZeroBased);
 
@@ -6466,16 +6756,11 @@ public class ResultSetImpl implements ResultSetInternalMethods {
 
     private void checkForLongTruncation(int columnIndexZeroBased, byte[] valueAsBytes, long longValue) throws SQLException {
         if (longValue == Long.MIN_VALUE || longValue == Long.MAX_VALUE) {
-            String valueAsString = null;
-
-            if (valueAsBytes == null) {
-                valueAsString = this.thisRow.getString(columnIndexZeroBased, this.fields[columnIndexZeroBased].getEncoding(), this.connection);
-            }
-
-            double valueAsDouble = Double.parseDouble(valueAsString == null ? StringUtils.toString(valueAsBytes) : valueAsString);
+            double valueAsDouble = valueAsBytes == null ? this.thisRow.getDouble(columnIndexZeroBased) : StringUtils.getDouble(valueAsBytes);
 
             if (valueAsDouble < Long.MIN_VALUE || valueAsDouble > Long.MAX_VALUE) {
-                throwRangeException(valueAsString == null ? StringUtils.toString(valueAsBytes) : valueAsString, columnIndexZeroBased + 1, Types.BIGINT);
+                throwRangeException(valueAsBytes == null ? this.thisRow.getString(columnIndexZeroBased, this.fields[columnIndexZeroBased].getEncoding(),
+                        this.connection) : StringUtils.toString(valueAsBytes), columnIndexZeroBased + 1, Types.BIGINT);
             }
         }
     }
@@ -6632,128 +6917,145 @@ public class ResultSetImpl implements ResultSetInternalMethods {
             return; // already closed
         }
 
-        synchronized (locallyScopedConn.getConnectionMutex()) {
+        Lock connectionLock = locallyScopedConn.getConnectionLock();
 
-            // additional check in case ResultSet was closed
-            // while current thread was waiting for lock
-            if (this.isClosed) {
-                return;
+        if (connectionLock == null) {
+            synchronized (locallyScopedConn.getConnectionMutex()) {
+                realCloseLocked(calledExplicitly);
             }
 
-            try {
-                if (this.useUsageAdvisor) {
+            return;
+        }
 
-                    // Report on result set closed by driver instead of application
+        connectionLock.lock();
 
-                    if (!calledExplicitly) {
-                        this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", (this.owningStatement == null) ? "N/A"
-                                : this.owningStatement.currentCatalog, this.connectionId, (this.owningStatement == null) ? (-1) : this.owningStatement.getId(),
-                                this.resultId, System.currentTimeMillis(), 0, Constants.MILLIS_I18N, null, this.pointOfOrigin, Messages
-                                        .getString("ResultSet.ResultSet_implicitly_closed_by_driver")));
-                    }
+        try {
+            realCloseLocked(calledExplicitly);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void realCloseLocked(boolean calledExplicitly) throws SQLException {
+        // additional check in case ResultSet was closed
+        // while current thread was waiting for lock
+        if (this.isClosed) {
+            return;
+        }
 
-                    if (this.rowData instanceof RowDataStatic) {
+        try {
+            if (this.useUsageAdvisor) {
 
-                        // Report on possibly too-large result sets
+                // Report on result set closed by driver instead of application
 
-                        if (this.rowData.size() > this.connection.getResultSetSizeThreshold()) {
-                            this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", (this.owningStatement == null) ? Messages
-                                    .getString("ResultSet.N/A_159") : this.owningStatement.currentCatalog, this.connectionId,
-                                    (this.owningStatement == null) ? (-1) : this.owningStatement.getId(), this.resultId, System.currentTimeMillis(), 0,
-                                    Constants.MILLIS_I18N, null, this.pointOfOrigin, Messages.getString("ResultSet.Too_Large_Result_Set", new Object[] {
-                                            Integer.valueOf(this.rowData.size()), Integer.valueOf(this.connection.getResultSetSizeThreshold()) })));
-                        }
+                if (!calledExplicitly) {
+                    this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", (this.owningStatement == null) ? "N/A"
+                            : this.owningStatement.currentCatalog, this.connectionId, (this.owningStatement == null) ? (-1) : this.owningStatement.getId(),
+                            this.resultId, System.currentTimeMillis(), 0, Constants.MILLIS_I18N, null, this.pointOfOrigin, Messages
+                                    .getString("ResultSet.ResultSet_implicitly_closed_by_driver")));
+                }
 
-                        if (!isLast() && !isAfterLast() && (this.rowData.size() != 0)) {
+                if (this.rowData instanceof RowDataStatic) {
 
-                            this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", (this.owningStatement == null) ? Messages
-                                    .getString("ResultSet.N/A_159") : this.owningStatement.currentCatalog, this.connectionId,
-                                    (this.owningStatement == null) ? (-1) : this.owningStatement.getId(), this.resultId, System.currentTimeMillis(), 0,
-                                    Constants.MILLIS_I18N, null, this.pointOfOrigin, Messages.getString(
-                                            "ResultSet.Possible_incomplete_traversal_of_result_set",
-                                            new Object[] { Integer.valueOf(getRow()), Integer.valueOf(this.rowData.size()) })));
-                        }
+                    // Report on possibly too-large result sets
+
+                    if (this.rowData.size() > this.connection.getResultSetSizeThreshold()) {
+                        this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", (this.owningStatement == null) ? Messages
+                                .getString("ResultSet.N/A_159") : this.owningStatement.currentCatalog, this.connectionId,
+                                (this.owningStatement == null) ? (-1) : this.owningStatement.getId(), this.resultId, System.currentTimeMillis(), 0,
+                                Constants.MILLIS_I18N, null, this.pointOfOrigin, Messages.getString("ResultSet.Too_Large_Result_Set", new Object[] {
+                                        Integer.valueOf(this.rowData.size()), Integer.valueOf(this.connection.getResultSetSizeThreshold()) })));
                     }
 
-                    //
-                    // Report on any columns that were selected but not referenced
-                    //
+                    if (!isLast() && !isAfterLast() && (this.rowData.size() != 0)) {
+
+                        this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", (this.owningStatement == null) ? Messages
+                                .getString("ResultSet.N/A_159") : this.owningStatement.currentCatalog, this.connectionId,
+                                (this.owningStatement == null) ? (-1) : this.owningStatement.getId(), this.resultId, System.currentTimeMillis(), 0,
+                                Constants.MILLIS_I18N, null, this.pointOfOrigin, Messages.getString(
+                                        "ResultSet.Possible_incomplete_traversal_of_result_set",
+                                        new Object[] { Integer.valueOf(getRow()), Integer.valueOf(this.rowData.size()) })));
+                    }
+                }
 
-                    if (this.columnUsed.length > 0 && !this.rowData.wasEmpty()) {
-                        StringBuilder buf = new StringBuilder(Messages.getString("ResultSet.The_following_columns_were_never_referenced"));
+                //
+                // Report on any columns that were selected but not referenced
+                //
 
-                        boolean issueWarn = false;
+                if (this.columnUsed.length > 0 && !this.rowData.wasEmpty()) {
+                    StringBuilder buf = new StringBuilder(Messages.getString("ResultSet.The_following_columns_were_never_referenced"));
 
-                        for (int i = 0; i < this.columnUsed.length; i++) {
-                            if (!this.columnUsed[i]) {
-                                if (!issueWarn) {
-                                    issueWarn = true;
-                                } else {
-                                    buf.append(", ");
-                                }
+                    boolean issueWarn = false;
 
-                                buf.append(this.fields[i].getFullName());
+                    for (int i = 0; i < this.columnUsed.length; i++) {
+                        if (!this.columnUsed[i]) {
+                            if (!issueWarn) {
+                                issueWarn = true;
+                            } else {
+                                buf.append(", ");
                             }
-                        }
 
-                        if (issueWarn) {
-                            this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", (this.owningStatement == null) ? "N/A"
-                                    : this.owningStatement.currentCatalog, this.connectionId, (this.owningStatement == null) ? (-1) : this.owningStatement
-                                    .getId(), 0, System.currentTimeMillis(), 0, Constants.MILLIS_I18N, null, this.pointOfOrigin, buf.toString()));
+                            buf.append(this.fields[i].getFullName());
                         }
                     }
+
+                    if (issueWarn) {
+                        this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", (this.owningStatement == null) ? "N/A"
+                                : this.owningStatement.currentCatalog, this.connectionId, (this.owningStatement == null) ? (-1) : this.owningStatement
+                                .getId(), 0, System.currentTimeMillis(), 0, Constants.MILLIS_I18N, null, this.pointOfOrigin, buf.toString()));
+                    }
                 }
-            } finally {
-                if (this.owningStatement != null && calledExplicitly) {
-                    this.owningStatement.removeOpenResultSet(this);
-                }
+            }
+        } finally {
+            if (this.owningStatement != null && calledExplicitly) {
+                this.owningStatement.removeOpenResultSet(this);
+            }
 
-                SQLException exceptionDuringClose = null;
+            SQLException exceptionDuringClose = null;
 
-                if (this.rowData != null) {
-                    try {
-                        this.rowData.close();
-                    } catch (SQLException sqlEx) {
-                        exceptionDuringClose = sqlEx;
-                    }
+            if (this.rowData != null) {
+                try {
+                    this.rowData.close();
+                } catch (SQLException sqlEx) {
+                    exceptionDuringClose = sqlEx;
                 }
+            }
 
-                if (this.statementUsedForFetchingRows != null) {
-                    try {
-                        this.statementUsedForFetchingRows.realClose(true, false);
-                    } catch (SQLException sqlEx) {
-                        if (exceptionDuringClose != null) {
-                            exceptionDuringClose.setNextException(sqlEx);
-                        } else {
-                            exceptionDuringClose = sqlEx;
-                        }
+            if (this.statementUsedForFetchingRows != null) {
+                try {
+                    this.statementUsedForFetchingRows.realClose(true, false);
+                } catch (SQLException sqlEx) {
+                    if (exceptionDuringClose != null) {
+                        exceptionDuringClose.setNextException(sqlEx);
+                    } else {
+                        exceptionDuringClose = sqlEx;
                     }
                 }
+            }
 
-                this.rowData = null;
-                this.fields = null;
-                this.columnLabelToIndex = null;
-                this.fullColumnNameToIndex = null;
-                this.columnToIndexCache = null;
-                this.eventSink = null;
-                this.warningChain = null;
+            this.rowData = null;
+            this.fields = null;
+            this.columnLabelToIndex = null;
+            this.fullColumnNameToIndex = null;
+            this.columnToIndexCache = null;
+            this.eventSink = null;
+            this.warningChain = null;
 
-                if (!this.retainOwningStatement) {
-                    this.owningStatement = null;
-                }
+            if (!this.retainOwningStatement) {
+                this.owningStatement = null;
+            }
 
-                this.catalog = null;
-                this.serverInfo = null;
-                this.thisRow = null;
-                this.fastDefaultCal = null;
-                this.fastClientCal = null;
-                this.connection = null;
+            this.catalog = null;
+            this.serverInfo = null;
+            this.thisRow = null;
+            this.fastDefaultCal = null;
+            this.fastClientCal = null;
+            this.connection = null;
 
-                this.isClosed = true;
+            this.isClosed = true;
 
-                if (exceptionDuringClose != null) {
-                    throw exceptionDuringClose;
-                }
+            if (exceptionDuringClose != null) {
+                throw exceptionDuringClose;
             }
         }
     }
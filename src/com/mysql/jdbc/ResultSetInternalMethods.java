@@ -173,4 +173,15 @@ public interface ResultSetInternalMethods extends java.sql.ResultSet {
     public void initializeFromCachedMetaData(CachedResultSetMetaData cachedMetaData);
 
     public int getBytesSize() throws SQLException;
+
+    /**
+     * Reads up to batch.getCapacity() rows, starting with the one after the current row, into the column arrays of the given batch, decoding the values
+     * straight from the rows as they were read off the network. The result set is left positioned on the last row read.
+     * 
+     * @param batch
+     *            the batch to fill, its previous contents are discarded
+     * @return the number of rows read, 0 once the result set is exhausted
+     * @throws SQLException
+     */
+    public int fetchColumnBatch(ColumnBatch batch) throws SQLException;
 }
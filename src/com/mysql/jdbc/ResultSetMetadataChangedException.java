@@ -0,0 +1,40 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.sql.SQLException;
+
+/**
+ * Thrown when the server sent a result set without column definitions and the driver has none it knows to describe its rows, e.g. because the session
+ * variable 'resultset_metadata' was set by the application, or the metadata passed to MysqlIO.skipResultsetMetadataOnNextCommand() turned out to be out of
+ * date. The rows have been read and discarded, but the statement was executed.
+ */
+class ResultSetMetadataChangedException extends SQLException {
+
+    static final long serialVersionUID = -2870934786712587349L;
+
+    ResultSetMetadataChangedException() {
+        super(Messages.getString("ResultSetMetadataChangedException.0"), SQLError.SQL_STATE_GENERAL_ERROR);
+    }
+}
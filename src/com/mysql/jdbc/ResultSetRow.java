@@ -25,6 +25,7 @@ package com.mysql.jdbc;
 
 import java.io.InputStream;
 import java.io.Reader;
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.SQLException;
 import java.sql.SQLWarning;
@@ -297,6 +298,31 @@ public abstract class ResultSetRow {
      */
     public abstract long getLong(int columnIndex) throws SQLException;
 
+    /**
+     * Returns the value at the given column (index starts at 0) as a double,
+     * parsed in place from the row data. *
+     * 
+     * @param index
+     *            of the column value (starting at 0) to return.
+     * @return the value for the given column (returns 0 if NULL, use isNull()
+     *         to determine if the value was actually NULL)
+     * @throws SQLException
+     *             if an error occurs while retrieving the value.
+     */
+    public abstract double getDouble(int columnIndex) throws SQLException;
+
+    /**
+     * Returns the value at the given column (index starts at 0) as a
+     * BigDecimal, parsed in place from the row data. *
+     * 
+     * @param index
+     *            of the column value (starting at 0) to return.
+     * @return the value for the given column (returns null if NULL)
+     * @throws SQLException
+     *             if an error occurs while retrieving the value.
+     */
+    public abstract BigDecimal getBigDecimal(int columnIndex) throws SQLException;
+
     /**
      * @param columnIndex
      * @param bits
@@ -473,7 +499,7 @@ public abstract class ResultSetRow {
                     }
 
                     if (!rs.useLegacyDatetimeCode) {
-                        return TimeUtil.fastTimestampCreate(tz, year, month, day, hour, minute, seconds, nanos);
+                        return TimeUtil.fastTimestampCreate(conn, tz, year, month, day, hour, minute, seconds, nanos);
                     }
 
                     Timestamp ts = rs.fastTimestampCreate(rs.getCalendarInstanceForSessionOrNew(), year, month, day, hour, minute, seconds, nanos);
@@ -625,7 +651,7 @@ public abstract class ResultSetRow {
         }
 
         if (!rs.useLegacyDatetimeCode) {
-            return TimeUtil.fastTimestampCreate(tz, year, month, day, hour, minute, seconds, nanos);
+            return TimeUtil.fastTimestampCreate(conn, tz, year, month, day, hour, minute, seconds, nanos);
         }
 
         Calendar sessionCalendar = conn.getUseJDBCCompliantTimezoneShift() ? conn.getUtcCalendar() : rs.getCalendarInstanceForSessionOrNew();
@@ -1157,7 +1183,7 @@ public abstract class ResultSetRow {
                 }
 
                 if (!rs.useLegacyDatetimeCode) {
-                    return TimeUtil.fastTimestampCreate(tz, year, month, day, hour, minutes, seconds, nanos);
+                    return TimeUtil.fastTimestampCreate(conn, tz, year, month, day, hour, minutes, seconds, nanos);
                 }
 
                 return TimeUtil.changeTimezone(conn, sessionCalendar, targetCalendar,
@@ -26,6 +26,7 @@ package com.mysql.jdbc;
 import java.sql.SQLException;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.locks.Lock;
 
 /**
  * Model for result set data backed by a cursor. Only works for forward-only result sets (but still works with updatable concurrency).
@@ -98,6 +99,29 @@ public class RowDataCursor implements RowData {
 
     private boolean useBufferRowExplicit = false;
 
+    /**
+     * Should the next rows be requested as soon as the current ones were read ("prefetchCursorRows")?
+     */
+    private boolean prefetchRows = false;
+
+    /**
+     * Have the next rows been requested, and not been read yet?
+     */
+    private boolean prefetchPending = false;
+
+    private Field[] prefetchMetadata;
+
+    private int prefetchSize;
+
+    /**
+     * The next rows, when they had to be read before the application asked for them, and whether they were the last ones
+     */
+    private List<ResultSetRow> prefetchedRows = null;
+
+    private boolean prefetchedLastRow = false;
+
+    private SQLException prefetchException = null;
+
     /**
      * Creates a new cursor-backed row provider.
      * 
@@ -115,7 +139,7 @@ public class RowDataCursor implements RowData {
         this.statementIdOnServer = creatingStatement.getServerStatementId();
         this.prepStmt = creatingStatement;
         this.useBufferRowExplicit = MysqlIO.useBufferRowExplicit(this.metadata);
-
+        this.prefetchRows = ioChannel.connection.getPrefetchCursorRows();
     }
 
     /**
@@ -269,6 +293,13 @@ public class RowDataCursor implements RowData {
      */
     public void close() throws SQLException {
 
+        if (this.prefetchPending) {
+            // whatever command comes next mustn't find them on the wire
+            readPrefetchedRows();
+        }
+
+        this.prefetchedRows = null;
+        this.prefetchException = null;
         this.metadata = null;
         this.owner = null;
     }
@@ -372,36 +403,100 @@ public class RowDataCursor implements RowData {
             return;
         }
 
-        synchronized (this.owner.connection.getConnectionMutex()) {
-            boolean oldFirstFetchCompleted = this.firstFetchCompleted;
+        Lock connectionLock = this.owner.connection.getConnectionLock();
 
-            if (!this.firstFetchCompleted) {
-                this.firstFetchCompleted = true;
+        if (connectionLock == null) {
+            synchronized (this.owner.connection.getConnectionMutex()) {
+                fetchMoreRowsLocked();
             }
 
-            int numRowsToFetch = this.owner.getFetchSize();
+            return;
+        }
 
-            if (numRowsToFetch == 0) {
-                numRowsToFetch = this.prepStmt.getFetchSize();
-            }
+        connectionLock.lock();
 
-            if (numRowsToFetch == Integer.MIN_VALUE) {
-                // Handle the case where the user used 'old' streaming result sets
+        try {
+            fetchMoreRowsLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                numRowsToFetch = 1;
+    private void fetchMoreRowsLocked() throws SQLException {
+        boolean oldFirstFetchCompleted = this.firstFetchCompleted;
+
+        if (!this.firstFetchCompleted) {
+            this.firstFetchCompleted = true;
+        }
+
+        int numRowsToFetch = this.owner.getFetchSize();
+
+        if (numRowsToFetch == 0) {
+            numRowsToFetch = this.prepStmt.getFetchSize();
+        }
+
+        if (numRowsToFetch == Integer.MIN_VALUE) {
+            // Handle the case where the user used 'old' streaming result sets
+
+            numRowsToFetch = 1;
+        }
+
+        boolean lastRowSent;
+
+        if (this.prefetchPending) {
+            readPrefetchedRows();
+        }
+
+        if (this.prefetchedRows != null || this.prefetchException != null) {
+            List<ResultSetRow> rows = this.prefetchedRows;
+            SQLException sqlEx = this.prefetchException;
+
+            this.prefetchedRows = null;
+            this.prefetchException = null;
+
+            if (sqlEx != null) {
+                throw sqlEx;
             }
 
+            this.fetchedRows = rows;
+            lastRowSent = this.prefetchedLastRow;
+        } else {
             this.fetchedRows = this.mysql.fetchRowsViaCursor(this.fetchedRows, this.statementIdOnServer, this.metadata, numRowsToFetch,
                     this.useBufferRowExplicit);
-            this.currentPositionInFetchedRows = BEFORE_START_OF_ROWS;
 
-            if ((this.mysql.getServerStatus() & SERVER_STATUS_LAST_ROW_SENT) != 0) {
-                this.lastRowFetched = true;
+            lastRowSent = (this.mysql.getServerStatus() & SERVER_STATUS_LAST_ROW_SENT) != 0;
+        }
+
+        this.currentPositionInFetchedRows = BEFORE_START_OF_ROWS;
 
-                if (!oldFirstFetchCompleted && this.fetchedRows.size() == 0) {
-                    this.wasEmpty = true;
-                }
+        if (lastRowSent) {
+            this.lastRowFetched = true;
+
+            if (!oldFirstFetchCompleted && this.fetchedRows.size() == 0) {
+                this.wasEmpty = true;
             }
+        } else if (this.prefetchRows) {
+            // have the server produce the next rows while the application works through these ones
+            this.mysql.prefetchRowsViaCursor(this, this.statementIdOnServer, numRowsToFetch);
+
+            this.prefetchPending = true;
+            this.prefetchMetadata = this.metadata;
+            this.prefetchSize = numRowsToFetch;
+        }
+    }
+
+    /**
+     * Reads the rows requested by the last prefetch off the network. Called when they are needed, or by MysqlIO when another command is about to be sent
+     * on the connection, in which case any error is kept to be thrown when the application gets to these rows.
+     */
+    void readPrefetchedRows() {
+        this.prefetchPending = false;
+
+        try {
+            this.prefetchedRows = this.mysql.readPrefetchedCursorRows(this.prefetchMetadata, this.prefetchSize, this.useBufferRowExplicit);
+            this.prefetchedLastRow = (this.mysql.getServerStatus() & SERVER_STATUS_LAST_ROW_SENT) != 0;
+        } catch (SQLException sqlEx) {
+            this.prefetchException = sqlEx;
         }
     }
 
@@ -24,6 +24,11 @@
 package com.mysql.jdbc;
 
 import java.sql.SQLException;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
 
 import com.mysql.jdbc.profiler.ProfilerEvent;
 import com.mysql.jdbc.profiler.ProfilerEventHandler;
@@ -33,6 +38,9 @@ import com.mysql.jdbc.profiler.ProfilerEventHandler;
  */
 public class RowDataDynamic implements RowData {
 
+    /** Marks the end of the rows in a RowReader's queue */
+    private static final Object END_OF_ROWS = new Object();
+
     private int columnCount;
 
     private Field[] metadata;
@@ -57,6 +65,12 @@ public class RowDataDynamic implements RowData {
 
     private boolean useBufferRowExplicit;
 
+    private int columnStreamingThreshold;
+
+    private int readAheadRows;
+
+    private RowReader rowReader;
+
     private boolean moreResultsExisted;
 
     private ExceptionInterceptor exceptionInterceptor;
@@ -82,6 +96,8 @@ public class RowDataDynamic implements RowData {
         this.metadata = fields;
         this.exceptionInterceptor = this.io.getExceptionInterceptor();
         this.useBufferRowExplicit = MysqlIO.useBufferRowExplicit(this.metadata);
+        this.columnStreamingThreshold = isBinaryEncoded ? 0 : this.io.connection.getColumnStreamingThreshold();
+        this.readAheadRows = this.columnStreamingThreshold > 0 ? 0 : this.io.connection.getStreamingReadAheadRows();
     }
 
     /**
@@ -147,62 +163,81 @@ public class RowDataDynamic implements RowData {
             }
         }
 
+        Lock connectionLock = conn != null ? conn.getConnectionLock() : null;
+
+        if (connectionLock == null) {
+            synchronized (mutex) {
+                drainRemainingRows(conn);
+            }
+        } else {
+            connectionLock.lock();
+
+            try {
+                drainRemainingRows(conn);
+            } finally {
+                connectionLock.unlock();
+            }
+        }
+
+        this.metadata = null;
+        this.owner = null;
+    }
+
+    private void drainRemainingRows(MySQLConnection conn) throws SQLException {
         boolean hadMore = false;
         int howMuchMore = 0;
 
-        synchronized (mutex) {
-            // drain the rest of the records.
-            while (next() != null) {
-                hadMore = true;
-                howMuchMore++;
+        // what is left is read by this thread, the I/O has to be back in its hands before the connection is used again
+        stopReadingAhead();
 
-                if (howMuchMore % 100 == 0) {
-                    Thread.yield();
-                }
+        // drain the rest of the records.
+        while (next() != null) {
+            hadMore = true;
+            howMuchMore++;
+
+            if (howMuchMore % 100 == 0) {
+                Thread.yield();
             }
+        }
 
-            if (conn != null) {
-                if (!conn.getClobberStreamingResults() && conn.getNetTimeoutForStreamingResults() > 0) {
-                    String oldValue = conn.getServerVariable("net_write_timeout");
+        if (conn != null) {
+            if (!conn.getClobberStreamingResults() && conn.getNetTimeoutForStreamingResults() > 0) {
+                String oldValue = conn.getServerVariable("net_write_timeout");
 
-                    if (oldValue == null || oldValue.length() == 0) {
-                        oldValue = "60"; // the current default
-                    }
+                if (oldValue == null || oldValue.length() == 0) {
+                    oldValue = "60"; // the current default
+                }
 
-                    this.io.clearInputStream();
+                this.io.clearInputStream();
 
-                    java.sql.Statement stmt = null;
+                java.sql.Statement stmt = null;
 
-                    try {
-                        stmt = conn.createStatement();
-                        ((com.mysql.jdbc.StatementImpl) stmt).executeSimpleNonQuery(conn, "SET net_write_timeout=" + oldValue);
-                    } finally {
-                        if (stmt != null) {
-                            stmt.close();
-                        }
+                try {
+                    stmt = conn.createStatement();
+                    ((com.mysql.jdbc.StatementImpl) stmt).executeSimpleNonQuery(conn, "SET net_write_timeout=" + oldValue);
+                } finally {
+                    if (stmt != null) {
+                        stmt.close();
                     }
                 }
+            }
 
-                if (conn.getUseUsageAdvisor()) {
-                    if (hadMore) {
+            if (conn.getUseUsageAdvisor()) {
+                if (hadMore) {
 
-                        ProfilerEventHandler eventSink = ProfilerEventHandlerFactory.getInstance(conn);
+                    ProfilerEventHandler eventSink = ProfilerEventHandlerFactory.getInstance(conn);
 
-                        eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", this.owner.owningStatement == null ? "N/A"
-                                : this.owner.owningStatement.currentCatalog, this.owner.connectionId, this.owner.owningStatement == null ? -1
-                                : this.owner.owningStatement.getId(), -1, System.currentTimeMillis(), 0, Constants.MILLIS_I18N, null, null, Messages
-                                .getString("RowDataDynamic.2")
-                                + howMuchMore
-                                + Messages.getString("RowDataDynamic.3")
-                                + Messages.getString("RowDataDynamic.4")
-                                + Messages.getString("RowDataDynamic.5") + Messages.getString("RowDataDynamic.6") + this.owner.pointOfOrigin));
-                    }
+                    eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", this.owner.owningStatement == null ? "N/A"
+                            : this.owner.owningStatement.currentCatalog, this.owner.connectionId, this.owner.owningStatement == null ? -1
+                            : this.owner.owningStatement.getId(), -1, System.currentTimeMillis(), 0, Constants.MILLIS_I18N, null, null, Messages
+                            .getString("RowDataDynamic.2")
+                            + howMuchMore
+                            + Messages.getString("RowDataDynamic.3")
+                            + Messages.getString("RowDataDynamic.4")
+                            + Messages.getString("RowDataDynamic.5") + Messages.getString("RowDataDynamic.6") + this.owner.pointOfOrigin));
                 }
             }
         }
-
-        this.metadata = null;
-        this.owner = null;
     }
 
     /**
@@ -371,9 +406,31 @@ public class RowDataDynamic implements RowData {
     private void nextRecord() throws SQLException {
 
         try {
+            if (this.nextRow instanceof StreamedColumnsRow) {
+                // whatever the application didn't read of the previous row is still on the wire
+                ((StreamedColumnsRow) this.nextRow).finishReading();
+            }
+
             if (!this.noMoreRows) {
-                this.nextRow = this.io.nextRow(this.metadata, this.columnCount, this.isBinaryEncoded, java.sql.ResultSet.CONCUR_READ_ONLY, true,
-                        this.useBufferRowExplicit, true, null);
+                if (this.readAheadRows > 0 && this.rowReader == null) {
+                    RowReader reader = new RowReader(this.readAheadRows);
+                    AsyncStatementExecutor.execute(reader);
+                    this.rowReader = reader;
+                }
+
+                Object readAhead = this.rowReader != null ? this.rowReader.take() : null;
+
+                if (readAhead != null) {
+                    this.nextRow = readAheadRow(readAhead);
+                } else {
+                    if (this.rowReader != null) {
+                        // the reader has stopped, and all it read was handed out already
+                        this.rowReader = null;
+                        this.readAheadRows = 0;
+                    }
+
+                    this.nextRow = readRow();
+                }
 
                 if (this.nextRow == null) {
                     this.noMoreRows = true;
@@ -388,17 +445,31 @@ public class RowDataDynamic implements RowData {
                 this.nextRow = null;
                 this.isAfterEnd = true;
             }
+        } catch (InterruptedException e) {
+            // the rows read ahead so far are kept and the rest is left to this thread, so the result set can still be read on, or closed
+            stopReadingAhead();
+            Thread.currentThread().interrupt();
+
+            SQLException sqlEx = SQLError.createSQLException(Messages.getString("RowDataDynamic.ReadAheadInterrupted"), SQLError.SQL_STATE_GENERAL_ERROR,
+                    this.exceptionInterceptor);
+            sqlEx.initCause(e);
+
+            throw sqlEx;
         } catch (SQLException sqlEx) {
             if (sqlEx instanceof StreamingNotifiable) {
                 ((StreamingNotifiable) sqlEx).setWasStreamingResults();
             }
 
+            stopReadingAhead();
+
             // There won't be any more rows
             this.noMoreRows = true;
 
             // don't wrap SQLExceptions
             throw sqlEx;
         } catch (Exception ex) {
+            stopReadingAhead();
+
             String exceptionType = ex.getClass().getName();
             String exceptionMessage = ex.getMessage();
 
@@ -413,6 +484,46 @@ public class RowDataDynamic implements RowData {
         }
     }
 
+    private ResultSetRow readRow() throws SQLException {
+        if (this.columnStreamingThreshold > 0) {
+            return this.io.nextRowWithStreamedColumns(this.metadata, this.columnCount, this.useBufferRowExplicit, this.columnStreamingThreshold);
+        }
+
+        return this.io.nextRow(this.metadata, this.columnCount, this.isBinaryEncoded, java.sql.ResultSet.CONCUR_READ_ONLY, true, this.useBufferRowExplicit,
+                true, null);
+    }
+
+    private ResultSetRow readAheadRow(Object readAhead) throws SQLException {
+        if (readAhead == END_OF_ROWS) {
+            return null;
+        } else if (readAhead instanceof SQLException) {
+            throw (SQLException) readAhead;
+        } else if (readAhead instanceof RuntimeException) {
+            throw (RuntimeException) readAhead;
+        } else if (readAhead instanceof Error) {
+            throw (Error) readAhead;
+        } else if (readAhead instanceof Throwable) {
+            SQLException sqlEx = SQLError.createSQLException(readAhead.toString(), SQLError.SQL_STATE_GENERAL_ERROR, this.exceptionInterceptor);
+            sqlEx.initCause((Throwable) readAhead);
+
+            throw sqlEx;
+        }
+
+        return (ResultSetRow) readAhead;
+    }
+
+    /**
+     * Stops reading ahead, and waits for the RowReader to be done with this connection's I/O. The rows it read already are still returned by next(), the
+     * ones after them are read by the application's thread.
+     */
+    private void stopReadingAhead() {
+        this.readAheadRows = 0;
+
+        if (this.rowReader != null) {
+            this.rowReader.stop();
+        }
+    }
+
     private void notSupported() throws SQLException {
         throw new OperationNotSupportedException();
     }
@@ -464,4 +575,134 @@ public class RowDataDynamic implements RowData {
     public void setMetadata(Field[] metadata) {
         this.metadata = metadata;
     }
+
+    /**
+     * Reads the rows of the result set off the network ahead of the application ("streamingReadAheadRows"), into a queue that holds at most the given
+     * number of rows: once it is full the reader waits for the application to catch up. It stops at the end of the rows, at the first error, which take()
+     * then returns, or when stop() is called. Only once it has stopped, and take() returned everything it read, is this connection's I/O back in the hands
+     * of the application's thread. Reading more results (tackOnMoreStreamingResults()) is left to that thread.
+     */
+    private class RowReader implements Runnable {
+        private BlockingQueue<Object> rows;
+
+        private volatile boolean stopped = false;
+
+        private CountDownLatch done = new CountDownLatch(1);
+
+        /** A row read, but not queued when the reader was stopped */
+        private Object unqueued;
+
+        RowReader(int capacity) {
+            this.rows = new ArrayBlockingQueue<Object>(capacity);
+        }
+
+        public void run() {
+            Object next;
+
+            try {
+                do {
+                    if (this.stopped) {
+                        return;
+                    }
+
+                    // rows are kept independently of each other, like the rows of a result set read whole
+                    next = RowDataDynamic.this.io.nextRow(RowDataDynamic.this.metadata, RowDataDynamic.this.columnCount, RowDataDynamic.this.isBinaryEncoded,
+                            java.sql.ResultSet.CONCUR_READ_ONLY, false, RowDataDynamic.this.useBufferRowExplicit, false, null);
+
+                    if (next == null) {
+                        next = END_OF_ROWS;
+                    }
+                } while (put(next) && next != END_OF_ROWS);
+            } catch (Throwable t) {
+                put(t);
+            } finally {
+                this.done.countDown();
+            }
+        }
+
+        /**
+         * Queues the given row, waiting while the queue is full unless the reader is stopped, or the connection is closed, meanwhile.
+         */
+        private boolean put(Object row) {
+            try {
+                while (!this.rows.offer(row, 100, TimeUnit.MILLISECONDS)) {
+                    if (this.stopped) {
+                        this.unqueued = row;
+
+                        return false;
+                    }
+
+                    if (RowDataDynamic.this.io.connection.isClosed()) {
+                        return false;
+                    }
+                }
+
+                return true;
+            } catch (InterruptedException e) {
+                this.unqueued = row;
+
+                return false;
+            } catch (SQLException e) {
+                return false;
+            }
+        }
+
+        /**
+         * Returns the next row read, END_OF_ROWS, or the error the reader stopped at; null once the reader has stopped and everything it read has been
+         * returned.
+         */
+        Object take() throws InterruptedException {
+            Object next;
+
+            if (this.done.getCount() > 0 && Thread.interrupted()) {
+                // an interrupt cuts waiting for the reader short, also when there happens to be no need to wait
+                throw new InterruptedException();
+            }
+
+            while ((next = this.rows.poll()) == null) {
+                if (this.done.getCount() == 0) {
+                    // whatever it queued before it was done is visible now
+                    next = this.rows.poll();
+
+                    if (next == null) {
+                        next = this.unqueued;
+                        this.unqueued = null;
+                    }
+
+                    return next;
+                }
+
+                next = this.rows.poll(100, TimeUnit.MILLISECONDS);
+
+                if (next != null) {
+                    break;
+                }
+            }
+
+            return next;
+        }
+
+        /**
+         * Stops the reader, and waits for it to be done with the I/O. A row it is in the middle of reading is read whole.
+         */
+        void stop() {
+            this.stopped = true;
+
+            boolean interrupted = false;
+
+            while (true) {
+                try {
+                    this.done.await();
+
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
 }
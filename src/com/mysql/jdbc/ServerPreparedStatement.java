@@ -46,6 +46,7 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.GregorianCalendar;
 import java.util.TimeZone;
+import java.util.concurrent.locks.Lock;
 
 import com.mysql.jdbc.exceptions.MySQLStatementCancelledException;
 import com.mysql.jdbc.exceptions.MySQLTimeoutException;
@@ -298,12 +299,30 @@ public class ServerPreparedStatement extends PreparedStatement {
     /** Field-level metadata for result sets. */
     private Field[] resultFields;
 
+    /** Field-level metadata of the last execution's result set, which later executions may skip receiving, see MysqlIO.skipResultsetMetadataOnNextCommand() */
+    private Field[] executedResultFields;
+
+    /** MysqlIO.getTransactionMetadataEpoch() when executedResultFields were received */
+    private long executedResultFieldsEpoch;
+
+    /** Is this a SELECT reading no variables, whose columns only change with the definitions of what it reads or with the types of its parameters? */
+    private boolean selectOfDefinitions;
+
+    /** Is this a SELECT, INSERT, UPDATE, DELETE or REPLACE, which can't end the transaction it runs in? */
+    private boolean keepsTransactionOpen;
+
     /** Do we need to send/resend types to the server? */
     private boolean sendTypesToServer = false;
 
     /** The ID that the server uses to identify this PreparedStatement */
     private long serverStatementId;
 
+    /** The registry prepares and executions are reported to, if "serverPrepStmtRegistrySize" is set */
+    private ServerPreparedStatementRegistry registry;
+
+    /** The SQL this statement is known by in the registry */
+    private String registrySql;
+
     /** The type used for string bindings, changes from version-to-version */
     private int stringTypeCode = MysqlDefs.FIELD_TYPE_STRING;
 
@@ -366,6 +385,11 @@ public class ServerPreparedStatement extends PreparedStatement {
 
         this.hasOnDuplicateKeyUpdate = this.firstCharOfStmt == 'I' && containsOnDuplicateKeyInString(sql);
 
+        this.selectOfDefinitions = StringUtils.startsWithIgnoreCaseAndWs(sql, "SELECT", startOfStatement) && sql.indexOf('@') == -1;
+        this.keepsTransactionOpen = StringUtils.startsWithIgnoreCaseAndWs(sql, "SELECT", startOfStatement)
+                || StringUtils.startsWithIgnoreCaseAndWs(sql, "INSERT", startOfStatement) || StringUtils.startsWithIgnoreCaseAndWs(sql, "UPDATE", startOfStatement)
+                || StringUtils.startsWithIgnoreCaseAndWs(sql, "DELETE", startOfStatement) || StringUtils.startsWithIgnoreCaseAndWs(sql, "REPLACE", startOfStatement);
+
         if (this.connection.versionMeetsMinimum(5, 0, 0)) {
             this.serverNeedsResetBeforeEachExecution = !this.connection.versionMeetsMinimum(5, 0, 3);
         } else {
@@ -379,6 +403,9 @@ public class ServerPreparedStatement extends PreparedStatement {
 
         this.originalSql = (statementComment == null) ? sql : "/* " + statementComment + " */ " + sql;
 
+        this.registry = ServerPreparedStatementRegistry.getInstance(this.connection);
+        this.registrySql = sql;
+
         if (this.connection.versionMeetsMinimum(4, 1, 2)) {
             this.stringTypeCode = MysqlDefs.FIELD_TYPE_VAR_STRING;
         } else {
@@ -509,11 +536,29 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void clearParameters() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            clearParametersInternal(true);
+        Lock connectionLock = checkClosed().getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                clearParametersLocked();
+            }
+
+            return;
+        }
+
+        connectionLock.lock();
+
+        try {
+            clearParametersLocked();
+        } finally {
+            connectionLock.unlock();
         }
     }
 
+    private void clearParametersLocked() throws SQLException {
+        clearParametersInternal(true);
+    }
+
     private void clearParametersInternal(boolean clearServerParameters) throws SQLException {
         boolean hadLongData = false;
 
@@ -536,6 +581,9 @@ public class ServerPreparedStatement extends PreparedStatement {
 
     protected boolean isCached = false;
 
+    /** Has the server deallocated this statement already, so that closing it mustn't? */
+    private boolean deallocatedByServer = false;
+
     private boolean useAutoSlowLog;
 
     private Calendar serverTzCalendar;
@@ -546,6 +594,18 @@ public class ServerPreparedStatement extends PreparedStatement {
         this.isClosed = flag;
     }
 
+    /**
+     * Closes a statement of the connection's cache that the server deallocated already, e.g. when COM_CHANGE_USER reset the session, without telling the
+     * server or the registry about it.
+     */
+    void closeDeallocatedByServer() throws SQLException {
+        this.isCached = false;
+        this.deallocatedByServer = true;
+        setClosed(false);
+
+        realClose(true, true);
+    }
+
     /**
      * @see java.sql.Statement#close()
      */
@@ -557,21 +617,38 @@ public class ServerPreparedStatement extends PreparedStatement {
             return; // already closed
         }
 
-        synchronized (locallyScopedConn.getConnectionMutex()) {
+        Lock connectionLock = locallyScopedConn.getConnectionLock();
 
-            if (this.isCached && !this.isClosed) {
-                clearParameters();
+        if (connectionLock == null) {
+            synchronized (locallyScopedConn.getConnectionMutex()) {
+                closeLocked();
+            }
 
-                this.isClosed = true;
+            return;
+        }
 
-                this.connection.recachePreparedStatement(this);
-                return;
-            }
+        connectionLock.lock();
 
-            realClose(true, true);
+        try {
+            closeLocked();
+        } finally {
+            connectionLock.unlock();
         }
     }
 
+    private void closeLocked() throws SQLException {
+        if (this.isCached && !this.isClosed) {
+            clearParameters();
+
+            this.isClosed = true;
+
+            this.connection.recachePreparedStatement(this);
+            return;
+        }
+
+        realClose(true, true);
+    }
+
     private void dumpCloseForTestcase() throws SQLException {
         synchronized (checkClosed().getConnectionMutex()) {
             StringBuilder buf = new StringBuilder();
@@ -650,133 +727,157 @@ public class ServerPreparedStatement extends PreparedStatement {
 
     @Override
     protected int[] executeBatchSerially(int batchTimeout) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            MySQLConnection locallyScopedConn = this.connection;
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            if (locallyScopedConn.isReadOnly()) {
-                throw SQLError.createSQLException(Messages.getString("ServerPreparedStatement.2") + Messages.getString("ServerPreparedStatement.3"),
-                        SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeBatchSeriallyLocked(batchTimeout);
             }
+        }
 
-            clearWarnings();
+        connectionLock.lock();
 
-            // Store this for later, we're going to 'swap' them out
-            // as we execute each batched statement...
-            BindValue[] oldBindValues = this.parameterBindings;
+        try {
+            return executeBatchSeriallyLocked(batchTimeout);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            try {
-                int[] updateCounts = null;
+    private int[] executeBatchSeriallyLocked(int batchTimeout) throws SQLException {
+        MySQLConnection locallyScopedConn = this.connection;
 
-                if (this.batchedArgs != null) {
-                    int nbrCommands = this.batchedArgs.size();
-                    updateCounts = new int[nbrCommands];
+        if (locallyScopedConn.isReadOnly()) {
+            throw SQLError.createSQLException(Messages.getString("ServerPreparedStatement.2") + Messages.getString("ServerPreparedStatement.3"),
+                    SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+        }
 
-                    if (this.retrieveGeneratedKeys) {
-                        this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(nbrCommands);
-                    }
+        clearWarnings();
 
-                    for (int i = 0; i < nbrCommands; i++) {
-                        updateCounts[i] = -3;
-                    }
+        // Store this for later, we're going to 'swap' them out
+        // as we execute each batched statement...
+        BindValue[] oldBindValues = this.parameterBindings;
 
-                    SQLException sqlEx = null;
+        try {
+            if (this.batchedArgs != null && canPipelineBatch(this.batchedArgs.size(), batchTimeout)) {
+                if (this.retrieveGeneratedKeys) {
+                    this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(this.batchedArgs.size());
+                }
 
-                    int commandIndex = 0;
+                return executeBatchPipelined(this.batchedArgs.size());
+            }
 
-                    BindValue[] previousBindValuesForBatch = null;
+            int[] updateCounts = null;
 
-                    CancelTask timeoutTask = null;
+            if (this.batchedArgs != null) {
+                int nbrCommands = this.batchedArgs.size();
+                updateCounts = new int[nbrCommands];
 
-                    try {
-                        if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                            timeoutTask = new CancelTask(this);
-                            locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
-                        }
+                if (this.retrieveGeneratedKeys) {
+                    this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(nbrCommands);
+                }
 
-                        for (commandIndex = 0; commandIndex < nbrCommands; commandIndex++) {
-                            Object arg = this.batchedArgs.get(commandIndex);
+                for (int i = 0; i < nbrCommands; i++) {
+                    updateCounts[i] = -3;
+                }
 
-                            if (arg instanceof String) {
-                                updateCounts[commandIndex] = executeUpdate((String) arg);
-                            } else {
-                                this.parameterBindings = ((BatchedBindValues) arg).batchedParameterValues;
+                SQLException sqlEx = null;
 
-                                try {
-                                    // We need to check types each time, as
-                                    // the user might have bound different
-                                    // types in each addBatch()
+                int commandIndex = 0;
+
+                BindValue[] previousBindValuesForBatch = null;
+
+                CancelTask timeoutTask = null;
+
+                try {
+                    if (locallyScopedConn.getEnableQueryTimeouts() && batchTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
+                        timeoutTask = new CancelTask(this);
+                        locallyScopedConn.getCancelTimer().schedule(timeoutTask, batchTimeout);
+                    }
+
+                    for (commandIndex = 0; commandIndex < nbrCommands; commandIndex++) {
+                        Object arg = this.batchedArgs.get(commandIndex);
+
+                        if (arg instanceof String) {
+                            updateCounts[commandIndex] = executeUpdate((String) arg);
+                        } else {
+                            this.parameterBindings = ((BatchedBindValues) arg).batchedParameterValues;
+
+                            try {
+                                // We need to check types each time, as
+                                // the user might have bound different
+                                // types in each addBatch()
 
-                                    if (previousBindValuesForBatch != null) {
-                                        for (int j = 0; j < this.parameterBindings.length; j++) {
-                                            if (this.parameterBindings[j].bufferType != previousBindValuesForBatch[j].bufferType) {
-                                                this.sendTypesToServer = true;
+                                if (previousBindValuesForBatch != null) {
+                                    for (int j = 0; j < this.parameterBindings.length; j++) {
+                                        if (this.parameterBindings[j].bufferType != previousBindValuesForBatch[j].bufferType) {
+                                            this.sendTypesToServer = true;
 
-                                                break;
-                                            }
+                                            break;
                                         }
                                     }
+                                }
+
+                                try {
+                                    updateCounts[commandIndex] = executeUpdate(false, true);
+                                } finally {
+                                    previousBindValuesForBatch = this.parameterBindings;
+                                }
+
+                                if (this.retrieveGeneratedKeys) {
+                                    java.sql.ResultSet rs = null;
 
                                     try {
-                                        updateCounts[commandIndex] = executeUpdate(false, true);
-                                    } finally {
-                                        previousBindValuesForBatch = this.parameterBindings;
-                                    }
+                                        // we don't want to use our version, because we've altered the behavior of ours to support batch updates
+                                        // (catch-22) Ideally, what we need here is super.super.getGeneratedKeys() but that construct doesn't exist in
+                                        // Java, so that's why there's this kludge.
+                                        rs = getGeneratedKeysInternal();
 
-                                    if (this.retrieveGeneratedKeys) {
-                                        java.sql.ResultSet rs = null;
-
-                                        try {
-                                            // we don't want to use our version, because we've altered the behavior of ours to support batch updates
-                                            // (catch-22) Ideally, what we need here is super.super.getGeneratedKeys() but that construct doesn't exist in
-                                            // Java, so that's why there's this kludge.
-                                            rs = getGeneratedKeysInternal();
-
-                                            while (rs.next()) {
-                                                this.batchedGeneratedKeys.add(new ByteArrayRow(new byte[][] { rs.getBytes(1) }, getExceptionInterceptor()));
-                                            }
-                                        } finally {
-                                            if (rs != null) {
-                                                rs.close();
-                                            }
+                                        while (rs.next()) {
+                                            this.batchedGeneratedKeys.add(new ByteArrayRow(new byte[][] { rs.getBytes(1) }, getExceptionInterceptor()));
+                                        }
+                                    } finally {
+                                        if (rs != null) {
+                                            rs.close();
                                         }
                                     }
-                                } catch (SQLException ex) {
-                                    updateCounts[commandIndex] = EXECUTE_FAILED;
+                                }
+                            } catch (SQLException ex) {
+                                updateCounts[commandIndex] = EXECUTE_FAILED;
 
-                                    if (this.continueBatchOnError && !(ex instanceof MySQLTimeoutException)
-                                            && !(ex instanceof MySQLStatementCancelledException) && !hasDeadlockOrTimeoutRolledBackTx(ex)) {
-                                        sqlEx = ex;
-                                    } else {
-                                        int[] newUpdateCounts = new int[commandIndex];
-                                        System.arraycopy(updateCounts, 0, newUpdateCounts, 0, commandIndex);
+                                if (this.continueBatchOnError && !(ex instanceof MySQLTimeoutException)
+                                        && !(ex instanceof MySQLStatementCancelledException) && !hasDeadlockOrTimeoutRolledBackTx(ex)) {
+                                    sqlEx = ex;
+                                } else {
+                                    int[] newUpdateCounts = new int[commandIndex];
+                                    System.arraycopy(updateCounts, 0, newUpdateCounts, 0, commandIndex);
 
-                                        throw new java.sql.BatchUpdateException(ex.getMessage(), ex.getSQLState(), ex.getErrorCode(), newUpdateCounts);
-                                    }
+                                    throw new java.sql.BatchUpdateException(ex.getMessage(), ex.getSQLState(), ex.getErrorCode(), newUpdateCounts);
                                 }
                             }
                         }
-                    } finally {
-                        if (timeoutTask != null) {
-                            timeoutTask.cancel();
-
-                            locallyScopedConn.getCancelTimer().purge();
-                        }
-
-                        resetCancelledState();
                     }
+                } finally {
+                    if (timeoutTask != null) {
+                        timeoutTask.cancel();
 
-                    if (sqlEx != null) {
-                        throw new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(), updateCounts);
+                        locallyScopedConn.getCancelTimer().purge();
                     }
-                }
 
-                return (updateCounts != null) ? updateCounts : new int[0];
-            } finally {
-                this.parameterBindings = oldBindValues;
-                this.sendTypesToServer = true;
+                    resetCancelledState();
+                }
 
-                clearBatch();
+                if (sqlEx != null) {
+                    throw new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(), updateCounts);
+                }
             }
+
+            return (updateCounts != null) ? updateCounts : new int[0];
+        } finally {
+            this.parameterBindings = oldBindValues;
+            this.sendTypesToServer = true;
+
+            clearBatch();
         }
     }
 
@@ -786,50 +887,67 @@ public class ServerPreparedStatement extends PreparedStatement {
     @Override
     protected com.mysql.jdbc.ResultSetInternalMethods executeInternal(int maxRowsToRetrieve, Buffer sendPacket, boolean createStreamingResultSet,
             boolean queryIsSelectOnly, Field[] metadataFromCache, boolean isBatch) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            this.numberOfExecutions++;
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            // We defer to server-side execution
-            try {
-                return serverExecute(maxRowsToRetrieve, createStreamingResultSet, metadataFromCache);
-            } catch (SQLException sqlEx) {
-                // don't wrap SQLExceptions
-                if (this.connection.getEnablePacketDebug()) {
-                    this.connection.getIO().dumpPacketRingBuffer();
-                }
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeInternalLocked(maxRowsToRetrieve, sendPacket, createStreamingResultSet, queryIsSelectOnly, metadataFromCache, isBatch);
+            }
+        }
 
-                if (this.connection.getDumpQueriesOnException()) {
-                    String extractedSql = toString();
-                    StringBuilder messageBuf = new StringBuilder(extractedSql.length() + 32);
-                    messageBuf.append("\n\nQuery being executed when exception was thrown:\n");
-                    messageBuf.append(extractedSql);
-                    messageBuf.append("\n\n");
+        connectionLock.lock();
 
-                    sqlEx = ConnectionImpl.appendMessageToException(sqlEx, messageBuf.toString(), getExceptionInterceptor());
-                }
+        try {
+            return executeInternalLocked(maxRowsToRetrieve, sendPacket, createStreamingResultSet, queryIsSelectOnly, metadataFromCache, isBatch);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                throw sqlEx;
-            } catch (Exception ex) {
-                if (this.connection.getEnablePacketDebug()) {
-                    this.connection.getIO().dumpPacketRingBuffer();
-                }
+    private com.mysql.jdbc.ResultSetInternalMethods executeInternalLocked(int maxRowsToRetrieve, Buffer sendPacket, boolean createStreamingResultSet,
+            boolean queryIsSelectOnly, Field[] metadataFromCache, boolean isBatch) throws SQLException {
+        this.numberOfExecutions++;
 
-                SQLException sqlEx = SQLError.createSQLException(ex.toString(), SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
+        // We defer to server-side execution
+        try {
+            return serverExecute(maxRowsToRetrieve, createStreamingResultSet, metadataFromCache);
+        } catch (SQLException sqlEx) {
+            // don't wrap SQLExceptions
+            if (this.connection.getEnablePacketDebug()) {
+                this.connection.getIO().dumpPacketRingBuffer();
+            }
 
-                if (this.connection.getDumpQueriesOnException()) {
-                    String extractedSql = toString();
-                    StringBuilder messageBuf = new StringBuilder(extractedSql.length() + 32);
-                    messageBuf.append("\n\nQuery being executed when exception was thrown:\n");
-                    messageBuf.append(extractedSql);
-                    messageBuf.append("\n\n");
+            if (this.connection.getDumpQueriesOnException()) {
+                String extractedSql = toString();
+                StringBuilder messageBuf = new StringBuilder(extractedSql.length() + 32);
+                messageBuf.append("\n\nQuery being executed when exception was thrown:\n");
+                messageBuf.append(extractedSql);
+                messageBuf.append("\n\n");
 
-                    sqlEx = ConnectionImpl.appendMessageToException(sqlEx, messageBuf.toString(), getExceptionInterceptor());
-                }
+                sqlEx = ConnectionImpl.appendMessageToException(sqlEx, messageBuf.toString(), getExceptionInterceptor());
+            }
 
-                sqlEx.initCause(ex);
+            throw sqlEx;
+        } catch (Exception ex) {
+            if (this.connection.getEnablePacketDebug()) {
+                this.connection.getIO().dumpPacketRingBuffer();
+            }
 
-                throw sqlEx;
+            SQLException sqlEx = SQLError.createSQLException(ex.toString(), SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
+
+            if (this.connection.getDumpQueriesOnException()) {
+                String extractedSql = toString();
+                StringBuilder messageBuf = new StringBuilder(extractedSql.length() + 32);
+                messageBuf.append("\n\nQuery being executed when exception was thrown:\n");
+                messageBuf.append(extractedSql);
+                messageBuf.append("\n\n");
+
+                sqlEx = ConnectionImpl.appendMessageToException(sqlEx, messageBuf.toString(), getExceptionInterceptor());
             }
+
+            sqlEx.initCause(ex);
+
+            throw sqlEx;
         }
     }
 
@@ -861,34 +979,33 @@ public class ServerPreparedStatement extends PreparedStatement {
      * @throws SQLException
      */
     protected BindValue getBinding(int parameterIndex, boolean forLongData) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        checkClosed();
 
-            if (this.parameterBindings.length == 0) {
-                throw SQLError.createSQLException(Messages.getString("ServerPreparedStatement.8"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                        getExceptionInterceptor());
-            }
+        if (this.parameterBindings.length == 0) {
+            throw SQLError.createSQLException(Messages.getString("ServerPreparedStatement.8"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    getExceptionInterceptor());
+        }
 
-            parameterIndex--;
+        parameterIndex--;
 
-            if ((parameterIndex < 0) || (parameterIndex >= this.parameterBindings.length)) {
-                throw SQLError.createSQLException(
-                        Messages.getString("ServerPreparedStatement.9") + (parameterIndex + 1) + Messages.getString("ServerPreparedStatement.10")
-                                + this.parameterBindings.length, SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
-            }
+        if ((parameterIndex < 0) || (parameterIndex >= this.parameterBindings.length)) {
+            throw SQLError.createSQLException(
+                    Messages.getString("ServerPreparedStatement.9") + (parameterIndex + 1) + Messages.getString("ServerPreparedStatement.10")
+                            + this.parameterBindings.length, SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+        }
 
-            if (this.parameterBindings[parameterIndex] == null) {
-                this.parameterBindings[parameterIndex] = new BindValue();
-            } else {
-                if (this.parameterBindings[parameterIndex].isLongData && !forLongData) {
-                    this.detectedLongParameterSwitch = true;
-                }
+        if (this.parameterBindings[parameterIndex] == null) {
+            this.parameterBindings[parameterIndex] = new BindValue();
+        } else {
+            if (this.parameterBindings[parameterIndex].isLongData && !forLongData) {
+                this.detectedLongParameterSwitch = true;
             }
+        }
 
-            this.parameterBindings[parameterIndex].isSet = true;
-            this.parameterBindings[parameterIndex].boundBeforeExecutionNum = this.numberOfExecutions;
+        this.parameterBindings[parameterIndex].isSet = true;
+        this.parameterBindings[parameterIndex].boundBeforeExecutionNum = this.numberOfExecutions;
 
-            return this.parameterBindings[parameterIndex];
-        }
+        return this.parameterBindings[parameterIndex];
     }
 
     /**
@@ -993,54 +1110,73 @@ public class ServerPreparedStatement extends PreparedStatement {
             return; // already closed
         }
 
-        synchronized (locallyScopedConn.getConnectionMutex()) {
+        Lock connectionLock = locallyScopedConn.getConnectionLock();
 
-            if (this.connection != null) {
-                if (this.connection.getAutoGenerateTestcaseScript()) {
-                    dumpCloseForTestcase();
-                }
+        if (connectionLock == null) {
+            synchronized (locallyScopedConn.getConnectionMutex()) {
+                realCloseLocked(calledExplicitly, closeOpenResults);
+            }
 
-                //
-                // Don't communicate with the server if we're being called from the finalizer...
-                // 
-                // This will leak server resources, but if we don't do this, we'll deadlock (potentially, because there's no guarantee when, what order, and
-                // what concurrency finalizers will be called with). Well-behaved programs won't rely on finalizers to clean up their statements.
-                //
+            return;
+        }
 
-                SQLException exceptionDuringClose = null;
+        connectionLock.lock();
 
-                if (calledExplicitly && !this.connection.isClosed()) {
-                    synchronized (this.connection.getConnectionMutex()) {
-                        try {
+        try {
+            realCloseLocked(calledExplicitly, closeOpenResults);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void realCloseLocked(boolean calledExplicitly, boolean closeOpenResults) throws SQLException {
+        if (this.connection != null) {
+            if (this.connection.getAutoGenerateTestcaseScript()) {
+                dumpCloseForTestcase();
+            }
+
+            //
+            // Don't communicate with the server if we're being called from the finalizer...
+            // 
+            // This will leak server resources, but if we don't do this, we'll deadlock (potentially, because there's no guarantee when, what order, and
+            // what concurrency finalizers will be called with). Well-behaved programs won't rely on finalizers to clean up their statements.
+            //
 
-                            MysqlIO mysql = this.connection.getIO();
+            SQLException exceptionDuringClose = null;
 
-                            Buffer packet = mysql.getSharedSendPacket();
+            if (calledExplicitly && !this.connection.isClosed() && !this.deallocatedByServer) {
+                try {
 
-                            packet.writeByte((byte) MysqlDefs.COM_CLOSE_STATEMENT);
-                            packet.writeLong(this.serverStatementId);
+                    MysqlIO mysql = this.connection.getIO();
 
-                            mysql.sendCommand(MysqlDefs.COM_CLOSE_STATEMENT, null, packet, true, null, 0);
-                        } catch (SQLException sqlEx) {
-                            exceptionDuringClose = sqlEx;
-                        }
+                    Buffer packet = mysql.getSharedSendPacket();
+
+                    packet.writeByte((byte) MysqlDefs.COM_CLOSE_STATEMENT);
+                    packet.writeLong(this.serverStatementId);
+
+                    mysql.sendCommand(MysqlDefs.COM_CLOSE_STATEMENT, null, packet, true, null, 0);
+
+                    if (this.registry != null) {
+                        this.registry.deallocated(this.registrySql, this.connection.getId());
                     }
+                } catch (SQLException sqlEx) {
+                    exceptionDuringClose = sqlEx;
                 }
+            }
 
-                if (this.isCached) {
-                    this.connection.decachePreparedStatement(this);
-                }
-                super.realClose(calledExplicitly, closeOpenResults);
+            if (this.isCached) {
+                this.connection.decachePreparedStatement(this);
+            }
+            super.realClose(calledExplicitly, closeOpenResults);
 
-                clearParametersInternal(false);
-                this.parameterBindings = null;
+            clearParametersInternal(false);
+            this.parameterBindings = null;
 
-                this.parameterFields = null;
-                this.resultFields = null;
+            this.parameterFields = null;
+            this.resultFields = null;
 
-                if (exceptionDuringClose != null) {
-                    throw exceptionDuringClose;
-                }
+            if (exceptionDuringClose != null) {
+                throw exceptionDuringClose;
             }
         }
     }
@@ -1053,50 +1189,68 @@ public class ServerPreparedStatement extends PreparedStatement {
      *             if an error occurs.
      */
     protected void rePrepare() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            this.invalidationException = null;
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            try {
-                serverPrepare(this.originalSql);
-            } catch (SQLException sqlEx) {
-                // don't wrap SQLExceptions
-                this.invalidationException = sqlEx;
-            } catch (Exception ex) {
-                this.invalidationException = SQLError.createSQLException(ex.toString(), SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
-                this.invalidationException.initCause(ex);
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                rePrepareLocked();
             }
 
-            if (this.invalidationException != null) {
-                this.invalid = true;
+            return;
+        }
 
-                this.parameterBindings = null;
+        connectionLock.lock();
 
-                this.parameterFields = null;
-                this.resultFields = null;
+        try {
+            rePrepareLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                if (this.results != null) {
-                    try {
-                        this.results.close();
-                    } catch (Exception ex) {
-                    }
-                }
+    private void rePrepareLocked() throws SQLException {
+        this.invalidationException = null;
 
-                if (this.generatedKeysResults != null) {
-                    try {
-                        this.generatedKeysResults.close();
-                    } catch (Exception ex) {
-                    }
+        try {
+            serverPrepare(this.originalSql);
+        } catch (SQLException sqlEx) {
+            // don't wrap SQLExceptions
+            this.invalidationException = sqlEx;
+        } catch (Exception ex) {
+            this.invalidationException = SQLError.createSQLException(ex.toString(), SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
+            this.invalidationException.initCause(ex);
+        }
+
+        if (this.invalidationException != null) {
+            this.invalid = true;
+
+            this.parameterBindings = null;
+
+            this.parameterFields = null;
+            this.resultFields = null;
+
+            if (this.results != null) {
+                try {
+                    this.results.close();
+                } catch (Exception ex) {
                 }
+            }
 
+            if (this.generatedKeysResults != null) {
                 try {
-                    closeAllOpenResults();
-                } catch (Exception e) {
+                    this.generatedKeysResults.close();
+                } catch (Exception ex) {
                 }
+            }
 
-                if (this.connection != null) {
-                    if (!this.connection.getDontTrackOpenResources()) {
-                        this.connection.unregisterStatement(this);
-                    }
+            try {
+                closeAllOpenResults();
+            } catch (Exception e) {
+            }
+
+            if (this.connection != null) {
+                if (!this.connection.getDontTrackOpenResources()) {
+                    this.connection.unregisterStatement(this);
                 }
             }
         }
@@ -1133,299 +1287,480 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     private com.mysql.jdbc.ResultSetInternalMethods serverExecute(int maxRowsToRetrieve, boolean createStreamingResultSet, Field[] metadataFromCache)
             throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            MysqlIO mysql = this.connection.getIO();
+        checkClosed();
 
-            if (mysql.shouldIntercept()) {
-                ResultSetInternalMethods interceptedResults = mysql.invokeStatementInterceptorsPre(this.originalSql, this, true);
+        MysqlIO mysql = this.connection.getIO();
 
-                if (interceptedResults != null) {
-                    return interceptedResults;
-                }
+        if (mysql.shouldIntercept()) {
+            ResultSetInternalMethods interceptedResults = mysql.invokeStatementInterceptorsPre(this.originalSql, this, true);
+
+            if (interceptedResults != null) {
+                return interceptedResults;
             }
+        }
 
-            if (this.detectedLongParameterSwitch) {
-                // Check when values were bound
-                boolean firstFound = false;
-                long boundTimeToCheck = 0;
+        if (this.detectedLongParameterSwitch) {
+            // Check when values were bound
+            boolean firstFound = false;
+            long boundTimeToCheck = 0;
 
-                for (int i = 0; i < this.parameterCount - 1; i++) {
-                    if (this.parameterBindings[i].isLongData) {
-                        if (firstFound && boundTimeToCheck != this.parameterBindings[i].boundBeforeExecutionNum) {
-                            throw SQLError.createSQLException(
-                                    Messages.getString("ServerPreparedStatement.11") + Messages.getString("ServerPreparedStatement.12"),
-                                    SQLError.SQL_STATE_DRIVER_NOT_CAPABLE, getExceptionInterceptor());
-                        }
-                        firstFound = true;
-                        boundTimeToCheck = this.parameterBindings[i].boundBeforeExecutionNum;
+            for (int i = 0; i < this.parameterCount - 1; i++) {
+                if (this.parameterBindings[i].isLongData) {
+                    if (firstFound && boundTimeToCheck != this.parameterBindings[i].boundBeforeExecutionNum) {
+                        throw SQLError.createSQLException(
+                                Messages.getString("ServerPreparedStatement.11") + Messages.getString("ServerPreparedStatement.12"),
+                                SQLError.SQL_STATE_DRIVER_NOT_CAPABLE, getExceptionInterceptor());
                     }
+                    firstFound = true;
+                    boundTimeToCheck = this.parameterBindings[i].boundBeforeExecutionNum;
                 }
+            }
 
-                // Okay, we've got all "newly"-bound streams, so reset server-side state to clear out previous bindings
+            // Okay, we've got all "newly"-bound streams, so reset server-side state to clear out previous bindings
 
-                serverResetStatement();
-            }
+            serverResetStatement();
+        }
 
-            // Check bindings
-            for (int i = 0; i < this.parameterCount; i++) {
-                if (!this.parameterBindings[i].isSet) {
-                    throw SQLError.createSQLException(
-                            Messages.getString("ServerPreparedStatement.13") + (i + 1) + Messages.getString("ServerPreparedStatement.14"),
-                            SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
-                }
-            }
+        checkBindings();
 
-            //
-            // Send all long data
-            //
-            for (int i = 0; i < this.parameterCount; i++) {
-                if (this.parameterBindings[i].isLongData) {
-                    serverLongData(i, this.parameterBindings[i]);
-                }
+        //
+        // Send all long data
+        //
+        for (int i = 0; i < this.parameterCount; i++) {
+            if (this.parameterBindings[i].isLongData) {
+                serverLongData(i, this.parameterBindings[i]);
             }
+        }
 
-            if (this.connection.getAutoGenerateTestcaseScript()) {
-                dumpExecuteForTestcase();
+        //
+        // A SELECT executed again with the same parameter types returns the same columns unless the definitions of what it reads changed, which the metadata
+        // locks held by the transaction it last received its column definitions in prevent, so the server needn't send them again while that transaction
+        // lasts. Results read through a cursor keep their column definitions.
+        //
+        Field[] reusableMetadata = null;
+
+        if (mysql.isResultsetMetadataOptional() && this.selectOfDefinitions && this.executedResultFields != null && !this.sendTypesToServer
+                && this.executedResultFieldsEpoch == mysql.getTransactionMetadataEpoch() && mysql.inTransactionOnServer() && !opensCursor()) {
+            reusableMetadata = this.executedResultFields;
+        }
+
+        if (!this.keepsTransactionOpen) {
+            mysql.endTransactionMetadataEpoch();
+        }
+
+        if (this.connection.getAutoGenerateTestcaseScript()) {
+            dumpExecuteForTestcase();
+        }
+
+        Buffer packet = fillExecutePacket(mysql);
+
+        long begin = 0;
+
+        boolean logSlowQueries = this.connection.getLogSlowQueries();
+        boolean gatherPerformanceMetrics = this.connection.getGatherPerformanceMetrics();
+
+        if (this.profileSQL || logSlowQueries || gatherPerformanceMetrics) {
+            begin = mysql.getCurrentTimeNanosOrMillis();
+        }
+
+        resetCancelledState();
+
+        CancelTask timeoutTask = null;
+
+        try {
+            if (this.connection.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && this.connection.versionMeetsMinimum(5, 0, 0)) {
+                timeoutTask = new CancelTask(this);
+                this.connection.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
             }
 
-            //
-            // store the parameter values
-            //
+            statementBegins();
 
-            Buffer packet = mysql.getSharedSendPacket();
+            Buffer resultPacket;
 
-            packet.clear();
-            packet.writeByte((byte) MysqlDefs.COM_EXECUTE);
-            packet.writeLong(this.serverStatementId);
+            try {
+                if (reusableMetadata != null) {
+                    mysql.skipResultsetMetadataOnNextCommand();
+                }
 
-            //			boolean usingCursor = false;
-
-            if (this.connection.versionMeetsMinimum(4, 1, 2)) {
-                // we only create cursor-backed result sets if
-                // a) The query is a SELECT
-                // b) The server supports it
-                // c) We know it is forward-only (note this doesn't preclude updatable result sets)
-                // d) The user has set a fetch size
-                if (this.resultFields != null && this.connection.isCursorFetchEnabled() && getResultSetType() == ResultSet.TYPE_FORWARD_ONLY
-                        && getResultSetConcurrency() == ResultSet.CONCUR_READ_ONLY && getFetchSize() > 0) {
-                    packet.writeByte(MysqlDefs.OPEN_CURSOR_FLAG);
-                    //					usingCursor = true;
-                } else {
-                    packet.writeByte((byte) 0); // placeholder for flags
+                resultPacket = mysql.sendCommand(MysqlDefs.COM_EXECUTE, null, packet, false, null, 0);
+            } catch (SQLException sqlEx) {
+                if (!canReprepareAfter(sqlEx)) {
+                    throw sqlEx;
                 }
 
-                packet.writeLong(1); // placeholder for parameter iterations
-            }
+                reprepareKeepingBindings();
+                reusableMetadata = null;
 
-            /* Reserve place for null-marker bytes */
-            int nullCount = (this.parameterCount + 7) / 8;
+                resultPacket = mysql.sendCommand(MysqlDefs.COM_EXECUTE, null, fillExecutePacket(mysql), false, null, 0);
+            }
 
-            // if (mysql.versionMeetsMinimum(4, 1, 2)) {
-            // nullCount = (this.parameterCount + 9) / 8;
-            // }
-            int nullBitsPosition = packet.getPosition();
+            long queryEndTime = 0L;
 
-            for (int i = 0; i < nullCount; i++) {
-                packet.writeByte((byte) 0);
+            if (logSlowQueries || gatherPerformanceMetrics || this.profileSQL) {
+                queryEndTime = mysql.getCurrentTimeNanosOrMillis();
             }
 
-            byte[] nullBitsBuffer = new byte[nullCount];
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
 
-            /* In case if buffers (type) altered, indicate to server */
-            packet.writeByte(this.sendTypesToServer ? (byte) 1 : (byte) 0);
+                this.connection.getCancelTimer().purge();
 
-            if (this.sendTypesToServer) {
-                /*
-                 * Store types of parameters in first in first package that is sent to the server.
-                 */
-                for (int i = 0; i < this.parameterCount; i++) {
-                    packet.writeInt(this.parameterBindings[i].bufferType);
+                if (timeoutTask.caughtWhileCancelling != null) {
+                    throw timeoutTask.caughtWhileCancelling;
                 }
+
+                timeoutTask = null;
             }
 
-            //
-            // store the parameter values
-            //
-            for (int i = 0; i < this.parameterCount; i++) {
-                if (!this.parameterBindings[i].isLongData) {
-                    if (!this.parameterBindings[i].isNull) {
-                        storeBinding(packet, this.parameterBindings[i], mysql);
+            synchronized (this.cancelTimeoutMutex) {
+                if (this.wasCancelled) {
+                    SQLException cause = null;
+
+                    if (this.wasCancelledByTimeout) {
+                        cause = new MySQLTimeoutException();
                     } else {
-                        nullBitsBuffer[i / 8] |= (1 << (i & 7));
+                        cause = new MySQLStatementCancelledException();
                     }
+
+                    resetCancelledState();
+
+                    throw cause;
                 }
             }
 
-            //
-            // Go back and write the NULL flags to the beginning of the packet
-            //
-            int endPosition = packet.getPosition();
-            packet.setPosition(nullBitsPosition);
-            packet.writeBytesNoNull(nullBitsBuffer);
-            packet.setPosition(endPosition);
+            boolean queryWasSlow = false;
 
-            long begin = 0;
+            if (logSlowQueries || gatherPerformanceMetrics) {
+                long elapsedTime = queryEndTime - begin;
+
+                if (logSlowQueries) {
+                    if (this.useAutoSlowLog) {
+                        queryWasSlow = elapsedTime > this.connection.getSlowQueryThresholdMillis();
+                    } else {
+                        queryWasSlow = this.connection.isAbonormallyLongQuery(elapsedTime);
+
+                        this.connection.reportQueryTime(elapsedTime);
+                    }
+                }
 
-            boolean logSlowQueries = this.connection.getLogSlowQueries();
-            boolean gatherPerformanceMetrics = this.connection.getGatherPerformanceMetrics();
+                if (queryWasSlow) {
 
-            if (this.profileSQL || logSlowQueries || gatherPerformanceMetrics) {
-                begin = mysql.getCurrentTimeNanosOrMillis();
+                    StringBuilder mesgBuf = new StringBuilder(48 + this.originalSql.length());
+                    mesgBuf.append(Messages.getString("ServerPreparedStatement.15"));
+                    mesgBuf.append(mysql.getSlowQueryThreshold());
+                    mesgBuf.append(Messages.getString("ServerPreparedStatement.15a"));
+                    mesgBuf.append(elapsedTime);
+                    mesgBuf.append(Messages.getString("ServerPreparedStatement.16"));
+
+                    mesgBuf.append("as prepared: ");
+                    mesgBuf.append(this.originalSql);
+                    mesgBuf.append("\n\n with parameters bound:\n\n");
+                    mesgBuf.append(asSql(true));
+
+                    this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_SLOW_QUERY, "", this.currentCatalog, this.connection.getId(), getId(),
+                            0, System.currentTimeMillis(), elapsedTime, mysql.getQueryTimingUnits(), null, LogUtils
+                                    .findCallingClassAndMethod(new Throwable()), mesgBuf.toString()));
+                }
+
+                if (gatherPerformanceMetrics) {
+                    this.connection.registerQueryExecutionTime(elapsedTime);
+                }
             }
 
-            resetCancelledState();
+            this.connection.incrementNumberOfPreparedExecutes();
 
-            CancelTask timeoutTask = null;
+            if (this.registry != null) {
+                this.registry.executed(this.registrySql);
+            }
+
+            if (this.profileSQL) {
+                this.eventSink = ProfilerEventHandlerFactory.getInstance(this.connection);
+
+                this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_EXECUTE, "", this.currentCatalog, this.connectionId, this.statementId, -1,
+                        System.currentTimeMillis(), mysql.getCurrentTimeNanosOrMillis() - begin, mysql.getQueryTimingUnits(), null, LogUtils
+                                .findCallingClassAndMethod(new Throwable()), truncateQueryToLog(asSql(true))));
+            }
+
+            com.mysql.jdbc.ResultSetInternalMethods rs;
 
             try {
-                if (this.connection.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && this.connection.versionMeetsMinimum(5, 0, 0)) {
-                    timeoutTask = new CancelTask(this);
-                    this.connection.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
-                }
+                rs = mysql.readAllResults(this, maxRowsToRetrieve, this.resultSetType, this.resultSetConcurrency, createStreamingResultSet,
+                        this.currentCatalog, resultPacket, true, this.fieldCount, (reusableMetadata != null) ? reusableMetadata : metadataFromCache);
+            } catch (ResultSetMetadataChangedException metadataChangedEx) {
+                // the statement was executed, so it's not executed again behind the application's back
+                this.executedResultFields = null;
 
-                statementBegins();
+                throw metadataChangedEx;
+            }
 
-                Buffer resultPacket = mysql.sendCommand(MysqlDefs.COM_EXECUTE, null, packet, false, null, 0);
+            // only column definitions received from the server are known to be current, not ones taken from the metadata cache
+            if (mysql.isResultsetMetadataOptional() && this.selectOfDefinitions && (metadataFromCache == null || reusableMetadata != null)
+                    && rs instanceof ResultSetImpl && rs.reallyResult()) {
+                this.executedResultFields = ((ResultSetImpl) rs).fields;
+                this.executedResultFieldsEpoch = mysql.getTransactionMetadataEpoch();
+            }
 
-                long queryEndTime = 0L;
+            if (mysql.shouldIntercept()) {
+                ResultSetInternalMethods interceptedResults = mysql.invokeStatementInterceptorsPost(this.originalSql, this, rs, true, null);
 
-                if (logSlowQueries || gatherPerformanceMetrics || this.profileSQL) {
-                    queryEndTime = mysql.getCurrentTimeNanosOrMillis();
+                if (interceptedResults != null) {
+                    rs = interceptedResults;
                 }
+            }
 
-                if (timeoutTask != null) {
-                    timeoutTask.cancel();
+            if (this.profileSQL) {
+                long fetchEndTime = mysql.getCurrentTimeNanosOrMillis();
 
-                    this.connection.getCancelTimer().purge();
+                this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_FETCH, "", this.currentCatalog, this.connection.getId(), getId(), 0 /*
+                                                                                                                                                      * FIXME
+                                                                                                                                                      * rs.
+                                                                                                                                                      * resultId
+                                                                                                                                                      */,
+                        System.currentTimeMillis(), (fetchEndTime - queryEndTime), mysql.getQueryTimingUnits(), null, LogUtils
+                                .findCallingClassAndMethod(new Throwable()), null));
+            }
 
-                    if (timeoutTask.caughtWhileCancelling != null) {
-                        throw timeoutTask.caughtWhileCancelling;
-                    }
+            if (queryWasSlow && this.connection.getExplainSlowQueries()) {
+                String queryAsString = asSql(true);
+
+                mysql.explainSlowQuery(StringUtils.getBytes(queryAsString), queryAsString);
+            }
+
+            if (!createStreamingResultSet && this.serverNeedsResetBeforeEachExecution) {
+                serverResetStatement(); // clear any long data...
+            }
+
+            this.sendTypesToServer = false;
+            this.results = rs;
+
+            if (mysql.hadWarnings()) {
+                mysql.scanForAndThrowDataTruncation();
+            }
+
+            return rs;
+        } catch (SQLException sqlEx) {
+            if (mysql.shouldIntercept()) {
+                mysql.invokeStatementInterceptorsPost(this.originalSql, this, null, true, sqlEx);
+            }
+
+            throw sqlEx;
+        } finally {
+            this.statementExecuting.set(false);
+
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+                this.connection.getCancelTimer().purge();
+            }
+        }
+    }
+
+    /**
+     * Long data is sent with COM_LONG_DATA ahead of each execution, which needs the parameters as bound at addBatch() time, so batches with streams are
+     * executed serially.
+     */
+    @Override
+    protected boolean canPipelineBatchCommands() throws SQLException {
+        if (!isPipelinableStatement(this.originalSql)) {
+            return false;
+        }
+
+        for (int i = 0; i < this.batchedArgs.size(); i++) {
+            Object arg = this.batchedArgs.get(i);
 
-                    timeoutTask = null;
+            if (!(arg instanceof BatchedBindValues)) {
+                return false;
+            }
+
+            BindValue[] bindValues = ((BatchedBindValues) arg).batchedParameterValues;
+
+            for (int j = 0; j < bindValues.length; j++) {
+                if (bindValues[j].isLongData) {
+                    return false;
                 }
+            }
+        }
 
-                synchronized (this.cancelTimeoutMutex) {
-                    if (this.wasCancelled) {
-                        SQLException cause = null;
+        return true;
+    }
 
-                        if (this.wasCancelledByTimeout) {
-                            cause = new MySQLTimeoutException();
-                        } else {
-                            cause = new MySQLStatementCancelledException();
-                        }
+    /**
+     * Writes the COM_EXECUTE packet for the given parameter set of the current batch. The server keeps the parameter types of the previous execution,
+     * so the type block is only sent with the first packet of the batch and when the bound types change.
+     */
+    @Override
+    protected void sendPipelinedBatchCommand(MysqlIO io, int commandIndex) throws SQLException {
+        BindValue[] bindValues = ((BatchedBindValues) this.batchedArgs.get(commandIndex)).batchedParameterValues;
 
-                        resetCancelledState();
+        if (commandIndex == 0) {
+            this.sendTypesToServer = true;
+        } else if (!this.sendTypesToServer) {
+            for (int j = 0; j < bindValues.length; j++) {
+                if (bindValues[j].bufferType != this.parameterBindings[j].bufferType) {
+                    this.sendTypesToServer = true;
 
-                        throw cause;
-                    }
+                    break;
                 }
+            }
+        }
 
-                boolean queryWasSlow = false;
+        BindValue[] previousBindValues = this.parameterBindings;
+        this.parameterBindings = bindValues;
 
-                if (logSlowQueries || gatherPerformanceMetrics) {
-                    long elapsedTime = queryEndTime - begin;
+        try {
+            checkBindings();
 
-                    if (logSlowQueries) {
-                        if (this.useAutoSlowLog) {
-                            queryWasSlow = elapsedTime > this.connection.getSlowQueryThresholdMillis();
-                        } else {
-                            queryWasSlow = this.connection.isAbonormallyLongQuery(elapsedTime);
+            io.sendPipelinedCommand(fillExecutePacket(io));
+        } catch (SQLException sqlEx) {
+            this.parameterBindings = previousBindValues;
 
-                            this.connection.reportQueryTime(elapsedTime);
-                        }
-                    }
+            throw sqlEx;
+        }
 
-                    if (queryWasSlow) {
+        this.sendTypesToServer = false;
+        this.numberOfExecutions++;
 
-                        StringBuilder mesgBuf = new StringBuilder(48 + this.originalSql.length());
-                        mesgBuf.append(Messages.getString("ServerPreparedStatement.15"));
-                        mesgBuf.append(mysql.getSlowQueryThreshold());
-                        mesgBuf.append(Messages.getString("ServerPreparedStatement.15a"));
-                        mesgBuf.append(elapsedTime);
-                        mesgBuf.append(Messages.getString("ServerPreparedStatement.16"));
+        this.connection.incrementNumberOfPreparedExecutes();
 
-                        mesgBuf.append("as prepared: ");
-                        mesgBuf.append(this.originalSql);
-                        mesgBuf.append("\n\n with parameters bound:\n\n");
-                        mesgBuf.append(asSql(true));
+        if (this.registry != null) {
+            this.registry.executed(this.registrySql);
+        }
+    }
 
-                        this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_SLOW_QUERY, "", this.currentCatalog, this.connection.getId(), getId(),
-                                0, System.currentTimeMillis(), elapsedTime, mysql.getQueryTimingUnits(), null, LogUtils
-                                        .findCallingClassAndMethod(new Throwable()), mesgBuf.toString()));
-                    }
+    /**
+     * Can the execution that failed with the given exception be retried after preparing the statement again? Only when the server lost the statement
+     * handle and no long data, which can't be sent a second time, was sent for it.
+     */
+    private boolean canReprepareAfter(SQLException sqlEx) throws SQLException {
+        if (sqlEx.getErrorCode() != MysqlErrorNumbers.ER_UNKNOWN_STMT_HANDLER || !this.connection.getAutoReprepareServerStatements()) {
+            return false;
+        }
 
-                    if (gatherPerformanceMetrics) {
-                        this.connection.registerQueryExecutionTime(elapsedTime);
-                    }
-                }
+        for (int i = 0; i < this.parameterCount; i++) {
+            if (this.parameterBindings[i].isLongData) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * Prepares the statement again on the server, with a new handle, keeping the parameters bound to it.
+     */
+    private void reprepareKeepingBindings() throws SQLException {
+        BindValue[] boundValues = this.parameterBindings;
+        int boundParameterCount = this.parameterCount;
+
+        serverPrepare(this.originalSql);
+
+        if (this.parameterCount != boundParameterCount) {
+            throw SQLError.createSQLException(Messages.getString("ServerPreparedStatement.ParameterCountChanged"), SQLError.SQL_STATE_GENERAL_ERROR,
+                    getExceptionInterceptor());
+        }
 
-                this.connection.incrementNumberOfPreparedExecutes();
+        this.parameterBindings = boundValues;
+        this.sendTypesToServer = true;
 
-                if (this.profileSQL) {
-                    this.eventSink = ProfilerEventHandlerFactory.getInstance(this.connection);
+        if (this.registry != null) {
+            this.registry.reprepared(this.registrySql);
+        }
+    }
 
-                    this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_EXECUTE, "", this.currentCatalog, this.connectionId, this.statementId, -1,
-                            System.currentTimeMillis(), mysql.getCurrentTimeNanosOrMillis() - begin, mysql.getQueryTimingUnits(), null, LogUtils
-                                    .findCallingClassAndMethod(new Throwable()), truncateQueryToLog(asSql(true))));
-                }
+    private void checkBindings() throws SQLException {
+        for (int i = 0; i < this.parameterCount; i++) {
+            if (!this.parameterBindings[i].isSet) {
+                throw SQLError.createSQLException(
+                        Messages.getString("ServerPreparedStatement.13") + (i + 1) + Messages.getString("ServerPreparedStatement.14"),
+                        SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+            }
+        }
+    }
 
-                com.mysql.jdbc.ResultSetInternalMethods rs = mysql.readAllResults(this, maxRowsToRetrieve, this.resultSetType, this.resultSetConcurrency,
-                        createStreamingResultSet, this.currentCatalog, resultPacket, true, this.fieldCount, metadataFromCache);
+    /**
+     * Tells whether executions ask the server to open a cursor, whose rows are only sent when fetched, see fillExecutePacket().
+     */
+    private boolean opensCursor() throws SQLException {
+        return this.resultFields != null && this.connection.isCursorFetchEnabled() && getResultSetType() == ResultSet.TYPE_FORWARD_ONLY
+                && getResultSetConcurrency() == ResultSet.CONCUR_READ_ONLY && getFetchSize() > 0;
+    }
 
-                if (mysql.shouldIntercept()) {
-                    ResultSetInternalMethods interceptedResults = mysql.invokeStatementInterceptorsPost(this.originalSql, this, rs, true, null);
+    /**
+     * Writes the COM_EXECUTE packet for the current parameter bindings into the shared send packet, see serverExecute() for its layout. Long data
+     * parameters are expected to have been sent already.
+     */
+    private Buffer fillExecutePacket(MysqlIO mysql) throws SQLException {
+        Buffer packet = mysql.getSharedSendPacket();
 
-                    if (interceptedResults != null) {
-                        rs = interceptedResults;
-                    }
-                }
+        packet.clear();
+        packet.writeByte((byte) MysqlDefs.COM_EXECUTE);
+        packet.writeLong(this.serverStatementId);
 
-                if (this.profileSQL) {
-                    long fetchEndTime = mysql.getCurrentTimeNanosOrMillis();
+        //			boolean usingCursor = false;
 
-                    this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_FETCH, "", this.currentCatalog, this.connection.getId(), getId(), 0 /*
-                                                                                                                                                          * FIXME
-                                                                                                                                                          * rs.
-                                                                                                                                                          * resultId
-                                                                                                                                                          */,
-                            System.currentTimeMillis(), (fetchEndTime - queryEndTime), mysql.getQueryTimingUnits(), null, LogUtils
-                                    .findCallingClassAndMethod(new Throwable()), null));
-                }
+        if (this.connection.versionMeetsMinimum(4, 1, 2)) {
+            // we only create cursor-backed result sets if
+            // a) The query is a SELECT
+            // b) The server supports it
+            // c) We know it is forward-only (note this doesn't preclude updatable result sets)
+            // d) The user has set a fetch size
+            if (opensCursor()) {
+                packet.writeByte(MysqlDefs.OPEN_CURSOR_FLAG);
+                //					usingCursor = true;
+            } else {
+                packet.writeByte((byte) 0); // placeholder for flags
+            }
 
-                if (queryWasSlow && this.connection.getExplainSlowQueries()) {
-                    String queryAsString = asSql(true);
+            packet.writeLong(1); // placeholder for parameter iterations
+        }
 
-                    mysql.explainSlowQuery(StringUtils.getBytes(queryAsString), queryAsString);
-                }
+        /* Reserve place for null-marker bytes */
+        int nullCount = (this.parameterCount + 7) / 8;
 
-                if (!createStreamingResultSet && this.serverNeedsResetBeforeEachExecution) {
-                    serverResetStatement(); // clear any long data...
-                }
+        // if (mysql.versionMeetsMinimum(4, 1, 2)) {
+        // nullCount = (this.parameterCount + 9) / 8;
+        // }
+        int nullBitsPosition = packet.getPosition();
 
-                this.sendTypesToServer = false;
-                this.results = rs;
+        for (int i = 0; i < nullCount; i++) {
+            packet.writeByte((byte) 0);
+        }
 
-                if (mysql.hadWarnings()) {
-                    mysql.scanForAndThrowDataTruncation();
-                }
+        byte[] nullBitsBuffer = new byte[nullCount];
 
-                return rs;
-            } catch (SQLException sqlEx) {
-                if (mysql.shouldIntercept()) {
-                    mysql.invokeStatementInterceptorsPost(this.originalSql, this, null, true, sqlEx);
-                }
+        /* In case if buffers (type) altered, indicate to server */
+        packet.writeByte(this.sendTypesToServer ? (byte) 1 : (byte) 0);
 
-                throw sqlEx;
-            } finally {
-                this.statementExecuting.set(false);
+        if (this.sendTypesToServer) {
+            /*
+             * Store types of parameters in first in first package that is sent to the server.
+             */
+            for (int i = 0; i < this.parameterCount; i++) {
+                packet.writeInt(this.parameterBindings[i].bufferType);
+            }
+        }
 
-                if (timeoutTask != null) {
-                    timeoutTask.cancel();
-                    this.connection.getCancelTimer().purge();
+        //
+        // store the parameter values
+        //
+        for (int i = 0; i < this.parameterCount; i++) {
+            if (!this.parameterBindings[i].isLongData) {
+                if (!this.parameterBindings[i].isNull) {
+                    storeBinding(packet, this.parameterBindings[i], mysql);
+                } else {
+                    nullBitsBuffer[i / 8] |= (1 << (i & 7));
                 }
             }
         }
+
+        //
+        // Go back and write the NULL flags to the beginning of the packet
+        //
+        int endPosition = packet.getPosition();
+        packet.setPosition(nullBitsPosition);
+        packet.writeBytesNoNull(nullBitsBuffer);
+        packet.setPosition(endPosition);
+
+        return packet;
     }
 
     /**
@@ -1454,132 +1789,173 @@ public class ServerPreparedStatement extends PreparedStatement {
      *             if an error occurs.
      */
     private void serverLongData(int parameterIndex, BindValue longData) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            MysqlIO mysql = this.connection.getIO();
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            Buffer packet = mysql.getSharedSendPacket();
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                serverLongDataLocked(parameterIndex, longData);
+            }
 
-            Object value = longData.value;
+            return;
+        }
 
-            if (value instanceof byte[]) {
-                packet.clear();
-                packet.writeByte((byte) MysqlDefs.COM_LONG_DATA);
-                packet.writeLong(this.serverStatementId);
-                packet.writeInt((parameterIndex));
+        connectionLock.lock();
+
+        try {
+            serverLongDataLocked(parameterIndex, longData);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                packet.writeBytesNoNull((byte[]) longData.value);
+    private void serverLongDataLocked(int parameterIndex, BindValue longData) throws SQLException {
+        MysqlIO mysql = this.connection.getIO();
 
-                mysql.sendCommand(MysqlDefs.COM_LONG_DATA, null, packet, true, null, 0);
-            } else if (value instanceof InputStream) {
-                storeStream(mysql, parameterIndex, packet, (InputStream) value);
-            } else if (value instanceof java.sql.Blob) {
-                storeStream(mysql, parameterIndex, packet, ((java.sql.Blob) value).getBinaryStream());
-            } else if (value instanceof Reader) {
-                storeReader(mysql, parameterIndex, packet, (Reader) value);
-            } else {
-                throw SQLError.createSQLException(Messages.getString("ServerPreparedStatement.18") + value.getClass().getName() + "'",
-                        SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
-            }
+        Buffer packet = mysql.getSharedSendPacket();
+
+        Object value = longData.value;
+
+        if (value instanceof byte[]) {
+            packet.clear();
+            packet.writeByte((byte) MysqlDefs.COM_LONG_DATA);
+            packet.writeLong(this.serverStatementId);
+            packet.writeInt((parameterIndex));
+
+            packet.writeBytesNoNull((byte[]) longData.value);
+
+            mysql.sendCommand(MysqlDefs.COM_LONG_DATA, null, packet, true, null, 0);
+        } else if (value instanceof InputStream) {
+            storeStream(mysql, parameterIndex, packet, (InputStream) value);
+        } else if (value instanceof java.sql.Blob) {
+            storeStream(mysql, parameterIndex, packet, ((java.sql.Blob) value).getBinaryStream());
+        } else if (value instanceof Reader) {
+            storeReader(mysql, parameterIndex, packet, (Reader) value);
+        } else {
+            throw SQLError.createSQLException(Messages.getString("ServerPreparedStatement.18") + value.getClass().getName() + "'",
+                    SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
         }
     }
 
     private void serverPrepare(String sql) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            MysqlIO mysql = this.connection.getIO();
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            if (this.connection.getAutoGenerateTestcaseScript()) {
-                dumpPrepareForTestcase();
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                serverPrepareLocked(sql);
             }
 
-            try {
-                long begin = 0;
+            return;
+        }
 
-                if (StringUtils.startsWithIgnoreCaseAndWs(sql, "LOAD DATA")) {
-                    this.isLoadDataQuery = true;
-                } else {
-                    this.isLoadDataQuery = false;
-                }
+        connectionLock.lock();
 
-                if (this.connection.getProfileSql()) {
-                    begin = System.currentTimeMillis();
-                }
+        try {
+            serverPrepareLocked(sql);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                String characterEncoding = null;
-                String connectionEncoding = this.connection.getEncoding();
+    private void serverPrepareLocked(String sql) throws SQLException {
+        MysqlIO mysql = this.connection.getIO();
 
-                if (!this.isLoadDataQuery && this.connection.getUseUnicode() && (connectionEncoding != null)) {
-                    characterEncoding = connectionEncoding;
-                }
+        if (this.connection.getAutoGenerateTestcaseScript()) {
+            dumpPrepareForTestcase();
+        }
 
-                Buffer prepareResultPacket = mysql.sendCommand(MysqlDefs.COM_PREPARE, sql, null, false, characterEncoding, 0);
+        try {
+            long begin = 0;
 
-                if (this.connection.versionMeetsMinimum(4, 1, 1)) {
-                    // 4.1.1 and newer use the first byte as an 'ok' or 'error' flag, so move the buffer pointer past it to start reading the statement id.
-                    prepareResultPacket.setPosition(1);
-                } else {
-                    // 4.1.0 doesn't use the first byte as an 'ok' or 'error' flag
-                    prepareResultPacket.setPosition(0);
-                }
+            if (StringUtils.startsWithIgnoreCaseAndWs(sql, "LOAD DATA")) {
+                this.isLoadDataQuery = true;
+            } else {
+                this.isLoadDataQuery = false;
+            }
 
-                this.serverStatementId = prepareResultPacket.readLong();
-                this.fieldCount = prepareResultPacket.readInt();
-                this.parameterCount = prepareResultPacket.readInt();
-                this.parameterBindings = new BindValue[this.parameterCount];
+            if (this.connection.getProfileSql()) {
+                begin = System.currentTimeMillis();
+            }
 
-                for (int i = 0; i < this.parameterCount; i++) {
-                    this.parameterBindings[i] = new BindValue();
-                }
+            String characterEncoding = null;
+            String connectionEncoding = this.connection.getEncoding();
 
-                this.connection.incrementNumberOfPrepares();
+            if (!this.isLoadDataQuery && this.connection.getUseUnicode() && (connectionEncoding != null)) {
+                characterEncoding = connectionEncoding;
+            }
 
-                if (this.profileSQL) {
-                    this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_PREPARE, "", this.currentCatalog, this.connectionId, this.statementId, -1,
-                            System.currentTimeMillis(), mysql.getCurrentTimeNanosOrMillis() - begin, mysql.getQueryTimingUnits(), null, LogUtils
-                                    .findCallingClassAndMethod(new Throwable()), truncateQueryToLog(sql)));
-                }
+            Buffer prepareResultPacket = mysql.sendCommand(MysqlDefs.COM_PREPARE, sql, null, false, characterEncoding, 0);
 
-                if (this.parameterCount > 0) {
-                    if (this.connection.versionMeetsMinimum(4, 1, 2) && !mysql.isVersion(5, 0, 0)) {
-                        this.parameterFields = new Field[this.parameterCount];
+            if (this.connection.versionMeetsMinimum(4, 1, 1)) {
+                // 4.1.1 and newer use the first byte as an 'ok' or 'error' flag, so move the buffer pointer past it to start reading the statement id.
+                prepareResultPacket.setPosition(1);
+            } else {
+                // 4.1.0 doesn't use the first byte as an 'ok' or 'error' flag
+                prepareResultPacket.setPosition(0);
+            }
 
-                        Buffer metaDataPacket = mysql.readPacket();
+            this.serverStatementId = prepareResultPacket.readLong();
+            this.fieldCount = prepareResultPacket.readInt();
+            this.executedResultFields = null;
+            this.parameterCount = prepareResultPacket.readInt();
+            this.parameterBindings = new BindValue[this.parameterCount];
 
-                        int i = 0;
+            for (int i = 0; i < this.parameterCount; i++) {
+                this.parameterBindings[i] = new BindValue();
+            }
 
-                        while (!metaDataPacket.isLastDataPacket() && (i < this.parameterCount)) {
-                            this.parameterFields[i++] = mysql.unpackField(metaDataPacket, false);
-                            metaDataPacket = mysql.readPacket();
-                        }
-                    }
-                }
+            this.connection.incrementNumberOfPrepares();
+
+            if (this.registry != null) {
+                this.registry.prepared(this.registrySql, this.connection.getId());
+            }
 
-                if (this.fieldCount > 0) {
-                    this.resultFields = new Field[this.fieldCount];
+            if (this.profileSQL) {
+                this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_PREPARE, "", this.currentCatalog, this.connectionId, this.statementId, -1,
+                        System.currentTimeMillis(), mysql.getCurrentTimeNanosOrMillis() - begin, mysql.getQueryTimingUnits(), null, LogUtils
+                                .findCallingClassAndMethod(new Throwable()), truncateQueryToLog(sql)));
+            }
+
+            if (this.parameterCount > 0) {
+                if (this.connection.versionMeetsMinimum(4, 1, 2) && !mysql.isVersion(5, 0, 0)) {
+                    this.parameterFields = new Field[this.parameterCount];
 
-                    Buffer fieldPacket = mysql.readPacket();
+                    Buffer metaDataPacket = mysql.readPacket();
 
                     int i = 0;
 
-                    // Read in the result set column information
-                    while (!fieldPacket.isLastDataPacket() && (i < this.fieldCount)) {
-                        this.resultFields[i++] = mysql.unpackField(fieldPacket, false);
-                        fieldPacket = mysql.readPacket();
+                    while (!metaDataPacket.isLastDataPacket() && (i < this.parameterCount)) {
+                        this.parameterFields[i++] = mysql.unpackField(metaDataPacket, false);
+                        metaDataPacket = mysql.readPacket();
                     }
                 }
-            } catch (SQLException sqlEx) {
-                if (this.connection.getDumpQueriesOnException()) {
-                    StringBuilder messageBuf = new StringBuilder(this.originalSql.length() + 32);
-                    messageBuf.append("\n\nQuery being prepared when exception was thrown:\n\n");
-                    messageBuf.append(this.originalSql);
+            }
+
+            if (this.fieldCount > 0) {
+                this.resultFields = new Field[this.fieldCount];
+
+                Buffer fieldPacket = mysql.readPacket();
+
+                int i = 0;
 
-                    sqlEx = ConnectionImpl.appendMessageToException(sqlEx, messageBuf.toString(), getExceptionInterceptor());
+                // Read in the result set column information
+                while (!fieldPacket.isLastDataPacket() && (i < this.fieldCount)) {
+                    this.resultFields[i++] = mysql.unpackField(fieldPacket, false);
+                    fieldPacket = mysql.readPacket();
                 }
+            }
+        } catch (SQLException sqlEx) {
+            if (this.connection.getDumpQueriesOnException()) {
+                StringBuilder messageBuf = new StringBuilder(this.originalSql.length() + 32);
+                messageBuf.append("\n\nQuery being prepared when exception was thrown:\n\n");
+                messageBuf.append(this.originalSql);
 
-                throw sqlEx;
-            } finally {
-                // Leave the I/O channel in a known state...there might be packets out there that we're not interested in
-                this.connection.getIO().clearInputStream();
+                sqlEx = ConnectionImpl.appendMessageToException(sqlEx, messageBuf.toString(), getExceptionInterceptor());
             }
+
+            throw sqlEx;
+        } finally {
+            // Leave the I/O channel in a known state...there might be packets out there that we're not interested in
+            this.connection.getIO().clearInputStream();
         }
     }
 
@@ -1602,28 +1978,45 @@ public class ServerPreparedStatement extends PreparedStatement {
     }
 
     private void serverResetStatement() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            MysqlIO mysql = this.connection.getIO();
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                serverResetStatementLocked();
+            }
 
-            Buffer packet = mysql.getSharedSendPacket();
+            return;
+        }
 
-            packet.clear();
-            packet.writeByte((byte) MysqlDefs.COM_RESET_STMT);
-            packet.writeLong(this.serverStatementId);
+        connectionLock.lock();
 
-            try {
-                mysql.sendCommand(MysqlDefs.COM_RESET_STMT, null, packet, !this.connection.versionMeetsMinimum(4, 1, 2), null, 0);
-            } catch (SQLException sqlEx) {
-                throw sqlEx;
-            } catch (Exception ex) {
-                SQLException sqlEx = SQLError.createSQLException(ex.toString(), SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
-                sqlEx.initCause(ex);
+        try {
+            serverResetStatementLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                throw sqlEx;
-            } finally {
-                mysql.clearInputStream();
-            }
+    private void serverResetStatementLocked() throws SQLException {
+        MysqlIO mysql = this.connection.getIO();
+
+        Buffer packet = mysql.getSharedSendPacket();
+
+        packet.clear();
+        packet.writeByte((byte) MysqlDefs.COM_RESET_STMT);
+        packet.writeLong(this.serverStatementId);
+
+        try {
+            mysql.sendCommand(MysqlDefs.COM_RESET_STMT, null, packet, !this.connection.versionMeetsMinimum(4, 1, 2), null, 0);
+        } catch (SQLException sqlEx) {
+            throw sqlEx;
+        } catch (Exception ex) {
+            SQLException sqlEx = SQLError.createSQLException(ex.toString(), SQLError.SQL_STATE_GENERAL_ERROR, getExceptionInterceptor());
+            sqlEx.initCause(ex);
+
+            throw sqlEx;
+        } finally {
+            mysql.clearInputStream();
         }
     }
 
@@ -1640,22 +2033,22 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void setAsciiStream(int parameterIndex, InputStream x, int length) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (x == null) {
-                setNull(parameterIndex, java.sql.Types.BINARY);
-            } else {
-                BindValue binding = getBinding(parameterIndex, true);
-                setType(binding, MysqlDefs.FIELD_TYPE_BLOB);
+        checkClosed();
 
-                binding.value = x;
-                binding.isNull = false;
-                binding.isLongData = true;
+        if (x == null) {
+            setNull(parameterIndex, java.sql.Types.BINARY);
+        } else {
+            BindValue binding = getBinding(parameterIndex, true);
+            setType(binding, MysqlDefs.FIELD_TYPE_BLOB);
 
-                if (this.connection.getUseStreamLengthsInPrepStmts()) {
-                    binding.bindLength = length;
-                } else {
-                    binding.bindLength = -1;
-                }
+            binding.value = x;
+            binding.isNull = false;
+            binding.isLongData = true;
+
+            if (this.connection.getUseStreamLengthsInPrepStmts()) {
+                binding.bindLength = length;
+            } else {
+                binding.bindLength = -1;
             }
         }
     }
@@ -1665,24 +2058,23 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void setBigDecimal(int parameterIndex, BigDecimal x) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-
-            if (x == null) {
-                setNull(parameterIndex, java.sql.Types.DECIMAL);
-            } else {
+        checkClosed();
 
-                BindValue binding = getBinding(parameterIndex, false);
+        if (x == null) {
+            setNull(parameterIndex, java.sql.Types.DECIMAL);
+        } else {
 
-                if (this.connection.versionMeetsMinimum(5, 0, 3)) {
-                    setType(binding, MysqlDefs.FIELD_TYPE_NEW_DECIMAL);
-                } else {
-                    setType(binding, this.stringTypeCode);
-                }
+            BindValue binding = getBinding(parameterIndex, false);
 
-                binding.value = StringUtils.fixDecimalExponent(StringUtils.consistentToString(x));
-                binding.isNull = false;
-                binding.isLongData = false;
+            if (this.connection.versionMeetsMinimum(5, 0, 3)) {
+                setType(binding, MysqlDefs.FIELD_TYPE_NEW_DECIMAL);
+            } else {
+                setType(binding, this.stringTypeCode);
             }
+
+            binding.value = StringUtils.fixDecimalExponent(StringUtils.consistentToString(x));
+            binding.isNull = false;
+            binding.isLongData = false;
         }
     }
 
@@ -1691,23 +2083,22 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void setBinaryStream(int parameterIndex, InputStream x, int length) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        checkClosed();
 
-            if (x == null) {
-                setNull(parameterIndex, java.sql.Types.BINARY);
-            } else {
-                BindValue binding = getBinding(parameterIndex, true);
-                setType(binding, MysqlDefs.FIELD_TYPE_BLOB);
+        if (x == null) {
+            setNull(parameterIndex, java.sql.Types.BINARY);
+        } else {
+            BindValue binding = getBinding(parameterIndex, true);
+            setType(binding, MysqlDefs.FIELD_TYPE_BLOB);
 
-                binding.value = x;
-                binding.isNull = false;
-                binding.isLongData = true;
+            binding.value = x;
+            binding.isNull = false;
+            binding.isLongData = true;
 
-                if (this.connection.getUseStreamLengthsInPrepStmts()) {
-                    binding.bindLength = length;
-                } else {
-                    binding.bindLength = -1;
-                }
+            if (this.connection.getUseStreamLengthsInPrepStmts()) {
+                binding.bindLength = length;
+            } else {
+                binding.bindLength = -1;
             }
         }
     }
@@ -1717,23 +2108,22 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void setBlob(int parameterIndex, Blob x) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        checkClosed();
 
-            if (x == null) {
-                setNull(parameterIndex, java.sql.Types.BINARY);
-            } else {
-                BindValue binding = getBinding(parameterIndex, true);
-                setType(binding, MysqlDefs.FIELD_TYPE_BLOB);
+        if (x == null) {
+            setNull(parameterIndex, java.sql.Types.BINARY);
+        } else {
+            BindValue binding = getBinding(parameterIndex, true);
+            setType(binding, MysqlDefs.FIELD_TYPE_BLOB);
 
-                binding.value = x;
-                binding.isNull = false;
-                binding.isLongData = true;
+            binding.value = x;
+            binding.isNull = false;
+            binding.isLongData = true;
 
-                if (this.connection.getUseStreamLengthsInPrepStmts()) {
-                    binding.bindLength = x.length();
-                } else {
-                    binding.bindLength = -1;
-                }
+            if (this.connection.getUseStreamLengthsInPrepStmts()) {
+                binding.bindLength = x.length();
+            } else {
+                binding.bindLength = -1;
             }
         }
     }
@@ -1786,23 +2176,22 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void setCharacterStream(int parameterIndex, Reader reader, int length) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        checkClosed();
 
-            if (reader == null) {
-                setNull(parameterIndex, java.sql.Types.BINARY);
-            } else {
-                BindValue binding = getBinding(parameterIndex, true);
-                setType(binding, MysqlDefs.FIELD_TYPE_BLOB);
+        if (reader == null) {
+            setNull(parameterIndex, java.sql.Types.BINARY);
+        } else {
+            BindValue binding = getBinding(parameterIndex, true);
+            setType(binding, MysqlDefs.FIELD_TYPE_BLOB);
 
-                binding.value = reader;
-                binding.isNull = false;
-                binding.isLongData = true;
+            binding.value = reader;
+            binding.isNull = false;
+            binding.isLongData = true;
 
-                if (this.connection.getUseStreamLengthsInPrepStmts()) {
-                    binding.bindLength = length;
-                } else {
-                    binding.bindLength = -1;
-                }
+            if (this.connection.getUseStreamLengthsInPrepStmts()) {
+                binding.bindLength = length;
+            } else {
+                binding.bindLength = -1;
             }
         }
     }
@@ -1812,23 +2201,22 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void setClob(int parameterIndex, Clob x) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        checkClosed();
 
-            if (x == null) {
-                setNull(parameterIndex, java.sql.Types.BINARY);
-            } else {
-                BindValue binding = getBinding(parameterIndex, true);
-                setType(binding, MysqlDefs.FIELD_TYPE_BLOB);
+        if (x == null) {
+            setNull(parameterIndex, java.sql.Types.BINARY);
+        } else {
+            BindValue binding = getBinding(parameterIndex, true);
+            setType(binding, MysqlDefs.FIELD_TYPE_BLOB);
 
-                binding.value = x.getCharacterStream();
-                binding.isNull = false;
-                binding.isLongData = true;
+            binding.value = x.getCharacterStream();
+            binding.isNull = false;
+            binding.isLongData = true;
 
-                if (this.connection.getUseStreamLengthsInPrepStmts()) {
-                    binding.bindLength = x.length();
-                } else {
-                    binding.bindLength = -1;
-                }
+            if (this.connection.getUseStreamLengthsInPrepStmts()) {
+                binding.bindLength = x.length();
+            } else {
+                binding.bindLength = -1;
             }
         }
     }
@@ -1883,22 +2271,21 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void setDouble(int parameterIndex, double x) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        checkClosed();
 
-            if (!this.connection.getAllowNanAndInf() && (x == Double.POSITIVE_INFINITY || x == Double.NEGATIVE_INFINITY || Double.isNaN(x))) {
-                throw SQLError.createSQLException("'" + x + "' is not a valid numeric or approximate numeric value", SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                        getExceptionInterceptor());
+        if (!this.connection.getAllowNanAndInf() && (x == Double.POSITIVE_INFINITY || x == Double.NEGATIVE_INFINITY || Double.isNaN(x))) {
+            throw SQLError.createSQLException("'" + x + "' is not a valid numeric or approximate numeric value", SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    getExceptionInterceptor());
 
-            }
+        }
 
-            BindValue binding = getBinding(parameterIndex, false);
-            setType(binding, MysqlDefs.FIELD_TYPE_DOUBLE);
+        BindValue binding = getBinding(parameterIndex, false);
+        setType(binding, MysqlDefs.FIELD_TYPE_DOUBLE);
 
-            binding.value = null;
-            binding.doubleBinding = x;
-            binding.isNull = false;
-            binding.isLongData = false;
-        }
+        binding.value = null;
+        binding.doubleBinding = x;
+        binding.isNull = false;
+        binding.isLongData = false;
     }
 
     /**
@@ -2049,9 +2436,9 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void setTime(int parameterIndex, java.sql.Time x) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            setTimeInternal(parameterIndex, x, null, this.connection.getDefaultTimeZone(), false);
-        }
+        checkClosed();
+
+        setTimeInternal(parameterIndex, x, null, this.connection.getDefaultTimeZone(), false);
     }
 
     /**
@@ -2071,9 +2458,9 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void setTime(int parameterIndex, java.sql.Time x, Calendar cal) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            setTimeInternal(parameterIndex, x, cal, cal.getTimeZone(), true);
-        }
+        checkClosed();
+
+        setTimeInternal(parameterIndex, x, cal, cal.getTimeZone(), true);
     }
 
     /**
@@ -2126,9 +2513,9 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void setTimestamp(int parameterIndex, java.sql.Timestamp x) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            setTimestampInternal(parameterIndex, x, null, this.connection.getDefaultTimeZone(), false);
-        }
+        checkClosed();
+
+        setTimestampInternal(parameterIndex, x, null, this.connection.getDefaultTimeZone(), false);
     }
 
     /**
@@ -2147,9 +2534,9 @@ public class ServerPreparedStatement extends PreparedStatement {
      */
     @Override
     public void setTimestamp(int parameterIndex, java.sql.Timestamp x, Calendar cal) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            setTimestampInternal(parameterIndex, x, cal, cal.getTimeZone(), true);
-        }
+        checkClosed();
+
+        setTimestampInternal(parameterIndex, x, cal, cal.getTimeZone(), true);
     }
 
     private void setTimestampInternal(int parameterIndex, java.sql.Timestamp x, Calendar targetCalendar, TimeZone tz, boolean rollForward) throws SQLException {
@@ -2175,13 +2562,13 @@ public class ServerPreparedStatement extends PreparedStatement {
     }
 
     protected void setType(BindValue oldValue, int bufferType) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (oldValue.bufferType != bufferType) {
-                this.sendTypesToServer = true;
-            }
+        checkClosed();
 
-            oldValue.bufferType = bufferType;
+        if (oldValue.bufferType != bufferType) {
+            this.sendTypesToServer = true;
         }
+
+        oldValue.bufferType = bufferType;
     }
 
     /**
@@ -2827,20 +3214,36 @@ public class ServerPreparedStatement extends PreparedStatement {
 
     @Override
     protected PreparedStatement prepareBatchedInsertSQL(MySQLConnection localConn, int numBatches) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            try {
-                PreparedStatement pstmt = new ServerPreparedStatement(localConn, this.parseInfo.getSqlForBatch(numBatches), this.currentCatalog,
-                        this.resultSetConcurrency, this.resultSetType);
-                pstmt.setRetrieveGeneratedKeys(this.retrieveGeneratedKeys);
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-                return pstmt;
-            } catch (UnsupportedEncodingException e) {
-                SQLException sqlEx = SQLError.createSQLException("Unable to prepare batch statement", SQLError.SQL_STATE_GENERAL_ERROR,
-                        getExceptionInterceptor());
-                sqlEx.initCause(e);
-
-                throw sqlEx;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return prepareBatchedInsertSQLLocked(localConn, numBatches);
             }
         }
+
+        connectionLock.lock();
+
+        try {
+            return prepareBatchedInsertSQLLocked(localConn, numBatches);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private PreparedStatement prepareBatchedInsertSQLLocked(MySQLConnection localConn, int numBatches) throws SQLException {
+        try {
+            PreparedStatement pstmt = new ServerPreparedStatement(localConn, this.parseInfo.getSqlForBatch(numBatches), this.currentCatalog,
+                    this.resultSetConcurrency, this.resultSetType);
+            pstmt.setRetrieveGeneratedKeys(this.retrieveGeneratedKeys);
+
+            return pstmt;
+        } catch (UnsupportedEncodingException e) {
+            SQLException sqlEx = SQLError.createSQLException("Unable to prepare batch statement", SQLError.SQL_STATE_GENERAL_ERROR,
+                    getExceptionInterceptor());
+            sqlEx.initCause(e);
+
+            throw sqlEx;
+        }
     }
 }
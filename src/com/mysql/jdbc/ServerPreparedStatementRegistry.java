@@ -0,0 +1,265 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.mysql.jdbc.util.ConcurrentLRUCache;
+
+/**
+ * Keeps track of the statements prepared on the server by all the connections with the same URL and user: how often each statement is prepared and
+ * executed, and on which connections it is currently prepared.
+ * 
+ * Connections use it to prepare the most executed statements as soon as they are created or reset ("eagerServerPrepStmtCount"); applications can read the
+ * statistics to tune "prepStmtCacheSize".
+ */
+public class ServerPreparedStatementRegistry {
+    private static final ConcurrentHashMap<String, ServerPreparedStatementRegistry> registriesByUrlAndUser =
+            new ConcurrentHashMap<String, ServerPreparedStatementRegistry>();
+
+    private final ConcurrentLRUCache<String, StatementStatistics> statisticsBySql;
+
+    private final ConcurrentHashMap<Long, ConcurrentHashMap<String, Boolean>> sqlByConnectionId =
+            new ConcurrentHashMap<Long, ConcurrentHashMap<String, Boolean>>();
+
+    ServerPreparedStatementRegistry(int maxStatements) {
+        this.statisticsBySql = new ConcurrentLRUCache<String, StatementStatistics>(maxStatements);
+    }
+
+    /**
+     * Returns the registry of the connections with the given URL and user, or null if none of them uses one.
+     */
+    public static ServerPreparedStatementRegistry getInstance(String url, String user) {
+        return registriesByUrlAndUser.get(registryKey(url, user));
+    }
+
+    /**
+     * Returns the registry the connection reports to, creating it if needed, or null if "serverPrepStmtRegistrySize" is 0.
+     */
+    static ServerPreparedStatementRegistry getInstance(MySQLConnection conn) {
+        int maxStatements = conn.getServerPrepStmtRegistrySize();
+
+        if (maxStatements <= 0) {
+            return null;
+        }
+
+        String key = registryKey(conn.getURL(), conn.getUser());
+        ServerPreparedStatementRegistry registry = registriesByUrlAndUser.get(key);
+
+        if (registry == null) {
+            registry = new ServerPreparedStatementRegistry(maxStatements);
+
+            ServerPreparedStatementRegistry existing = registriesByUrlAndUser.putIfAbsent(key, registry);
+
+            if (existing != null) {
+                registry = existing;
+            }
+        }
+
+        return registry;
+    }
+
+    private static String registryKey(String url, String user) {
+        return user + "@" + url;
+    }
+
+    /**
+     * Returns the statistics of a statement, or null if it isn't (or no longer) tracked.
+     */
+    public StatementStatistics getStatistics(String sql) {
+        return this.statisticsBySql.get(sql);
+    }
+
+    /**
+     * Returns the tracked statements, most executed first.
+     * 
+     * @param maxCount
+     *            the maximum number of statements to return
+     */
+    public List<String> getMostExecutedStatements(int maxCount) {
+        final List<StatementStatistics> statistics = new ArrayList<StatementStatistics>();
+
+        for (String sql : this.statisticsBySql.keySet()) {
+            StatementStatistics stats = this.statisticsBySql.get(sql);
+
+            if (stats != null) {
+                statistics.add(stats);
+            }
+        }
+
+        Collections.sort(statistics, new Comparator<StatementStatistics>() {
+            public int compare(StatementStatistics s1, StatementStatistics s2) {
+                long e1 = s1.getExecuteCount();
+                long e2 = s2.getExecuteCount();
+
+                return e1 > e2 ? -1 : (e1 == e2 ? 0 : 1);
+            }
+        });
+
+        List<String> mostExecuted = new ArrayList<String>(Math.min(maxCount, statistics.size()));
+
+        for (int i = 0; i < statistics.size() && i < maxCount; i++) {
+            mostExecuted.add(statistics.get(i).sql);
+        }
+
+        return mostExecuted;
+    }
+
+    void prepared(String sql, long connectionId) {
+        StatementStatistics stats = statisticsFor(sql);
+
+        stats.prepareCount.incrementAndGet();
+        stats.connectionIds.put(Long.valueOf(connectionId), Boolean.TRUE);
+
+        ConcurrentHashMap<String, Boolean> preparedSql = this.sqlByConnectionId.get(Long.valueOf(connectionId));
+
+        if (preparedSql == null) {
+            preparedSql = new ConcurrentHashMap<String, Boolean>();
+
+            ConcurrentHashMap<String, Boolean> existing = this.sqlByConnectionId.putIfAbsent(Long.valueOf(connectionId), preparedSql);
+
+            if (existing != null) {
+                preparedSql = existing;
+            }
+        }
+
+        preparedSql.put(sql, Boolean.TRUE);
+    }
+
+    void reprepared(String sql) {
+        statisticsFor(sql).reprepareCount.incrementAndGet();
+    }
+
+    void executed(String sql) {
+        statisticsFor(sql).executeCount.incrementAndGet();
+    }
+
+    void deallocated(String sql, long connectionId) {
+        StatementStatistics stats = this.statisticsBySql.get(sql);
+
+        if (stats != null) {
+            stats.connectionIds.remove(Long.valueOf(connectionId));
+        }
+
+        ConcurrentHashMap<String, Boolean> preparedSql = this.sqlByConnectionId.get(Long.valueOf(connectionId));
+
+        if (preparedSql != null) {
+            preparedSql.remove(sql);
+        }
+    }
+
+    /**
+     * Forgets about the statements prepared on a connection, because it was closed or its session reset.
+     */
+    void connectionReset(long connectionId) {
+        ConcurrentHashMap<String, Boolean> preparedSql = this.sqlByConnectionId.remove(Long.valueOf(connectionId));
+
+        if (preparedSql == null) {
+            return;
+        }
+
+        for (String sql : preparedSql.keySet()) {
+            StatementStatistics stats = this.statisticsBySql.get(sql);
+
+            if (stats != null) {
+                stats.connectionIds.remove(Long.valueOf(connectionId));
+            }
+        }
+    }
+
+    private StatementStatistics statisticsFor(String sql) {
+        StatementStatistics stats = this.statisticsBySql.get(sql);
+
+        if (stats == null) {
+            stats = new StatementStatistics(sql);
+
+            StatementStatistics existing = this.statisticsBySql.putIfAbsent(sql, stats);
+
+            if (existing != null) {
+                stats = existing;
+            }
+        }
+
+        return stats;
+    }
+
+    /**
+     * Prepare and execute counts of a statement, over all the connections of the registry.
+     */
+    public static class StatementStatistics {
+        final String sql;
+        final AtomicLong prepareCount = new AtomicLong();
+        final AtomicLong reprepareCount = new AtomicLong();
+        final AtomicLong executeCount = new AtomicLong();
+        final ConcurrentHashMap<Long, Boolean> connectionIds = new ConcurrentHashMap<Long, Boolean>();
+
+        StatementStatistics(String sql) {
+            this.sql = sql;
+        }
+
+        public String getSql() {
+            return this.sql;
+        }
+
+        /**
+         * Returns the number of times the statement was prepared on the server, re-prepares included.
+         */
+        public long getPrepareCount() {
+            return this.prepareCount.get();
+        }
+
+        /**
+         * Returns the number of times the statement was prepared again because the server no longer knew its handle.
+         */
+        public long getReprepareCount() {
+            return this.reprepareCount.get();
+        }
+
+        public long getExecuteCount() {
+            return this.executeCount.get();
+        }
+
+        /**
+         * Returns the number of prepares per execution, 0 if the statement was never executed.
+         */
+        public double getPrepareExecuteRatio() {
+            long executes = getExecuteCount();
+
+            return executes == 0 ? 0 : (double) getPrepareCount() / executes;
+        }
+
+        /**
+         * Returns the ids of the connections the statement is currently prepared on.
+         */
+        public Set<Long> getConnectionIds() {
+            return Collections.unmodifiableSet(this.connectionIds.keySet());
+        }
+    }
+}
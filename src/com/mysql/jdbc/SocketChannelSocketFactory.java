@@ -0,0 +1,45 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.channels.SocketChannel;
+import java.util.Properties;
+
+/**
+ * A socket factory that creates sockets backed by a java.nio SocketChannel. When the driver finds a channel behind the socket it switches MysqlIO to the
+ * channel transport, which reads packets through a reusable (optionally direct, see "useDirectSocketBuffers") ByteBuffer from the channel in non-blocking
+ * mode and waits on a Selector instead of parking in a blocking socket read.
+ * 
+ * Enable it per connection with "socketFactory=com.mysql.jdbc.SocketChannelSocketFactory". All the TCP options of the "standard" socket are still
+ * supported.
+ */
+public class SocketChannelSocketFactory extends StandardSocketFactory {
+
+    @Override
+    protected Socket createSocket(Properties props) throws IOException {
+        return SocketChannel.open().socket();
+    }
+}
@@ -118,8 +118,10 @@ public class StandardSocketFactory implements SocketFactory, SocketMetadata {
      *
      * @param props
      *            properties available to affect behavior during socket creation.
+     * @throws IOException
+     *             if the socket can not be created
      */
-    protected Socket createSocket(Properties props) {
+    protected Socket createSocket(Properties props) throws IOException {
         return new Socket();
     }
 
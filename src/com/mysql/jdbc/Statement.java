@@ -25,6 +25,7 @@ package com.mysql.jdbc;
 
 import java.io.InputStream;
 import java.sql.SQLException;
+import java.util.concurrent.Future;
 
 /**
  * This interface contains methods that are considered the "vendor extension" to the JDBC API for MySQL's implementation of java.sql.Statement.
@@ -78,6 +79,20 @@ public interface Statement extends java.sql.Statement {
      */
     public abstract InputStream getLocalInfileInputStream();
 
+    /**
+     * Sets a producer whose rows are sent in response to the "LOAD DATA LOCAL INFILE" statements executed by this statement, in place of a file or the
+     * InputStream set through setLocalInfileInputStream().
+     * 
+     * The producer is called on a driver thread for each such statement, and the rows it writes are encoded there while the connection sends the ones
+     * encoded before. Set it to null to go back to files and streams.
+     */
+    public abstract void setLocalInfileRowProducer(LocalInfileRowProducer producer);
+
+    /**
+     * Returns the producer set through setLocalInfileRowProducer(), or null if none was.
+     */
+    public abstract LocalInfileRowProducer getLocalInfileRowProducer();
+
     public void setPingTarget(PingTarget pingTarget);
 
     public ExceptionInterceptor getExceptionInterceptor();
@@ -95,4 +110,34 @@ public interface Statement extends java.sql.Statement {
     public abstract int getOpenResultSetCount();
 
     public void setHoldResultsOpenOverClose(boolean holdResultsOpenOverClose);
+
+    /**
+     * Executes the given query on a driver thread and returns without waiting for its results.
+     * 
+     * Errors are reported by the Future's get() as an ExecutionException caused by the SQLException. Cancelling the Future with mayInterruptIfRunning set
+     * cancels the statement on the server. This statement must not be used for anything else until the Future is done.
+     * 
+     * @param sql
+     *            the query to execute
+     * 
+     * @return the pending ResultSet
+     * 
+     * @throws SQLException
+     *             if this statement is closed
+     */
+    public abstract Future<java.sql.ResultSet> executeQueryAsync(String sql) throws SQLException;
+
+    /**
+     * Executes the given update on a driver thread and returns without waiting for the server's response. Behaves like {@link #executeQueryAsync(String)}
+     * otherwise.
+     * 
+     * @param sql
+     *            the INSERT, UPDATE, DELETE or other statement to execute
+     * 
+     * @return the pending update count
+     * 
+     * @throws SQLException
+     *             if this statement is closed
+     */
+    public abstract Future<Long> executeUpdateAsync(String sql) throws SQLException;
 }
@@ -41,7 +41,10 @@ import java.util.List;
 import java.util.Properties;
 import java.util.Set;
 import java.util.TimerTask;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Lock;
 
 import com.mysql.jdbc.exceptions.MySQLStatementCancelledException;
 import com.mysql.jdbc.exceptions.MySQLTimeoutException;
@@ -551,18 +554,36 @@ public class StatementImpl implements Statement {
             return; // already closed
         }
 
-        synchronized (locallyScopedConn.getConnectionMutex()) {
-            if (this.openResults != null) {
-                for (ResultSetInternalMethods element : this.openResults) {
-                    try {
-                        element.realClose(false);
-                    } catch (SQLException sqlEx) {
-                        AssertionFailedException.shouldNotHappen(sqlEx);
-                    }
-                }
+        Lock connectionLock = locallyScopedConn.getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (locallyScopedConn.getConnectionMutex()) {
+                closeAllOpenResultsLocked();
+            }
+
+            return;
+        }
+
+        connectionLock.lock();
+
+        try {
+            closeAllOpenResultsLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-                this.openResults.clear();
+    private void closeAllOpenResultsLocked() throws SQLException {
+        if (this.openResults != null) {
+            for (ResultSetInternalMethods element : this.openResults) {
+                try {
+                    element.realClose(false);
+                } catch (SQLException sqlEx) {
+                    AssertionFailedException.shouldNotHappen(sqlEx);
+                }
             }
+
+            this.openResults.clear();
         }
     }
 
@@ -588,33 +609,51 @@ public class StatementImpl implements Statement {
 
     public void removeOpenResultSet(ResultSetInternalMethods rs) {
         try {
-            synchronized (checkClosed().getConnectionMutex()) {
-                if (this.openResults != null) {
-                    this.openResults.remove(rs);
+            Lock connectionLock = checkClosed().getConnectionLock();
+
+            if (connectionLock == null) {
+                synchronized (checkClosed().getConnectionMutex()) {
+                    removeOpenResultSetLocked(rs);
                 }
 
-                boolean hasMoreResults = rs.getNextResultSet() != null;
+                return;
+            }
 
-                // clear the current results or GGK results
-                if (this.results == rs && !hasMoreResults) {
-                    this.results = null;
-                }
-                if (this.generatedKeysResults == rs) {
-                    this.generatedKeysResults = null;
-                }
+            connectionLock.lock();
 
-                // trigger closeOnCompletion if:
-                // a) the result set removal wasn't triggered internally
-                // b) there are no additional results
-                if (!this.isImplicitlyClosingResults && !hasMoreResults) {
-                    checkAndPerformCloseOnCompletionAction();
-                }
+            try {
+                removeOpenResultSetLocked(rs);
+            } finally {
+                connectionLock.unlock();
             }
         } catch (SQLException e) {
             // we can't break the interface, having this be no-op in case of error is ok
         }
     }
 
+    private void removeOpenResultSetLocked(ResultSetInternalMethods rs) {
+        if (this.openResults != null) {
+            this.openResults.remove(rs);
+        }
+
+        boolean hasMoreResults = rs.getNextResultSet() != null;
+
+        // clear the current results or GGK results
+        if (this.results == rs && !hasMoreResults) {
+            this.results = null;
+        }
+        if (this.generatedKeysResults == rs) {
+            this.generatedKeysResults = null;
+        }
+
+        // trigger closeOnCompletion if:
+        // a) the result set removal wasn't triggered internally
+        // b) there are no additional results
+        if (!this.isImplicitlyClosingResults && !hasMoreResults) {
+            checkAndPerformCloseOnCompletionAction();
+        }
+    }
+
     public int getOpenResultSetCount() {
         try {
             synchronized (checkClosed().getConnectionMutex()) {
@@ -637,45 +676,79 @@ public class StatementImpl implements Statement {
      */
     private void checkAndPerformCloseOnCompletionAction() {
         try {
-            synchronized (checkClosed().getConnectionMutex()) {
-                if (isCloseOnCompletion() && !this.connection.getDontTrackOpenResources() && getOpenResultSetCount() == 0
-                        && (this.results == null || !this.results.reallyResult() || this.results.isClosed())
-                        && (this.generatedKeysResults == null || !this.generatedKeysResults.reallyResult() || this.generatedKeysResults.isClosed())) {
-                    realClose(false, false);
+            Lock connectionLock = checkClosed().getConnectionLock();
+
+            if (connectionLock == null) {
+                synchronized (checkClosed().getConnectionMutex()) {
+                    checkAndPerformCloseOnCompletionActionLocked();
                 }
+
+                return;
+            }
+
+            connectionLock.lock();
+
+            try {
+                checkAndPerformCloseOnCompletionActionLocked();
+            } finally {
+                connectionLock.unlock();
             }
         } catch (SQLException e) {
         }
     }
 
+    private void checkAndPerformCloseOnCompletionActionLocked() throws SQLException {
+        if (isCloseOnCompletion() && !this.connection.getDontTrackOpenResources() && getOpenResultSetCount() == 0
+                && (this.results == null || !this.results.reallyResult() || this.results.isClosed())
+                && (this.generatedKeysResults == null || !this.generatedKeysResults.reallyResult() || this.generatedKeysResults.isClosed())) {
+            realClose(false, false);
+        }
+    }
+
     /**
      * @param sql
      */
     private ResultSetInternalMethods createResultSetUsingServerFetch(String sql) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            java.sql.PreparedStatement pStmt = this.connection.prepareStatement(sql, this.resultSetType, this.resultSetConcurrency);
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            pStmt.setFetchSize(this.fetchSize);
-
-            if (this.maxRows > -1) {
-                pStmt.setMaxRows(this.maxRows);
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return createResultSetUsingServerFetchLocked(sql);
             }
+        }
 
-            statementBegins();
-
-            pStmt.execute();
+        connectionLock.lock();
 
-            //
-            // Need to be able to get resultset irrespective if we issued DML or not to make this work.
-            //
-            ResultSetInternalMethods rs = ((com.mysql.jdbc.StatementImpl) pStmt).getResultSetInternal();
+        try {
+            return createResultSetUsingServerFetchLocked(sql);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            rs.setStatementUsedForFetchingRows((com.mysql.jdbc.PreparedStatement) pStmt);
+    private ResultSetInternalMethods createResultSetUsingServerFetchLocked(String sql) throws SQLException {
+        java.sql.PreparedStatement pStmt = this.connection.prepareStatement(sql, this.resultSetType, this.resultSetConcurrency);
 
-            this.results = rs;
+        pStmt.setFetchSize(this.fetchSize);
 
-            return rs;
+        if (this.maxRows > -1) {
+            pStmt.setMaxRows(this.maxRows);
         }
+
+        statementBegins();
+
+        pStmt.execute();
+
+        //
+        // Need to be able to get resultset irrespective if we issued DML or not to make this work.
+        //
+        ResultSetInternalMethods rs = ((com.mysql.jdbc.StatementImpl) pStmt).getResultSetInternal();
+
+        rs.setStatementUsedForFetchingRows((com.mysql.jdbc.PreparedStatement) pStmt);
+
+        this.results = rs;
+
+        return rs;
     }
 
     /**
@@ -749,159 +822,175 @@ public class StatementImpl implements Statement {
     }
 
     private boolean execute(String sql, boolean returnGeneratedKeys) throws SQLException {
+        Lock connectionLock = checkClosed().getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeLocked(sql, returnGeneratedKeys);
+            }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return executeLocked(sql, returnGeneratedKeys);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private boolean executeLocked(String sql, boolean returnGeneratedKeys) throws SQLException {
         MySQLConnection locallyScopedConn = checkClosed();
 
-        synchronized (locallyScopedConn.getConnectionMutex()) {
-            checkClosed();
+        checkClosed();
 
-            checkNullOrEmptyQuery(sql);
+        checkNullOrEmptyQuery(sql);
 
-            resetCancelledState();
+        resetCancelledState();
 
-            char firstNonWsChar = StringUtils.firstAlphaCharUc(sql, findStartOfStatement(sql));
-            boolean maybeSelect = firstNonWsChar == 'S';
+        char firstNonWsChar = StringUtils.firstAlphaCharUc(sql, findStartOfStatement(sql));
+        boolean maybeSelect = firstNonWsChar == 'S';
 
-            this.retrieveGeneratedKeys = returnGeneratedKeys;
+        this.retrieveGeneratedKeys = returnGeneratedKeys;
 
-            this.lastQueryIsOnDupKeyUpdate = false;
-            if (returnGeneratedKeys) {
-                this.lastQueryIsOnDupKeyUpdate = firstNonWsChar == 'I' && containsOnDuplicateKeyInString(sql);
-            }
+        this.lastQueryIsOnDupKeyUpdate = false;
+        if (returnGeneratedKeys) {
+            this.lastQueryIsOnDupKeyUpdate = firstNonWsChar == 'I' && containsOnDuplicateKeyInString(sql);
+        }
 
-            if (!maybeSelect && locallyScopedConn.isReadOnly()) {
-                throw SQLError.createSQLException(Messages.getString("Statement.27") + Messages.getString("Statement.28"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                        getExceptionInterceptor());
-            }
+        if (!maybeSelect && locallyScopedConn.isReadOnly()) {
+            throw SQLError.createSQLException(Messages.getString("Statement.27") + Messages.getString("Statement.28"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    getExceptionInterceptor());
+        }
 
-            try {
-                setupStreamingTimeout(locallyScopedConn);
+        try {
+            setupStreamingTimeout(locallyScopedConn);
 
-                if (this.doEscapeProcessing) {
-                    Object escapedSqlResult = EscapeProcessor.escapeSQL(sql, locallyScopedConn.serverSupportsConvertFn(), locallyScopedConn);
+            if (this.doEscapeProcessing) {
+                Object escapedSqlResult = EscapeProcessor.escapeSQL(sql, locallyScopedConn.serverSupportsConvertFn(), locallyScopedConn);
 
-                    if (escapedSqlResult instanceof String) {
-                        sql = (String) escapedSqlResult;
-                    } else {
-                        sql = ((EscapeProcessorResult) escapedSqlResult).escapedSql;
-                    }
+                if (escapedSqlResult instanceof String) {
+                    sql = (String) escapedSqlResult;
+                } else {
+                    sql = ((EscapeProcessorResult) escapedSqlResult).escapedSql;
                 }
+            }
 
-                implicitlyCloseAllOpenResults();
+            implicitlyCloseAllOpenResults();
 
-                if (sql.charAt(0) == '/') {
-                    if (sql.startsWith(PING_MARKER)) {
-                        doPingInstead();
+            if (sql.charAt(0) == '/') {
+                if (sql.startsWith(PING_MARKER)) {
+                    doPingInstead();
 
-                        return true;
-                    }
+                    return true;
                 }
+            }
 
-                CachedResultSetMetaData cachedMetaData = null;
+            CachedResultSetMetaData cachedMetaData = null;
 
-                ResultSetInternalMethods rs = null;
+            ResultSetInternalMethods rs = null;
 
-                this.batchedGeneratedKeys = null;
+            this.batchedGeneratedKeys = null;
 
-                if (useServerFetch()) {
-                    rs = createResultSetUsingServerFetch(sql);
-                } else {
-                    CancelTask timeoutTask = null;
+            if (useServerFetch()) {
+                rs = createResultSetUsingServerFetch(sql);
+            } else {
+                CancelTask timeoutTask = null;
 
-                    String oldCatalog = null;
+                String oldCatalog = null;
 
-                    try {
-                        if (locallyScopedConn.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                            timeoutTask = new CancelTask(this);
-                            locallyScopedConn.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
-                        }
+                try {
+                    if (locallyScopedConn.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
+                        timeoutTask = new CancelTask(this);
+                        locallyScopedConn.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
+                    }
 
-                        if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
-                            oldCatalog = locallyScopedConn.getCatalog();
-                            locallyScopedConn.setCatalog(this.currentCatalog);
-                        }
+                    if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
+                        oldCatalog = locallyScopedConn.getCatalog();
+                        locallyScopedConn.setCatalog(this.currentCatalog);
+                    }
 
-                        //
-                        // Check if we have cached metadata for this query...
-                        //
+                    //
+                    // Check if we have cached metadata for this query...
+                    //
 
-                        Field[] cachedFields = null;
+                    Field[] cachedFields = null;
 
-                        if (locallyScopedConn.getCacheResultSetMetadata()) {
-                            cachedMetaData = locallyScopedConn.getCachedMetaData(sql);
+                    if (locallyScopedConn.getCacheResultSetMetadata()) {
+                        cachedMetaData = locallyScopedConn.getCachedMetaData(sql);
 
-                            if (cachedMetaData != null) {
-                                cachedFields = cachedMetaData.fields;
-                            }
+                        if (cachedMetaData != null) {
+                            cachedFields = cachedMetaData.fields;
                         }
+                    }
 
-                        //
-                        // Only apply max_rows to selects
-                        //
-                        locallyScopedConn.setSessionMaxRows(maybeSelect ? this.maxRows : -1);
-
-                        statementBegins();
+                    //
+                    // Only apply max_rows to selects
+                    //
+                    locallyScopedConn.setSessionMaxRows(maybeSelect ? this.maxRows : -1);
 
-                        rs = locallyScopedConn.execSQL(this, sql, this.maxRows, null, this.resultSetType, this.resultSetConcurrency, createStreamingResultSet(),
-                                this.currentCatalog, cachedFields);
+                    statementBegins();
 
-                        if (timeoutTask != null) {
-                            if (timeoutTask.caughtWhileCancelling != null) {
-                                throw timeoutTask.caughtWhileCancelling;
-                            }
+                    rs = locallyScopedConn.execSQL(this, sql, this.maxRows, null, this.resultSetType, this.resultSetConcurrency, createStreamingResultSet(),
+                            this.currentCatalog, cachedFields);
 
-                            timeoutTask.cancel();
-                            timeoutTask = null;
+                    if (timeoutTask != null) {
+                        if (timeoutTask.caughtWhileCancelling != null) {
+                            throw timeoutTask.caughtWhileCancelling;
                         }
 
-                        synchronized (this.cancelTimeoutMutex) {
-                            if (this.wasCancelled) {
-                                SQLException cause = null;
-
-                                if (this.wasCancelledByTimeout) {
-                                    cause = new MySQLTimeoutException();
-                                } else {
-                                    cause = new MySQLStatementCancelledException();
-                                }
+                        timeoutTask.cancel();
+                        timeoutTask = null;
+                    }
 
-                                resetCancelledState();
+                    synchronized (this.cancelTimeoutMutex) {
+                        if (this.wasCancelled) {
+                            SQLException cause = null;
 
-                                throw cause;
+                            if (this.wasCancelledByTimeout) {
+                                cause = new MySQLTimeoutException();
+                            } else {
+                                cause = new MySQLStatementCancelledException();
                             }
-                        }
-                    } finally {
-                        if (timeoutTask != null) {
-                            timeoutTask.cancel();
-                            locallyScopedConn.getCancelTimer().purge();
-                        }
 
-                        if (oldCatalog != null) {
-                            locallyScopedConn.setCatalog(oldCatalog);
+                            resetCancelledState();
+
+                            throw cause;
                         }
                     }
+                } finally {
+                    if (timeoutTask != null) {
+                        timeoutTask.cancel();
+                        locallyScopedConn.getCancelTimer().purge();
+                    }
+
+                    if (oldCatalog != null) {
+                        locallyScopedConn.setCatalog(oldCatalog);
+                    }
                 }
+            }
 
-                if (rs != null) {
-                    this.lastInsertId = rs.getUpdateID();
+            if (rs != null) {
+                this.lastInsertId = rs.getUpdateID();
 
-                    this.results = rs;
+                this.results = rs;
 
-                    rs.setFirstCharOfQuery(firstNonWsChar);
+                rs.setFirstCharOfQuery(firstNonWsChar);
 
-                    if (rs.reallyResult()) {
-                        if (cachedMetaData != null) {
-                            locallyScopedConn.initializeResultsMetadataFromCache(sql, cachedMetaData, this.results);
-                        } else {
-                            if (this.connection.getCacheResultSetMetadata()) {
-                                locallyScopedConn.initializeResultsMetadataFromCache(sql, null /* will be created */, this.results);
-                            }
+                if (rs.reallyResult()) {
+                    if (cachedMetaData != null) {
+                        locallyScopedConn.initializeResultsMetadataFromCache(sql, cachedMetaData, this.results);
+                    } else {
+                        if (this.connection.getCacheResultSetMetadata()) {
+                            locallyScopedConn.initializeResultsMetadataFromCache(sql, null /* will be created */, this.results);
                         }
                     }
                 }
-
-                return ((rs != null) && rs.reallyResult());
-            } finally {
-                this.statementExecuting.set(false);
             }
+
+            return ((rs != null) && rs.reallyResult());
+        } finally {
+            this.statementExecuting.set(false);
         }
     }
 
@@ -927,23 +1016,36 @@ public class StatementImpl implements Statement {
      * @see StatementImpl#execute(String, int)
      */
     public boolean execute(String sql, int returnGeneratedKeys) throws SQLException {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-        if (returnGeneratedKeys == java.sql.Statement.RETURN_GENERATED_KEYS) {
-            checkClosed();
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeLocked(sql, returnGeneratedKeys);
+            }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return executeLocked(sql, returnGeneratedKeys);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
+    private boolean executeLocked(String sql, int returnGeneratedKeys) throws SQLException {
+        if (returnGeneratedKeys == java.sql.Statement.RETURN_GENERATED_KEYS) {
             MySQLConnection locallyScopedConn = this.connection;
 
-            synchronized (locallyScopedConn.getConnectionMutex()) {
-                // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
-                // generated.
-                boolean readInfoMsgState = this.connection.isReadInfoMsgEnabled();
-                locallyScopedConn.setReadInfoMsgEnabled(true);
+            // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
+            // generated.
+            boolean readInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
+            locallyScopedConn.setReadInfoMsgEnabled(true);
 
-                try {
-                    return execute(sql, true);
-                } finally {
-                    locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
-                }
+            try {
+                return execute(sql, true);
+            } finally {
+                locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
             }
         }
 
@@ -954,53 +1056,85 @@ public class StatementImpl implements Statement {
      * @see StatementImpl#execute(String, int[])
      */
     public boolean execute(String sql, int[] generatedKeyIndices) throws SQLException {
+        Lock connectionLock = checkClosed().getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeLocked(sql, generatedKeyIndices);
+            }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return executeLocked(sql, generatedKeyIndices);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private boolean executeLocked(String sql, int[] generatedKeyIndices) throws SQLException {
         MySQLConnection locallyScopedConn = checkClosed();
 
-        synchronized (locallyScopedConn.getConnectionMutex()) {
-            if ((generatedKeyIndices != null) && (generatedKeyIndices.length > 0)) {
+        if ((generatedKeyIndices != null) && (generatedKeyIndices.length > 0)) {
 
-                this.retrieveGeneratedKeys = true;
+            this.retrieveGeneratedKeys = true;
 
-                // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
-                // generated.
-                boolean readInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
-                locallyScopedConn.setReadInfoMsgEnabled(true);
+            // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
+            // generated.
+            boolean readInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
+            locallyScopedConn.setReadInfoMsgEnabled(true);
 
-                try {
-                    return execute(sql, true);
-                } finally {
-                    locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
-                }
+            try {
+                return execute(sql, true);
+            } finally {
+                locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
             }
-
-            return execute(sql);
         }
+
+        return execute(sql);
     }
 
     /**
      * @see StatementImpl#execute(String, String[])
      */
     public boolean execute(String sql, String[] generatedKeyNames) throws SQLException {
+        Lock connectionLock = checkClosed().getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeLocked(sql, generatedKeyNames);
+            }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return executeLocked(sql, generatedKeyNames);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private boolean executeLocked(String sql, String[] generatedKeyNames) throws SQLException {
         MySQLConnection locallyScopedConn = checkClosed();
 
-        synchronized (locallyScopedConn.getConnectionMutex()) {
-            if ((generatedKeyNames != null) && (generatedKeyNames.length > 0)) {
+        if ((generatedKeyNames != null) && (generatedKeyNames.length > 0)) {
 
-                this.retrieveGeneratedKeys = true;
-                // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
-                // generated.
-                boolean readInfoMsgState = this.connection.isReadInfoMsgEnabled();
-                locallyScopedConn.setReadInfoMsgEnabled(true);
+            this.retrieveGeneratedKeys = true;
+            // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
+            // generated.
+            boolean readInfoMsgState = this.connection.isReadInfoMsgEnabled();
+            locallyScopedConn.setReadInfoMsgEnabled(true);
 
-                try {
-                    return execute(sql, true);
-                } finally {
-                    locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
-                }
+            try {
+                return execute(sql, true);
+            } finally {
+                locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
             }
-
-            return execute(sql);
         }
+
+        return execute(sql);
     }
 
     /**
@@ -1017,125 +1151,145 @@ public class StatementImpl implements Statement {
      * @throws java.sql.BatchUpdateException
      */
     public int[] executeBatch() throws SQLException {
-        MySQLConnection locallyScopedConn = checkClosed();
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-        synchronized (locallyScopedConn.getConnectionMutex()) {
-            if (locallyScopedConn.isReadOnly()) {
-                throw SQLError.createSQLException(Messages.getString("Statement.34") + Messages.getString("Statement.35"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                        getExceptionInterceptor());
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeBatchLocked();
             }
+        }
 
-            implicitlyCloseAllOpenResults();
+        connectionLock.lock();
 
-            if (this.batchedArgs == null || this.batchedArgs.size() == 0) {
-                return new int[0];
-            }
+        try {
+            return executeBatchLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            // we timeout the entire batch, not individual statements
-            int individualStatementTimeout = this.timeoutInMillis;
-            this.timeoutInMillis = 0;
+    private int[] executeBatchLocked() throws SQLException {
+        MySQLConnection locallyScopedConn = checkClosed();
 
-            CancelTask timeoutTask = null;
+        if (locallyScopedConn.isReadOnly()) {
+            throw SQLError.createSQLException(Messages.getString("Statement.34") + Messages.getString("Statement.35"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    getExceptionInterceptor());
+        }
 
-            try {
-                resetCancelledState();
+        implicitlyCloseAllOpenResults();
 
-                statementBegins();
+        if (this.batchedArgs == null || this.batchedArgs.size() == 0) {
+            return new int[0];
+        }
 
-                try {
-                    this.retrieveGeneratedKeys = true; // The JDBC spec doesn't forbid this, but doesn't provide for it either...we do..
+        // we timeout the entire batch, not individual statements
+        int individualStatementTimeout = this.timeoutInMillis;
+        this.timeoutInMillis = 0;
 
-                    int[] updateCounts = null;
+        CancelTask timeoutTask = null;
 
-                    if (this.batchedArgs != null) {
-                        int nbrCommands = this.batchedArgs.size();
+        try {
+            resetCancelledState();
 
-                        this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(this.batchedArgs.size());
+            statementBegins();
 
-                        boolean multiQueriesEnabled = locallyScopedConn.getAllowMultiQueries();
+            try {
+                this.retrieveGeneratedKeys = true; // The JDBC spec doesn't forbid this, but doesn't provide for it either...we do..
 
-                        if (locallyScopedConn.versionMeetsMinimum(4, 1, 1)
-                                && (multiQueriesEnabled || (locallyScopedConn.getRewriteBatchedStatements() && nbrCommands > 4))) {
-                            return executeBatchUsingMultiQueries(multiQueriesEnabled, nbrCommands, individualStatementTimeout);
-                        }
+                int[] updateCounts = null;
 
-                        if (locallyScopedConn.getEnableQueryTimeouts() && individualStatementTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                            timeoutTask = new CancelTask(this);
-                            locallyScopedConn.getCancelTimer().schedule(timeoutTask, individualStatementTimeout);
-                        }
+                if (this.batchedArgs != null) {
+                    int nbrCommands = this.batchedArgs.size();
 
-                        updateCounts = new int[nbrCommands];
+                    this.batchedGeneratedKeys = new ArrayList<ResultSetRow>(this.batchedArgs.size());
 
-                        for (int i = 0; i < nbrCommands; i++) {
-                            updateCounts[i] = -3;
-                        }
+                    boolean multiQueriesEnabled = locallyScopedConn.getAllowMultiQueries();
 
-                        SQLException sqlEx = null;
+                    if (locallyScopedConn.versionMeetsMinimum(4, 1, 1)
+                            && (multiQueriesEnabled || (locallyScopedConn.getRewriteBatchedStatements() && nbrCommands > 4))) {
+                        return executeBatchUsingMultiQueries(multiQueriesEnabled, nbrCommands, individualStatementTimeout);
+                    }
 
-                        int commandIndex = 0;
+                    if (canPipelineBatch(nbrCommands, individualStatementTimeout)) {
+                        return executeBatchPipelined(nbrCommands);
+                    }
 
-                        for (commandIndex = 0; commandIndex < nbrCommands; commandIndex++) {
-                            try {
-                                String sql = (String) this.batchedArgs.get(commandIndex);
-                                updateCounts[commandIndex] = executeUpdate(sql, true, true);
-                                // limit one generated key per OnDuplicateKey statement
-                                getBatchedGeneratedKeys(this.results.getFirstCharOfQuery() == 'I' && containsOnDuplicateKeyInString(sql) ? 1 : 0);
-                            } catch (SQLException ex) {
-                                updateCounts[commandIndex] = EXECUTE_FAILED;
-
-                                if (this.continueBatchOnError && !(ex instanceof MySQLTimeoutException) && !(ex instanceof MySQLStatementCancelledException)
-                                        && !hasDeadlockOrTimeoutRolledBackTx(ex)) {
-                                    sqlEx = ex;
-                                } else {
-                                    int[] newUpdateCounts = new int[commandIndex];
-
-                                    if (hasDeadlockOrTimeoutRolledBackTx(ex)) {
-                                        for (int i = 0; i < newUpdateCounts.length; i++) {
-                                            newUpdateCounts[i] = java.sql.Statement.EXECUTE_FAILED;
-                                        }
-                                    } else {
-                                        System.arraycopy(updateCounts, 0, newUpdateCounts, 0, commandIndex);
-                                    }
+                    if (locallyScopedConn.getEnableQueryTimeouts() && individualStatementTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
+                        timeoutTask = new CancelTask(this);
+                        locallyScopedConn.getCancelTimer().schedule(timeoutTask, individualStatementTimeout);
+                    }
 
-                                    throw new java.sql.BatchUpdateException(ex.getMessage(), ex.getSQLState(), ex.getErrorCode(), newUpdateCounts);
-                                }
-                            }
-                        }
+                    updateCounts = new int[nbrCommands];
 
-                        if (sqlEx != null) {
-                            throw new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(), updateCounts);
-                        }
+                    for (int i = 0; i < nbrCommands; i++) {
+                        updateCounts[i] = -3;
                     }
 
-                    if (timeoutTask != null) {
-                        if (timeoutTask.caughtWhileCancelling != null) {
-                            throw timeoutTask.caughtWhileCancelling;
-                        }
+                    SQLException sqlEx = null;
 
-                        timeoutTask.cancel();
+                    int commandIndex = 0;
 
-                        locallyScopedConn.getCancelTimer().purge();
-                        timeoutTask = null;
+                    for (commandIndex = 0; commandIndex < nbrCommands; commandIndex++) {
+                        try {
+                            String sql = (String) this.batchedArgs.get(commandIndex);
+                            updateCounts[commandIndex] = executeUpdate(sql, true, true);
+                            // limit one generated key per OnDuplicateKey statement
+                            getBatchedGeneratedKeys(this.results.getFirstCharOfQuery() == 'I' && containsOnDuplicateKeyInString(sql) ? 1 : 0);
+                        } catch (SQLException ex) {
+                            updateCounts[commandIndex] = EXECUTE_FAILED;
+
+                            if (this.continueBatchOnError && !(ex instanceof MySQLTimeoutException) && !(ex instanceof MySQLStatementCancelledException)
+                                    && !hasDeadlockOrTimeoutRolledBackTx(ex)) {
+                                sqlEx = ex;
+                            } else {
+                                int[] newUpdateCounts = new int[commandIndex];
+
+                                if (hasDeadlockOrTimeoutRolledBackTx(ex)) {
+                                    for (int i = 0; i < newUpdateCounts.length; i++) {
+                                        newUpdateCounts[i] = java.sql.Statement.EXECUTE_FAILED;
+                                    }
+                                } else {
+                                    System.arraycopy(updateCounts, 0, newUpdateCounts, 0, commandIndex);
+                                }
+
+                                throw new java.sql.BatchUpdateException(ex.getMessage(), ex.getSQLState(), ex.getErrorCode(), newUpdateCounts);
+                            }
+                        }
                     }
 
-                    return (updateCounts != null) ? updateCounts : new int[0];
-                } finally {
-                    this.statementExecuting.set(false);
+                    if (sqlEx != null) {
+                        throw new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(), updateCounts);
+                    }
                 }
-            } finally {
 
                 if (timeoutTask != null) {
+                    if (timeoutTask.caughtWhileCancelling != null) {
+                        throw timeoutTask.caughtWhileCancelling;
+                    }
+
                     timeoutTask.cancel();
 
                     locallyScopedConn.getCancelTimer().purge();
+                    timeoutTask = null;
                 }
 
-                resetCancelledState();
+                return (updateCounts != null) ? updateCounts : new int[0];
+            } finally {
+                this.statementExecuting.set(false);
+            }
+        } finally {
 
-                this.timeoutInMillis = individualStatementTimeout;
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
 
-                clearBatch();
+                locallyScopedConn.getCancelTimer().purge();
             }
+
+            resetCancelledState();
+
+            this.timeoutInMillis = individualStatementTimeout;
+
+            clearBatch();
         }
     }
 
@@ -1153,6 +1307,223 @@ public class StatementImpl implements Statement {
         }
     }
 
+    /**
+     * Tells whether the current batch can be executed with executeBatchPipelined(): pipelining is enabled with 'batchPipelineDepth', the batch only holds
+     * statements the server answers with a single result, continues on errors, has no timeout and runs in auto-commit mode. Inside a transaction a
+     * deadlock would roll back statements that were already reported as executed while the ones sent after it start a new transaction, which executing
+     * the statements one by one never does.
+     */
+    protected boolean canPipelineBatch(int nbrCommands, int batchTimeout) throws SQLException {
+        MySQLConnection locallyScopedConn = this.connection;
+
+        return locallyScopedConn.getBatchPipelineDepth() > 0 && nbrCommands > 1 && this.continueBatchOnError
+                && (batchTimeout == 0 || !locallyScopedConn.getEnableQueryTimeouts()) && locallyScopedConn.getAutoCommit()
+                && locallyScopedConn.getCatalog().equals(this.currentCatalog) && locallyScopedConn.getIO().canPipelineCommands() && canPipelineBatchCommands();
+    }
+
+    /**
+     * Tells whether every statement of the current batch may be pipelined, see MysqlIO.sendPipelinedCommand().
+     */
+    protected boolean canPipelineBatchCommands() throws SQLException {
+        for (int i = 0; i < this.batchedArgs.size(); i++) {
+            if (!isPipelinableStatement((String) this.batchedArgs.get(i))) {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * INSERT, UPDATE, DELETE and REPLACE statements only ever get an OK or an error packet as response, with the exception of LOAD DATA which isn't one of
+     * them.
+     */
+    protected static boolean isPipelinableStatement(String sql) {
+        if (sql == null) {
+            return false;
+        }
+
+        int statementStartPos = findStartOfStatement(sql);
+
+        for (int i = 0; i < PIPELINABLE_STATEMENTS.length; i++) {
+            if (StringUtils.startsWithIgnoreCaseAndWs(sql, PIPELINABLE_STATEMENTS[i], statementStartPos)) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    private static final String[] PIPELINABLE_STATEMENTS = new String[] { "INSERT", "UPDATE", "DELETE", "REPLACE" };
+
+    /**
+     * Executes the current batch by writing up to 'batchPipelineDepth' statements ahead of the result being read, so that the whole batch costs about one
+     * round trip per window instead of one per statement. Errors are mapped to EXECUTE_FAILED update counts as with 'continueBatchOnError'. A deadlock or
+     * a lock wait timeout stops the batch: the statements already sent behind the failed one have executed, in auto-commit mode like the ones before it,
+     * so their responses are still read and the update counts of every statement sent are reported, leaving out only the ones that weren't.
+     * 
+     * @return update counts in the same manner as executeBatch()
+     * @throws SQLException
+     */
+    protected int[] executeBatchPipelined(int nbrCommands) throws SQLException {
+        MySQLConnection locallyScopedConn = this.connection;
+        MysqlIO io = locallyScopedConn.getIO();
+        int depth = locallyScopedConn.getBatchPipelineDepth();
+
+        int[] updateCounts = new int[nbrCommands];
+        boolean[] notSent = new boolean[nbrCommands];
+
+        SQLException sqlEx = null;
+        SQLException rolledBackEx = null;
+
+        int commandsToSend = nbrCommands;
+        int sendIndex = 0;
+        int readIndex = 0;
+        int pending = 0;
+
+        locallyScopedConn.setSessionMaxRows(-1);
+
+        boolean oldInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
+
+        if (this.retrieveGeneratedKeys) {
+            locallyScopedConn.setReadInfoMsgEnabled(true);
+        }
+
+        try {
+            while (readIndex < commandsToSend) {
+                while (sendIndex < commandsToSend && pending < depth) {
+                    try {
+                        sendPipelinedBatchCommand(io, sendIndex);
+                        pending++;
+                    } catch (SQLException ex) {
+                        if (SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(ex.getSQLState())) {
+                            throw ex;
+                        }
+
+                        notSent[sendIndex] = true;
+                        sqlEx = ex;
+                    }
+
+                    sendIndex++;
+                }
+
+                if (notSent[readIndex]) {
+                    updateCounts[readIndex++] = EXECUTE_FAILED;
+                    continue;
+                }
+
+                ResultSetInternalMethods rs = null;
+
+                try {
+                    rs = io.readPipelinedResult(this);
+                } catch (SQLException ex) {
+                    if (SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(ex.getSQLState())) {
+                        throw ex;
+                    }
+
+                    updateCounts[readIndex] = EXECUTE_FAILED;
+                    sqlEx = ex;
+
+                    if (hasDeadlockOrTimeoutRolledBackTx(ex) && rolledBackEx == null) {
+                        rolledBackEx = ex;
+                        commandsToSend = sendIndex;
+                    }
+                }
+
+                pending--;
+
+                if (rs != null) {
+                    updateCounts[readIndex] = processPipelinedBatchResult(readIndex, rs);
+                }
+
+                readIndex++;
+            }
+        } catch (SQLException ex) {
+            if (!SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(ex.getSQLState())) {
+                // keep the connection usable by consuming the responses still on their way
+                for (; pending > 0; pending--) {
+                    try {
+                        io.readPipelinedResult(this);
+                    } catch (SQLException drainEx) {
+                        if (SQLError.SQL_STATE_COMMUNICATION_LINK_FAILURE.equals(drainEx.getSQLState())) {
+                            break;
+                        }
+                    }
+                }
+            }
+
+            int[] newUpdateCounts = new int[readIndex];
+            System.arraycopy(updateCounts, 0, newUpdateCounts, 0, readIndex);
+
+            SQLException batchUpdateException = new java.sql.BatchUpdateException(ex.getMessage(), ex.getSQLState(), ex.getErrorCode(), newUpdateCounts);
+            batchUpdateException.initCause(ex);
+            throw batchUpdateException;
+        } finally {
+            locallyScopedConn.setReadInfoMsgEnabled(oldInfoMsgState);
+        }
+
+        if (rolledBackEx != null) {
+            int[] sentUpdateCounts = new int[commandsToSend];
+            System.arraycopy(updateCounts, 0, sentUpdateCounts, 0, commandsToSend);
+
+            SQLException batchUpdateException = new java.sql.BatchUpdateException(rolledBackEx.getMessage(), rolledBackEx.getSQLState(),
+                    rolledBackEx.getErrorCode(), sentUpdateCounts);
+            batchUpdateException.initCause(rolledBackEx);
+            throw batchUpdateException;
+        }
+
+        if (sqlEx != null) {
+            SQLException batchUpdateException = new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(), updateCounts);
+            batchUpdateException.initCause(sqlEx);
+            throw batchUpdateException;
+        }
+
+        return updateCounts;
+    }
+
+    /**
+     * Writes the given statement of the current batch with MysqlIO.sendPipelinedCommand().
+     */
+    protected void sendPipelinedBatchCommand(MysqlIO io, int commandIndex) throws SQLException {
+        String sql = (String) this.batchedArgs.get(commandIndex);
+
+        checkNullOrEmptyQuery(sql);
+
+        if (this.doEscapeProcessing) {
+            Object escapedSqlResult = EscapeProcessor.escapeSQL(sql, this.connection.serverSupportsConvertFn(), this.connection);
+
+            if (escapedSqlResult instanceof String) {
+                sql = (String) escapedSqlResult;
+            } else {
+                sql = ((EscapeProcessorResult) escapedSqlResult).escapedSql;
+            }
+        }
+
+        io.sendPipelinedQuery(sql, this.connection.getUseUnicode() ? this.connection.getEncoding() : null);
+    }
+
+    /**
+     * Records the result of the given statement of the current batch the way executing it on its own would have.
+     * 
+     * @return the update count of the statement
+     */
+    protected int processPipelinedBatchResult(int commandIndex, ResultSetInternalMethods rs) throws SQLException {
+        String sql = (String) this.batchedArgs.get(commandIndex);
+        char firstStatementChar = StringUtils.firstAlphaCharUc(sql, findStartOfStatement(sql));
+
+        this.lastQueryIsOnDupKeyUpdate = firstStatementChar == 'I' && containsOnDuplicateKeyInString(sql);
+
+        this.results = rs;
+        rs.setFirstCharOfQuery(firstStatementChar);
+        this.updateCount = rs.getUpdateCount();
+        this.lastInsertId = rs.getUpdateID();
+
+        // limit one generated key per OnDuplicateKey statement
+        getBatchedGeneratedKeys(this.lastQueryIsOnDupKeyUpdate ? 1 : 0);
+
+        return this.updateCount > Integer.MAX_VALUE ? Integer.MAX_VALUE : (int) this.updateCount;
+    }
+
     /**
      * Rewrites batch into a single query to send to the server. This method
      * will constrain each batch to be shorter than max_allowed_packet on the
@@ -1162,126 +1533,141 @@ public class StatementImpl implements Statement {
      * @throws SQLException
      */
     private int[] executeBatchUsingMultiQueries(boolean multiQueriesEnabled, int nbrCommands, int individualStatementTimeout) throws SQLException {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-        MySQLConnection locallyScopedConn = checkClosed();
-
-        synchronized (locallyScopedConn.getConnectionMutex()) {
-            if (!multiQueriesEnabled) {
-                locallyScopedConn.getIO().enableMultiQueries();
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeBatchUsingMultiQueriesLocked(multiQueriesEnabled, nbrCommands, individualStatementTimeout);
             }
+        }
 
-            java.sql.Statement batchStmt = null;
+        connectionLock.lock();
 
-            CancelTask timeoutTask = null;
+        try {
+            return executeBatchUsingMultiQueriesLocked(multiQueriesEnabled, nbrCommands, individualStatementTimeout);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            try {
-                int[] updateCounts = new int[nbrCommands];
+    private int[] executeBatchUsingMultiQueriesLocked(boolean multiQueriesEnabled, int nbrCommands, int individualStatementTimeout) throws SQLException {
+        MySQLConnection locallyScopedConn = checkClosed();
 
-                for (int i = 0; i < nbrCommands; i++) {
-                    updateCounts[i] = -3;
-                }
+        if (!multiQueriesEnabled) {
+            locallyScopedConn.getIO().enableMultiQueries();
+        }
 
-                int commandIndex = 0;
+        java.sql.Statement batchStmt = null;
 
-                StringBuilder queryBuf = new StringBuilder();
+        CancelTask timeoutTask = null;
 
-                batchStmt = locallyScopedConn.createStatement();
+        try {
+            int[] updateCounts = new int[nbrCommands];
 
-                if (locallyScopedConn.getEnableQueryTimeouts() && individualStatementTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                    timeoutTask = new CancelTask((StatementImpl) batchStmt);
-                    locallyScopedConn.getCancelTimer().schedule(timeoutTask, individualStatementTimeout);
-                }
+            for (int i = 0; i < nbrCommands; i++) {
+                updateCounts[i] = -3;
+            }
 
-                int counter = 0;
+            int commandIndex = 0;
 
-                int numberOfBytesPerChar = 1;
+            StringBuilder queryBuf = new StringBuilder();
 
-                String connectionEncoding = locallyScopedConn.getEncoding();
+            batchStmt = locallyScopedConn.createStatement();
 
-                if (StringUtils.startsWithIgnoreCase(connectionEncoding, "utf")) {
-                    numberOfBytesPerChar = 3;
-                } else if (CharsetMapping.isMultibyteCharset(connectionEncoding)) {
-                    numberOfBytesPerChar = 2;
-                }
+            if (locallyScopedConn.getEnableQueryTimeouts() && individualStatementTimeout != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
+                timeoutTask = new CancelTask((StatementImpl) batchStmt);
+                locallyScopedConn.getCancelTimer().schedule(timeoutTask, individualStatementTimeout);
+            }
 
-                int escapeAdjust = 1;
+            int counter = 0;
 
-                batchStmt.setEscapeProcessing(this.doEscapeProcessing);
+            int numberOfBytesPerChar = 1;
 
-                if (this.doEscapeProcessing) {
-                    escapeAdjust = 2; // We assume packet _could_ grow by this amount, as we're not sure how big statement will end up after  escape processing
-                }
+            String connectionEncoding = locallyScopedConn.getEncoding();
 
-                SQLException sqlEx = null;
+            if (StringUtils.startsWithIgnoreCase(connectionEncoding, "utf")) {
+                numberOfBytesPerChar = 3;
+            } else if (CharsetMapping.isMultibyteCharset(connectionEncoding)) {
+                numberOfBytesPerChar = 2;
+            }
 
-                int argumentSetsInBatchSoFar = 0;
+            int escapeAdjust = 1;
 
-                for (commandIndex = 0; commandIndex < nbrCommands; commandIndex++) {
-                    String nextQuery = (String) this.batchedArgs.get(commandIndex);
+            batchStmt.setEscapeProcessing(this.doEscapeProcessing);
 
-                    if (((((queryBuf.length() + nextQuery.length()) * numberOfBytesPerChar) + 1 /* for semicolon */
-                    + MysqlIO.HEADER_LENGTH) * escapeAdjust) + 32 > this.connection.getMaxAllowedPacket()) {
-                        try {
-                            batchStmt.execute(queryBuf.toString(), java.sql.Statement.RETURN_GENERATED_KEYS);
-                        } catch (SQLException ex) {
-                            sqlEx = handleExceptionForBatch(commandIndex, argumentSetsInBatchSoFar, updateCounts, ex);
-                        }
+            if (this.doEscapeProcessing) {
+                escapeAdjust = 2; // We assume packet _could_ grow by this amount, as we're not sure how big statement will end up after  escape processing
+            }
 
-                        counter = processMultiCountsAndKeys((StatementImpl) batchStmt, counter, updateCounts);
+            SQLException sqlEx = null;
 
-                        queryBuf = new StringBuilder();
-                        argumentSetsInBatchSoFar = 0;
-                    }
+            int argumentSetsInBatchSoFar = 0;
 
-                    queryBuf.append(nextQuery);
-                    queryBuf.append(";");
-                    argumentSetsInBatchSoFar++;
-                }
+            for (commandIndex = 0; commandIndex < nbrCommands; commandIndex++) {
+                String nextQuery = (String) this.batchedArgs.get(commandIndex);
 
-                if (queryBuf.length() > 0) {
+                if (((((queryBuf.length() + nextQuery.length()) * numberOfBytesPerChar) + 1 /* for semicolon */
+                + MysqlIO.HEADER_LENGTH) * escapeAdjust) + 32 > this.connection.getMaxAllowedPacket()) {
                     try {
                         batchStmt.execute(queryBuf.toString(), java.sql.Statement.RETURN_GENERATED_KEYS);
                     } catch (SQLException ex) {
-                        sqlEx = handleExceptionForBatch(commandIndex - 1, argumentSetsInBatchSoFar, updateCounts, ex);
+                        sqlEx = handleExceptionForBatch(commandIndex, argumentSetsInBatchSoFar, updateCounts, ex);
                     }
 
                     counter = processMultiCountsAndKeys((StatementImpl) batchStmt, counter, updateCounts);
+
+                    queryBuf = new StringBuilder();
+                    argumentSetsInBatchSoFar = 0;
                 }
 
-                if (timeoutTask != null) {
-                    if (timeoutTask.caughtWhileCancelling != null) {
-                        throw timeoutTask.caughtWhileCancelling;
-                    }
+                queryBuf.append(nextQuery);
+                queryBuf.append(";");
+                argumentSetsInBatchSoFar++;
+            }
 
-                    timeoutTask.cancel();
+            if (queryBuf.length() > 0) {
+                try {
+                    batchStmt.execute(queryBuf.toString(), java.sql.Statement.RETURN_GENERATED_KEYS);
+                } catch (SQLException ex) {
+                    sqlEx = handleExceptionForBatch(commandIndex - 1, argumentSetsInBatchSoFar, updateCounts, ex);
+                }
 
-                    locallyScopedConn.getCancelTimer().purge();
+                counter = processMultiCountsAndKeys((StatementImpl) batchStmt, counter, updateCounts);
+            }
 
-                    timeoutTask = null;
+            if (timeoutTask != null) {
+                if (timeoutTask.caughtWhileCancelling != null) {
+                    throw timeoutTask.caughtWhileCancelling;
                 }
 
-                if (sqlEx != null) {
-                    throw new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(), updateCounts);
-                }
+                timeoutTask.cancel();
 
-                return (updateCounts != null) ? updateCounts : new int[0];
-            } finally {
-                if (timeoutTask != null) {
-                    timeoutTask.cancel();
+                locallyScopedConn.getCancelTimer().purge();
 
-                    locallyScopedConn.getCancelTimer().purge();
-                }
+                timeoutTask = null;
+            }
 
-                resetCancelledState();
+            if (sqlEx != null) {
+                throw new java.sql.BatchUpdateException(sqlEx.getMessage(), sqlEx.getSQLState(), sqlEx.getErrorCode(), updateCounts);
+            }
 
-                try {
-                    if (batchStmt != null) {
-                        batchStmt.close();
-                    }
-                } finally {
-                    if (!multiQueriesEnabled) {
-                        locallyScopedConn.getIO().disableMultiQueries();
-                    }
+            return (updateCounts != null) ? updateCounts : new int[0];
+        } finally {
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
+
+                locallyScopedConn.getCancelTimer().purge();
+            }
+
+            resetCancelledState();
+
+            try {
+                if (batchStmt != null) {
+                    batchStmt.close();
+                }
+            } finally {
+                if (!multiQueriesEnabled) {
+                    locallyScopedConn.getIO().disableMultiQueries();
                 }
             }
         }
@@ -1353,151 +1739,185 @@ public class StatementImpl implements Statement {
      *                if a database access error occurs
      */
     public java.sql.ResultSet executeQuery(String sql) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            MySQLConnection locallyScopedConn = this.connection;
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            this.retrieveGeneratedKeys = false;
-
-            resetCancelledState();
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeQueryLocked(sql);
+            }
+        }
 
-            checkNullOrEmptyQuery(sql);
+        connectionLock.lock();
 
-            setupStreamingTimeout(locallyScopedConn);
+        try {
+            return executeQueryLocked(sql);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            if (this.doEscapeProcessing) {
-                Object escapedSqlResult = EscapeProcessor.escapeSQL(sql, locallyScopedConn.serverSupportsConvertFn(), this.connection);
+    private java.sql.ResultSet executeQueryLocked(String sql) throws SQLException {
+        MySQLConnection locallyScopedConn = this.connection;
 
-                if (escapedSqlResult instanceof String) {
-                    sql = (String) escapedSqlResult;
-                } else {
-                    sql = ((EscapeProcessorResult) escapedSqlResult).escapedSql;
-                }
-            }
+        this.retrieveGeneratedKeys = false;
 
-            char firstStatementChar = StringUtils.firstAlphaCharUc(sql, findStartOfStatement(sql));
+        resetCancelledState();
 
-            if (sql.charAt(0) == '/') {
-                if (sql.startsWith(PING_MARKER)) {
-                    doPingInstead();
+        checkNullOrEmptyQuery(sql);
 
-                    return this.results;
-                }
-            }
+        setupStreamingTimeout(locallyScopedConn);
 
-            checkForDml(sql, firstStatementChar);
+        if (this.doEscapeProcessing) {
+            Object escapedSqlResult = EscapeProcessor.escapeSQL(sql, locallyScopedConn.serverSupportsConvertFn(), this.connection);
 
-            implicitlyCloseAllOpenResults();
+            if (escapedSqlResult instanceof String) {
+                sql = (String) escapedSqlResult;
+            } else {
+                sql = ((EscapeProcessorResult) escapedSqlResult).escapedSql;
+            }
+        }
 
-            CachedResultSetMetaData cachedMetaData = null;
+        char firstStatementChar = StringUtils.firstAlphaCharUc(sql, findStartOfStatement(sql));
 
-            if (useServerFetch()) {
-                this.results = createResultSetUsingServerFetch(sql);
+        if (sql.charAt(0) == '/') {
+            if (sql.startsWith(PING_MARKER)) {
+                doPingInstead();
 
                 return this.results;
             }
+        }
 
-            CancelTask timeoutTask = null;
+        checkForDml(sql, firstStatementChar);
 
-            String oldCatalog = null;
+        implicitlyCloseAllOpenResults();
 
-            try {
-                if (locallyScopedConn.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                    timeoutTask = new CancelTask(this);
-                    locallyScopedConn.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
-                }
+        CachedResultSetMetaData cachedMetaData = null;
 
-                if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
-                    oldCatalog = locallyScopedConn.getCatalog();
-                    locallyScopedConn.setCatalog(this.currentCatalog);
-                }
+        if (useServerFetch()) {
+            this.results = createResultSetUsingServerFetch(sql);
 
-                //
-                // Check if we have cached metadata for this query...
-                //
+            return this.results;
+        }
 
-                Field[] cachedFields = null;
+        CancelTask timeoutTask = null;
 
-                if (locallyScopedConn.getCacheResultSetMetadata()) {
-                    cachedMetaData = locallyScopedConn.getCachedMetaData(sql);
+        String oldCatalog = null;
 
-                    if (cachedMetaData != null) {
-                        cachedFields = cachedMetaData.fields;
-                    }
-                }
+        try {
+            if (locallyScopedConn.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
+                timeoutTask = new CancelTask(this);
+                locallyScopedConn.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
+            }
 
-                locallyScopedConn.setSessionMaxRows(this.maxRows);
+            if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
+                oldCatalog = locallyScopedConn.getCatalog();
+                locallyScopedConn.setCatalog(this.currentCatalog);
+            }
 
-                statementBegins();
+            //
+            // Check if we have cached metadata for this query...
+            //
 
-                this.results = locallyScopedConn.execSQL(this, sql, this.maxRows, null, this.resultSetType, this.resultSetConcurrency, createStreamingResultSet(),
-                        this.currentCatalog, cachedFields);
+            Field[] cachedFields = null;
 
-                if (timeoutTask != null) {
-                    if (timeoutTask.caughtWhileCancelling != null) {
-                        throw timeoutTask.caughtWhileCancelling;
-                    }
+            if (locallyScopedConn.getCacheResultSetMetadata()) {
+                cachedMetaData = locallyScopedConn.getCachedMetaData(sql);
 
-                    timeoutTask.cancel();
+                if (cachedMetaData != null) {
+                    cachedFields = cachedMetaData.fields;
+                }
+            }
 
-                    locallyScopedConn.getCancelTimer().purge();
+            locallyScopedConn.setSessionMaxRows(this.maxRows);
 
-                    timeoutTask = null;
+            statementBegins();
+
+            this.results = locallyScopedConn.execSQL(this, sql, this.maxRows, null, this.resultSetType, this.resultSetConcurrency, createStreamingResultSet(),
+                    this.currentCatalog, cachedFields);
+
+            if (timeoutTask != null) {
+                if (timeoutTask.caughtWhileCancelling != null) {
+                    throw timeoutTask.caughtWhileCancelling;
                 }
 
-                synchronized (this.cancelTimeoutMutex) {
-                    if (this.wasCancelled) {
-                        SQLException cause = null;
+                timeoutTask.cancel();
 
-                        if (this.wasCancelledByTimeout) {
-                            cause = new MySQLTimeoutException();
-                        } else {
-                            cause = new MySQLStatementCancelledException();
-                        }
+                locallyScopedConn.getCancelTimer().purge();
 
-                        resetCancelledState();
+                timeoutTask = null;
+            }
 
-                        throw cause;
-                    }
-                }
-            } finally {
-                this.statementExecuting.set(false);
+            synchronized (this.cancelTimeoutMutex) {
+                if (this.wasCancelled) {
+                    SQLException cause = null;
 
-                if (timeoutTask != null) {
-                    timeoutTask.cancel();
+                    if (this.wasCancelledByTimeout) {
+                        cause = new MySQLTimeoutException();
+                    } else {
+                        cause = new MySQLStatementCancelledException();
+                    }
 
-                    locallyScopedConn.getCancelTimer().purge();
-                }
+                    resetCancelledState();
 
-                if (oldCatalog != null) {
-                    locallyScopedConn.setCatalog(oldCatalog);
+                    throw cause;
                 }
             }
+        } finally {
+            this.statementExecuting.set(false);
 
-            this.lastInsertId = this.results.getUpdateID();
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
 
-            if (cachedMetaData != null) {
-                locallyScopedConn.initializeResultsMetadataFromCache(sql, cachedMetaData, this.results);
-            } else {
-                if (this.connection.getCacheResultSetMetadata()) {
-                    locallyScopedConn.initializeResultsMetadataFromCache(sql, null /* will be created */, this.results);
-                }
+                locallyScopedConn.getCancelTimer().purge();
             }
 
-            return this.results;
+            if (oldCatalog != null) {
+                locallyScopedConn.setCatalog(oldCatalog);
+            }
+        }
+
+        this.lastInsertId = this.results.getUpdateID();
+
+        if (cachedMetaData != null) {
+            locallyScopedConn.initializeResultsMetadataFromCache(sql, cachedMetaData, this.results);
+        } else {
+            if (this.connection.getCacheResultSetMetadata()) {
+                locallyScopedConn.initializeResultsMetadataFromCache(sql, null /* will be created */, this.results);
+            }
         }
+
+        return this.results;
     }
 
     protected void doPingInstead() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (this.pingTarget != null) {
-                this.pingTarget.doPing();
-            } else {
-                this.connection.ping();
+        Lock connectionLock = checkClosed().getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                doPingInsteadLocked();
             }
 
-            ResultSetInternalMethods fakeSelectOneResultSet = generatePingResultSet();
-            this.results = fakeSelectOneResultSet;
+            return;
+        }
+
+        connectionLock.lock();
+
+        try {
+            doPingInsteadLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private void doPingInsteadLocked() throws SQLException {
+        if (this.pingTarget != null) {
+            this.pingTarget.doPing();
+        } else {
+            this.connection.ping();
         }
+
+        ResultSetInternalMethods fakeSelectOneResultSet = generatePingResultSet();
+        this.results = fakeSelectOneResultSet;
     }
 
     protected ResultSetInternalMethods generatePingResultSet() throws SQLException {
@@ -1536,208 +1956,299 @@ public class StatementImpl implements Statement {
     }
 
     protected int executeUpdate(String sql, boolean isBatch, boolean returnGeneratedKeys) throws SQLException {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-        synchronized (checkClosed().getConnectionMutex()) {
-            MySQLConnection locallyScopedConn = this.connection;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeUpdateLocked(sql, isBatch, returnGeneratedKeys);
+            }
+        }
 
-            checkNullOrEmptyQuery(sql);
+        connectionLock.lock();
 
-            resetCancelledState();
+        try {
+            return executeUpdateLocked(sql, isBatch, returnGeneratedKeys);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            char firstStatementChar = StringUtils.firstAlphaCharUc(sql, findStartOfStatement(sql));
+    private int executeUpdateLocked(String sql, boolean isBatch, boolean returnGeneratedKeys) throws SQLException {
+        MySQLConnection locallyScopedConn = this.connection;
 
-            this.retrieveGeneratedKeys = returnGeneratedKeys;
+        checkNullOrEmptyQuery(sql);
 
-            this.lastQueryIsOnDupKeyUpdate = false;
-            if (returnGeneratedKeys) {
-                this.lastQueryIsOnDupKeyUpdate = firstStatementChar == 'I' && containsOnDuplicateKeyInString(sql);
-            }
+        resetCancelledState();
 
-            ResultSetInternalMethods rs = null;
+        char firstStatementChar = StringUtils.firstAlphaCharUc(sql, findStartOfStatement(sql));
 
-            if (this.doEscapeProcessing) {
-                Object escapedSqlResult = EscapeProcessor.escapeSQL(sql, this.connection.serverSupportsConvertFn(), this.connection);
+        this.retrieveGeneratedKeys = returnGeneratedKeys;
 
-                if (escapedSqlResult instanceof String) {
-                    sql = (String) escapedSqlResult;
-                } else {
-                    sql = ((EscapeProcessorResult) escapedSqlResult).escapedSql;
-                }
-            }
+        this.lastQueryIsOnDupKeyUpdate = false;
+        if (returnGeneratedKeys) {
+            this.lastQueryIsOnDupKeyUpdate = firstStatementChar == 'I' && containsOnDuplicateKeyInString(sql);
+        }
 
-            if (locallyScopedConn.isReadOnly(false)) {
-                throw SQLError.createSQLException(Messages.getString("Statement.42") + Messages.getString("Statement.43"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
-                        getExceptionInterceptor());
-            }
+        ResultSetInternalMethods rs = null;
 
-            if (StringUtils.startsWithIgnoreCaseAndWs(sql, "select")) {
-                throw SQLError.createSQLException(Messages.getString("Statement.46"), "01S03", getExceptionInterceptor());
-            }
+        if (this.doEscapeProcessing) {
+            Object escapedSqlResult = EscapeProcessor.escapeSQL(sql, this.connection.serverSupportsConvertFn(), this.connection);
 
-            implicitlyCloseAllOpenResults();
+            if (escapedSqlResult instanceof String) {
+                sql = (String) escapedSqlResult;
+            } else {
+                sql = ((EscapeProcessorResult) escapedSqlResult).escapedSql;
+            }
+        }
 
-            // The checking and changing of catalogs must happen in sequence, so synchronize on the same mutex that _conn is using
+        if (locallyScopedConn.isReadOnly(false)) {
+            throw SQLError.createSQLException(Messages.getString("Statement.42") + Messages.getString("Statement.43"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                    getExceptionInterceptor());
+        }
 
-            CancelTask timeoutTask = null;
+        if (StringUtils.startsWithIgnoreCaseAndWs(sql, "select")) {
+            throw SQLError.createSQLException(Messages.getString("Statement.46"), "01S03", getExceptionInterceptor());
+        }
 
-            String oldCatalog = null;
+        implicitlyCloseAllOpenResults();
 
-            try {
-                if (locallyScopedConn.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
-                    timeoutTask = new CancelTask(this);
-                    locallyScopedConn.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
-                }
+        // The checking and changing of catalogs must happen in sequence, so synchronize on the same mutex that _conn is using
 
-                if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
-                    oldCatalog = locallyScopedConn.getCatalog();
-                    locallyScopedConn.setCatalog(this.currentCatalog);
-                }
+        CancelTask timeoutTask = null;
 
-                //
-                // Only apply max_rows to selects
-                //
-                locallyScopedConn.setSessionMaxRows(-1);
+        String oldCatalog = null;
 
-                statementBegins();
+        try {
+            if (locallyScopedConn.getEnableQueryTimeouts() && this.timeoutInMillis != 0 && locallyScopedConn.versionMeetsMinimum(5, 0, 0)) {
+                timeoutTask = new CancelTask(this);
+                locallyScopedConn.getCancelTimer().schedule(timeoutTask, this.timeoutInMillis);
+            }
 
-                // null catalog: force read of field info on DML
-                rs = locallyScopedConn.execSQL(this, sql, -1, null, java.sql.ResultSet.TYPE_FORWARD_ONLY, java.sql.ResultSet.CONCUR_READ_ONLY, false,
-                        this.currentCatalog, null, isBatch);
+            if (!locallyScopedConn.getCatalog().equals(this.currentCatalog)) {
+                oldCatalog = locallyScopedConn.getCatalog();
+                locallyScopedConn.setCatalog(this.currentCatalog);
+            }
 
-                if (timeoutTask != null) {
-                    if (timeoutTask.caughtWhileCancelling != null) {
-                        throw timeoutTask.caughtWhileCancelling;
-                    }
+            //
+            // Only apply max_rows to selects
+            //
+            locallyScopedConn.setSessionMaxRows(-1);
 
-                    timeoutTask.cancel();
+            statementBegins();
 
-                    locallyScopedConn.getCancelTimer().purge();
+            // null catalog: force read of field info on DML
+            rs = locallyScopedConn.execSQL(this, sql, -1, null, java.sql.ResultSet.TYPE_FORWARD_ONLY, java.sql.ResultSet.CONCUR_READ_ONLY, false,
+                    this.currentCatalog, null, isBatch);
 
-                    timeoutTask = null;
+            if (timeoutTask != null) {
+                if (timeoutTask.caughtWhileCancelling != null) {
+                    throw timeoutTask.caughtWhileCancelling;
                 }
 
-                synchronized (this.cancelTimeoutMutex) {
-                    if (this.wasCancelled) {
-                        SQLException cause = null;
+                timeoutTask.cancel();
 
-                        if (this.wasCancelledByTimeout) {
-                            cause = new MySQLTimeoutException();
-                        } else {
-                            cause = new MySQLStatementCancelledException();
-                        }
+                locallyScopedConn.getCancelTimer().purge();
+
+                timeoutTask = null;
+            }
 
-                        resetCancelledState();
+            synchronized (this.cancelTimeoutMutex) {
+                if (this.wasCancelled) {
+                    SQLException cause = null;
 
-                        throw cause;
+                    if (this.wasCancelledByTimeout) {
+                        cause = new MySQLTimeoutException();
+                    } else {
+                        cause = new MySQLStatementCancelledException();
                     }
-                }
-            } finally {
-                if (timeoutTask != null) {
-                    timeoutTask.cancel();
 
-                    locallyScopedConn.getCancelTimer().purge();
-                }
+                    resetCancelledState();
 
-                if (oldCatalog != null) {
-                    locallyScopedConn.setCatalog(oldCatalog);
+                    throw cause;
                 }
+            }
+        } finally {
+            if (timeoutTask != null) {
+                timeoutTask.cancel();
 
-                if (!isBatch) {
-                    this.statementExecuting.set(false);
-                }
+                locallyScopedConn.getCancelTimer().purge();
             }
 
-            this.results = rs;
+            if (oldCatalog != null) {
+                locallyScopedConn.setCatalog(oldCatalog);
+            }
 
-            rs.setFirstCharOfQuery(firstStatementChar);
+            if (!isBatch) {
+                this.statementExecuting.set(false);
+            }
+        }
 
-            this.updateCount = rs.getUpdateCount();
+        this.results = rs;
 
-            int truncatedUpdateCount = 0;
+        rs.setFirstCharOfQuery(firstStatementChar);
 
-            if (this.updateCount > Integer.MAX_VALUE) {
-                truncatedUpdateCount = Integer.MAX_VALUE;
-            } else {
-                truncatedUpdateCount = (int) this.updateCount;
-            }
+        this.updateCount = rs.getUpdateCount();
 
-            this.lastInsertId = rs.getUpdateID();
+        int truncatedUpdateCount = 0;
 
-            return truncatedUpdateCount;
+        if (this.updateCount > Integer.MAX_VALUE) {
+            truncatedUpdateCount = Integer.MAX_VALUE;
+        } else {
+            truncatedUpdateCount = (int) this.updateCount;
         }
+
+        this.lastInsertId = rs.getUpdateID();
+
+        return truncatedUpdateCount;
     }
 
     /**
      * @see StatementImpl#executeUpdate(String, int)
      */
     public int executeUpdate(String sql, int returnGeneratedKeys) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (returnGeneratedKeys == java.sql.Statement.RETURN_GENERATED_KEYS) {
-                MySQLConnection locallyScopedConn = this.connection;
-
-                // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
-                // generated.
-                boolean readInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
-                locallyScopedConn.setReadInfoMsgEnabled(true);
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-                try {
-                    return executeUpdate(sql, false, true);
-                } finally {
-                    locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
-                }
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeUpdateLocked(sql, returnGeneratedKeys);
             }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return executeUpdateLocked(sql, returnGeneratedKeys);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private int executeUpdateLocked(String sql, int returnGeneratedKeys) throws SQLException {
+        if (returnGeneratedKeys == java.sql.Statement.RETURN_GENERATED_KEYS) {
+            MySQLConnection locallyScopedConn = this.connection;
 
-            return executeUpdate(sql);
+            // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
+            // generated.
+            boolean readInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
+            locallyScopedConn.setReadInfoMsgEnabled(true);
+
+            try {
+                return executeUpdate(sql, false, true);
+            } finally {
+                locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
+            }
         }
+
+        return executeUpdate(sql);
     }
 
     /**
      * @see StatementImpl#executeUpdate(String, int[])
      */
     public int executeUpdate(String sql, int[] generatedKeyIndices) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if ((generatedKeyIndices != null) && (generatedKeyIndices.length > 0)) {
-                checkClosed();
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-                MySQLConnection locallyScopedConn = this.connection;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeUpdateLocked(sql, generatedKeyIndices);
+            }
+        }
 
-                // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
-                // generated.
-                boolean readInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
-                locallyScopedConn.setReadInfoMsgEnabled(true);
+        connectionLock.lock();
 
-                try {
-                    return executeUpdate(sql, false, true);
-                } finally {
-                    locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
-                }
-            }
+        try {
+            return executeUpdateLocked(sql, generatedKeyIndices);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private int executeUpdateLocked(String sql, int[] generatedKeyIndices) throws SQLException {
+        if ((generatedKeyIndices != null) && (generatedKeyIndices.length > 0)) {
+            checkClosed();
+
+            MySQLConnection locallyScopedConn = this.connection;
+
+            // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
+            // generated.
+            boolean readInfoMsgState = locallyScopedConn.isReadInfoMsgEnabled();
+            locallyScopedConn.setReadInfoMsgEnabled(true);
 
-            return executeUpdate(sql);
+            try {
+                return executeUpdate(sql, false, true);
+            } finally {
+                locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
+            }
         }
+
+        return executeUpdate(sql);
     }
 
     /**
      * @see StatementImpl#executeUpdate(String, String[])
      */
     public int executeUpdate(String sql, String[] generatedKeyNames) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if ((generatedKeyNames != null) && (generatedKeyNames.length > 0)) {
-                MySQLConnection locallyScopedConn = this.connection;
-                // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
-                // generated.
-                boolean readInfoMsgState = this.connection.isReadInfoMsgEnabled();
-                locallyScopedConn.setReadInfoMsgEnabled(true);
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-                try {
-                    return executeUpdate(sql, false, true);
-                } finally {
-                    locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
-                }
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return executeUpdateLocked(sql, generatedKeyNames);
             }
+        }
+
+        connectionLock.lock();
+
+        try {
+            return executeUpdateLocked(sql, generatedKeyNames);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private int executeUpdateLocked(String sql, String[] generatedKeyNames) throws SQLException {
+        if ((generatedKeyNames != null) && (generatedKeyNames.length > 0)) {
+            MySQLConnection locallyScopedConn = this.connection;
+            // If this is a 'REPLACE' query, we need to be able to parse the 'info' message returned from the server to determine the actual number of keys
+            // generated.
+            boolean readInfoMsgState = this.connection.isReadInfoMsgEnabled();
+            locallyScopedConn.setReadInfoMsgEnabled(true);
 
-            return executeUpdate(sql);
+            try {
+                return executeUpdate(sql, false, true);
+            } finally {
+                locallyScopedConn.setReadInfoMsgEnabled(readInfoMsgState);
+            }
         }
+
+        return executeUpdate(sql);
+    }
+
+    /**
+     * @see com.mysql.jdbc.Statement#executeQueryAsync(String)
+     */
+    public Future<java.sql.ResultSet> executeQueryAsync(final String sql) throws SQLException {
+        checkClosed();
+
+        return AsyncStatementExecutor.submit(this, new Callable<java.sql.ResultSet>() {
+            public java.sql.ResultSet call() throws Exception {
+                return executeQuery(sql);
+            }
+        });
+    }
+
+    /**
+     * @see com.mysql.jdbc.Statement#executeUpdateAsync(String)
+     */
+    public Future<Long> executeUpdateAsync(final String sql) throws SQLException {
+        checkClosed();
+
+        return AsyncStatementExecutor.submit(this, new Callable<Long>() {
+            public Long call() throws Exception {
+                executeUpdate(sql);
+
+                return Long.valueOf(getLongUpdateCount());
+            }
+        });
     }
 
     /**
@@ -2003,82 +2514,98 @@ public class StatementImpl implements Statement {
      * @see StatementImpl#getMoreResults(int)
      */
     public boolean getMoreResults(int current) throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
-            if (this.results == null) {
-                return false;
+        Lock connectionLock = checkClosed().getConnectionLock();
+
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return getMoreResultsLocked(current);
             }
+        }
 
-            boolean streamingMode = createStreamingResultSet();
+        connectionLock.lock();
 
-            if (streamingMode) {
-                if (this.results.reallyResult()) {
-                    while (this.results.next()) {
-                        // need to drain remaining rows to get to server status which tells us whether more results actually exist or not
-                    }
+        try {
+            return getMoreResultsLocked(current);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private boolean getMoreResultsLocked(int current) throws SQLException {
+        if (this.results == null) {
+            return false;
+        }
+
+        boolean streamingMode = createStreamingResultSet();
+
+        if (streamingMode) {
+            if (this.results.reallyResult()) {
+                while (this.results.next()) {
+                    // need to drain remaining rows to get to server status which tells us whether more results actually exist or not
                 }
             }
+        }
 
-            ResultSetInternalMethods nextResultSet = this.results.getNextResultSet();
-
-            switch (current) {
-                case java.sql.Statement.CLOSE_CURRENT_RESULT:
+        ResultSetInternalMethods nextResultSet = this.results.getNextResultSet();
 
-                    if (this.results != null) {
-                        if (!(streamingMode || this.connection.getDontTrackOpenResources())) {
-                            this.results.realClose(false);
-                        }
+        switch (current) {
+            case java.sql.Statement.CLOSE_CURRENT_RESULT:
 
-                        this.results.clearNextResult();
+                if (this.results != null) {
+                    if (!(streamingMode || this.connection.getDontTrackOpenResources())) {
+                        this.results.realClose(false);
                     }
 
-                    break;
+                    this.results.clearNextResult();
+                }
 
-                case java.sql.Statement.CLOSE_ALL_RESULTS:
+                break;
 
-                    if (this.results != null) {
-                        if (!(streamingMode || this.connection.getDontTrackOpenResources())) {
-                            this.results.realClose(false);
-                        }
+            case java.sql.Statement.CLOSE_ALL_RESULTS:
 
-                        this.results.clearNextResult();
+                if (this.results != null) {
+                    if (!(streamingMode || this.connection.getDontTrackOpenResources())) {
+                        this.results.realClose(false);
                     }
 
-                    closeAllOpenResults();
+                    this.results.clearNextResult();
+                }
 
-                    break;
+                closeAllOpenResults();
 
-                case java.sql.Statement.KEEP_CURRENT_RESULT:
-                    if (!this.connection.getDontTrackOpenResources()) {
-                        this.openResults.add(this.results);
-                    }
+                break;
 
-                    this.results.clearNextResult(); // nobody besides us should
-                    // ever need this value...
-                    break;
+            case java.sql.Statement.KEEP_CURRENT_RESULT:
+                if (!this.connection.getDontTrackOpenResources()) {
+                    this.openResults.add(this.results);
+                }
 
-                default:
-                    throw SQLError.createSQLException(Messages.getString("Statement.19"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
-            }
+                this.results.clearNextResult(); // nobody besides us should
+                // ever need this value...
+                break;
 
-            this.results = nextResultSet;
+            default:
+                throw SQLError.createSQLException(Messages.getString("Statement.19"), SQLError.SQL_STATE_ILLEGAL_ARGUMENT, getExceptionInterceptor());
+        }
 
-            if (this.results == null) {
-                this.updateCount = -1;
-                this.lastInsertId = -1;
-            } else if (this.results.reallyResult()) {
-                this.updateCount = -1;
-                this.lastInsertId = -1;
-            } else {
-                this.updateCount = this.results.getUpdateCount();
-                this.lastInsertId = this.results.getUpdateID();
-            }
+        this.results = nextResultSet;
 
-            boolean moreResults = (this.results != null) && this.results.reallyResult();
-            if (!moreResults) {
-                checkAndPerformCloseOnCompletionAction();
-            }
-            return moreResults;
+        if (this.results == null) {
+            this.updateCount = -1;
+            this.lastInsertId = -1;
+        } else if (this.results.reallyResult()) {
+            this.updateCount = -1;
+            this.lastInsertId = -1;
+        } else {
+            this.updateCount = this.results.getUpdateCount();
+            this.lastInsertId = this.results.getUpdateID();
         }
+
+        boolean moreResults = (this.results != null) && this.results.reallyResult();
+        if (!moreResults) {
+            checkAndPerformCloseOnCompletionAction();
+        }
+        return moreResults;
     }
 
     /**
@@ -2275,26 +2802,41 @@ public class StatementImpl implements Statement {
      *                if a database access error occurs
      */
     public java.sql.SQLWarning getWarnings() throws SQLException {
-        synchronized (checkClosed().getConnectionMutex()) {
+        Lock connectionLock = checkClosed().getConnectionLock();
 
-            if (this.clearWarningsCalled) {
-                return null;
+        if (connectionLock == null) {
+            synchronized (checkClosed().getConnectionMutex()) {
+                return getWarningsLocked();
             }
+        }
 
-            if (this.connection.versionMeetsMinimum(4, 1, 0)) {
-                SQLWarning pendingWarningsFromServer = SQLError.convertShowWarningsToSQLWarnings(this.connection);
+        connectionLock.lock();
 
-                if (this.warningChain != null) {
-                    this.warningChain.setNextWarning(pendingWarningsFromServer);
-                } else {
-                    this.warningChain = pendingWarningsFromServer;
-                }
+        try {
+            return getWarningsLocked();
+        } finally {
+            connectionLock.unlock();
+        }
+    }
+
+    private java.sql.SQLWarning getWarningsLocked() throws SQLException {
+        if (this.clearWarningsCalled) {
+            return null;
+        }
+
+        if (this.connection.versionMeetsMinimum(4, 1, 0)) {
+            SQLWarning pendingWarningsFromServer = SQLError.convertShowWarningsToSQLWarnings(this.connection);
 
-                return this.warningChain;
+            if (this.warningChain != null) {
+                this.warningChain.setNextWarning(pendingWarningsFromServer);
+            } else {
+                this.warningChain = pendingWarningsFromServer;
             }
 
             return this.warningChain;
         }
+
+        return this.warningChain;
     }
 
     /**
@@ -2313,63 +2855,80 @@ public class StatementImpl implements Statement {
             return; // already closed
         }
 
-        synchronized (locallyScopedConn.getConnectionMutex()) {
+        Lock connectionLock = locallyScopedConn.getConnectionLock();
 
-            // additional check in case Statement was closed while current thread was waiting for lock
-            if (this.isClosed) {
-                return;
+        if (connectionLock == null) {
+            synchronized (locallyScopedConn.getConnectionMutex()) {
+                realCloseLocked(calledExplicitly, closeOpenResults);
             }
 
-            if (this.useUsageAdvisor) {
-                if (!calledExplicitly) {
-                    String message = Messages.getString("Statement.63") + Messages.getString("Statement.64");
+            return;
+        }
 
-                    this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", this.currentCatalog, this.connectionId, this.getId(), -1, System
-                            .currentTimeMillis(), 0, Constants.MILLIS_I18N, null, this.pointOfOrigin, message));
-                }
-            }
+        connectionLock.lock();
 
-            if (closeOpenResults) {
-                closeOpenResults = !(this.holdResultsOpenOverClose || this.connection.getDontTrackOpenResources());
-            }
+        try {
+            realCloseLocked(calledExplicitly, closeOpenResults);
+        } finally {
+            connectionLock.unlock();
+        }
+    }
 
-            if (closeOpenResults) {
-                if (this.results != null) {
+    private void realCloseLocked(boolean calledExplicitly, boolean closeOpenResults) throws SQLException {
+        // additional check in case Statement was closed while current thread was waiting for lock
+        if (this.isClosed) {
+            return;
+        }
 
-                    try {
-                        this.results.close();
-                    } catch (Exception ex) {
-                    }
-                }
+        if (this.useUsageAdvisor) {
+            if (!calledExplicitly) {
+                String message = Messages.getString("Statement.63") + Messages.getString("Statement.64");
 
-                if (this.generatedKeysResults != null) {
+                this.eventSink.consumeEvent(new ProfilerEvent(ProfilerEvent.TYPE_WARN, "", this.currentCatalog, this.connectionId, this.getId(), -1, System
+                        .currentTimeMillis(), 0, Constants.MILLIS_I18N, null, this.pointOfOrigin, message));
+            }
+        }
 
-                    try {
-                        this.generatedKeysResults.close();
-                    } catch (Exception ex) {
-                    }
-                }
+        if (closeOpenResults) {
+            closeOpenResults = !(this.holdResultsOpenOverClose || this.connection.getDontTrackOpenResources());
+        }
 
-                closeAllOpenResults();
+        if (closeOpenResults) {
+            if (this.results != null) {
+
+                try {
+                    this.results.close();
+                } catch (Exception ex) {
+                }
             }
 
-            if (this.connection != null) {
-                if (!this.connection.getDontTrackOpenResources()) {
-                    this.connection.unregisterStatement(this);
+            if (this.generatedKeysResults != null) {
+
+                try {
+                    this.generatedKeysResults.close();
+                } catch (Exception ex) {
                 }
             }
 
-            this.isClosed = true;
+            closeAllOpenResults();
+        }
 
-            this.results = null;
-            this.generatedKeysResults = null;
-            this.connection = null;
-            this.warningChain = null;
-            this.openResults = null;
-            this.batchedGeneratedKeys = null;
-            this.localInfileInputStream = null;
-            this.pingTarget = null;
+        if (this.connection != null) {
+            if (!this.connection.getDontTrackOpenResources()) {
+                this.connection.unregisterStatement(this);
+            }
         }
+
+        this.isClosed = true;
+
+        this.results = null;
+        this.generatedKeysResults = null;
+        this.connection = null;
+        this.warningChain = null;
+        this.openResults = null;
+        this.batchedGeneratedKeys = null;
+        this.localInfileInputStream = null;
+        this.pingTarget = null;
     }
 
     /**
@@ -2733,6 +3292,16 @@ public class StatementImpl implements Statement {
         this.localInfileInputStream = stream;
     }
 
+    private LocalInfileRowProducer localInfileRowProducer;
+
+    public LocalInfileRowProducer getLocalInfileRowProducer() {
+        return this.localInfileRowProducer;
+    }
+
+    public void setLocalInfileRowProducer(LocalInfileRowProducer producer) {
+        this.localInfileRowProducer = producer;
+    }
+
     public void setPingTarget(PingTarget pingTarget) {
         this.pingTarget = pingTarget;
     }
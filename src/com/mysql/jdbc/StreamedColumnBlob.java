@@ -0,0 +1,116 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.sql.SQLException;
+
+/**
+ * The Blob returned for a column a StreamedColumnsRow left on the network. getBinaryStream() reads the value straight off the wire, the first call to any
+ * other method (but length()) reads it into a com.mysql.jdbc.Blob that is used from then on. Either way this has to happen while the row is still positioned
+ * on the column.
+ */
+class StreamedColumnBlob implements java.sql.Blob {
+
+    private StreamedColumnsRow row;
+
+    private int columnIndex;
+
+    private Blob materialized;
+
+    private ExceptionInterceptor exceptionInterceptor;
+
+    StreamedColumnBlob(StreamedColumnsRow row, int columnIndex, ExceptionInterceptor exceptionInterceptor) {
+        this.row = row;
+        this.columnIndex = columnIndex;
+        this.exceptionInterceptor = exceptionInterceptor;
+    }
+
+    private synchronized Blob materialize() throws SQLException {
+        if (this.materialized == null) {
+            this.materialized = new Blob(this.row.getColumnValue(this.columnIndex), this.exceptionInterceptor);
+            this.row = null;
+        }
+
+        return this.materialized;
+    }
+
+    public synchronized InputStream getBinaryStream() throws SQLException {
+        if (this.materialized == null) {
+            return this.row.getBinaryInputStream(this.columnIndex);
+        }
+
+        return this.materialized.getBinaryStream();
+    }
+
+    public synchronized long length() throws SQLException {
+        if (this.materialized == null) {
+            return this.row.length(this.columnIndex);
+        }
+
+        return this.materialized.length();
+    }
+
+    public byte[] getBytes(long pos, int length) throws SQLException {
+        return materialize().getBytes(pos, length);
+    }
+
+    public long position(byte[] pattern, long start) throws SQLException {
+        return materialize().position(pattern, start);
+    }
+
+    public long position(java.sql.Blob pattern, long start) throws SQLException {
+        return materialize().position(pattern, start);
+    }
+
+    public int setBytes(long pos, byte[] bytes) throws SQLException {
+        return materialize().setBytes(pos, bytes);
+    }
+
+    public int setBytes(long pos, byte[] bytes, int offset, int len) throws SQLException {
+        return materialize().setBytes(pos, bytes, offset, len);
+    }
+
+    public OutputStream setBinaryStream(long pos) throws SQLException {
+        return materialize().setBinaryStream(pos);
+    }
+
+    public void truncate(long len) throws SQLException {
+        materialize().truncate(len);
+    }
+
+    public synchronized void free() throws SQLException {
+        if (this.materialized == null) {
+            this.materialized = new Blob(Constants.EMPTY_BYTE_ARRAY, this.exceptionInterceptor);
+            this.row = null;
+        }
+
+        this.materialized.free();
+    }
+
+    public InputStream getBinaryStream(long pos, long length) throws SQLException {
+        return materialize().getBinaryStream(pos, length);
+    }
+}
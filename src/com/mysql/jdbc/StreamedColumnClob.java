@@ -0,0 +1,138 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.io.Writer;
+import java.sql.SQLException;
+
+/**
+ * The Clob returned for a column a StreamedColumnsRow left on the network. getCharacterStream() decodes the value straight off the wire, the first call to
+ * any other method reads it into a com.mysql.jdbc.Clob that is used from then on. Either way this has to happen while the row is still positioned on the
+ * column.
+ */
+class StreamedColumnClob implements java.sql.Clob {
+
+    private StreamedColumnsRow row;
+
+    private int columnIndex;
+
+    private String encoding;
+
+    private Clob materialized;
+
+    private ExceptionInterceptor exceptionInterceptor;
+
+    StreamedColumnClob(StreamedColumnsRow row, int columnIndex, String encoding, ExceptionInterceptor exceptionInterceptor) {
+        this.row = row;
+        this.columnIndex = columnIndex;
+        this.encoding = encoding;
+        this.exceptionInterceptor = exceptionInterceptor;
+    }
+
+    private synchronized Clob materialize() throws SQLException {
+        if (this.materialized == null) {
+            try {
+                this.materialized = new Clob(StringUtils.toString(this.row.getColumnValue(this.columnIndex), this.encoding), this.exceptionInterceptor);
+            } catch (UnsupportedEncodingException uee) {
+                throw SQLError.createSQLException("Unsupported character encoding " + this.encoding, SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                        this.exceptionInterceptor);
+            }
+
+            this.row = null;
+        }
+
+        return this.materialized;
+    }
+
+    public synchronized Reader getCharacterStream() throws SQLException {
+        if (this.materialized == null) {
+            try {
+                return new InputStreamReader(this.row.getBinaryInputStream(this.columnIndex), this.encoding);
+            } catch (UnsupportedEncodingException uee) {
+                throw SQLError.createSQLException("Unsupported character encoding " + this.encoding, SQLError.SQL_STATE_ILLEGAL_ARGUMENT,
+                        this.exceptionInterceptor);
+            }
+        }
+
+        return this.materialized.getCharacterStream();
+    }
+
+    public InputStream getAsciiStream() throws SQLException {
+        return materialize().getAsciiStream();
+    }
+
+    public String getSubString(long pos, int length) throws SQLException {
+        return materialize().getSubString(pos, length);
+    }
+
+    public long length() throws SQLException {
+        return materialize().length();
+    }
+
+    public long position(String searchstr, long start) throws SQLException {
+        return materialize().position(searchstr, start);
+    }
+
+    public long position(java.sql.Clob searchstr, long start) throws SQLException {
+        return materialize().position(searchstr, start);
+    }
+
+    public int setString(long pos, String str) throws SQLException {
+        return materialize().setString(pos, str);
+    }
+
+    public int setString(long pos, String str, int offset, int len) throws SQLException {
+        return materialize().setString(pos, str, offset, len);
+    }
+
+    public OutputStream setAsciiStream(long pos) throws SQLException {
+        return materialize().setAsciiStream(pos);
+    }
+
+    public Writer setCharacterStream(long pos) throws SQLException {
+        return materialize().setCharacterStream(pos);
+    }
+
+    public void truncate(long len) throws SQLException {
+        materialize().truncate(len);
+    }
+
+    public synchronized void free() throws SQLException {
+        if (this.materialized == null) {
+            this.materialized = new Clob(this.exceptionInterceptor);
+            this.row = null;
+        }
+
+        this.materialized.free();
+    }
+
+    public Reader getCharacterStream(long pos, long length) throws SQLException {
+        return materialize().getCharacterStream(pos, length);
+    }
+}
@@ -0,0 +1,515 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UnsupportedEncodingException;
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.SQLException;
+import java.sql.Time;
+import java.sql.Timestamp;
+import java.util.Calendar;
+import java.util.TimeZone;
+
+/**
+ * A row of a streaming result set whose columns are read off the network as they are asked for (see the "columnStreamingThreshold" property).
+ * 
+ * Column values shorter than the threshold are read into memory when the row gets to them, longer ones are left on the wire until they are either read
+ * through getBinaryInputStream()/getReader(), materialized by one of the other getters, or skipped because a column to their right was asked for. Columns
+ * therefore have to be read left to right, a large column can't be read once a later column has been.
+ */
+class StreamedColumnsRow extends ResultSetRow {
+
+    private MysqlIO.RowPacketInputStream rowPacket;
+
+    private int threshold;
+
+    private ByteArrayRow bufferedColumns;
+
+    /** Lengths of the columns that were too large to be read into memory, -1 for the others */
+    private long[] streamedLengths;
+
+    /** How many columns have had their length read */
+    private int columnsReached = 0;
+
+    /** The column the row is positioned in, when it's one with its value still on the wire, otherwise -1 */
+    private int streamedColumn = -1;
+
+    private long streamedBytesLeft = 0;
+
+    StreamedColumnsRow(MysqlIO.RowPacketInputStream rowPacket, int columnCount, int threshold, ExceptionInterceptor exceptionInterceptor) {
+        super(exceptionInterceptor);
+
+        this.rowPacket = rowPacket;
+        this.threshold = threshold;
+        this.bufferedColumns = new ByteArrayRow(new byte[columnCount][], exceptionInterceptor);
+        this.streamedLengths = new long[columnCount];
+    }
+
+    /**
+     * Was the given column too large to be read into memory along with the rest of the row?
+     */
+    boolean isStreamedColumn(int index) throws SQLException {
+        reachColumn(index);
+
+        return this.streamedLengths[index] != -1;
+    }
+
+    /**
+     * Consumes what is left of the row on the network, so the next packet can be read.
+     */
+    void finishReading() throws SQLException {
+        int columnCount = this.streamedLengths.length;
+
+        if (columnCount > 0) {
+            reachColumn(columnCount - 1);
+        }
+
+        try {
+            passStreamedColumn();
+            this.rowPacket.skipRest();
+        } catch (IOException ioEx) {
+            throw this.rowPacket.createCommunicationsException(ioEx);
+        }
+    }
+
+    /**
+     * Reads the row up to and including the length of the given column, skipping the values of the large columns on the way.
+     */
+    private void reachColumn(int index) throws SQLException {
+        if (index < this.columnsReached) {
+            return;
+        }
+
+        try {
+            passStreamedColumn();
+
+            while (this.columnsReached <= index) {
+                int i = this.columnsReached++;
+                long length = readFieldLength();
+
+                this.streamedLengths[i] = -1;
+
+                if (length == MysqlIO.NULL_LENGTH) {
+                    this.bufferedColumns.internalRowData[i] = null;
+                } else if (length == 0) {
+                    this.bufferedColumns.internalRowData[i] = Constants.EMPTY_BYTE_ARRAY;
+                } else if (length < this.threshold) {
+                    byte[] value = new byte[(int) length];
+                    this.rowPacket.readFully(value, 0, value.length);
+                    this.bufferedColumns.internalRowData[i] = value;
+                } else {
+                    this.streamedLengths[i] = length;
+                    this.streamedColumn = i;
+                    this.streamedBytesLeft = length;
+
+                    if (i < index) {
+                        passStreamedColumn();
+                    }
+                }
+            }
+        } catch (IOException ioEx) {
+            throw this.rowPacket.createCommunicationsException(ioEx);
+        }
+    }
+
+    private long readFieldLength() throws IOException {
+        int sw = readUnsignedByte();
+
+        switch (sw) {
+            case 251:
+                return MysqlIO.NULL_LENGTH;
+
+            case 252:
+                return readUnsignedByte() | (readUnsignedByte() << 8);
+
+            case 253:
+                return readUnsignedByte() | (readUnsignedByte() << 8) | (readUnsignedByte() << 16);
+
+            case 254:
+                long length = 0;
+
+                for (int i = 0; i < 8; i++) {
+                    length |= (long) readUnsignedByte() << (i * 8);
+                }
+
+                return length;
+
+            default:
+                return sw;
+        }
+    }
+
+    private int readUnsignedByte() throws IOException {
+        int b = this.rowPacket.read();
+
+        if (b == -1) {
+            throw new EOFException(Messages.getString("MysqlIO.43"));
+        }
+
+        return b;
+    }
+
+    private void passStreamedColumn() throws IOException {
+        if (this.streamedColumn != -1) {
+            this.rowPacket.skipFully(this.streamedBytesLeft);
+            this.streamedBytesLeft = 0;
+            this.streamedColumn = -1;
+        }
+    }
+
+    /**
+     * Makes sure the value of the given column is in memory, reading it off the network if it is the large column the row is positioned in.
+     */
+    private void readColumnValue(int index) throws SQLException {
+        reachColumn(index);
+
+        if (this.streamedLengths[index] == -1 || this.bufferedColumns.internalRowData[index] != null) {
+            return;
+        }
+
+        checkStreamable(index);
+
+        if (this.streamedLengths[index] > Integer.MAX_VALUE - 8) {
+            throw SQLError.createSQLException(Messages.getString("StreamedColumnsRow.ColumnTooLarge", new Object[] { Integer.valueOf(index + 1) }),
+                    SQLError.SQL_STATE_GENERAL_ERROR, this.exceptionInterceptor);
+        }
+
+        byte[] value = new byte[(int) this.streamedLengths[index]];
+
+        try {
+            this.rowPacket.readFully(value, 0, value.length);
+        } catch (IOException ioEx) {
+            throw this.rowPacket.createCommunicationsException(ioEx);
+        }
+
+        this.bufferedColumns.internalRowData[index] = value;
+        this.streamedBytesLeft = 0;
+        this.streamedColumn = -1;
+    }
+
+    private void checkStreamable(int index) throws SQLException {
+        if (this.streamedColumn != index) {
+            throw SQLError.createSQLException(Messages.getString("StreamedColumnsRow.ColumnPassed", new Object[] { Integer.valueOf(index + 1) }),
+                    SQLError.SQL_STATE_GENERAL_ERROR, this.exceptionInterceptor);
+        }
+
+        if (this.streamedBytesLeft != this.streamedLengths[index]) {
+            throw SQLError.createSQLException(Messages.getString("StreamedColumnsRow.ColumnStreamed", new Object[] { Integer.valueOf(index + 1) }),
+                    SQLError.SQL_STATE_GENERAL_ERROR, this.exceptionInterceptor);
+        }
+    }
+
+    @Override
+    public ResultSetRow setMetadata(Field[] f) throws SQLException {
+        this.bufferedColumns.setMetadata(f);
+
+        return super.setMetadata(f);
+    }
+
+    @Override
+    public void closeOpenStreams() {
+        // no-op for this type, the value of a column can only be streamed once anyway
+    }
+
+    @Override
+    public InputStream getBinaryInputStream(int columnIndex) throws SQLException {
+        reachColumn(columnIndex);
+
+        if (this.streamedLengths[columnIndex] == -1 || this.bufferedColumns.internalRowData[columnIndex] != null) {
+            return this.bufferedColumns.getBinaryInputStream(columnIndex);
+        }
+
+        checkStreamable(columnIndex);
+
+        return new ColumnInputStream(columnIndex);
+    }
+
+    @Override
+    public Reader getReader(int columnIndex) throws SQLException {
+        InputStream stream = getBinaryInputStream(columnIndex);
+
+        if (stream == null) {
+            return null;
+        }
+
+        try {
+            return new InputStreamReader(stream, this.metadata[columnIndex].getEncoding());
+        } catch (UnsupportedEncodingException e) {
+            SQLException sqlEx = SQLError.createSQLException("", this.exceptionInterceptor);
+
+            sqlEx.initCause(e);
+
+            throw sqlEx;
+        }
+    }
+
+    @Override
+    public byte[] getColumnValue(int index) throws SQLException {
+        readColumnValue(index);
+
+        return this.bufferedColumns.getColumnValue(index);
+    }
+
+    @Override
+    public void setColumnValue(int index, byte[] value) throws SQLException {
+        reachColumn(index);
+
+        if (this.streamedColumn == index) {
+            try {
+                passStreamedColumn();
+            } catch (IOException ioEx) {
+                throw this.rowPacket.createCommunicationsException(ioEx);
+            }
+        }
+
+        this.streamedLengths[index] = -1;
+        this.bufferedColumns.setColumnValue(index, value);
+    }
+
+    @Override
+    public String getString(int index, String encoding, MySQLConnection conn) throws SQLException {
+        readColumnValue(index);
+
+        return this.bufferedColumns.getString(index, encoding, conn);
+    }
+
+    @Override
+    public boolean isNull(int index) throws SQLException {
+        reachColumn(index);
+
+        return this.streamedLengths[index] == -1 && this.bufferedColumns.isNull(index);
+    }
+
+    @Override
+    public boolean isFloatingPointNumber(int index) throws SQLException {
+        readColumnValue(index);
+
+        return this.bufferedColumns.isFloatingPointNumber(index);
+    }
+
+    @Override
+    public long length(int index) throws SQLException {
+        reachColumn(index);
+
+        if (this.streamedLengths[index] != -1) {
+            return this.streamedLengths[index];
+        }
+
+        return this.bufferedColumns.length(index);
+    }
+
+    @Override
+    public int getInt(int columnIndex) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getInt(columnIndex);
+    }
+
+    @Override
+    public long getLong(int columnIndex) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getLong(columnIndex);
+    }
+
+    @Override
+    public double getDouble(int columnIndex) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getDouble(columnIndex);
+    }
+
+    @Override
+    public BigDecimal getBigDecimal(int columnIndex) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getBigDecimal(columnIndex);
+    }
+
+    @Override
+    public Timestamp getTimestampFast(int columnIndex, Calendar targetCalendar, TimeZone tz, boolean rollForward, MySQLConnection conn, ResultSetImpl rs)
+            throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getTimestampFast(columnIndex, targetCalendar, tz, rollForward, conn, rs);
+    }
+
+    @Override
+    public double getNativeDouble(int columnIndex) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getNativeDouble(columnIndex);
+    }
+
+    @Override
+    public float getNativeFloat(int columnIndex) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getNativeFloat(columnIndex);
+    }
+
+    @Override
+    public int getNativeInt(int columnIndex) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getNativeInt(columnIndex);
+    }
+
+    @Override
+    public long getNativeLong(int columnIndex) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getNativeLong(columnIndex);
+    }
+
+    @Override
+    public short getNativeShort(int columnIndex) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getNativeShort(columnIndex);
+    }
+
+    @Override
+    public Timestamp getNativeTimestamp(int columnIndex, Calendar targetCalendar, TimeZone tz, boolean rollForward, MySQLConnection conn, ResultSetImpl rs)
+            throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getNativeTimestamp(columnIndex, targetCalendar, tz, rollForward, conn, rs);
+    }
+
+    @Override
+    public Time getTimeFast(int columnIndex, Calendar targetCalendar, TimeZone tz, boolean rollForward, MySQLConnection conn, ResultSetImpl rs)
+            throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getTimeFast(columnIndex, targetCalendar, tz, rollForward, conn, rs);
+    }
+
+    @Override
+    public Date getDateFast(int columnIndex, MySQLConnection conn, ResultSetImpl rs, Calendar targetCalendar) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getDateFast(columnIndex, conn, rs, targetCalendar);
+    }
+
+    @Override
+    public Object getNativeDateTimeValue(int columnIndex, Calendar targetCalendar, int jdbcType, int mysqlType, TimeZone tz, boolean rollForward,
+            MySQLConnection conn, ResultSetImpl rs) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getNativeDateTimeValue(columnIndex, targetCalendar, jdbcType, mysqlType, tz, rollForward, conn, rs);
+    }
+
+    @Override
+    public Date getNativeDate(int columnIndex, MySQLConnection conn, ResultSetImpl rs, Calendar cal) throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getNativeDate(columnIndex, conn, rs, cal);
+    }
+
+    @Override
+    public Time getNativeTime(int columnIndex, Calendar targetCalendar, TimeZone tz, boolean rollForward, MySQLConnection conn, ResultSetImpl rs)
+            throws SQLException {
+        readColumnValue(columnIndex);
+
+        return this.bufferedColumns.getNativeTime(columnIndex, targetCalendar, tz, rollForward, conn, rs);
+    }
+
+    @Override
+    public int getBytesSize() {
+        return this.bufferedColumns.getBytesSize();
+    }
+
+    /**
+     * Reads the value of a large column straight off the network, stops working as soon as the row moves past the column.
+     */
+    private class ColumnInputStream extends InputStream {
+        private int columnIndex;
+
+        ColumnInputStream(int columnIndex) {
+            this.columnIndex = columnIndex;
+        }
+
+        @Override
+        public int read() throws IOException {
+            checkPosition();
+
+            if (StreamedColumnsRow.this.streamedBytesLeft == 0) {
+                return -1;
+            }
+
+            int b = readUnsignedByte();
+
+            StreamedColumnsRow.this.streamedBytesLeft--;
+
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            checkPosition();
+
+            if (len == 0) {
+                return 0;
+            }
+
+            if (StreamedColumnsRow.this.streamedBytesLeft == 0) {
+                return -1;
+            }
+
+            int count = StreamedColumnsRow.this.rowPacket.read(b, off, (int) Math.min(len, StreamedColumnsRow.this.streamedBytesLeft));
+
+            if (count < 0) {
+                throw new EOFException(Messages.getString("MysqlIO.43"));
+            }
+
+            StreamedColumnsRow.this.streamedBytesLeft -= count;
+
+            return count;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            checkPosition();
+
+            long count = StreamedColumnsRow.this.rowPacket.skip(Math.min(n, StreamedColumnsRow.this.streamedBytesLeft));
+
+            StreamedColumnsRow.this.streamedBytesLeft -= count;
+
+            return count;
+        }
+
+        private void checkPosition() throws IOException {
+            if (StreamedColumnsRow.this.streamedColumn != this.columnIndex) {
+                throw new IOException(Messages.getString("StreamedColumnsRow.ColumnPassed", new Object[] { Integer.valueOf(this.columnIndex + 1) }));
+            }
+        }
+    }
+}
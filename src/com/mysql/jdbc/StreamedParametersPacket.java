@@ -0,0 +1,97 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.io.InputStream;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The query packet of a client-side prepared statement with stream parameters too large to be copied into it, see the 'streamLargeParameters' property.
+ * The packet only holds the query around those parameters, MysqlIO reads and escapes them from their streams while it sends the packet.
+ */
+class StreamedParametersPacket extends Buffer {
+    private final PreparedStatement statement;
+
+    private final boolean useStreamLengths;
+
+    private final List<Integer> streamPositions = new ArrayList<Integer>();
+
+    private final List<InputStream> streams = new ArrayList<InputStream>();
+
+    private final List<Integer> streamLengths = new ArrayList<Integer>();
+
+    StreamedParametersPacket(PreparedStatement statement, boolean useStreamLengths) {
+        super(MysqlIO.INITIAL_PACKET_SIZE);
+
+        this.statement = statement;
+        this.useStreamLengths = useStreamLengths;
+    }
+
+    /**
+     * Leaves a stream parameter out of the packet at its current position.
+     */
+    void addParameterStream(InputStream in, int streamLength) {
+        this.streamPositions.add(Integer.valueOf(getPosition()));
+        this.streams.add(in);
+        this.streamLengths.add(Integer.valueOf(streamLength));
+    }
+
+    /**
+     * Returns how many bytes the stream parameters take at least, counting the streams with a known length only. Escaping can only add to it.
+     */
+    long getKnownParameterStreamLength() {
+        long length = 0;
+
+        if (this.useStreamLengths) {
+            for (Integer streamLength : this.streamLengths) {
+                if (streamLength.intValue() > 0) {
+                    length += streamLength.intValue();
+                }
+            }
+        }
+
+        return length;
+    }
+
+    int getParameterStreamCount() {
+        return this.streams.size();
+    }
+
+    /**
+     * Returns the position in the packet where the given stream parameter goes.
+     */
+    int getParameterStreamPosition(int streamIndex) {
+        return this.streamPositions.get(streamIndex).intValue();
+    }
+
+    /**
+     * Writes the given stream parameter, escaped, into the packet being sent, which the sending MysqlIO sends on as full packets while it fills up.
+     */
+    void writeParameterStream(int streamIndex, Buffer packetBeingSent, MysqlIO sendingIO) throws SQLException {
+        this.statement.streamToBytes(packetBeingSent, this.streams.get(streamIndex), true, this.streamLengths.get(streamIndex).intValue(),
+                this.useStreamLengths, sendingIO);
+    }
+}
@@ -30,6 +30,7 @@ import java.io.UnsupportedEncodingException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.math.BigDecimal;
+import java.math.BigInteger;
 import java.nio.ByteBuffer;
 import java.nio.CharBuffer;
 import java.nio.charset.Charset;
@@ -696,7 +697,7 @@ public class StringUtils {
         }
 
         if (s == endPos) {
-            throw new NumberFormatException(StringUtils.toString(buf));
+            throw new NumberFormatException(StringUtils.toString(buf, offset, endPos - offset));
         }
 
         /* Check for a sign. */
@@ -748,11 +749,11 @@ public class StringUtils {
         }
 
         if (s == save) {
-            throw new NumberFormatException(StringUtils.toString(buf));
+            throw new NumberFormatException(StringUtils.toString(buf, offset, endPos - offset));
         }
 
         if (overflow) {
-            throw new NumberFormatException(StringUtils.toString(buf));
+            throw new NumberFormatException(StringUtils.toString(buf, offset, endPos - offset));
         }
 
         /* Return the result of the appropriate sign. */
@@ -774,7 +775,7 @@ public class StringUtils {
         }
 
         if (s == endpos) {
-            throw new NumberFormatException(StringUtils.toString(buf));
+            throw new NumberFormatException(StringUtils.toString(buf, offset, endpos - offset));
         }
 
         /* Check for a sign. */
@@ -825,17 +826,204 @@ public class StringUtils {
         }
 
         if (s == save) {
-            throw new NumberFormatException(StringUtils.toString(buf));
+            throw new NumberFormatException(StringUtils.toString(buf, offset, endpos - offset));
         }
 
         if (overflow) {
-            throw new NumberFormatException(StringUtils.toString(buf));
+            throw new NumberFormatException(StringUtils.toString(buf, offset, endpos - offset));
         }
 
         /* Return the result of the appropriate sign. */
         return (negative ? (-i) : i);
     }
 
+    /**
+     * Exact powers of ten that can be represented as a double, for the fast path of getDouble(byte[], int, int).
+     */
+    private static final double[] EXACT_POWERS_OF_TEN = { 1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11, 1e12, 1e13, 1e14, 1e15, 1e16,
+            1e17, 1e18, 1e19, 1e20, 1e21, 1e22 };
+
+    /** Largest integer all smaller integers of which have an exact double representation (2^53). */
+    private static final long MAX_EXACT_DOUBLE_MANTISSA = 1L << 53;
+
+    public static double getDouble(byte[] buf) throws NumberFormatException {
+        return getDouble(buf, 0, buf.length);
+    }
+
+    /**
+     * Parses a double directly from the given bytes. Values with an exactly representable mantissa and a power of ten exponent up to 22 (the bulk of what
+     * the server sends for DOUBLE, FLOAT and DECIMAL columns) are converted with a single, correctly rounded, multiplication or division and without
+     * creating any intermediate object; everything else goes through Double.parseDouble().
+     * 
+     * @param buf
+     *            the buffer holding the text representation of the number
+     * @param offset
+     *            where the number starts in buf
+     * @param endPos
+     *            where the number ends in buf (exclusive)
+     * @return the parsed value
+     * @throws NumberFormatException
+     *             if the bytes don't hold a valid number
+     */
+    public static double getDouble(byte[] buf, int offset, int endPos) throws NumberFormatException {
+        int s = offset;
+        boolean negative = false;
+
+        if (s < endPos && (buf[s] == '-' || buf[s] == '+')) {
+            negative = buf[s] == '-';
+            s++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int exponent = 0;
+        boolean exact = true;
+
+        for (; s < endPos && buf[s] >= '0' && buf[s] <= '9'; s++, digits++) {
+            mantissa = mantissa * 10 + (buf[s] - '0');
+            exact &= mantissa <= MAX_EXACT_DOUBLE_MANTISSA;
+        }
+
+        if (s < endPos && buf[s] == '.') {
+            for (s++; s < endPos && buf[s] >= '0' && buf[s] <= '9'; s++, digits++) {
+                mantissa = mantissa * 10 + (buf[s] - '0');
+                exact &= mantissa <= MAX_EXACT_DOUBLE_MANTISSA;
+                exponent--;
+            }
+        }
+
+        if (digits > 0 && s < endPos && (buf[s] == 'e' || buf[s] == 'E')) {
+            s++;
+            boolean negativeExponent = false;
+
+            if (s < endPos && (buf[s] == '-' || buf[s] == '+')) {
+                negativeExponent = buf[s] == '-';
+                s++;
+            }
+
+            int explicitExponent = 0;
+            int save = s;
+
+            for (; s < endPos && buf[s] >= '0' && buf[s] <= '9' && s - save < 4; s++) {
+                explicitExponent = explicitExponent * 10 + (buf[s] - '0');
+            }
+
+            exact &= s > save;
+            exponent += negativeExponent ? -explicitExponent : explicitExponent;
+        }
+
+        if (exact && digits > 0 && s == endPos && exponent >= -22 && exponent <= 22) {
+            double d = mantissa;
+
+            if (exponent < 0) {
+                d /= EXACT_POWERS_OF_TEN[-exponent];
+            } else {
+                d *= EXACT_POWERS_OF_TEN[exponent];
+            }
+
+            return negative ? -d : d;
+        }
+
+        return Double.parseDouble(StringUtils.toAsciiString(buf, offset, endPos - offset));
+    }
+
+    private static final BigInteger TEN_TO_THE_18TH = BigInteger.valueOf(1000000000000000000L);
+
+    public static BigDecimal getBigDecimal(byte[] buf) throws NumberFormatException {
+        return getBigDecimal(buf, 0, buf.length);
+    }
+
+    /**
+     * Parses a BigDecimal directly from the given bytes, without going through a String or char[]. The unscaled value is accumulated in a long, in
+     * chunks of 18 digits folded into a BigInteger for longer values, such as wide DECIMAL columns. Malformed values go through new BigDecimal(String)
+     * so that the error is reported the same way. The result has the same precision and scale as new BigDecimal(String) would give.
+     * 
+     * @param buf
+     *            the buffer holding the text representation of the number
+     * @param offset
+     *            where the number starts in buf
+     * @param endPos
+     *            where the number ends in buf (exclusive)
+     * @return the parsed value
+     * @throws NumberFormatException
+     *             if the bytes don't hold a valid number
+     */
+    public static BigDecimal getBigDecimal(byte[] buf, int offset, int endPos) throws NumberFormatException {
+        int s = offset;
+        boolean negative = false;
+
+        if (s < endPos && (buf[s] == '-' || buf[s] == '+')) {
+            negative = buf[s] == '-';
+            s++;
+        }
+
+        BigInteger unscaledHigh = null;
+        long unscaled = 0;
+        int chunkDigits = 0;
+        int digits = 0;
+        int scale = 0;
+        boolean inFraction = false;
+
+        for (; s < endPos; s++) {
+            byte b = buf[s];
+
+            if (b >= '0' && b <= '9') {
+                if (chunkDigits == 18) {
+                    unscaledHigh = unscaledHigh == null ? BigInteger.valueOf(unscaled) : unscaledHigh.multiply(TEN_TO_THE_18TH).add(
+                            BigInteger.valueOf(unscaled));
+                    unscaled = 0;
+                    chunkDigits = 0;
+                }
+
+                unscaled = unscaled * 10 + (b - '0');
+                chunkDigits++;
+                digits++;
+
+                if (inFraction) {
+                    scale++;
+                }
+            } else if (b == '.' && !inFraction) {
+                inFraction = true;
+            } else {
+                break;
+            }
+        }
+
+        boolean wellFormed = digits > 0;
+
+        if (wellFormed && s < endPos && (buf[s] == 'e' || buf[s] == 'E')) {
+            s++;
+            boolean negativeExponent = false;
+
+            if (s < endPos && (buf[s] == '-' || buf[s] == '+')) {
+                negativeExponent = buf[s] == '-';
+                s++;
+            }
+
+            int exponent = 0;
+            int save = s;
+
+            for (; s < endPos && buf[s] >= '0' && buf[s] <= '9' && s - save < 9; s++) {
+                exponent = exponent * 10 + (buf[s] - '0');
+            }
+
+            wellFormed = s > save;
+            scale -= negativeExponent ? -exponent : exponent;
+        }
+
+        if (!wellFormed || s != endPos) {
+            return new BigDecimal(StringUtils.toAsciiString(buf, offset, endPos - offset));
+        }
+
+        if (unscaledHigh == null) {
+            return BigDecimal.valueOf(negative ? -unscaled : unscaled, scale);
+        }
+
+        BigInteger unscaledValue = unscaledHigh.multiply(BigInteger.TEN.pow(chunkDigits)).add(BigInteger.valueOf(unscaled));
+
+        return new BigDecimal(negative ? unscaledValue.negate() : unscaledValue, scale);
+    }
+
     public static short getShort(byte[] buf) throws NumberFormatException {
         return getShort(buf, 0, buf.length);
     }
@@ -851,7 +1039,7 @@ public class StringUtils {
         }
 
         if (s == endpos) {
-            throw new NumberFormatException(StringUtils.toString(buf));
+            throw new NumberFormatException(StringUtils.toString(buf, offset, endpos - offset));
         }
 
         /* Check for a sign. */
@@ -902,11 +1090,11 @@ public class StringUtils {
         }
 
         if (s == save) {
-            throw new NumberFormatException(StringUtils.toString(buf));
+            throw new NumberFormatException(StringUtils.toString(buf, offset, endpos - offset));
         }
 
         if (overflow) {
-            throw new NumberFormatException(StringUtils.toString(buf));
+            throw new NumberFormatException(StringUtils.toString(buf, offset, endpos - offset));
         }
 
         /* Return the result of the appropriate sign. */
@@ -397,6 +397,26 @@ public class TimeUtil {
         }
     }
 
+    /**
+     * Same as fastTimestampCreate(TimeZone, ...), but converts through the connection's offset table for the timezone when possible, instead of creating
+     * a new Calendar.
+     */
+    final static Timestamp fastTimestampCreate(MySQLConnection conn, TimeZone tz, int year, int month, int day, int hour, int minute, int seconds,
+            int secondsPart) {
+        if (tz != null) {
+            long tsAsMillis = conn.getTimezoneOffsetTable(tz).toEpochMillis(year, month, day, hour, minute, seconds, false);
+
+            if (tsAsMillis != TimezoneOffsetTable.NO_FAST_CONVERSION) {
+                Timestamp ts = new Timestamp(tsAsMillis);
+                ts.setNanos(secondsPart);
+
+                return ts;
+            }
+        }
+
+        return fastTimestampCreate(tz, year, month, day, hour, minute, seconds, secondsPart);
+    }
+
     final static Timestamp fastTimestampCreate(TimeZone tz, int year, int month, int day, int hour, int minute, int seconds, int secondsPart) {
         Calendar cal = (tz == null) ? new GregorianCalendar() : new GregorianCalendar(tz);
         cal.clear();
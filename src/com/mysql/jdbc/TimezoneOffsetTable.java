@@ -0,0 +1,162 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc;
+
+import java.util.TimeZone;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Converts local date and time fields to epoch millis in a given timezone without going through a (shared, locked) Calendar, by looking up the UTC
+ * offset of the local day in a table computed once per year and timezone.
+ * 
+ * Only days on which the offset doesn't change are handled, in the years where the proleptic Gregorian calendar matches GregorianCalendar. For those the
+ * result is the same as setting the fields on a non-lenient GregorianCalendar. Everything else (DST transition days, out of range or lenient field values)
+ * is left to the Calendar based code.
+ */
+public class TimezoneOffsetTable {
+    /** Returned by toEpochMillis() when the fields have to be converted through a Calendar. */
+    public static final long NO_FAST_CONVERSION = Long.MIN_VALUE;
+
+    private static final int FIRST_YEAR = 1600;
+
+    private static final int LAST_YEAR = 2399;
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    /** Timezone offsets are sampled at this interval when looking for days on which they change. */
+    private static final long SAMPLE_INTERVAL = 2L * 60 * 60 * 1000;
+
+    /** Bound of the offsets, including historical local mean time ones, a multiple of SAMPLE_INTERVAL. */
+    private static final long MAX_OFFSET = 16L * 60 * 60 * 1000;
+
+    private static final int NO_OFFSET = Integer.MIN_VALUE;
+
+    private static final int[] DAYS_BEFORE_MONTH = { 0, 31, 59, 90, 120, 151, 181, 212, 243, 273, 304, 334, 365 };
+
+    private final TimeZone timeZone;
+
+    /** Per year, the offset of each local day, or NO_OFFSET if it changes during that day. Filled in lazily. */
+    private final AtomicReferenceArray<int[]> offsetsByYear = new AtomicReferenceArray<int[]>(LAST_YEAR - FIRST_YEAR + 1);
+
+    public TimezoneOffsetTable(TimeZone timeZone) {
+        this.timeZone = (TimeZone) timeZone.clone();
+    }
+
+    public TimeZone getTimeZone() {
+        return this.timeZone;
+    }
+
+    /**
+     * Converts the given local date and time to epoch millis.
+     * 
+     * @param year
+     * @param month
+     *            1-based month
+     * @param day
+     * @param hour
+     * @param minute
+     * @param second
+     * @param localTimeAsGmt
+     *            return the local date and time as if it was GMT (see "useGmtMillisForDatetimes") instead of applying the offset of this timezone
+     * @return the epoch millis, or NO_FAST_CONVERSION if the value has to be converted through a Calendar
+     */
+    public long toEpochMillis(int year, int month, int day, int hour, int minute, int second, boolean localTimeAsGmt) {
+        if (year < FIRST_YEAR || year > LAST_YEAR || month < 1 || month > 12 || day < 1 || hour < 0 || hour > 23 || minute < 0 || minute > 59 || second < 0
+                || second > 59) {
+            return NO_FAST_CONVERSION;
+        }
+
+        boolean leap = isLeapYear(year);
+        int daysInMonth = DAYS_BEFORE_MONTH[month] - DAYS_BEFORE_MONTH[month - 1] + (leap && month == 2 ? 1 : 0);
+
+        if (day > daysInMonth) {
+            return NO_FAST_CONVERSION;
+        }
+
+        int dayOfYear = DAYS_BEFORE_MONTH[month - 1] + (leap && month > 2 ? 1 : 0) + day - 1;
+
+        int[] offsets = this.offsetsByYear.get(year - FIRST_YEAR);
+
+        if (offsets == null) {
+            // computing the same year twice from concurrent callers is harmless
+            offsets = computeOffsets(year);
+            this.offsetsByYear.set(year - FIRST_YEAR, offsets);
+        }
+
+        int offset = offsets[dayOfYear];
+
+        if (offset == NO_OFFSET) {
+            return NO_FAST_CONVERSION;
+        }
+
+        long localMillis = (epochDay(year) + dayOfYear) * MILLIS_PER_DAY + hour * 3600000L + minute * 60000L + second * 1000L;
+
+        return localTimeAsGmt ? localMillis : localMillis - offset;
+    }
+
+    private int[] computeOffsets(int year) {
+        long firstDay = epochDay(year);
+        int days = isLeapYear(year) ? 366 : 365;
+        int samplesPerDay = (int) (MILLIS_PER_DAY / SAMPLE_INTERVAL);
+        int samplesPerLocalDay = (int) ((MILLIS_PER_DAY + 2 * MAX_OFFSET) / SAMPLE_INTERVAL);
+
+        // the instants of a local day are within MAX_OFFSET of the same UTC day
+        long start = firstDay * MILLIS_PER_DAY - MAX_OFFSET;
+        int[] samples = new int[(days - 1) * samplesPerDay + samplesPerLocalDay + 1];
+
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = this.timeZone.getOffset(start + i * SAMPLE_INTERVAL);
+        }
+
+        int[] offsets = new int[days];
+
+        for (int d = 0; d < days; d++) {
+            int offset = samples[d * samplesPerDay];
+
+            for (int i = d * samplesPerDay + 1; i <= d * samplesPerDay + samplesPerLocalDay; i++) {
+                if (samples[i] != offset) {
+                    offset = NO_OFFSET;
+                    break;
+                }
+            }
+
+            offsets[d] = offset;
+        }
+
+        return offsets;
+    }
+
+    private static boolean isLeapYear(int year) {
+        return (year % 4 == 0) && (year % 100 != 0 || year % 400 == 0);
+    }
+
+    /**
+     * Days from 1970-01-01 to January 1st of the given year, in the proleptic Gregorian calendar.
+     */
+    private static long epochDay(int year) {
+        long y = year - 1;
+
+        return 365 * (y - 1969) + (y / 4 - 492) - (y / 100 - 19) + (y / 400 - 4);
+    }
+}
@@ -2836,4 +2836,132 @@ public class ConnectionWrapper extends WrapperBase implements Connection {
     public void setEnabledSSLCipherSuites(String cipherSuites) {
         this.mc.setEnabledSSLCipherSuites(cipherSuites);
     }
+
+    public boolean getUseDirectSocketBuffers() {
+        return this.mc.getUseDirectSocketBuffers();
+    }
+
+    public void setUseDirectSocketBuffers(boolean flag) {
+        this.mc.setUseDirectSocketBuffers(flag);
+    }
+
+    public boolean getUseReentrantConnectionLock() {
+        return this.mc.getUseReentrantConnectionLock();
+    }
+
+    public void setUseReentrantConnectionLock(boolean flag) {
+        this.mc.setUseReentrantConnectionLock(flag);
+    }
+
+    public int getBatchPipelineDepth() {
+        return this.mc.getBatchPipelineDepth();
+    }
+
+    public void setBatchPipelineDepth(int value) throws SQLException {
+        this.mc.setBatchPipelineDepth(value);
+    }
+
+    public int getCompressionThreshold() {
+        return this.mc.getCompressionThreshold();
+    }
+
+    public void setCompressionThreshold(int value) throws SQLException {
+        this.mc.setCompressionThreshold(value);
+    }
+
+    public boolean getStreamLargeParameters() {
+        return this.mc.getStreamLargeParameters();
+    }
+
+    public void setStreamLargeParameters(boolean flag) {
+        this.mc.setStreamLargeParameters(flag);
+    }
+
+    public int getColumnStreamingThreshold() {
+        return this.mc.getColumnStreamingThreshold();
+    }
+
+    public void setColumnStreamingThreshold(int value) throws SQLException {
+        this.mc.setColumnStreamingThreshold(value);
+    }
+
+    public boolean getUseParallelRowDecoding() {
+        return this.mc.getUseParallelRowDecoding();
+    }
+
+    public void setUseParallelRowDecoding(boolean flag) {
+        this.mc.setUseParallelRowDecoding(flag);
+    }
+
+    public int getParallelRowDecodingChunkSize() {
+        return this.mc.getParallelRowDecodingChunkSize();
+    }
+
+    public void setParallelRowDecodingChunkSize(int value) throws SQLException {
+        this.mc.setParallelRowDecodingChunkSize(value);
+    }
+
+    public boolean getPrefetchCursorRows() {
+        return this.mc.getPrefetchCursorRows();
+    }
+
+    public void setPrefetchCursorRows(boolean flag) {
+        this.mc.setPrefetchCursorRows(flag);
+    }
+
+    public int getStreamingReadAheadRows() {
+        return this.mc.getStreamingReadAheadRows();
+    }
+
+    public void setStreamingReadAheadRows(int value) throws SQLException {
+        this.mc.setStreamingReadAheadRows(value);
+    }
+
+    public int getParseInfoCacheMaxBytes() {
+        return this.mc.getParseInfoCacheMaxBytes();
+    }
+
+    public void setParseInfoCacheMaxBytes(int value) throws SQLException {
+        this.mc.setParseInfoCacheMaxBytes(value);
+    }
+
+    public int getServerPrepStmtRegistrySize() {
+        return this.mc.getServerPrepStmtRegistrySize();
+    }
+
+    public void setServerPrepStmtRegistrySize(int value) throws SQLException {
+        this.mc.setServerPrepStmtRegistrySize(value);
+    }
+
+    public int getEagerServerPrepStmtCount() {
+        return this.mc.getEagerServerPrepStmtCount();
+    }
+
+    public void setEagerServerPrepStmtCount(int value) throws SQLException {
+        this.mc.setEagerServerPrepStmtCount(value);
+    }
+
+    public boolean getAutoReprepareServerStatements() {
+        return this.mc.getAutoReprepareServerStatements();
+    }
+
+    public void setAutoReprepareServerStatements(boolean flag) {
+        this.mc.setAutoReprepareServerStatements(flag);
+    }
+
+    public boolean getShareCachedResultSetMetadata() {
+        return this.mc.getShareCachedResultSetMetadata();
+    }
+
+    public void setShareCachedResultSetMetadata(boolean flag) {
+        this.mc.setShareCachedResultSetMetadata(flag);
+    }
+
+    public boolean getUseOptionalResultsetMetadata() {
+        return this.mc.getUseOptionalResultsetMetadata();
+    }
+
+    public void setUseOptionalResultsetMetadata(boolean flag) {
+        this.mc.setUseOptionalResultsetMetadata(flag);
+    }
 }
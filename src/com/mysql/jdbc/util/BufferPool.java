@@ -0,0 +1,156 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.util;
+
+import java.lang.ref.SoftReference;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A JVM-wide pool of the byte arrays connections grow their packet and read buffers into, so that a large buffer one connection is done with can be used by
+ * the next connection needing one, instead of each (mostly idle) connection keeping its own.
+ * 
+ * Arrays are pooled by size class, the power of two at or below their length, from 4 KiB to 8 MiB. Each thread keeps the last small array it gave back
+ * (softly), other arrays go to a lock-free queue per size class. The queues hold at most 32 MiB in all, arrays given back once they're full are left to the
+ * garbage collector.
+ * 
+ * An array must only be given back once nothing refers to it anymore, as it will be handed out to another connection.
+ */
+public final class BufferPool {
+    private static final int MIN_SIZE_CLASS = 12; // 4 KiB
+
+    private static final int MAX_SIZE_CLASS = 22; // up to 8 MiB
+
+    private static final int MAX_THREAD_CACHED_SIZE_CLASS = 16; // up to 128 KiB
+
+    private static final long MAX_POOLED_BYTES = 32 * 1024 * 1024;
+
+    private static final long MAX_POOLED_BYTES_PER_SIZE_CLASS = MAX_POOLED_BYTES / 4;
+
+    private static final ConcurrentLinkedQueue<byte[]>[] pooledArrays;
+
+    private static final AtomicLong[] pooledBytes;
+
+    private static final AtomicLong totalPooledBytes = new AtomicLong();
+
+    private static final ThreadLocal<SoftReference<byte[]>> threadCachedArray = new ThreadLocal<SoftReference<byte[]>>();
+
+    static {
+        @SuppressWarnings({ "rawtypes", "unchecked" })
+        ConcurrentLinkedQueue<byte[]>[] queues = new ConcurrentLinkedQueue[MAX_SIZE_CLASS + 1];
+        pooledArrays = queues;
+        pooledBytes = new AtomicLong[MAX_SIZE_CLASS + 1];
+
+        for (int i = MIN_SIZE_CLASS; i <= MAX_SIZE_CLASS; i++) {
+            pooledArrays[i] = new ConcurrentLinkedQueue<byte[]>();
+            pooledBytes[i] = new AtomicLong();
+        }
+    }
+
+    private BufferPool() {
+    }
+
+    /**
+     * Returns an array of at least the given length, a pooled one (less than four times as long) if there is one, a new one of exactly that length otherwise.
+     */
+    public static byte[] allocate(int minLength) {
+        if (minLength > (1 << MIN_SIZE_CLASS) && minLength <= (1 << MAX_SIZE_CLASS)) {
+            // the smallest class whose arrays are all long enough
+            int sizeClass = 32 - Integer.numberOfLeadingZeros(minLength - 1);
+
+            if (sizeClass <= MAX_THREAD_CACHED_SIZE_CLASS) {
+                SoftReference<byte[]> cachedRef = threadCachedArray.get();
+                byte[] cached = (cachedRef == null) ? null : cachedRef.get();
+
+                if (cached != null && cached.length >= minLength && cached.length / 2 < minLength) {
+                    threadCachedArray.set(null);
+
+                    return cached;
+                }
+            }
+
+            byte[] pooled = pooledArrays[sizeClass].poll();
+
+            if (pooled != null) {
+                pooledBytes[sizeClass].addAndGet(-pooled.length);
+                totalPooledBytes.addAndGet(-pooled.length);
+
+                return pooled;
+            }
+        }
+
+        return new byte[minLength];
+    }
+
+    /**
+     * Gives back an array that is not referred to anymore, for another allocate() to return. Arrays too small or too large to be worth pooling are ignored.
+     */
+    public static void release(byte[] array) {
+        if (array == null) {
+            return;
+        }
+
+        int sizeClass = sizeClassOf(array.length);
+
+        if (sizeClass < MIN_SIZE_CLASS || sizeClass > MAX_SIZE_CLASS) {
+            return;
+        }
+
+        if (sizeClass <= MAX_THREAD_CACHED_SIZE_CLASS) {
+            SoftReference<byte[]> cachedRef = threadCachedArray.get();
+
+            if (cachedRef == null || cachedRef.get() == null) {
+                threadCachedArray.set(new SoftReference<byte[]>(array));
+
+                return;
+            }
+        }
+
+        if (pooledBytes[sizeClass].addAndGet(array.length) > MAX_POOLED_BYTES_PER_SIZE_CLASS) {
+            pooledBytes[sizeClass].addAndGet(-array.length);
+
+            return;
+        }
+
+        if (totalPooledBytes.addAndGet(array.length) > MAX_POOLED_BYTES) {
+            totalPooledBytes.addAndGet(-array.length);
+            pooledBytes[sizeClass].addAndGet(-array.length);
+
+            return;
+        }
+
+        pooledArrays[sizeClass].offer(array);
+    }
+
+    /**
+     * Returns the number of bytes held by the shared part of the pool.
+     */
+    public static long getPooledBytes() {
+        return totalPooledBytes.get();
+    }
+
+    private static int sizeClassOf(int length) {
+        return 31 - Integer.numberOfLeadingZeros(length);
+    }
+}
@@ -0,0 +1,85 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.util;
+
+/**
+ * Remembers the sizes a buffer needed to have over its last uses, so that the buffer can be sized for what the connection has been doing lately: grown
+ * while large packets or results keep coming, and shrunk back once they stop showing up.
+ */
+public class BufferSizeWindow {
+    private static final int WINDOW_LENGTH = 16;
+
+    private static final int ONE_MEG = 1024 * 1024;
+
+    private final int minSize;
+
+    private final int maxSize;
+
+    private final int[] sizes = new int[WINDOW_LENGTH];
+
+    private int nextSize = 0;
+
+    /**
+     * @param minSize
+     *            the smallest size ever recommended
+     * @param maxSize
+     *            the largest size ever recommended, sizes over it are still recorded
+     */
+    public BufferSizeWindow(int minSize, int maxSize) {
+        this.minSize = minSize;
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Records the size needed by one use of the buffer, dropping the oldest size from the window.
+     */
+    public void addSize(int size) {
+        this.sizes[this.nextSize] = size;
+        this.nextSize = (this.nextSize + 1) % WINDOW_LENGTH;
+    }
+
+    /**
+     * Returns the size to give the buffer: enough for every size in the window, rounded up to a power of two (or to a multiple of 1 MiB over 1 MiB) so
+     * that slowly growing sizes don't need a new buffer each time, within the bounds given at construction.
+     */
+    public int getRecommendedSize() {
+        int largest = 0;
+
+        for (int i = 0; i < WINDOW_LENGTH; i++) {
+            if (this.sizes[i] > largest) {
+                largest = this.sizes[i];
+            }
+        }
+
+        int recommended;
+
+        if (largest <= ONE_MEG) {
+            recommended = Integer.highestOneBit(Math.max(largest - 1, 1)) << 1;
+        } else {
+            recommended = (int) Math.min(((long) largest + ONE_MEG - 1) / ONE_MEG * ONE_MEG, Integer.MAX_VALUE);
+        }
+
+        return Math.max(this.minSize, Math.min(this.maxSize, recommended));
+    }
+}
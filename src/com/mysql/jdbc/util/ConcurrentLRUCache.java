@@ -0,0 +1,253 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.util;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A size-bounded cache that, unlike {@link LRUCache}, can be used by several threads without external synchronization.
+ * 
+ * Lookups don't change the structure of the cache, they only mark the entry as referenced. Entries are evicted with the CLOCK (second chance)
+ * approximation of LRU: the eviction hand goes over the entries in insertion order, giving referenced entries another round and evicting the first one that
+ * wasn't referenced since the hand last passed over it.
+ * 
+ * The cache is bounded by the number of its entries, or by their total weight when subclasses override weigh() and getMaxWeight().
+ */
+public class ConcurrentLRUCache<K, V> {
+    protected final int maxElements;
+
+    private final ConcurrentHashMap<K, Node<K, V>> map;
+
+    private final ConcurrentLinkedQueue<Node<K, V>> clock = new ConcurrentLinkedQueue<Node<K, V>>();
+
+    private final AtomicInteger size = new AtomicInteger();
+
+    private final AtomicLong weight = new AtomicLong();
+
+    private final AtomicInteger clockLength = new AtomicInteger();
+
+    private final AtomicBoolean purging = new AtomicBoolean();
+
+    public ConcurrentLRUCache(int maxSize) {
+        this.maxElements = maxSize;
+        this.map = new ConcurrentHashMap<K, Node<K, V>>(Math.max(16, Math.min(maxSize, 1024)));
+    }
+
+    public V get(K key) {
+        Node<K, V> node = this.map.get(key);
+
+        if (node == null) {
+            return null;
+        }
+
+        node.referenced = true;
+
+        return node.value;
+    }
+
+    public void put(K key, V value) {
+        Node<K, V> node = new Node<K, V>(key, value, weigh(key, value));
+        Node<K, V> replaced = this.map.put(key, node);
+
+        if (replaced == null) {
+            this.size.incrementAndGet();
+        } else {
+            this.weight.addAndGet(-replaced.weight);
+        }
+
+        this.weight.addAndGet(node.weight);
+
+        this.clock.offer(node);
+        this.clockLength.incrementAndGet();
+
+        evictIfNeeded();
+        purgeIfNeeded();
+    }
+
+    /**
+     * Caches the value unless the key is already cached.
+     * 
+     * @return the value already cached for the key, or null if the given value was cached
+     */
+    public V putIfAbsent(K key, V value) {
+        Node<K, V> node = new Node<K, V>(key, value, weigh(key, value));
+        Node<K, V> existing = this.map.putIfAbsent(key, node);
+
+        if (existing != null) {
+            existing.referenced = true;
+
+            return existing.value;
+        }
+
+        this.size.incrementAndGet();
+        this.weight.addAndGet(node.weight);
+        this.clock.offer(node);
+        this.clockLength.incrementAndGet();
+
+        evictIfNeeded();
+        purgeIfNeeded();
+
+        return null;
+    }
+
+    public V remove(K key) {
+        Node<K, V> node = this.map.remove(key);
+
+        if (node == null) {
+            return null;
+        }
+
+        this.size.decrementAndGet();
+        this.weight.addAndGet(-node.weight);
+
+        return node.value;
+    }
+
+    public void clear() {
+        for (K key : this.map.keySet()) {
+            remove(key);
+        }
+    }
+
+    public int size() {
+        return this.size.get();
+    }
+
+    /**
+     * Returns the total weight of the cached entries, which is their number unless weigh() is overridden.
+     */
+    public long weight() {
+        return this.weight.get();
+    }
+
+    /**
+     * Returns a view of the cached keys. It reflects concurrent changes to the cache without failing, and reading it doesn't count as using the entries.
+     */
+    public Set<K> keySet() {
+        return Collections.unmodifiableSet(this.map.keySet());
+    }
+
+    /**
+     * Called after an entry has been evicted to make room for new ones, but not when it is removed or replaced. Does nothing by default.
+     * 
+     * @param key
+     *            the key of the evicted entry
+     * @param value
+     *            the value of the evicted entry
+     */
+    protected void entryEvicted(K key, V value) {
+    }
+
+    /**
+     * Returns the weight of an entry, counted against getMaxWeight() for as long as the entry is cached. Every entry weighs 1 by default.
+     * 
+     * @param key
+     *            the key of the entry
+     * @param value
+     *            the value of the entry
+     */
+    protected long weigh(K key, V value) {
+        return 1;
+    }
+
+    /**
+     * Returns the total weight above which entries are evicted, the maximum number of entries by default. It may change over the life of the cache.
+     */
+    protected long getMaxWeight() {
+        return this.maxElements;
+    }
+
+    private void evictIfNeeded() {
+        while (this.weight.get() > getMaxWeight()) {
+            Node<K, V> node = this.clock.poll();
+
+            if (node == null) {
+                return;
+            }
+
+            this.clockLength.decrementAndGet();
+
+            if (this.map.get(node.key) != node) {
+                continue; // removed or replaced since
+            }
+
+            if (node.referenced) {
+                node.referenced = false;
+                this.clock.offer(node);
+                this.clockLength.incrementAndGet();
+
+                continue;
+            }
+
+            if (this.map.remove(node.key, node)) {
+                this.size.decrementAndGet();
+                this.weight.addAndGet(-node.weight);
+                entryEvicted(node.key, node.value);
+            }
+        }
+    }
+
+    /**
+     * Removed and replaced entries stay on the clock until the hand reaches them, which only happens when the cache is full; drop them once they outnumber
+     * the live ones.
+     */
+    private void purgeIfNeeded() {
+        if (this.clockLength.get() <= 2 * this.size.get() + 16 || !this.purging.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            for (Iterator<Node<K, V>> it = this.clock.iterator(); it.hasNext();) {
+                Node<K, V> node = it.next();
+
+                if (this.map.get(node.key) != node) {
+                    it.remove();
+                    this.clockLength.decrementAndGet();
+                }
+            }
+        } finally {
+            this.purging.set(false);
+        }
+    }
+
+    static class Node<K, V> {
+        final K key;
+        final V value;
+        final long weight;
+        volatile boolean referenced;
+
+        Node(K key, V value, long weight) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+        }
+    }
+}
@@ -47,6 +47,12 @@ public class ReadAheadInputStream extends InputStream {
 
     protected Log log;
 
+    /** Sizes of the recent reads from the underlying stream, null if the buffer has a fixed size */
+    private BufferSizeWindow readSizes;
+
+    /** The buffer kept while idle, when the buffer size is adaptive, larger ones are taken from (and given back to) the BufferPool */
+    private byte[] minimumBuf;
+
     private void fill(int readAtLeastTheseManyBytes) throws IOException {
         checkClosed();
 
@@ -54,12 +60,16 @@ public class ReadAheadInputStream extends InputStream {
 
         this.endOfCurrentData = this.currentPosition;
 
+        int bytesAvailable = this.underlyingStream.available();
+
+        if (this.readSizes != null) {
+            resizeBuffer(readAtLeastTheseManyBytes, bytesAvailable);
+        }
+
         // Read at least as many bytes as the caller wants, but don't block to fill the whole buffer (like java.io.BufferdInputStream does)
 
         int bytesToRead = Math.min(this.buf.length - this.currentPosition, readAtLeastTheseManyBytes);
 
-        int bytesAvailable = this.underlyingStream.available();
-
         if (bytesAvailable > bytesToRead) {
 
             // Great, there's more available, let's grab those bytes too! (read-ahead)
@@ -104,6 +114,49 @@ public class ReadAheadInputStream extends InputStream {
         }
     }
 
+    /**
+     * Sizes the (empty) buffer for what the underlying stream had available for the last reads, and for the current one.
+     */
+    private void resizeBuffer(int readAtLeastTheseManyBytes, int bytesAvailable) {
+        this.readSizes.addSize(Math.max(readAtLeastTheseManyBytes, bytesAvailable));
+
+        int recommendedSize = this.readSizes.getRecommendedSize();
+
+        // shrink only once the buffer is much larger than needed, so that sizes varying around a power of two don't get a new buffer each time
+        if (this.buf.length >= recommendedSize && this.buf.length / 4 < recommendedSize) {
+            return;
+        }
+
+        if (this.buf != this.minimumBuf) {
+            BufferPool.release(this.buf);
+        }
+
+        this.buf = (recommendedSize == this.minimumBuf.length) ? this.minimumBuf : BufferPool.allocate(recommendedSize);
+
+        if (this.doDebug) {
+            String debugMessage = "ReadAheadInputStream.resizeBuffer(" + readAtLeastTheseManyBytes + "), buffer_size=" + this.buf.length;
+
+            if (this.log != null) {
+                this.log.logTrace(debugMessage);
+            } else {
+                System.err.println(debugMessage);
+            }
+        }
+    }
+
+    /**
+     * Gives a buffer grown by the adaptive sizing back to the BufferPool when all of its data was read, the next read that needs a larger buffer takes one
+     * from the pool again. Called when the connection is done reading a response and may go idle.
+     */
+    public synchronized void releaseBuffer() {
+        if (this.readSizes != null && this.buf != null && this.buf != this.minimumBuf && this.currentPosition >= this.endOfCurrentData) {
+            BufferPool.release(this.buf);
+            this.buf = this.minimumBuf;
+            this.currentPosition = 0;
+            this.endOfCurrentData = 0;
+        }
+    }
+
     private int readFromUnderlyingStreamIfNecessary(byte[] b, int off, int len) throws IOException {
         checkClosed();
 
@@ -236,6 +289,17 @@ public class ReadAheadInputStream extends InputStream {
         this.log = logTo;
     }
 
+    /**
+     * Creates a stream whose buffer grows up to maxBufferSize while the underlying stream has more data available than fits in it, and shrinks back to
+     * minBufferSize once that stops, see BufferSizeWindow.
+     */
+    public ReadAheadInputStream(InputStream toBuffer, int minBufferSize, int maxBufferSize, boolean debug, Log logTo) {
+        this(toBuffer, minBufferSize, debug, logTo);
+
+        this.minimumBuf = this.buf;
+        this.readSizes = new BufferSizeWindow(minBufferSize, maxBufferSize);
+    }
+
     /*
      * (non-Javadoc)
      * 
@@ -249,6 +313,7 @@ public class ReadAheadInputStream extends InputStream {
             } finally {
                 this.underlyingStream = null;
                 this.buf = null;
+                this.minimumBuf = null;
                 this.log = null;
             }
         }
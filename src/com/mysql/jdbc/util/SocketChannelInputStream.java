@@ -0,0 +1,211 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.util;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * An input stream that reads from a non-blocking SocketChannel into a single, reusable (optionally direct) ByteBuffer. Blocking reads are implemented by
+ * waiting on a SocketChannelSelector, which honors the SO_TIMEOUT configured on the channel's socket, so socket timeouts keep working as they do for plain
+ * sockets.
+ */
+public class SocketChannelInputStream extends InputStream {
+
+    private SocketChannel channel;
+
+    private ByteBuffer buf;
+
+    private SocketChannelSelector selector;
+
+    public SocketChannelInputStream(SocketChannel channel, SocketChannelSelector selector, int bufferSize, boolean useDirectBuffer) throws IOException {
+        this.channel = channel;
+        this.selector = selector;
+        this.buf = useDirectBuffer ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+        this.buf.flip(); // start empty
+
+        this.channel.configureBlocking(false);
+    }
+
+    /**
+     * Reads whatever is available from the channel without blocking, appending to the buffered data.
+     * 
+     * @return the number of bytes read, or -1 on end-of-stream
+     */
+    private int fillNonBlocking() throws IOException {
+        this.buf.compact();
+
+        try {
+            return this.channel.read(this.buf);
+        } finally {
+            this.buf.flip();
+        }
+    }
+
+    /**
+     * Blocks (on the selector) until at least one byte is buffered.
+     * 
+     * @return false if the channel reached end-of-stream
+     */
+    private boolean fill() throws IOException {
+        while (true) {
+            int n = fillNonBlocking();
+
+            if (n < 0) {
+                return false;
+            }
+
+            if (n > 0) {
+                return true;
+            }
+
+            waitForReadable();
+        }
+    }
+
+    private void waitForReadable() throws IOException {
+        this.selector.waitFor(SelectionKey.OP_READ);
+    }
+
+    private int readDirect(byte b[], int off, int len) throws IOException {
+        ByteBuffer dst = ByteBuffer.wrap(b, off, len);
+
+        while (true) {
+            int n = this.channel.read(dst);
+
+            if (n != 0) {
+                return n;
+            }
+
+            waitForReadable();
+        }
+    }
+
+    @Override
+    public int read() throws IOException {
+        checkClosed();
+
+        if (!this.buf.hasRemaining() && !fill()) {
+            return -1;
+        }
+
+        return this.buf.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte b[], int off, int len) throws IOException {
+        checkClosed();
+
+        if ((off | len | (off + len) | (b.length - (off + len))) < 0) {
+            throw new IndexOutOfBoundsException();
+        } else if (len == 0) {
+            return 0;
+        }
+
+        if (!this.buf.hasRemaining()) {
+            if (len >= this.buf.capacity()) {
+                // large reads (packet payloads) go straight from the channel into the caller's array, skipping the copy through our buffer
+                return readDirect(b, off, len);
+            }
+
+            if (!fill()) {
+                return -1;
+            }
+        }
+
+        int bytesActuallyRead = Math.min(this.buf.remaining(), len);
+
+        this.buf.get(b, off, bytesActuallyRead);
+
+        return bytesActuallyRead;
+    }
+
+    /**
+     * Reports the buffered bytes, reading ahead from the channel (without blocking) if the buffer is empty.
+     */
+    @Override
+    public int available() throws IOException {
+        checkClosed();
+
+        if (!this.buf.hasRemaining() && fillNonBlocking() < 0) {
+            return 0;
+        }
+
+        return this.buf.remaining();
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        checkClosed();
+
+        if (n <= 0) {
+            return 0;
+        }
+
+        if (!this.buf.hasRemaining() && !fill()) {
+            return 0;
+        }
+
+        int bytesSkipped = (int) Math.min(this.buf.remaining(), n);
+
+        this.buf.position(this.buf.position() + bytesSkipped);
+
+        return bytesSkipped;
+    }
+
+    @Override
+    public boolean markSupported() {
+        return false;
+    }
+
+    /**
+     * Closes the selector shared with the output stream and, once no other selector holds the channel, puts it back into blocking mode so the socket can
+     * be handed over to layers that need its own blocking streams (SSL). The channel itself is left open, it belongs to the socket.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.channel != null) {
+            try {
+                this.selector.close();
+
+                if (this.channel.isOpen() && !this.channel.isRegistered()) {
+                    this.channel.configureBlocking(true);
+                }
+            } finally {
+                this.channel = null;
+                this.selector = null;
+                this.buf = null;
+            }
+        }
+    }
+
+    private void checkClosed() throws IOException {
+        if (this.buf == null) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.util;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.SocketChannel;
+
+/**
+ * An output stream that writes to a non-blocking SocketChannel, waiting on a SocketChannelSelector whenever the socket send buffer is full. Callers are expected to
+ * buffer (the driver wraps it in a BufferedOutputStream), so every write() hands a whole packet (or buffer) to the channel.
+ */
+public class SocketChannelOutputStream extends OutputStream {
+
+    private SocketChannel channel;
+
+    private SocketChannelSelector selector;
+
+    private byte[] singleByte = new byte[1];
+
+    public SocketChannelOutputStream(SocketChannel channel, SocketChannelSelector selector) throws IOException {
+        this.channel = channel;
+        this.selector = selector;
+
+        this.channel.configureBlocking(false);
+    }
+
+    @Override
+    public void write(int b) throws IOException {
+        this.singleByte[0] = (byte) b;
+        write(this.singleByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) throws IOException {
+        checkClosed();
+
+        ByteBuffer src = ByteBuffer.wrap(b, off, len);
+
+        while (src.hasRemaining()) {
+            if (this.channel.write(src) == 0) {
+                waitForWritable();
+            }
+        }
+    }
+
+    private void waitForWritable() throws IOException {
+        this.selector.waitFor(SelectionKey.OP_WRITE);
+    }
+
+    /**
+     * Closes the selector shared with the input stream. The channel itself is left open, it belongs to the socket.
+     */
+    @Override
+    public void close() throws IOException {
+        if (this.channel != null) {
+            try {
+                this.selector.close();
+            } finally {
+                this.channel = null;
+                this.selector = null;
+            }
+        }
+    }
+
+    private void checkClosed() throws IOException {
+        if (this.channel == null) {
+            throw new IOException("Stream closed");
+        }
+    }
+}
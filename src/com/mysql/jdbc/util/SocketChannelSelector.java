@@ -0,0 +1,121 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package com.mysql.jdbc.util;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.SocketChannel;
+
+/**
+ * Waits on a Selector until a non-blocking SocketChannel can be read or written, honoring the SO_TIMEOUT configured on the channel's socket. The input and
+ * output streams of a connection share one instance, so each connection opens a single Selector. The protocol is half-duplex, so only one thread waits at a
+ * time.
+ */
+public class SocketChannelSelector {
+
+    private SocketChannel channel;
+
+    private Selector selector;
+
+    private SelectionKey key;
+
+    public SocketChannelSelector(SocketChannel channel) {
+        this.channel = channel;
+    }
+
+    /**
+     * Blocks until the channel is ready for the given operation. Selector wakeups that leave the channel not ready are waited out, counting them against
+     * the socket timeout, which is the time left since this method was called.
+     * 
+     * @param operation
+     *            SelectionKey.OP_READ or SelectionKey.OP_WRITE
+     * 
+     * @throws SocketTimeoutException
+     *             if SO_TIMEOUT elapses first
+     * @throws InterruptedIOException
+     *             if the thread is interrupted while waiting, its interrupt status is kept
+     */
+    public void waitFor(int operation) throws IOException {
+        if (this.channel == null) {
+            throw new IOException("Selector closed");
+        }
+
+        if (this.selector == null) {
+            this.selector = Selector.open();
+            this.key = this.channel.register(this.selector, operation);
+        } else if (this.key.interestOps() != operation) {
+            this.key.interestOps(operation);
+        }
+
+        int timeout = this.channel.socket().getSoTimeout();
+        long deadline = (timeout > 0) ? System.currentTimeMillis() + timeout : 0;
+
+        try {
+            while (true) {
+                // select() returns at once while the interrupt status is set, so it has to be checked to avoid spinning
+                if (Thread.interrupted()) {
+                    Thread.currentThread().interrupt();
+
+                    throw new InterruptedIOException(operation == SelectionKey.OP_READ ? "Read interrupted" : "Write interrupted");
+                }
+
+                long timeLeft = 0;
+
+                if (timeout > 0) {
+                    timeLeft = deadline - System.currentTimeMillis();
+
+                    if (timeLeft <= 0) {
+                        throw new SocketTimeoutException(operation == SelectionKey.OP_READ ? "Read timed out" : "Write timed out");
+                    }
+                }
+
+                if (this.selector.select(timeLeft) > 0) {
+                    return;
+                }
+            }
+        } finally {
+            this.selector.selectedKeys().clear();
+        }
+    }
+
+    /**
+     * Closes the selector, which deregisters the channel from it. The channel itself is left open, it belongs to the socket.
+     */
+    public void close() throws IOException {
+        if (this.channel != null) {
+            try {
+                if (this.selector != null) {
+                    this.selector.close();
+                }
+            } finally {
+                this.channel = null;
+                this.selector = null;
+                this.key = null;
+            }
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+  Copyright (c) 2015, Oracle and/or its affiliates. All rights reserved.
+
+  The MySQL Connector/J is licensed under the terms of the GPLv2
+  <http://www.gnu.org/licenses/old-licenses/gpl-2.0.html>, like most MySQL Connectors.
+  There are special exceptions to the terms and conditions of the GPLv2 as it is applied to
+  this software, see the FLOSS License Exception
+  <http://www.mysql.com/about/legal/licensing/foss-exception.html>.
+
+  This program is free software; you can redistribute it and/or modify it under the terms
+  of the GNU General Public License as published by the Free Software Foundation; version 2
+  of the License.
+
+  This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+  without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+  See the GNU General Public License for more details.
+
+  You should have received a copy of the GNU General Public License along with this
+  program; if not, write to the Free Software Foundation, Inc., 51 Franklin St, Fifth
+  Floor, Boston, MA 02110-1301  USA
+
+ */
+
+package testsuite.perf;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.Properties;
+
+import testsuite.BaseTestCase;
+
+/**
+ * Compares throughput and allocations of the compressed protocol with uncompressed connections, for many small round trips and for large rows.
+ */
+public class CompressionPerfTest extends BaseTestCase {
+    private static final int NUM_SMALL_QUERIES = 20000;
+
+    private static final int NUM_LARGE_QUERIES = 200;
+
+    private static final int NUM_ROWS = 100;
+
+    /**
+     * Constructor for CompressionPerfTest.
+     * 
+     * @param name
+     *            name of the test to run
+     */
+    public CompressionPerfTest(String name) {
+        super(name);
+    }
+
+    /**
+     * Runs all tests.
+     * 
+     * @param args
+     *            ignored
+     */
+    public static void main(String[] args) {
+        new CompressionPerfTest("testCompressedProtocol").run();
+    }
+
+    /**
+     * @see junit.framework.TestCase#setUp()
+     */
+    @Override
+    public void setUp() throws Exception {
+        super.setUp();
+        createTable("compressionPerfTest", "(priKey INT NOT NULL PRIMARY KEY, textField TEXT)");
+
+        PreparedStatement pstmt = this.conn.prepareStatement("INSERT INTO compressionPerfTest VALUES (?, REPEAT(?, 200))");
+
+        for (int i = 0; i < NUM_ROWS; i++) {
+            pstmt.setInt(1, i);
+            pstmt.setString(2, "row " + i + " of compressionPerfTest ");
+            pstmt.addBatch();
+        }
+
+        pstmt.executeBatch();
+        pstmt.close();
+    }
+
+    /**
+     * Runs the same workload without compression, with compression and the default threshold, and with compression of large packets only.
+     * 
+     * @throws Exception
+     *             if an error occurs
+     */
+    public void testCompressedProtocol() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("useCompression", "false");
+        double uncompressedTime = runWorkload("Uncompressed", props);
+
+        props.setProperty("useCompression", "true");
+        double compressedTime = runWorkload("Compressed", props);
+
+        props.setProperty("compressionThreshold", "16384");
+        runWorkload("Compressed, threshold 16384", props);
+
+        // compression trades CPU for bandwidth, but on a local server it shouldn't cost more than an order of magnitude
+        assertTrue(compressedTime < uncompressedTime * 10);
+    }
+
+    private double runWorkload(String description, Properties props) throws Exception {
+        Connection testConn = getConnectionWithProps(props);
+        Statement testStmt = testConn.createStatement();
+
+        // warm up
+        for (int i = 0; i < 100; i++) {
+            testStmt.executeQuery("SELECT 1").close();
+        }
+
+        long allocatedBegin = getAllocatedBytes();
+        double fullBegin = System.currentTimeMillis();
+
+        for (int i = 0; i < NUM_SMALL_QUERIES; i++) {
+            ResultSet smallRs = testStmt.executeQuery("SELECT " + i);
+            smallRs.next();
+            smallRs.close();
+        }
+
+        double smallEnd = System.currentTimeMillis();
+
+        for (int i = 0; i < NUM_LARGE_QUERIES; i++) {
+            ResultSet largeRs = testStmt.executeQuery("SELECT priKey, textField FROM compressionPerfTest");
+
+            while (largeRs.next()) {
+                largeRs.getString(2);
+            }
+
+            largeRs.close();
+        }
+
+        double fullEnd = System.currentTimeMillis();
+        long allocatedEnd = getAllocatedBytes();
+
+        testConn.close();
+
+        double fullTime = (fullEnd - fullBegin) / 1000;
+
+        System.out.println("\n" + description + "\n");
+        System.out.println("Full test took: " + fullTime + " seconds.");
+        System.out.println("Small queries/second: " + (NUM_SMALL_QUERIES / ((smallEnd - fullBegin) / 1000)));
+        System.out.println("Large queries/second: " + (NUM_LARGE_QUERIES / ((fullEnd - smallEnd) / 1000)));
+
+        if (allocatedBegin != -1) {
+            System.out.println("Bytes allocated: " + (allocatedEnd - allocatedBegin));
+        }
+
+        return fullTime;
+    }
+
+    /**
+     * Returns the bytes allocated by the current thread so far, or -1 if the VM can't tell.
+     */
+    private static long getAllocatedBytes() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+
+        try {
+            // com.sun.management.ThreadMXBean isn't available on all VMs
+            Method getThreadAllocatedBytes = threadMXBean.getClass().getMethod("getThreadAllocatedBytes", long.class);
+            getThreadAllocatedBytes.setAccessible(true);
+
+            return ((Long) getThreadAllocatedBytes.invoke(threadMXBean, Long.valueOf(Thread.currentThread().getId()))).longValue();
+        } catch (Throwable t) {
+            return -1;
+        }
+    }
+}
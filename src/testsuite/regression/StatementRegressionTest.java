@@ -72,6 +72,7 @@ import testsuite.UnreliableSocketFactory;
 
 import com.mysql.jdbc.CachedResultSetMetaData;
 import com.mysql.jdbc.CharsetMapping;
+import com.mysql.jdbc.ColumnBatch;
 import com.mysql.jdbc.CommunicationsException;
 import com.mysql.jdbc.Field;
 import com.mysql.jdbc.MySQLConnection;
@@ -4605,6 +4606,10 @@ public class StatementRegressionTest extends BaseTestCase {
             public int getBytesSize() throws SQLException {
                 return 0;
             }
+
+            public int fetchColumnBatch(ColumnBatch batch) throws SQLException {
+                return 0;
+            }
         };
     }
 
@@ -38,6 +38,13 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Properties;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import testsuite.BaseTestCase;
 
@@ -449,6 +456,135 @@ public class StressRegressionTest extends BaseTestCase {
         testConn.close();
     }
 
+    /**
+     * Tests that queries issued from virtual threads complete when the connections serialize execution with a ReentrantLock (useReentrantConnectionLock=true)
+     * instead of the connection monitor.
+     * 
+     * Thousands of tasks share a small set of connections, each one borrowing a connection, running a server-side prepared query and a plain statement query,
+     * and handing it back. Then the same number of tasks share a single connection, interleaving queries with commit(), rollback() and isValid(), which
+     * must neither mix up results nor corrupt the protocol. Tasks run on virtual threads when the JVM has them, otherwise on a pool of platform threads. Run
+     * it with -Djdk.virtualThreadScheduler.parallelism=2 to exercise a small carrier pool, and with -Djdk.tracePinnedThreads=short to report any pinned
+     * carrier.
+     * 
+     * @throws Exception
+     *             if the test fails.
+     */
+    public void testVirtualThreadsWithReentrantConnectionLock() throws Exception {
+        ExecutorService executor;
+
+        try {
+            executor = (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (NoSuchMethodException e) {
+            executor = Executors.newFixedThreadPool(32);
+        }
+
+        final int numConnections = 16;
+        final int numTasks = 5000;
+
+        Properties props = new Properties();
+        props.setProperty("useReentrantConnectionLock", "true");
+        props.setProperty("useServerPrepStmts", "true");
+        props.setProperty("cachePrepStmts", "true");
+
+        final BlockingQueue<Connection> connections = new ArrayBlockingQueue<Connection>(numConnections);
+        final Connection sharedConn = getConnectionWithProps(props);
+
+        for (int i = 0; i < numConnections; i++) {
+            connections.add(getConnectionWithProps(props));
+        }
+
+        try {
+            List<Future<?>> results = new ArrayList<Future<?>>(numTasks);
+
+            for (int i = 0; i < numTasks; i++) {
+                final int taskId = i;
+
+                results.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        Connection testConn = connections.take();
+
+                        try {
+                            PreparedStatement testPstmt = testConn.prepareStatement("SELECT ?");
+                            testPstmt.setInt(1, taskId);
+                            ResultSet testRs = testPstmt.executeQuery();
+                            assertTrue(testRs.next());
+                            assertEquals(taskId, testRs.getInt(1));
+                            testRs.close();
+                            testPstmt.close();
+
+                            Statement testStmt = testConn.createStatement();
+                            testRs = testStmt.executeQuery("SELECT " + taskId);
+                            assertTrue(testRs.next());
+                            assertEquals(taskId, testRs.getInt(1));
+                            testRs.close();
+                            testStmt.close();
+                        } finally {
+                            connections.put(testConn);
+                        }
+
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<?> result : results) {
+                result.get(300, TimeUnit.SECONDS);
+            }
+
+            sharedConn.setAutoCommit(false);
+            results.clear();
+
+            for (int i = 0; i < numTasks; i++) {
+                final int taskId = i;
+
+                results.add(executor.submit(new Callable<Void>() {
+                    public Void call() throws Exception {
+                        Statement testStmt = sharedConn.createStatement();
+                        ResultSet testRs = testStmt.executeQuery("SELECT " + taskId + ", REPEAT('x', " + (taskId % 100) + ")");
+                        assertTrue(testRs.next());
+                        assertEquals(taskId, testRs.getInt(1));
+                        assertEquals(taskId % 100, testRs.getString(2).length());
+                        assertFalse(testRs.next());
+                        testRs.close();
+                        testStmt.close();
+
+                        switch (taskId % 3) {
+                            case 0:
+                                sharedConn.commit();
+                                break;
+                            case 1:
+                                sharedConn.rollback();
+                                break;
+                            default:
+                                assertTrue(sharedConn.isValid(10));
+                        }
+
+                        return null;
+                    }
+                }));
+            }
+
+            for (Future<?> result : results) {
+                result.get(300, TimeUnit.SECONDS);
+            }
+
+            sharedConn.commit();
+            assertTrue(sharedConn.isValid(10));
+
+            this.rs = sharedConn.createStatement().executeQuery("SELECT 'done'");
+            assertTrue(this.rs.next());
+            assertEquals("done", this.rs.getString(1));
+        } finally {
+            executor.shutdownNow();
+
+            sharedConn.close();
+
+            for (Connection c : connections) {
+                c.close();
+            }
+        }
+    }
+
     private static final class SharedInfoForTestBug67760 {
         static volatile boolean running = true;
 
@@ -48,6 +48,7 @@ import java.sql.Savepoint;
 import java.sql.Statement;
 import java.text.SimpleDateFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Enumeration;
 import java.util.List;
 import java.util.Properties;
@@ -1669,6 +1670,25 @@ public class ConnectionTest extends BaseTestCase {
         }
     }
 
+    /**
+     * Tests the SocketChannel based transport, with heap and direct buffers, plain and compressed, using a value that spans several packets.
+     */
+    public void testSocketChannelSocketFactory() throws Exception {
+        for (String props : new String[] { "", ",useDirectSocketBuffers=true", ",useCompression=true", ",useDirectSocketBuffers=true,useCompression=true" }) {
+            Connection channelConn = getConnectionWithProps("socketFactory=com.mysql.jdbc.SocketChannelSocketFactory,maxAllowedPacket=33554432" + props);
+            Statement channelStmt = channelConn.createStatement();
+            this.rs = channelStmt.executeQuery("select repeat('a', 256 * 256 * 256 + 5), 1");
+            assertTrue(this.rs.next());
+            assertEquals(props, 256 * 256 * 256 + 5, this.rs.getString(1).length());
+            assertEquals(props, 1, this.rs.getInt(2));
+            assertFalse(this.rs.next());
+
+            assertTrue(((MySQLConnection) channelConn).getIO().mysqlConnection.getChannel() != null);
+
+            channelConn.close();
+        }
+    }
+
     public void testIsLocal() throws Exception {
         Properties parsedProps = new NonRegisteringDriver().parseURL(dbUrl, null);
         String host = parsedProps.getProperty(NonRegisteringDriver.HOST_PROPERTY_KEY, "localhost");
@@ -1857,4 +1877,71 @@ public class ConnectionTest extends BaseTestCase {
             }
         }
     }
+
+    /**
+     * Tests that results of alternating sizes are read correctly while the read-ahead buffer and the reusable packet grow and shrink.
+     */
+    public void testAdaptiveReadBuffers() throws Exception {
+        Properties props = new Properties();
+        props.setProperty("useReadAheadInput", "true");
+        Connection testConn = getConnectionWithProps(props);
+        Statement testStmt = testConn.createStatement();
+
+        for (int i = 0; i < 40; i++) {
+            // large results every few queries, so that the buffers grow and shrink back several times
+            int length = (i % 10 < 3) ? 500000 + i : 10 + i;
+
+            this.rs = testStmt.executeQuery("SELECT REPEAT('a', " + length + "), " + i + " UNION ALL SELECT REPEAT('b', " + length + "), " + i);
+            assertTrue(this.rs.next());
+            assertEquals(length, this.rs.getString(1).length());
+            assertEquals(i, this.rs.getInt(2));
+            assertTrue(this.rs.next());
+            assertEquals('b', this.rs.getString(1).charAt(length - 1));
+            assertFalse(this.rs.next());
+            this.rs.close();
+        }
+
+        testConn.close();
+    }
+
+    /**
+     * Tests that connections taking turns with large packets don't see each other's data through the shared buffer pool, also when the select limit is
+     * set between filling and sending the shared send packet.
+     */
+    public void testSharedBufferPool() throws Exception {
+        createTable("testSharedBufferPool", "(id INT, val LONGTEXT)");
+
+        Properties props = new Properties();
+        props.setProperty("useReadAheadInput", "true");
+        Connection[] testConns = new Connection[] { getConnectionWithProps(props), getConnectionWithProps(props) };
+
+        for (int i = 0; i < 20; i++) {
+            Connection testConn = testConns[i % 2];
+            char[] chars = new char[200000 + i];
+            Arrays.fill(chars, (char) ('a' + i));
+            String value = new String(chars);
+
+            PreparedStatement insertStmt = testConn.prepareStatement("INSERT INTO testSharedBufferPool VALUES (?, ?)");
+            insertStmt.setInt(1, i);
+            insertStmt.setString(2, value);
+            assertEquals(1, insertStmt.executeUpdate());
+            insertStmt.close();
+
+            PreparedStatement selectStmt = testConn.prepareStatement("SELECT val, ? FROM testSharedBufferPool WHERE id = ?");
+            selectStmt.setMaxRows(1);
+            selectStmt.setString(1, value);
+            selectStmt.setInt(2, i);
+            this.rs = selectStmt.executeQuery();
+            assertTrue(this.rs.next());
+            assertEquals(value, this.rs.getString(1));
+            assertEquals(value, this.rs.getString(2));
+            assertFalse(this.rs.next());
+            this.rs.close();
+            selectStmt.close();
+        }
+
+        for (Connection testConn : testConns) {
+            testConn.close();
+        }
+    }
 }
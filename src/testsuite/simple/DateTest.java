@@ -33,13 +33,17 @@ import java.sql.Timestamp;
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
 import java.util.Calendar;
+import java.util.GregorianCalendar;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.SimpleTimeZone;
 import java.util.TimeZone;
 
 import testsuite.BaseTestCase;
 
+import com.mysql.jdbc.MySQLConnection;
 import com.mysql.jdbc.SQLError;
+import com.mysql.jdbc.TimezoneOffsetTable;
 
 public class DateTest extends BaseTestCase {
     /**
@@ -356,4 +360,87 @@ public class DateTest extends BaseTestCase {
         System.out.println(this.rs.getTimestamp(4));
     }
 
+    /**
+     * Tests that TimezoneOffsetTable, used to create temporal values without going through a Calendar, gives the same results as GregorianCalendar, and
+     * leaves days with DST transitions and lenient values to it.
+     */
+    public void testTimezoneOffsetTable() throws Exception {
+        String[] timeZoneIds = new String[] { "GMT", "America/New_York", "Europe/Lisbon", "Australia/Lord_Howe", "Asia/Kolkata", "Pacific/Apia" };
+
+        for (String timeZoneId : timeZoneIds) {
+            TimeZone tz = TimeZone.getTimeZone(timeZoneId);
+            TimezoneOffsetTable offsets = new TimezoneOffsetTable(tz);
+            GregorianCalendar cal = new GregorianCalendar(tz);
+
+            for (int year : new int[] { 1600, 1900, 1970, 2011, 2015, 2038, 2399 }) {
+                for (int dayOfYear = 0; dayOfYear < 366; dayOfYear++) {
+                    cal.clear();
+                    cal.set(year, 0, 1, 2, 30, 15);
+                    cal.add(Calendar.DAY_OF_YEAR, dayOfYear);
+
+                    int calYear = cal.get(Calendar.YEAR);
+                    int month = cal.get(Calendar.MONTH) + 1;
+                    int day = cal.get(Calendar.DAY_OF_MONTH);
+
+                    long millis = offsets.toEpochMillis(calYear, month, day, 2, 30, 15, false);
+
+                    if (millis != TimezoneOffsetTable.NO_FAST_CONVERSION) {
+                        cal.clear();
+                        cal.set(calYear, month - 1, day, 2, 30, 15);
+                        assertEquals(timeZoneId + " " + calYear + "-" + month + "-" + day, cal.getTimeInMillis(), millis);
+                    }
+                }
+            }
+        }
+
+        TimezoneOffsetTable offsets = new TimezoneOffsetTable(TimeZone.getTimeZone("America/New_York"));
+
+        // DST started on 2015-03-08
+        assertEquals(TimezoneOffsetTable.NO_FAST_CONVERSION, offsets.toEpochMillis(2015, 3, 8, 2, 30, 0, false));
+
+        GregorianCalendar newYorkCal = new GregorianCalendar(offsets.getTimeZone());
+        newYorkCal.clear();
+        newYorkCal.set(2015, 2, 9, 2, 30, 0);
+        assertEquals(newYorkCal.getTimeInMillis(), offsets.toEpochMillis(2015, 3, 9, 2, 30, 0, false));
+
+        GregorianCalendar gmtCal = new GregorianCalendar(TimeZone.getTimeZone("GMT"));
+        gmtCal.clear();
+        gmtCal.set(2015, 2, 9, 2, 30, 0);
+        assertEquals(gmtCal.getTimeInMillis(), offsets.toEpochMillis(2015, 3, 9, 2, 30, 0, true));
+
+        assertEquals(TimezoneOffsetTable.NO_FAST_CONVERSION, offsets.toEpochMillis(2015, 2, 29, 0, 0, 0, false));
+        assertEquals(TimezoneOffsetTable.NO_FAST_CONVERSION, offsets.toEpochMillis(2015, 13, 1, 0, 0, 0, false));
+        assertEquals(TimezoneOffsetTable.NO_FAST_CONVERSION, offsets.toEpochMillis(2015, 1, 1, 24, 0, 0, false));
+    }
+
+    /**
+     * Tests that connections keep one TimezoneOffsetTable per timezone id, also for TimeZone instances that don't implement equals(), and don't hand out the
+     * table of another timezone with the same id.
+     */
+    public void testTimezoneOffsetTablePerId() throws Exception {
+        MySQLConnection mysqlConn = (MySQLConnection) this.conn;
+
+        TimeZone tz = new SimpleTimeZone(3600000, "Test/OffsetTable") {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            public boolean equals(Object obj) {
+                return this == obj;
+            }
+
+            @Override
+            public int hashCode() {
+                return System.identityHashCode(this);
+            }
+        };
+
+        TimezoneOffsetTable offsets = mysqlConn.getTimezoneOffsetTable(tz);
+        assertSame(offsets, mysqlConn.getTimezoneOffsetTable(tz));
+        assertSame(offsets, mysqlConn.getTimezoneOffsetTable((TimeZone) tz.clone()));
+
+        TimezoneOffsetTable otherOffsets = mysqlConn.getTimezoneOffsetTable(new SimpleTimeZone(7200000, "Test/OffsetTable"));
+        assertNotSame(offsets, otherOffsets);
+        assertEquals(7200000, otherOffsets.getTimeZone().getRawOffset());
+    }
+
 }
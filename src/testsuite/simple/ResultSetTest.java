@@ -23,18 +23,31 @@
 
 package testsuite.simple;
 
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.Reader;
 import java.io.UnsupportedEncodingException;
+import java.sql.Blob;
 import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
 import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.Callable;
 
 import testsuite.BaseTestCase;
 
 import com.mysql.jdbc.CharsetMapping;
+import com.mysql.jdbc.CachedResultSetMetaData;
+import com.mysql.jdbc.ColumnBatch;
 import com.mysql.jdbc.ConnectionImpl;
+import com.mysql.jdbc.MySQLConnection;
+import com.mysql.jdbc.ResultSetInternalMethods;
 
 public class ResultSetTest extends BaseTestCase {
 
@@ -246,4 +259,400 @@ public class ResultSetTest extends BaseTestCase {
             }
         }
     }
+
+    /**
+     * Tests that large columns of streaming result sets are read off the network as the application reads them when "columnStreamingThreshold" is set.
+     */
+    public void testColumnStreamingThreshold() throws Exception {
+        createTable("testColumnStreamingThreshold", "(id INT, b LONGBLOB, c LONGTEXT, d VARCHAR(10))");
+
+        byte[] largeBytes = new byte[200000];
+        for (int i = 0; i < largeBytes.length; i++) {
+            largeBytes[i] = (byte) i;
+        }
+
+        StringBuilder largeText = new StringBuilder();
+        while (largeText.length() < 100000) {
+            largeText.append("abcdefghij");
+        }
+
+        PreparedStatement insertPstmt = this.conn.prepareStatement("INSERT INTO testColumnStreamingThreshold VALUES (?, ?, ?, ?)");
+        for (int i = 1; i <= 3; i++) {
+            insertPstmt.setInt(1, i);
+            // the last row is small enough to be read whole
+            insertPstmt.setBytes(2, i < 3 ? largeBytes : new byte[] { 1, 2, 3 });
+            insertPstmt.setString(3, i < 3 ? largeText.toString() : "small");
+            insertPstmt.setString(4, "row" + i);
+            insertPstmt.executeUpdate();
+        }
+
+        Properties props = new Properties();
+        props.setProperty("columnStreamingThreshold", "1024");
+
+        for (int i = 0; i < 2; i++) {
+            props.setProperty("useCompression", Boolean.toString(i == 1));
+
+            Connection testConn = getConnectionWithProps(props);
+            Statement testStmt = testConn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            testStmt.setFetchSize(Integer.MIN_VALUE);
+            this.rs = testStmt.executeQuery("SELECT id, b, c, d FROM testColumnStreamingThreshold ORDER BY id");
+
+            // read every column in order, the large ones through streams
+            assertTrue(this.rs.next());
+            assertEquals(1, this.rs.getInt(1));
+
+            InputStream in = this.rs.getBinaryStream(2);
+            ByteArrayOutputStream bytesOut = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int count;
+            while ((count = in.read(buf)) != -1) {
+                bytesOut.write(buf, 0, count);
+            }
+            assertTrue(Arrays.equals(largeBytes, bytesOut.toByteArray()));
+
+            Reader reader = this.rs.getClob(3).getCharacterStream();
+            StringBuilder textOut = new StringBuilder();
+            char[] cbuf = new char[4096];
+            while ((count = reader.read(cbuf)) != -1) {
+                textOut.append(cbuf, 0, count);
+            }
+            assertEquals(largeText.toString(), textOut.toString());
+            assertEquals("row1", this.rs.getString(4));
+
+            // start reading the blob, then skip past both large columns
+            assertTrue(this.rs.next());
+            assertEquals(2, this.rs.getInt(1));
+            Blob blob = this.rs.getBlob(2);
+            assertEquals(largeBytes.length, blob.length());
+            assertEquals(largeBytes[0], blob.getBinaryStream().read());
+            assertEquals("row2", this.rs.getString(4));
+            assertThrows(SQLException.class, ".*has already been read past.*", new Callable<Void>() {
+                public Void call() throws Exception {
+                    ResultSetTest.this.rs.getBytes(3);
+                    return null;
+                }
+            });
+
+            assertTrue(this.rs.next());
+            assertEquals(3, this.rs.getInt(1));
+            assertTrue(Arrays.equals(new byte[] { 1, 2, 3 }, this.rs.getBytes(2)));
+            assertEquals("small", this.rs.getString(3));
+            assertEquals("row3", this.rs.getString(4));
+
+            assertFalse(this.rs.next());
+
+            // the connection is usable again once the result set was read to its end
+            this.rs = testStmt.executeQuery("SELECT LENGTH(b) FROM testColumnStreamingThreshold WHERE id = 1");
+            assertTrue(this.rs.next());
+            assertEquals(largeBytes.length, this.rs.getInt(1));
+
+            testConn.close();
+        }
+    }
+
+    /**
+     * Tests ResultSetInternalMethods.fetchColumnBatch() with both protocols.
+     */
+    public void testFetchColumnBatch() throws Exception {
+        createTable("testFetchColumnBatch", "(id INT, t TINYINT UNSIGNED, big BIGINT UNSIGNED, d DOUBLE, f FLOAT, s VARCHAR(20))");
+        this.stmt.executeUpdate("INSERT INTO testFetchColumnBatch VALUES (1, 255, 18446744073709551615, 1.5, 0.25, 'one'), "
+                + "(2, NULL, NULL, NULL, NULL, NULL), (3, 3, 3, -3.5, -0.5, ''), (4, 4, 4, 4.0, 4.0, 'four'), (5, 5, 5, 5.0, 5.0, 'five')");
+
+        String query = "SELECT id, t, big, d, f, s FROM testFetchColumnBatch ORDER BY id";
+
+        for (int i = 0; i < 2; i++) {
+            if (i == 0) {
+                this.rs = this.stmt.executeQuery(query);
+            } else {
+                this.rs = ((com.mysql.jdbc.Connection) this.conn).serverPrepareStatement(query).executeQuery();
+            }
+
+            ColumnBatch batch = new ColumnBatch(2);
+            ResultSetInternalMethods rsim = (ResultSetInternalMethods) this.rs;
+
+            assertEquals(2, rsim.fetchColumnBatch(batch));
+            assertEquals(6, batch.getColumnCount());
+            assertEquals(ColumnBatch.TYPE_LONG, batch.getColumnType(1));
+            assertEquals(ColumnBatch.TYPE_DOUBLE, batch.getColumnType(4));
+            assertEquals(ColumnBatch.TYPE_BYTES, batch.getColumnType(6));
+
+            assertEquals(1, batch.getLongs(1)[0]);
+            assertEquals(255, batch.getLongs(2)[0]);
+            assertEquals(-1L, batch.getLongs(3)[0]);
+            assertEquals(1.5, batch.getDoubles(4)[0], 0);
+            assertEquals(0.25, batch.getDoubles(5)[0], 0);
+            assertEquals("one", new String(batch.getData(6), batch.getOffsets(6)[0], batch.getOffsets(6)[1] - batch.getOffsets(6)[0], "US-ASCII"));
+            assertFalse(batch.isNull(6, 0));
+
+            for (int col = 2; col <= 6; col++) {
+                assertTrue(batch.isNull(col, 1));
+            }
+            assertEquals(batch.getOffsets(6)[1], batch.getOffsets(6)[2]);
+            // the result set is positioned on the last row read
+            assertEquals(2, this.rs.getInt(1));
+
+            assertEquals(2, rsim.fetchColumnBatch(batch));
+            assertEquals(3, batch.getLongs(1)[0]);
+            assertEquals(-3.5, batch.getDoubles(4)[0], 0);
+            assertEquals(-0.5, batch.getDoubles(5)[0], 0);
+            assertFalse(batch.isNull(6, 0));
+            assertEquals(0, batch.getOffsets(6)[1] - batch.getOffsets(6)[0]);
+            assertFalse(batch.isNull(2, 1));
+
+            assertEquals(1, rsim.fetchColumnBatch(batch));
+            assertEquals(5, batch.getLongs(1)[0]);
+            assertEquals(0, rsim.fetchColumnBatch(batch));
+            assertEquals(0, batch.getRowCount());
+        }
+    }
+
+    /**
+     * Tests that "useParallelRowDecoding" reads the same rows, in the same order, as reading them on the connection's thread.
+     */
+    public void testParallelRowDecoding() throws Exception {
+        createTable("testParallelRowDecoding", "(id INT PRIMARY KEY, val VARCHAR(20), num DOUBLE, dt DATETIME)");
+
+        PreparedStatement insertPstmt = this.conn.prepareStatement("INSERT INTO testParallelRowDecoding VALUES (?, ?, ?, ?)");
+        for (int i = 0; i < 2500; i++) {
+            insertPstmt.setInt(1, i);
+            insertPstmt.setString(2, i % 7 == 0 ? null : "value" + i);
+            insertPstmt.setDouble(3, i / 4.0);
+            insertPstmt.setTimestamp(4, new java.sql.Timestamp(1400000000000L + i * 1000L));
+            insertPstmt.addBatch();
+        }
+        insertPstmt.executeBatch();
+
+        String query = "SELECT id, val, num, dt FROM testParallelRowDecoding ORDER BY id";
+
+        Properties props = new Properties();
+        props.setProperty("useParallelRowDecoding", "true");
+        props.setProperty("parallelRowDecodingChunkSize", "100");
+        Connection testConn = getConnectionWithProps(props);
+
+        ResultSet control = this.stmt.executeQuery(query);
+        assertResultSetsEqual(control, testConn.createStatement().executeQuery(query));
+
+        control = ((com.mysql.jdbc.Connection) this.conn).serverPrepareStatement(query).executeQuery();
+        assertResultSetsEqual(control, ((com.mysql.jdbc.Connection) testConn).serverPrepareStatement(query).executeQuery());
+
+        // the rows past maxRows are read off the network, but not kept
+        Statement testStmt = testConn.createStatement();
+        testStmt.setMaxRows(250);
+        this.rs = testStmt.executeQuery(query);
+        assertResultSetLength(this.rs, 250);
+        this.rs = testStmt.executeQuery("SELECT COUNT(*) FROM testParallelRowDecoding");
+        assertTrue(this.rs.next());
+        assertEquals(2500, this.rs.getInt(1));
+
+        testConn.close();
+    }
+
+    /**
+     * Tests that streaming result sets read ahead by a background thread ("streamingReadAheadRows") return all the rows in order, and leave the connection
+     * usable whether they are read to the end or closed early.
+     */
+    public void testStreamingReadAheadRows() throws Exception {
+        createTable("testStreamingReadAheadRows", "(id INT PRIMARY KEY, val VARCHAR(20))");
+
+        PreparedStatement insertPstmt = this.conn.prepareStatement("INSERT INTO testStreamingReadAheadRows VALUES (?, ?)");
+        for (int i = 0; i < 1000; i++) {
+            insertPstmt.setInt(1, i);
+            insertPstmt.setString(2, "value" + i);
+            insertPstmt.addBatch();
+        }
+        insertPstmt.executeBatch();
+
+        Properties props = new Properties();
+        props.setProperty("streamingReadAheadRows", "16");
+        Connection testConn = getConnectionWithProps(props);
+
+        try {
+            Statement testStmt = testConn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            testStmt.setFetchSize(Integer.MIN_VALUE);
+
+            this.rs = testStmt.executeQuery("SELECT id, val FROM testStreamingReadAheadRows ORDER BY id");
+            for (int i = 0; i < 1000; i++) {
+                assertTrue(this.rs.next());
+                assertEquals(i, this.rs.getInt(1));
+                assertEquals("value" + i, this.rs.getString(2));
+
+                if (i % 100 == 0) {
+                    // a slow consumer, the reader has to wait for it
+                    Thread.sleep(10);
+                }
+            }
+            assertFalse(this.rs.next());
+
+            this.rs = testStmt.executeQuery("SELECT id FROM testStreamingReadAheadRows ORDER BY id");
+            assertTrue(this.rs.next());
+            assertEquals(0, this.rs.getInt(1));
+            this.rs.close();
+
+            this.rs = testConn.createStatement().executeQuery("SELECT COUNT(*) FROM testStreamingReadAheadRows");
+            assertTrue(this.rs.next());
+            assertEquals(1000, this.rs.getInt(1));
+        } finally {
+            testConn.close();
+        }
+    }
+
+    /**
+     * Tests that a streaming result set read ahead of the application can be closed, interrupted and clobbered partway through, and that the connection
+     * is in sync afterwards.
+     */
+    public void testStreamingReadAheadRowsEarlyExit() throws Exception {
+        createTable("testStreamingReadAheadEarlyExit", "(id INT PRIMARY KEY, val VARCHAR(20))");
+
+        PreparedStatement insertPstmt = this.conn.prepareStatement("INSERT INTO testStreamingReadAheadEarlyExit VALUES (?, ?)");
+        for (int i = 0; i < 1000; i++) {
+            insertPstmt.setInt(1, i);
+            insertPstmt.setString(2, "value" + i);
+            insertPstmt.addBatch();
+        }
+        insertPstmt.executeBatch();
+
+        Properties props = new Properties();
+        props.setProperty("streamingReadAheadRows", "16");
+        Connection testConn = getConnectionWithProps(props);
+
+        try {
+            Statement testStmt = testConn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            testStmt.setFetchSize(Integer.MIN_VALUE);
+
+            // closed partway through
+            this.rs = testStmt.executeQuery("SELECT id, val FROM testStreamingReadAheadEarlyExit ORDER BY id");
+            for (int i = 0; i < 10; i++) {
+                assertTrue(this.rs.next());
+            }
+            this.rs.close();
+
+            this.rs = testConn.createStatement().executeQuery("SELECT COUNT(*) FROM testStreamingReadAheadEarlyExit");
+            assertTrue(this.rs.next());
+            assertEquals(1000, this.rs.getInt(1));
+            this.rs.close();
+
+            // interrupted partway through, no rows are lost
+            this.rs = testStmt.executeQuery("SELECT id, val FROM testStreamingReadAheadEarlyExit ORDER BY id");
+            for (int i = 0; i < 100; i++) {
+                assertTrue(this.rs.next());
+                assertEquals(i, this.rs.getInt(1));
+            }
+
+            Thread.currentThread().interrupt();
+            try {
+                this.rs.next();
+                fail("next() should have been interrupted");
+            } catch (SQLException sqlEx) {
+                assertTrue(Thread.interrupted());
+            }
+
+            for (int i = 100; i < 1000; i++) {
+                assertTrue(this.rs.next());
+                assertEquals(i, this.rs.getInt(1));
+                assertEquals("value" + i, this.rs.getString(2));
+            }
+            assertFalse(this.rs.next());
+
+            this.rs = testStmt.executeQuery("SELECT id, val FROM testStreamingReadAheadEarlyExit ORDER BY id");
+            assertTrue(this.rs.next());
+
+            Thread.currentThread().interrupt();
+            try {
+                this.rs.next();
+                fail("next() should have been interrupted");
+            } catch (SQLException sqlEx) {
+                assertTrue(Thread.interrupted());
+            }
+            this.rs.close();
+
+            this.rs = testConn.createStatement().executeQuery("SELECT MAX(id) FROM testStreamingReadAheadEarlyExit");
+            assertTrue(this.rs.next());
+            assertEquals(999, this.rs.getInt(1));
+            this.rs.close();
+        } finally {
+            testConn.close();
+        }
+
+        props.setProperty("clobberStreamingResults", "true");
+        testConn = getConnectionWithProps(props);
+
+        try {
+            Statement testStmt = testConn.createStatement(ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            testStmt.setFetchSize(Integer.MIN_VALUE);
+
+            // clobbered partway through
+            ResultSet streamingRs = testStmt.executeQuery("SELECT id, val FROM testStreamingReadAheadEarlyExit ORDER BY id");
+            for (int i = 0; i < 10; i++) {
+                assertTrue(streamingRs.next());
+            }
+
+            for (int i = 0; i < 5; i++) {
+                this.rs = testConn.createStatement().executeQuery("SELECT COUNT(*) FROM testStreamingReadAheadEarlyExit WHERE id < 500");
+                assertTrue(this.rs.next());
+                assertEquals(500, this.rs.getInt(1));
+                this.rs.close();
+            }
+        } finally {
+            testConn.close();
+        }
+    }
+
+    /**
+     * Tests that result set metadata cached by a connection is used by the other connections with the same configuration when
+     * "shareCachedResultSetMetadata" is set, also after the connection that cached it was closed.
+     */
+    public void testShareCachedResultSetMetadata() throws Exception {
+        createTable("testShareCachedRsmd", "(id INT PRIMARY KEY, val VARCHAR(20))");
+        this.stmt.executeUpdate("INSERT INTO testShareCachedRsmd VALUES (1, 'one'), (2, 'two')");
+
+        Properties props = new Properties();
+        props.setProperty("cacheResultSetMetadata", "true");
+        props.setProperty("shareCachedResultSetMetadata", "true");
+        props.setProperty("useServerPrepStmts", "true");
+        props.setProperty("useColumnNamesInFindColumn", "true");
+
+        String sql = "SELECT id AS ident, val FROM testShareCachedRsmd WHERE id = ? /* " + System.currentTimeMillis() + " */";
+
+        MySQLConnection testConn1 = (MySQLConnection) getConnectionWithProps(props);
+        MySQLConnection testConn2 = (MySQLConnection) getConnectionWithProps(props);
+
+        try {
+            assertNull(testConn2.getCachedMetaData(sql));
+
+            PreparedStatement testPstmt = testConn1.prepareStatement(sql);
+            testPstmt.setInt(1, 1);
+            this.rs = testPstmt.executeQuery();
+            assertTrue(this.rs.next());
+            assertEquals("one", this.rs.getString("val"));
+            testPstmt.close();
+
+            CachedResultSetMetaData cachedByConn1 = testConn1.getCachedMetaData(sql);
+            assertNotNull(cachedByConn1);
+            testConn1.close();
+
+            // the second connection gets its own copy of the fields, bound to it
+            CachedResultSetMetaData cachedByConn2 = testConn2.getCachedMetaData(sql);
+            assertNotNull(cachedByConn2);
+            assertNotSame(cachedByConn1.getFields()[0], cachedByConn2.getFields()[0]);
+            assertSame(cachedByConn1.getColumnNameToIndex(), cachedByConn2.getColumnNameToIndex());
+
+            testPstmt = testConn2.prepareStatement(sql);
+            testPstmt.setInt(1, 2);
+            this.rs = testPstmt.executeQuery();
+            assertTrue(this.rs.next());
+            assertEquals(1, this.rs.findColumn("ident"));
+            assertEquals(1, this.rs.findColumn("id"));
+            assertEquals(2, this.rs.getInt("ident"));
+            assertEquals("two", this.rs.getString("val"));
+
+            java.sql.ResultSetMetaData rsmd = this.rs.getMetaData();
+            assertEquals("ident", rsmd.getColumnLabel(1));
+            assertEquals("id", rsmd.getColumnName(1));
+            assertFalse(rsmd.isReadOnly(2));
+            testPstmt.close();
+        } finally {
+            testConn1.close();
+            testConn2.close();
+        }
+    }
 }
@@ -26,10 +26,14 @@ package testsuite.simple;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.CharArrayReader;
+import java.io.FilterOutputStream;
+import java.io.IOException;
 import java.io.InputStream;
+import java.io.OutputStream;
 import java.io.Reader;
 import java.io.StringReader;
 import java.math.BigDecimal;
+import java.net.Socket;
 import java.sql.BatchUpdateException;
 import java.sql.CallableStatement;
 import java.sql.Connection;
@@ -42,16 +46,28 @@ import java.sql.Time;
 import java.sql.Timestamp;
 import java.sql.Types;
 import java.text.SimpleDateFormat;
+import java.util.Arrays;
 import java.util.Locale;
 import java.util.Properties;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
 import testsuite.BaseTestCase;
 
 import com.mysql.jdbc.CharsetMapping;
+import com.mysql.jdbc.LocalInfileRowProducer;
+import com.mysql.jdbc.LocalInfileRowSink;
 import com.mysql.jdbc.MySQLConnection;
+import com.mysql.jdbc.MysqlErrorNumbers;
+import com.mysql.jdbc.NonRegisteringDriver;
 import com.mysql.jdbc.NotImplemented;
+import com.mysql.jdbc.PacketTooBigException;
 import com.mysql.jdbc.ParameterBindings;
+import com.mysql.jdbc.PerVmParseInfoCacheFactory;
 import com.mysql.jdbc.SQLError;
+import com.mysql.jdbc.ServerPreparedStatementRegistry;
+import com.mysql.jdbc.StandardSocketFactory;
 import com.mysql.jdbc.StringUtils;
 import com.mysql.jdbc.exceptions.MySQLStatementCancelledException;
 import com.mysql.jdbc.exceptions.MySQLTimeoutException;
@@ -1112,6 +1128,517 @@ public class StatementsTest extends BaseTestCase {
         }
     }
 
+    /**
+     * Tests the registry of server-side prepared statements shared by the connections with the same URL and user ("serverPrepStmtRegistrySize"), preparing
+     * the most executed statements when a connection is created ("eagerServerPrepStmtCount") and re-preparing statements whose handle was lost
+     * ("autoReprepareServerStatements").
+     */
+    public void testServerPreparedStatementRegistry() throws Exception {
+        createTable("testSPSRegistry", "(id INT)");
+
+        Properties props = new Properties();
+        props.setProperty("useServerPrepStmts", "true");
+        props.setProperty("cachePrepStmts", "true");
+        props.setProperty("serverPrepStmtRegistrySize", "100");
+        props.setProperty("eagerServerPrepStmtCount", "5");
+        props.setProperty("autoReprepareServerStatements", "true");
+
+        // a statement no other test executes more often
+        String sql = "INSERT INTO testSPSRegistry VALUES (?) /* " + System.currentTimeMillis() + " */";
+
+        MySQLConnection testConn1 = (MySQLConnection) getConnectionWithProps(props);
+        MySQLConnection testConn2 = null;
+
+        try {
+            PreparedStatement testPstmt = testConn1.prepareStatement(sql);
+            for (int i = 0; i < 1000; i++) {
+                testPstmt.setInt(1, i);
+                testPstmt.addBatch();
+            }
+            testPstmt.executeBatch();
+            testPstmt.close();
+
+            ServerPreparedStatementRegistry registry = ServerPreparedStatementRegistry.getInstance(testConn1.getURL(), testConn1.getUser());
+            assertNotNull(registry);
+
+            ServerPreparedStatementRegistry.StatementStatistics stats = registry.getStatistics(sql);
+            assertNotNull(stats);
+            assertEquals(1, stats.getPrepareCount());
+            assertEquals(1000, stats.getExecuteCount());
+            assertTrue(stats.getConnectionIds().contains(Long.valueOf(testConn1.getId())));
+            assertEquals(sql, registry.getMostExecutedStatements(1).get(0));
+
+            // the new connection prepares the statement as soon as it's created
+            testConn2 = (MySQLConnection) getConnectionWithProps(props);
+            assertEquals(2, stats.getPrepareCount());
+            assertTrue(stats.getConnectionIds().contains(Long.valueOf(testConn2.getId())));
+
+            testPstmt = testConn2.prepareStatement(sql);
+            testPstmt.setInt(1, 1000);
+            assertEquals(1, testPstmt.executeUpdate());
+            testPstmt.close();
+            assertEquals(2, stats.getPrepareCount());
+
+            // resetting the session deallocates the statement the application still holds, it is prepared again when executed
+            testPstmt = testConn1.prepareStatement(sql);
+            testConn1.resetServerState();
+            assertEquals(3, stats.getPrepareCount()); // prepared ahead of time for the reset session
+
+            testPstmt.setInt(1, 1001);
+            assertEquals(1, testPstmt.executeUpdate());
+            testPstmt.close();
+            assertEquals(4, stats.getPrepareCount());
+            assertEquals(1, stats.getReprepareCount());
+
+            // the cached statements deallocated by each reset are closed, and replaced by the ones prepared ahead of time for the new session
+            int activeStatementCount = testConn2.getActiveStatementCount();
+            for (int i = 0; i < 5; i++) {
+                testConn2.resetServerState();
+                assertEquals(activeStatementCount, testConn2.getActiveStatementCount());
+                assertTrue(stats.getConnectionIds().contains(Long.valueOf(testConn2.getId())));
+            }
+
+            testPstmt = testConn2.prepareStatement(sql);
+            testPstmt.setInt(1, 1002);
+            assertEquals(1, testPstmt.executeUpdate());
+            testPstmt.close();
+            assertEquals(1, stats.getReprepareCount());
+
+            this.rs = this.stmt.executeQuery("SELECT COUNT(*) FROM testSPSRegistry");
+            assertTrue(this.rs.next());
+            assertEquals(1003, this.rs.getInt(1));
+        } finally {
+            testConn1.close();
+            if (testConn2 != null) {
+                testConn2.close();
+            }
+        }
+    }
+
+    /**
+     * Tests that server-side prepared statements return the right rows and metadata when "useOptionalResultsetMetadata" lets executions skip the column
+     * definitions, including when text queries are interleaved, when the types or the number of the columns of the statement change between transactions,
+     * and when rows are read through a cursor.
+     */
+    public void testOptionalResultsetMetadata() throws Exception {
+        if (!versionMeetsMinimum(8, 0, 3)) {
+            return;
+        }
+
+        createTable("testOptionalRsMetadata", "(id INT, val VARCHAR(20))");
+        this.stmt.executeUpdate("INSERT INTO testOptionalRsMetadata VALUES (1, '10'), (2, '20')");
+
+        Properties props = new Properties();
+        props.setProperty("useServerPrepStmts", "true");
+        props.setProperty("useOptionalResultsetMetadata", "true");
+
+        Connection testConn = getConnectionWithProps(props);
+
+        try {
+            PreparedStatement testPstmt = testConn.prepareStatement("SELECT * FROM testOptionalRsMetadata WHERE id = ?");
+            Statement testStmt = testConn.createStatement();
+
+            testConn.setAutoCommit(false);
+
+            for (int i = 0; i < 4; i++) {
+                int id = (i % 2) + 1;
+
+                testPstmt.setInt(1, id);
+                this.rs = testPstmt.executeQuery();
+                assertEquals(2, this.rs.getMetaData().getColumnCount());
+                assertEquals("val", this.rs.getMetaData().getColumnName(2));
+                assertEquals(Types.VARCHAR, this.rs.getMetaData().getColumnType(2));
+                assertTrue(this.rs.next());
+                assertEquals(id, this.rs.getInt("id"));
+                assertEquals(String.valueOf(id * 10), this.rs.getString("val"));
+                assertFalse(this.rs.next());
+            }
+
+            for (int i = 0; i < 4; i++) {
+                int id = (i % 2) + 1;
+
+                testPstmt.setInt(1, id);
+                this.rs = testPstmt.executeQuery();
+                assertTrue(this.rs.next());
+                assertEquals(String.valueOf(id * 10), this.rs.getString("val"));
+
+                // text result sets come with their column definitions in between
+                this.rs = testStmt.executeQuery("SELECT val FROM testOptionalRsMetadata WHERE id = " + id);
+                assertEquals("val", this.rs.getMetaData().getColumnName(1));
+                assertTrue(this.rs.next());
+                assertEquals(String.valueOf(id * 10), this.rs.getString(1));
+            }
+
+            testConn.commit();
+
+            // the statement now returns a column of another type, which neither the server nor the number of columns tell
+            this.stmt.executeUpdate("ALTER TABLE testOptionalRsMetadata MODIFY val INT");
+
+            for (int i = 0; i < 2; i++) {
+                testPstmt.setInt(1, 1);
+                this.rs = testPstmt.executeQuery();
+                assertEquals(Types.INTEGER, this.rs.getMetaData().getColumnType(2));
+                assertTrue(this.rs.next());
+                assertEquals(10, this.rs.getInt("val"));
+                assertEquals(Integer.valueOf(10), this.rs.getObject("val"));
+                assertFalse(this.rs.next());
+            }
+
+            testConn.commit();
+
+            // the statement now returns one more column
+            this.stmt.executeUpdate("ALTER TABLE testOptionalRsMetadata ADD COLUMN extra INT DEFAULT 5");
+
+            for (int i = 0; i < 2; i++) {
+                testPstmt.setInt(1, 1);
+                this.rs = testPstmt.executeQuery();
+                assertEquals(3, this.rs.getMetaData().getColumnCount());
+                assertEquals("extra", this.rs.getMetaData().getColumnName(3));
+                assertTrue(this.rs.next());
+                assertEquals(10, this.rs.getInt("val"));
+                assertEquals(5, this.rs.getInt("extra"));
+                assertFalse(this.rs.next());
+            }
+
+            testConn.commit();
+
+            testPstmt.close();
+            testStmt.close();
+        } finally {
+            testConn.close();
+        }
+
+        props.setProperty("useCursorFetch", "true");
+
+        testConn = getConnectionWithProps(props);
+
+        try {
+            testConn.setAutoCommit(false);
+
+            PreparedStatement testPstmt = testConn.prepareStatement("SELECT id FROM testOptionalRsMetadata WHERE id > ? ORDER BY id");
+            testPstmt.setFetchSize(1);
+
+            for (int i = 0; i < 3; i++) {
+                testPstmt.setInt(1, 0);
+                this.rs = testPstmt.executeQuery();
+                assertTrue(this.rs.next());
+                assertEquals(1, this.rs.getInt(1));
+                assertTrue(this.rs.next());
+                assertEquals(2, this.rs.getInt(1));
+                assertFalse(this.rs.next());
+                this.rs.close();
+            }
+
+            testConn.commit();
+            testPstmt.close();
+        } finally {
+            testConn.close();
+        }
+    }
+
+    /**
+     * Socket factory that has the server refuse the changes of 'resultset_metadata' to the given value, by garbling the value on the wire, and counts the
+     * changes written.
+     */
+    public static class RefusingResultsetMetadataSocketFactory extends StandardSocketFactory {
+        static volatile String refusedValue = null;
+
+        static volatile int switchesWritten = 0;
+
+        private static final byte[] SWITCH = "SET resultset_metadata=".getBytes();
+
+        @Override
+        protected Socket createSocket(Properties props) throws IOException {
+            return new Socket() {
+                private OutputStream out;
+
+                @Override
+                public synchronized OutputStream getOutputStream() throws IOException {
+                    if (this.out == null) {
+                        this.out = new FilterOutputStream(super.getOutputStream()) {
+                            @Override
+                            public void write(byte[] b, int off, int len) throws IOException {
+                                this.out.write(refuseSwitches(b, off, len), 0, len);
+                            }
+                        };
+                    }
+
+                    return this.out;
+                }
+            };
+        }
+
+        static byte[] refuseSwitches(byte[] b, int off, int len) {
+            byte[] copy = new byte[len];
+            System.arraycopy(b, off, copy, 0, len);
+
+            for (int i = 0; i + SWITCH.length + 4 <= len; i++) {
+                int j = 0;
+
+                while (j < SWITCH.length && copy[i + j] == SWITCH[j]) {
+                    j++;
+                }
+
+                if (j == SWITCH.length) {
+                    switchesWritten++;
+
+                    String value = StringUtils.toAsciiString(copy, i + j, 4);
+
+                    if (value.equals(refusedValue)) {
+                        copy[i + j + 3] = 'X';
+                    }
+                }
+            }
+
+            return copy;
+        }
+    }
+
+    /**
+     * Tests that a statement after a change of 'resultset_metadata' that the server refused is still executed once and its response read, so that the
+     * connection stays in sync.
+     */
+    public void testOptionalResultsetMetadataSwitchRefused() throws Exception {
+        if (!versionMeetsMinimum(8, 0, 3)) {
+            return;
+        }
+
+        createTable("testOptionalRsMetadataRefused", "(id INT, val VARCHAR(20))");
+        this.stmt.executeUpdate("INSERT INTO testOptionalRsMetadataRefused VALUES (1, '10'), (2, '20')");
+
+        Properties props = new Properties();
+        props.setProperty("useServerPrepStmts", "true");
+        props.setProperty("useOptionalResultsetMetadata", "true");
+        props.setProperty("socketFactory", RefusingResultsetMetadataSocketFactory.class.getName());
+
+        // skipping the column definitions is refused, so the execution gets them and the driver stops asking
+        RefusingResultsetMetadataSocketFactory.refusedValue = "NONE";
+        RefusingResultsetMetadataSocketFactory.switchesWritten = 0;
+
+        Connection testConn = getConnectionWithProps(props);
+
+        try {
+            testConn.setAutoCommit(false);
+
+            PreparedStatement testPstmt = testConn.prepareStatement("SELECT * FROM testOptionalRsMetadataRefused WHERE id = ?");
+
+            for (int i = 0; i < 4; i++) {
+                int id = (i % 2) + 1;
+
+                testPstmt.setInt(1, id);
+                this.rs = testPstmt.executeQuery();
+                assertEquals("val", this.rs.getMetaData().getColumnName(2));
+                assertTrue(this.rs.next());
+                assertEquals(String.valueOf(id * 10), this.rs.getString("val"));
+                assertFalse(this.rs.next());
+            }
+
+            assertEquals(1, RefusingResultsetMetadataSocketFactory.switchesWritten);
+
+            testConn.commit();
+            testPstmt.close();
+        } finally {
+            RefusingResultsetMetadataSocketFactory.refusedValue = null;
+            testConn.close();
+        }
+
+        // switching back to the column definitions is refused after the server was asked to skip them
+        testConn = getConnectionWithProps(props);
+
+        try {
+            testConn.setAutoCommit(false);
+
+            PreparedStatement testPstmt = testConn.prepareStatement("SELECT * FROM testOptionalRsMetadataRefused WHERE id = ?");
+
+            for (int i = 0; i < 2; i++) {
+                testPstmt.setInt(1, 1);
+                this.rs = testPstmt.executeQuery();
+                assertTrue(this.rs.next());
+                assertEquals("10", this.rs.getString("val"));
+            }
+
+            RefusingResultsetMetadataSocketFactory.refusedValue = "FULL";
+
+            // the statement is executed, and succeeds, as it needs no column definitions
+            Statement testStmt = testConn.createStatement();
+            assertEquals(1, testStmt.executeUpdate("INSERT INTO testOptionalRsMetadataRefused VALUES (3, '30')"));
+
+            try {
+                testStmt.executeQuery("SELECT COUNT(*) FROM testOptionalRsMetadataRefused");
+                fail("The result set can't be read without column definitions");
+            } catch (SQLException sqlEx) {
+                assertNotNull(sqlEx.getCause());
+                assertTrue(sqlEx.getCause().getMessage().indexOf("resultset_metadata") != -1);
+            }
+
+            RefusingResultsetMetadataSocketFactory.refusedValue = null;
+
+            this.rs = testStmt.executeQuery("SELECT COUNT(*) FROM testOptionalRsMetadataRefused WHERE id = 3");
+            assertTrue(this.rs.next());
+            assertEquals(1, this.rs.getInt(1));
+
+            testConn.commit();
+            testPstmt.close();
+        } finally {
+            RefusingResultsetMetadataSocketFactory.refusedValue = null;
+            testConn.close();
+        }
+    }
+
+    /**
+     * Tests that client-side prepared statements parsed by one connection are reused by other connections when "parseInfoCacheFactory" is
+     * PerVmParseInfoCacheFactory, but not by connections with different parsing settings.
+     */
+    public void testPerVmParseInfoCache() throws Exception {
+        createTable("testPerVmParseInfoCache", "(id INT, val VARCHAR(20))");
+
+        Properties props = new Properties();
+        props.setProperty("cachePrepStmts", "true");
+        props.setProperty("useServerPrepStmts", "false");
+        props.setProperty("parseInfoCacheFactory", PerVmParseInfoCacheFactory.class.getName());
+
+        Properties rewriteProps = new Properties();
+        rewriteProps.putAll(props);
+        rewriteProps.setProperty("rewriteBatchedStatements", "true");
+
+        Connection testConn1 = getConnectionWithProps(props);
+        Connection testConn2 = getConnectionWithProps(props);
+        Connection testConn3 = getConnectionWithProps(rewriteProps);
+
+        String sql = "INSERT INTO testPerVmParseInfoCache VALUES (?, ?) /* " + System.currentTimeMillis() + " */";
+
+        try {
+            long hits = PerVmParseInfoCacheFactory.getHits();
+            long misses = PerVmParseInfoCacheFactory.getMisses();
+
+            PreparedStatement testPstmt = testConn1.prepareStatement(sql);
+            testPstmt.setInt(1, 1);
+            testPstmt.setString(2, "one");
+            assertEquals(1, testPstmt.executeUpdate());
+            testPstmt.close();
+
+            assertEquals(misses + 1, PerVmParseInfoCacheFactory.getMisses());
+            assertTrue(PerVmParseInfoCacheFactory.getWeight() > sql.length());
+
+            testPstmt = testConn2.prepareStatement(sql);
+            testPstmt.setInt(1, 2);
+            testPstmt.setString(2, "two");
+            assertEquals(1, testPstmt.executeUpdate());
+            testPstmt.close();
+
+            assertEquals(hits + 1, PerVmParseInfoCacheFactory.getHits());
+
+            testPstmt = testConn3.prepareStatement(sql);
+            for (int i = 3; i < 6; i++) {
+                testPstmt.setInt(1, i);
+                testPstmt.setString(2, "value" + i);
+                testPstmt.addBatch();
+            }
+            testPstmt.executeBatch();
+            testPstmt.close();
+
+            assertEquals(hits + 1, PerVmParseInfoCacheFactory.getHits());
+            assertEquals(misses + 2, PerVmParseInfoCacheFactory.getMisses());
+
+            this.rs = this.stmt.executeQuery("SELECT COUNT(*) FROM testPerVmParseInfoCache");
+            assertTrue(this.rs.next());
+            assertEquals(5, this.rs.getInt(1));
+
+            // invalidating a connection's cache only drops the entries of its settings
+            new PerVmParseInfoCacheFactory().getInstance((com.mysql.jdbc.Connection) testConn3, null, 25, 256, rewriteProps).invalidateAll();
+
+            testConn2.prepareStatement(sql).close();
+            assertEquals(hits + 2, PerVmParseInfoCacheFactory.getHits());
+
+            testConn3.prepareStatement(sql).close();
+            assertEquals(misses + 3, PerVmParseInfoCacheFactory.getMisses());
+        } finally {
+            testConn1.close();
+            testConn2.close();
+            testConn3.close();
+        }
+    }
+
+    /**
+     * Tests that cursor rows requested ahead with "prefetchCursorRows" are all read, in order, also when other statements are executed on the connection
+     * while a prefetch is pending.
+     */
+    public void testPrefetchCursorRows() throws Exception {
+        if (!versionMeetsMinimum(5, 0, 5)) {
+            return;
+        }
+
+        createTable("testPrefetchCursorRows", "(field1 int)");
+
+        for (int i = 1; i <= 25; i++) {
+            this.stmt.executeUpdate("INSERT INTO testPrefetchCursorRows VALUES (" + i + ")");
+        }
+
+        Properties props = new Properties();
+        props.setProperty("useCursorFetch", "true");
+        props.setProperty("prefetchCursorRows", "true");
+
+        Connection fetchConn = getConnectionWithProps(props);
+
+        try {
+            PreparedStatement fetchStmt = fetchConn.prepareStatement("SELECT field1 FROM testPrefetchCursorRows ORDER BY field1");
+            fetchStmt.setFetchSize(4);
+            this.rs = fetchStmt.executeQuery();
+
+            Statement otherStmt = fetchConn.createStatement();
+
+            for (int i = 1; i <= 25; i++) {
+                assertTrue(this.rs.next());
+                assertEquals(i, this.rs.getInt(1));
+
+                if (i % 3 == 0) {
+                    // the pending prefetch has to be read before this can be sent
+                    ResultSet otherRs = otherStmt.executeQuery("SELECT " + i);
+                    assertTrue(otherRs.next());
+                    assertEquals(i, otherRs.getInt(1));
+                    otherRs.close();
+                }
+            }
+
+            assertFalse(this.rs.next());
+
+            // the connection is still in sync
+            this.rs = fetchStmt.executeQuery();
+            for (int i = 1; i <= 25; i++) {
+                assertTrue(this.rs.next());
+                assertEquals(i, this.rs.getInt(1));
+            }
+            assertFalse(this.rs.next());
+
+            Properties urlProps = getPropertiesFromTestsuiteUrl();
+            String user = urlProps.getProperty(NonRegisteringDriver.USER_PROPERTY_KEY);
+            String password = urlProps.getProperty(NonRegisteringDriver.PASSWORD_PROPERTY_KEY);
+
+            // changing the user with a prefetch pending, as a pool resetting the connection would
+            this.rs = fetchStmt.executeQuery();
+            assertTrue(this.rs.next());
+            ((com.mysql.jdbc.Connection) fetchConn).changeUser(user, password);
+
+            this.rs = fetchConn.createStatement().executeQuery("SELECT 1");
+            assertTrue(this.rs.next());
+            assertEquals(1, this.rs.getInt(1));
+
+            // and after closing the result set with a prefetch pending
+            fetchStmt = fetchConn.prepareStatement("SELECT field1 FROM testPrefetchCursorRows ORDER BY field1");
+            fetchStmt.setFetchSize(4);
+            this.rs = fetchStmt.executeQuery();
+            assertTrue(this.rs.next());
+            this.rs.close();
+            ((com.mysql.jdbc.Connection) fetchConn).changeUser(user, password);
+
+            this.rs = fetchConn.createStatement().executeQuery("SELECT 2");
+            assertTrue(this.rs.next());
+            assertEquals(2, this.rs.getInt(1));
+        } finally {
+            fetchConn.close();
+        }
+    }
+
     public void testSelectColumns() throws SQLException {
         for (int i = 6; i < MAX_COLUMNS_TO_TEST; i += STEP) {
             long start = System.currentTimeMillis();
@@ -1789,4 +2316,464 @@ public class StatementsTest extends BaseTestCase {
             ((com.mysql.jdbc.Statement) this.stmt).setLocalInfileInputStream(null);
         }
     }
+
+    /**
+     * Tests Statement.setLocalInfileRowProducer() with enough rows to fill several packets, and values that need escaping.
+     * 
+     * @throws Exception
+     *             if the test fails.
+     */
+    public void testLocalInfileRowProducer() throws Exception {
+        createTable("localInfileRowProducer", "(field1 int, field2 varchar(255), field3 varbinary(16))");
+
+        final int rowCount = 100000;
+
+        try {
+            ((com.mysql.jdbc.Statement) this.stmt).setLocalInfileRowProducer(new LocalInfileRowProducer() {
+                public void produceRows(LocalInfileRowSink sink) throws Exception {
+                    for (int i = 0; i < rowCount; i++) {
+                        sink.addRow(Integer.valueOf(i), "row " + i + "\t\\\n\u00e9\u00e8", (i % 2 == 0) ? null : new byte[] { 0, '\t', '\\', (byte) 0xff });
+                    }
+                }
+            });
+            assertEquals(rowCount, this.stmt.executeUpdate("LOAD DATA LOCAL INFILE 'bogusFileName' INTO TABLE localInfileRowProducer CHARACTER SET "
+                    + CharsetMapping.getMysqlCharsetForJavaEncoding(((MySQLConnection) this.conn).getEncoding(), (com.mysql.jdbc.Connection) this.conn)));
+
+            this.rs = this.stmt.executeQuery("SELECT field1, field2, field3 FROM localInfileRowProducer WHERE field1 IN (0, 1, " + (rowCount - 1)
+                    + ") ORDER BY field1 ASC");
+            assertTrue(this.rs.next());
+            assertEquals("row 0\t\\\n\u00e9\u00e8", this.rs.getString(2));
+            assertNull(this.rs.getBytes(3));
+            assertTrue(this.rs.next());
+            assertTrue(Arrays.equals(new byte[] { 0, '\t', '\\', (byte) 0xff }, this.rs.getBytes(3)));
+            assertTrue(this.rs.next());
+            assertEquals(rowCount - 1, this.rs.getInt(1));
+            assertFalse(this.rs.next());
+
+            // a failing producer fails the statement with its exception as the cause
+            ((com.mysql.jdbc.Statement) this.stmt).setLocalInfileRowProducer(new LocalInfileRowProducer() {
+                public void produceRows(LocalInfileRowSink sink) throws Exception {
+                    sink.addRow(Integer.valueOf(-1), "failing", null);
+                    throw new IllegalStateException("no more rows");
+                }
+            });
+            try {
+                this.stmt.executeUpdate("LOAD DATA LOCAL INFILE 'bogusFileName' INTO TABLE localInfileRowProducer");
+                fail("SQLException expected");
+            } catch (SQLException e) {
+                assertTrue(e.getCause() instanceof IllegalStateException);
+            }
+
+            // the connection is still usable
+            this.rs = this.stmt.executeQuery("SELECT COUNT(*) FROM localInfileRowProducer");
+            assertTrue(this.rs.next());
+            assertEquals(rowCount + 1, this.rs.getInt(1));
+        } finally {
+            ((com.mysql.jdbc.Statement) this.stmt).setLocalInfileRowProducer(null);
+        }
+    }
+
+    /**
+     * Tests Statement.executeQueryAsync() and Statement.executeUpdateAsync(), including cancellation of a running query.
+     * 
+     * @throws Exception
+     *             if the test fails.
+     */
+    public void testAsyncExecution() throws Exception {
+        createTable("testAsyncExecution", "(field1 int)");
+
+        com.mysql.jdbc.Statement asyncStmt = (com.mysql.jdbc.Statement) this.conn.createStatement();
+
+        Future<Long> updateCount = asyncStmt.executeUpdateAsync("INSERT INTO testAsyncExecution VALUES (1), (2), (3)");
+        assertEquals(3L, updateCount.get(10, TimeUnit.SECONDS).longValue());
+
+        Future<ResultSet> results = asyncStmt.executeQueryAsync("SELECT SUM(field1) FROM testAsyncExecution");
+        this.rs = results.get(10, TimeUnit.SECONDS);
+        assertTrue(this.rs.next());
+        assertEquals(6, this.rs.getInt(1));
+
+        try {
+            asyncStmt.executeQueryAsync("SELECT * FROM testAsyncExecutionMissing").get(10, TimeUnit.SECONDS);
+            fail("The query should have failed");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof SQLException);
+        }
+
+        results = asyncStmt.executeQueryAsync("SELECT SLEEP(30)");
+        Thread.sleep(1000);
+        assertTrue(results.cancel(true));
+        assertTrue(results.isCancelled());
+
+        // the cancelled query must give the connection back long before it would have finished
+        long start = System.currentTimeMillis();
+        this.rs = this.stmt.executeQuery("SELECT 1");
+        assertTrue(System.currentTimeMillis() - start < 20000);
+
+        // cancelling a completed execution must not kill the statement that runs next on the same connection
+        results = asyncStmt.executeQueryAsync("SELECT 2");
+        this.rs = results.get(10, TimeUnit.SECONDS);
+        assertTrue(this.rs.next());
+        assertEquals(2, this.rs.getInt(1));
+        Future<ResultSet> nextResults = asyncStmt.executeQueryAsync("SELECT SLEEP(2), 3");
+        assertFalse(results.cancel(true));
+        this.rs = nextResults.get(10, TimeUnit.SECONDS);
+        assertTrue(this.rs.next());
+        assertEquals(0, this.rs.getInt(1));
+        assertEquals(3, this.rs.getInt(2));
+
+        asyncStmt.close();
+    }
+
+    /**
+     * Socket factory that records the largest number of MySQL packets the driver wrote to a socket at once, i.e. the number of commands it had in flight.
+     */
+    public static class PacketCountingSocketFactory extends StandardSocketFactory {
+        static volatile int maxPacketsPerWrite = 0;
+
+        @Override
+        protected Socket createSocket(Properties props) throws IOException {
+            return new Socket() {
+                private OutputStream out;
+
+                @Override
+                public synchronized OutputStream getOutputStream() throws IOException {
+                    if (this.out == null) {
+                        this.out = new FilterOutputStream(super.getOutputStream()) {
+                            private int headerBytesLeft = 4;
+                            private int packetLength = 0;
+                            private int payloadBytesLeft = 0;
+
+                            @Override
+                            public void write(byte[] b, int off, int len) throws IOException {
+                                int packets = 0;
+
+                                for (int i = off; i < off + len; i++) {
+                                    if (this.payloadBytesLeft > 0) {
+                                        this.payloadBytesLeft--;
+                                    } else {
+                                        if (this.headerBytesLeft == 4) {
+                                            packets++;
+                                            this.packetLength = 0;
+                                        }
+
+                                        if (this.headerBytesLeft > 1) {
+                                            this.packetLength |= (b[i] & 0xff) << (8 * (4 - this.headerBytesLeft));
+                                        }
+
+                                        if (--this.headerBytesLeft == 0) {
+                                            this.headerBytesLeft = 4;
+                                            this.payloadBytesLeft = this.packetLength;
+                                        }
+                                    }
+                                }
+
+                                maxPacketsPerWrite = Math.max(maxPacketsPerWrite, packets);
+
+                                this.out.write(b, off, len);
+                            }
+                        };
+                    }
+
+                    return this.out;
+                }
+            };
+        }
+    }
+
+    /**
+     * Tests batches executed with "batchPipelineDepth", with a failing statement in the middle of the batch. The statements must be written up to
+     * "batchPipelineDepth" at a time, except inside a transaction.
+     */
+    public void testPipelinedBatch() throws Exception {
+        createTable("testPipelinedBatch", "(field1 int primary key)");
+
+        Properties props = new Properties();
+        props.setProperty("batchPipelineDepth", "4");
+        props.setProperty("continueBatchOnError", "true");
+        props.setProperty("socketFactory", PacketCountingSocketFactory.class.getName());
+        Connection pipelinedConn = getConnectionWithProps(props);
+
+        Statement pipelinedStmt = pipelinedConn.createStatement();
+        for (int i = 0; i < 10; i++) {
+            pipelinedStmt.addBatch("INSERT INTO testPipelinedBatch VALUES (" + (i == 5 ? 0 : i) + ")");
+        }
+
+        PacketCountingSocketFactory.maxPacketsPerWrite = 0;
+
+        try {
+            pipelinedStmt.executeBatch();
+            fail("BatchUpdateException expected");
+        } catch (BatchUpdateException e) {
+            int[] counts = e.getUpdateCounts();
+            assertEquals(10, counts.length);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i == 5 ? Statement.EXECUTE_FAILED : 1, counts[i]);
+            }
+        }
+
+        assertEquals(4, PacketCountingSocketFactory.maxPacketsPerWrite);
+
+        PreparedStatement pipelinedPstmt = pipelinedConn.prepareStatement("UPDATE testPipelinedBatch SET field1 = field1 + 100 WHERE field1 = ?");
+        for (int i = 0; i < 10; i++) {
+            pipelinedPstmt.setInt(1, i);
+            pipelinedPstmt.addBatch();
+        }
+
+        PacketCountingSocketFactory.maxPacketsPerWrite = 0;
+
+        int[] counts = pipelinedPstmt.executeBatch();
+        assertEquals(10, counts.length);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i == 5 ? 0 : 1, counts[i]);
+        }
+
+        assertEquals(4, PacketCountingSocketFactory.maxPacketsPerWrite);
+
+        this.rs = this.stmt.executeQuery("SELECT COUNT(*) FROM testPipelinedBatch WHERE field1 >= 100");
+        assertTrue(this.rs.next());
+        assertEquals(9, this.rs.getInt(1));
+
+        // inside a transaction the statements are executed one by one
+        pipelinedConn.setAutoCommit(false);
+
+        for (int i = 0; i < 10; i++) {
+            pipelinedPstmt.setInt(1, 100 + i);
+            pipelinedPstmt.addBatch();
+        }
+
+        PacketCountingSocketFactory.maxPacketsPerWrite = 0;
+
+        counts = pipelinedPstmt.executeBatch();
+        assertEquals(10, counts.length);
+        for (int i = 0; i < 10; i++) {
+            assertEquals(i == 5 ? 0 : 1, counts[i]);
+        }
+
+        assertEquals(1, PacketCountingSocketFactory.maxPacketsPerWrite);
+
+        pipelinedConn.rollback();
+        pipelinedConn.setAutoCommit(true);
+
+        pipelinedConn.close();
+
+        props.setProperty("useServerPrepStmts", "true");
+        pipelinedConn = getConnectionWithProps(props);
+
+        pipelinedPstmt = pipelinedConn.prepareStatement("INSERT INTO testPipelinedBatch VALUES (?)");
+        assertTrue(pipelinedPstmt instanceof com.mysql.jdbc.ServerPreparedStatement);
+
+        for (int i = 0; i < 10; i++) {
+            // a parameter type change in the middle of the batch must be sent along with its execution
+            if (i < 5) {
+                pipelinedPstmt.setInt(1, 200 + i);
+            } else {
+                pipelinedPstmt.setString(1, String.valueOf(i == 7 ? 200 : 200 + i));
+            }
+            pipelinedPstmt.addBatch();
+        }
+
+        PacketCountingSocketFactory.maxPacketsPerWrite = 0;
+
+        try {
+            pipelinedPstmt.executeBatch();
+            fail("BatchUpdateException expected");
+        } catch (BatchUpdateException e) {
+            counts = e.getUpdateCounts();
+            assertEquals(10, counts.length);
+            for (int i = 0; i < 10; i++) {
+                assertEquals(i == 7 ? Statement.EXECUTE_FAILED : 1, counts[i]);
+            }
+        }
+
+        assertEquals(4, PacketCountingSocketFactory.maxPacketsPerWrite);
+
+        this.rs = this.stmt.executeQuery("SELECT COUNT(*), SUM(field1) FROM testPipelinedBatch WHERE field1 >= 200");
+        assertTrue(this.rs.next());
+        assertEquals(9, this.rs.getInt(1));
+        assertEquals(1838, this.rs.getInt(2));
+
+        pipelinedConn.close();
+    }
+
+    /**
+     * Tests a pipelined batch stopped by a deadlock in its middle: the statements sent behind the failed one have executed, and are reported with their
+     * update counts, and only the statements never sent are left out.
+     */
+    public void testPipelinedBatchDeadlock() throws Exception {
+        createTable("testPipelinedBatchDeadlock", "(id INT PRIMARY KEY, val INT)", "InnoDB");
+
+        StringBuilder values = new StringBuilder("(200, 0)");
+        for (int i = 0; i < 10; i++) {
+            values.append(", (").append(i).append(", 0)");
+        }
+        for (int i = 1000; i < 1100; i++) {
+            values.append(", (").append(i).append(", 0)");
+        }
+        this.stmt.executeUpdate("INSERT INTO testPipelinedBatchDeadlock VALUES " + values);
+
+        final Connection lockConn = getConnectionWithProps(new Properties());
+        lockConn.setAutoCommit(false);
+
+        Properties props = new Properties();
+        props.setProperty("batchPipelineDepth", "4");
+        props.setProperty("continueBatchOnError", "true");
+        Connection pipelinedConn = getConnectionWithProps(props);
+
+        try {
+            final Statement lockStmt = lockConn.createStatement();
+            // the larger transaction, so that the server picks the batch's statement as the victim of the deadlock
+            lockStmt.executeUpdate("UPDATE testPipelinedBatchDeadlock SET val = val + 1 WHERE id >= 1000");
+            lockStmt.executeUpdate("UPDATE testPipelinedBatchDeadlock SET val = val + 1 WHERE id = 5");
+
+            Statement pipelinedStmt = pipelinedConn.createStatement();
+            for (int i = 0; i < 10; i++) {
+                if (i == 5) {
+                    // locks 200 and then waits for 5
+                    pipelinedStmt.addBatch("UPDATE testPipelinedBatchDeadlock SET val = val + 1 WHERE id IN (5, 200) ORDER BY id DESC");
+                } else {
+                    pipelinedStmt.addBatch("UPDATE testPipelinedBatchDeadlock SET val = val + 1 WHERE id = " + i);
+                }
+            }
+
+            final Exception[] lockerFailure = new Exception[1];
+
+            Thread locker = new Thread() {
+                @Override
+                public void run() {
+                    try {
+                        Thread.sleep(1000);
+                        lockStmt.executeUpdate("UPDATE testPipelinedBatchDeadlock SET val = val + 1 WHERE id = 200");
+                    } catch (Exception e) {
+                        lockerFailure[0] = e;
+                    }
+                }
+            };
+            locker.start();
+
+            try {
+                pipelinedStmt.executeBatch();
+                fail("BatchUpdateException expected");
+            } catch (BatchUpdateException e) {
+                assertEquals(MysqlErrorNumbers.ER_LOCK_DEADLOCK, e.getErrorCode());
+
+                // statements 6 to 8 were sent while 5 waited, 9 never was
+                int[] counts = e.getUpdateCounts();
+                assertEquals(9, counts.length);
+                for (int i = 0; i < 9; i++) {
+                    assertEquals(i == 5 ? Statement.EXECUTE_FAILED : 1, counts[i]);
+                }
+            }
+
+            locker.join();
+            assertNull(lockerFailure[0]);
+            lockConn.rollback();
+
+            this.rs = this.stmt.executeQuery("SELECT id, val FROM testPipelinedBatchDeadlock WHERE id < 10 ORDER BY id");
+            for (int i = 0; i < 10; i++) {
+                assertTrue(this.rs.next());
+                assertEquals(i, this.rs.getInt(1));
+                assertEquals(i == 5 || i == 9 ? 0 : 1, this.rs.getInt(2));
+            }
+            assertFalse(this.rs.next());
+        } finally {
+            lockConn.close();
+            pipelinedConn.close();
+        }
+    }
+
+    /**
+     * Tests that stream parameters of client-side prepared statements are sent while the query is sent, with 'streamLargeParameters'.
+     */
+    public void testStreamLargeParameters() throws Exception {
+        createTable("testStreamLargeParameters", "(id INT, smallBlob BLOB, largeBlob LONGBLOB)");
+
+        int maxAllowedPacket = Integer.parseInt(getMysqlVariable("max_allowed_packet"));
+        // large enough to be sent as several packets (escaping grows it further) if the server allows it
+        int largeLength = Math.min(20 * 1024 * 1024, maxAllowedPacket / 3);
+
+        byte[] smallValue = new byte[1000];
+        byte[] largeValue = new byte[largeLength];
+        for (int i = 0; i < largeValue.length; i++) {
+            largeValue[i] = (byte) i;
+            if (i < smallValue.length) {
+                smallValue[i] = (byte) (255 - i);
+            }
+        }
+
+        Properties props = new Properties();
+        props.setProperty("streamLargeParameters", "true");
+        props.setProperty("blobSendChunkSize", "1024");
+
+        for (int i = 0; i < 4; i++) {
+            props.setProperty("useCompression", Boolean.toString(i % 2 == 1));
+            // stream lengths unknown to the driver for the last two
+            props.setProperty("useStreamLengthsInPrepStmts", Boolean.toString(i < 2));
+
+            Connection testConn = getConnectionWithProps(props);
+            PreparedStatement testPstmt = testConn.prepareStatement("INSERT INTO testStreamLargeParameters VALUES (?, ?, ?)");
+            testPstmt.setInt(1, i);
+            testPstmt.setBinaryStream(2, new ByteArrayInputStream(smallValue), smallValue.length);
+            testPstmt.setBinaryStream(3, new ByteArrayInputStream(largeValue), largeValue.length);
+            assertEquals(1, testPstmt.executeUpdate());
+
+            // the connection is still usable after the streamed query
+            testPstmt = testConn.prepareStatement("SELECT smallBlob, largeBlob, LENGTH(largeBlob) FROM testStreamLargeParameters WHERE id = ?");
+            testPstmt.setInt(1, i);
+            this.rs = testPstmt.executeQuery();
+            assertTrue(this.rs.next());
+            assertTrue(Arrays.equals(smallValue, this.rs.getBytes(1)));
+            assertEquals(largeLength, this.rs.getInt(3));
+            assertTrue(Arrays.equals(largeValue, this.rs.getBytes(2)));
+            assertFalse(this.rs.next());
+
+            testConn.close();
+        }
+    }
+
+    /**
+     * Tests that stream parameters sent with 'streamLargeParameters' count towards max_allowed_packet, whether the length of the stream is known up front or
+     * only found out while sending it.
+     */
+    public void testStreamLargeParametersOverMaxAllowedPacket() throws Exception {
+        createTable("testStreamLargeParametersOverMax", "(id INT, largeBlob LONGBLOB)");
+
+        final int maxAllowedPacket = Integer.parseInt(getMysqlVariable("max_allowed_packet"));
+
+        Properties props = new Properties();
+        props.setProperty("streamLargeParameters", "true");
+        props.setProperty("blobSendChunkSize", "1024");
+
+        for (int i = 0; i < 2; i++) {
+            // the stream length is known to the driver for the first one only
+            props.setProperty("useStreamLengthsInPrepStmts", Boolean.toString(i == 0));
+
+            Connection testConn = getConnectionWithProps(props);
+            PreparedStatement testPstmt = testConn.prepareStatement("INSERT INTO testStreamLargeParametersOverMax VALUES (?, ?)");
+            testPstmt.setInt(1, i);
+            testPstmt.setBinaryStream(2, new InputStream() {
+                private int left = maxAllowedPacket + 1;
+
+                @Override
+                public int read() {
+                    return this.left-- > 0 ? 'a' : -1;
+                }
+            }, maxAllowedPacket + 1);
+
+            try {
+                testPstmt.executeUpdate();
+                fail("PacketTooBigException expected");
+            } catch (PacketTooBigException e) {
+                // expected
+            }
+
+            if (i == 0) {
+                // nothing was sent, the connection is still usable
+                this.rs = testConn.createStatement().executeQuery("SELECT COUNT(*) FROM testStreamLargeParametersOverMax");
+                assertTrue(this.rs.next());
+                assertEquals(0, this.rs.getInt(1));
+            }
+
+            testConn.close();
+        }
+    }
 }
@@ -23,6 +23,7 @@
 
 package testsuite.simple;
 
+import java.math.BigDecimal;
 import java.nio.charset.Charset;
 import java.util.EnumSet;
 import java.util.Map;
@@ -817,4 +818,38 @@ public class StringUtilsTest extends BaseTestCase {
                     StringUtils.unQuoteIdentifier(identifiersQuotedPedantic[i], "\""));
         }
     }
+
+    /**
+     * Tests StringUtils.getDouble() and StringUtils.getBigDecimal() against Double.parseDouble() and new BigDecimal(String), for values that take the fast
+     * path as well as for those handed over to the JDK.
+     */
+    public void testGetDoubleAndBigDecimalFromBytes() throws Exception {
+        String[] values = new String[] { "0", "-0", "1.5", "-1.5", ".5", "-.5", "1.", "00012.3400", "0.1", "123456789012345678", "1234567890123456789",
+                "9007199254740992", "9007199254740993", "1e10", "1E+3", "1.5E-3", "2.147483648E9", "3.4028234663853E37", "1.7976931348623157E308", "4.9E-324",
+                "1e400", "1e-400", "12345.678901234567890", "-0000123456789012345678901234567890.123456789012345678901234567890", "1234567890123456789.5e-40" };
+
+        for (String value : values) {
+            byte[] bytes = ("**" + value + "**").getBytes();
+
+            assertEquals(value, Double.parseDouble(value), StringUtils.getDouble(bytes, 2, 2 + value.length()), 0);
+            assertEquals(value, new BigDecimal(value), StringUtils.getBigDecimal(bytes, 2, 2 + value.length()));
+        }
+
+        String[] badValues = new String[] { "", ".", "-", "1e", "1.5x", "1.2.3", "abc" };
+
+        for (final String value : badValues) {
+            assertThrows(NumberFormatException.class, new Callable<Void>() {
+                public Void call() throws Exception {
+                    StringUtils.getDouble(value.getBytes());
+                    return null;
+                }
+            });
+            assertThrows(NumberFormatException.class, new Callable<Void>() {
+                public Void call() throws Exception {
+                    StringUtils.getBigDecimal(value.getBytes());
+                    return null;
+                }
+            });
+        }
+    }
 }
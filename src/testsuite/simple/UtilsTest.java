@@ -23,10 +23,17 @@
 
 package testsuite.simple;
 
+import java.io.InterruptedIOException;
 import java.io.Serializable;
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Method;
 import java.lang.reflect.Proxy;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 
@@ -40,6 +47,9 @@ import com.mysql.jdbc.ResultSetImpl;
 import com.mysql.jdbc.Statement;
 import com.mysql.jdbc.StatementImpl;
 import com.mysql.jdbc.Util;
+import com.mysql.jdbc.util.ConcurrentLRUCache;
+import com.mysql.jdbc.util.SocketChannelInputStream;
+import com.mysql.jdbc.util.SocketChannelSelector;
 
 public class UtilsTest extends BaseTestCase {
     /**
@@ -128,4 +138,156 @@ public class UtilsTest extends BaseTestCase {
             assertTrue(ifacesList.contains(clazz));
         }
     }
-}
\ No newline at end of file
+
+    /**
+     * Tests ConcurrentLRUCache eviction: the cache stays within its bound, recently read entries survive and evicted entries are reported.
+     * 
+     * @throws Exception
+     */
+    public void testConcurrentLRUCache() throws Exception {
+        final List<String> evicted = new ArrayList<String>();
+
+        ConcurrentLRUCache<String, Integer> cache = new ConcurrentLRUCache<String, Integer>(3) {
+            @Override
+            protected void entryEvicted(String key, Integer value) {
+                evicted.add(key);
+            }
+        };
+
+        cache.put("a", 1);
+        cache.put("b", 2);
+        cache.put("c", 3);
+        assertEquals(3, cache.size());
+
+        assertEquals(Integer.valueOf(1), cache.get("a"));
+        cache.put("d", 4);
+
+        assertEquals(3, cache.size());
+        assertEquals(Arrays.asList(new String[] { "b" }), evicted);
+        assertEquals(Integer.valueOf(1), cache.get("a"));
+        assertNull(cache.get("b"));
+
+        // replacing or removing entries isn't eviction
+        cache.put("c", 30);
+        assertEquals(Integer.valueOf(30), cache.get("c"));
+        assertEquals(Integer.valueOf(4), cache.remove("d"));
+        assertEquals(2, cache.size());
+        assertEquals(1, evicted.size());
+
+        // stale entries left behind by removals don't make the cache grow
+        for (int i = 0; i < 1000; i++) {
+            cache.put("e", i);
+            cache.remove("e");
+        }
+        assertEquals(2, cache.size());
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("k" + i, i);
+            assertTrue(cache.size() <= 3);
+        }
+        assertEquals(Integer.valueOf(99), cache.get("k99"));
+
+        cache.clear();
+        assertEquals(0, cache.size());
+        assertNull(cache.get("k99"));
+    }
+
+    /**
+     * Tests ConcurrentLRUCache bounded by the weight of its entries rather than their number.
+     * 
+     * @throws Exception
+     */
+    public void testWeighedConcurrentLRUCache() throws Exception {
+        final List<String> evicted = new ArrayList<String>();
+
+        ConcurrentLRUCache<String, String> cache = new ConcurrentLRUCache<String, String>(Integer.MAX_VALUE) {
+            @Override
+            protected long weigh(String key, String value) {
+                return value.length();
+            }
+
+            @Override
+            protected long getMaxWeight() {
+                return 10;
+            }
+
+            @Override
+            protected void entryEvicted(String key, String value) {
+                evicted.add(key);
+            }
+        };
+
+        cache.put("a", "aaaa");
+        cache.put("b", "bbbb");
+        assertEquals(8, cache.weight());
+
+        assertEquals("aaaa", cache.get("a"));
+        cache.put("c", "cc");
+        assertEquals(10, cache.weight());
+        assertTrue(evicted.isEmpty());
+
+        cache.put("d", "d");
+        assertEquals(Arrays.asList(new String[] { "b" }), evicted);
+        assertEquals(7, cache.weight());
+        assertEquals(3, cache.size());
+
+        // replacing an entry counts its new weight only
+        cache.put("c", "ccccc");
+        assertEquals(10, cache.weight());
+        assertEquals("d", cache.remove("d"));
+        assertEquals(9, cache.weight());
+
+        for (int i = 0; i < 100; i++) {
+            cache.put("k" + i, "kkk");
+            assertTrue(cache.weight() <= 10);
+        }
+
+        cache.clear();
+        assertEquals(0, cache.weight());
+    }
+
+    /**
+     * Tests that reads from SocketChannelInputStream stop when the thread is interrupted instead of spinning, and that they time out after SO_TIMEOUT and
+     * not earlier.
+     */
+    public void testSocketChannelInputStreamWaits() throws Exception {
+        ServerSocket serverSocket = new ServerSocket(0);
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress("127.0.0.1", serverSocket.getLocalPort()));
+        Socket peer = serverSocket.accept();
+
+        try {
+            SocketChannelSelector selector = new SocketChannelSelector(channel);
+            SocketChannelInputStream in = new SocketChannelInputStream(channel, selector, 1024, false);
+
+            // no timeout, nothing to read
+            channel.socket().setSoTimeout(0);
+            Thread.currentThread().interrupt();
+
+            try {
+                in.read();
+                fail("Read should have been interrupted");
+            } catch (InterruptedIOException e) {
+                assertTrue(Thread.interrupted());
+            }
+
+            channel.socket().setSoTimeout(500);
+            long begin = System.currentTimeMillis();
+
+            try {
+                in.read();
+                fail("Read should have timed out");
+            } catch (SocketTimeoutException e) {
+                assertTrue(System.currentTimeMillis() - begin >= 500);
+            }
+
+            peer.getOutputStream().write(42);
+            assertEquals(42, in.read());
+
+            in.close();
+        } finally {
+            peer.close();
+            channel.close();
+            serverSocket.close();
+        }
+    }
+}